@@ -0,0 +1,158 @@
+package com.ecommerce.benchmark.cache;
+
+import com.ecommerce.common.cache.serialization.BinaryRedisSerializer;
+import com.ecommerce.order.cache.CartSummaryCodec;
+import com.ecommerce.order.dto.CartItemDto;
+import com.ecommerce.order.dto.CartSummaryDto;
+import com.ecommerce.product.cache.ProductPageCodec;
+import com.ecommerce.product.cache.ProductResponseCodec;
+import com.ecommerce.product.dto.CategoryResponse;
+import com.ecommerce.product.dto.InventoryResponse;
+import com.ecommerce.product.dto.ProductImageResponse;
+import com.ecommerce.product.dto.ProductResponse;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialize/deserialize cost of the cached values with the JSON serializer
+ * and the binary one, with and without LZ4. Entry sizes are checked by the
+ * codec tests. JSON cannot rebuild a PageImpl at all, so deserialize with
+ * format=json and value=page fails and is reported as such.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheSerializerBenchmark {
+
+    @Param({"json", "binary", "binary-lz4"})
+    public String format;
+
+    @Param({"product", "page", "cart"})
+    public String value;
+
+    private RedisSerializer<Object> serializer;
+    private Object object;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        // The configured JSON serializer, plus what it needs to read our DTOs back at all:
+        // the JSR-310 module and tolerance for derived getters such as isEmpty()
+        RedisSerializer<Object> json = new GenericJackson2JsonRedisSerializer()
+                .configure(mapper -> mapper.registerModule(new JavaTimeModule())
+                        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false));
+        serializer = switch (format) {
+            case "json" -> json;
+            case "binary" -> new BinaryRedisSerializer(
+                    List.of(new ProductResponseCodec(), new ProductPageCodec(), new CartSummaryCodec()), json, -1);
+            case "binary-lz4" -> new BinaryRedisSerializer(
+                    List.of(new ProductResponseCodec(), new ProductPageCodec(), new CartSummaryCodec()), json, 512);
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        };
+        object = switch (value) {
+            case "product" -> product(1L);
+            case "page" -> page();
+            case "cart" -> cart();
+            default -> throw new IllegalArgumentException("Unknown value: " + value);
+        };
+        bytes = serializer.serialize(object);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(object);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(bytes);
+    }
+
+    private static PageImpl<ProductResponse> page() {
+        List<ProductResponse> products = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            products.add(product(id));
+        }
+        return new PageImpl<>(products, PageRequest.of(2, 20, Sort.by("name")), 500);
+    }
+
+    private static CartSummaryDto cart() {
+        List<CartItemDto> items = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            BigDecimal unitPrice = new BigDecimal("19.99");
+            items.add(new CartItemDto(id, id * 10, "Product " + id, "SKU-" + id, unitPrice, "/images/" + id + ".jpg",
+                    (int) id, unitPrice.multiply(BigDecimal.valueOf(id)), LocalDateTime.now(), LocalDateTime.now()));
+        }
+        CartSummaryDto summary = new CartSummaryDto(items);
+        summary.setEstimatedTax(new BigDecimal("25.49"));
+        return summary;
+    }
+
+    private static ProductResponse product(Long id) {
+        CategoryResponse category = new CategoryResponse();
+        category.setId(3L);
+        category.setName("Electronics");
+        category.setDescription("Phones, audio and accessories");
+        category.setIsActive(true);
+        category.setCreatedAt(LocalDateTime.of(2024, 1, 1, 9, 0));
+        category.setUpdatedAt(LocalDateTime.of(2024, 1, 1, 9, 0));
+
+        InventoryResponse inventory = new InventoryResponse();
+        inventory.setProductId(id);
+        inventory.setQuantityAvailable(42);
+        inventory.setQuantityReserved(3);
+        inventory.setReorderLevel(10);
+        inventory.setLastUpdated(LocalDateTime.of(2024, 3, 2, 14, 5));
+        inventory.setInStock(true);
+
+        ProductImageResponse image = new ProductImageResponse();
+        image.setId(id * 10);
+        image.setImageUrl("/uploads/products/" + id + "/main.jpg");
+        image.setAltText("Wireless headphones " + id);
+        image.setDisplayOrder(0);
+        image.setIsPrimary(true);
+        image.setCreatedAt(LocalDateTime.of(2024, 1, 5, 12, 0));
+
+        ProductResponse product = new ProductResponse();
+        product.setId(id);
+        product.setSku("WH-1000-" + id);
+        product.setName("Wireless Noise Cancelling Headphones " + id);
+        product.setDescription("Over-ear wireless headphones with active noise cancelling, 30 hour battery life and quick charge.");
+        product.setPrice(new BigDecimal("199.99"));
+        product.setCategory(category);
+        product.setBrand("Acme");
+        product.setWeight(new BigDecimal("0.25"));
+        product.setDimensions("20x18x8 cm");
+        product.setIsActive(true);
+        product.setCreatedAt(LocalDateTime.of(2024, 1, 5, 12, 0));
+        product.setUpdatedAt(LocalDateTime.of(2024, 3, 2, 14, 5));
+        product.setInventory(inventory);
+        product.setImages(List.of(image));
+        return product;
+    }
+}
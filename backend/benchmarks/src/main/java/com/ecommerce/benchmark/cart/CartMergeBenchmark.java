@@ -0,0 +1,137 @@
+package com.ecommerce.benchmark.cart;
+
+import com.ecommerce.order.cart.CartLine;
+import com.ecommerce.order.cart.CartStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Moving a guest cart into the user's cart at login: a per-line loop of
+ * CartStore calls, one read and one write per guest line, against the
+ * single {@link CartStore#merge} script. Half of the guest lines are also
+ * in the user cart and are clamped against stock. Stock comes from memory
+ * in both cases, so the inventory queries per shared product are not
+ * counted. perLineLoop isolates the cost of the Redis round trips only; the
+ * loop that ran against the shopping_cart table before carts moved to
+ * Redis, inventory checks included, is {@link CartMergeJpaBenchmark}.
+ *
+ * Needs a Redis server; uses database 15 on localhost:6379 unless
+ * -Dredis.host, -Dredis.port or -Dredis.database say otherwise, and
+ * deletes the carts and the change stream there.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CartMergeBenchmark {
+
+    private static final String GUEST_CART = CartStore.guestCart("benchmark");
+    private static final String USER_CART = CartStore.userCart(42L);
+
+    @Param({"10", "100", "1000"})
+    public int lines;
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+    private CartStore cartStore;
+    private Map<String, String> guestEntries;
+    private Map<String, String> userEntries;
+    private Map<Long, Integer> stock;
+
+    @Setup
+    public void setUp() {
+        RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration(
+                System.getProperty("redis.host", "localhost"), Integer.getInteger("redis.port", 6379));
+        configuration.setDatabase(Integer.getInteger("redis.database", 15));
+        connectionFactory = new LettuceConnectionFactory(configuration);
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        // Both carts are written below before every call, so the table is never read
+        cartStore = new CartStore(redisTemplate, null, Duration.ofDays(7), Duration.ofMinutes(5), 5);
+
+        String now = Long.toString(System.currentTimeMillis());
+        guestEntries = new HashMap<>();
+        userEntries = new HashMap<>();
+        stock = new HashMap<>();
+        guestEntries.put("loaded", "1");
+        userEntries.put("loaded", "1");
+        for (long productId = 1; productId <= lines; productId++) {
+            guestEntries.put(Long.toString(productId), "2:" + now + ":" + now);
+            if (productId % 2 == 0) {
+                userEntries.put(Long.toString(productId), "3:" + now + ":" + now);
+                stock.put(productId, (int) (productId % 8));
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void fillCarts() {
+        redisTemplate.delete(List.of("cart:" + GUEST_CART, "cart:" + USER_CART, CartStore.CHANGE_STREAM));
+        redisTemplate.opsForHash().putAll("cart:" + GUEST_CART, guestEntries);
+        redisTemplate.opsForHash().putAll("cart:" + USER_CART, userEntries);
+    }
+
+    @TearDown
+    public void tearDown() {
+        redisTemplate.delete(List.of("cart:" + GUEST_CART, "cart:" + USER_CART, CartStore.CHANGE_STREAM));
+        connectionFactory.destroy();
+    }
+
+    @Benchmark
+    public int perLineLoop() {
+        List<CartLine> guestLines = cartStore.getLines(GUEST_CART);
+        Map<Long, CartLine> userLines = cartStore.getLines(USER_CART).stream()
+                .collect(Collectors.toMap(CartLine::productId, line -> line));
+        for (CartLine guestLine : guestLines) {
+            CartLine userLine = userLines.get(guestLine.productId());
+            if (userLine == null) {
+                cartStore.setQuantity(USER_CART, guestLine.productId(), guestLine.quantity());
+                continue;
+            }
+            int totalQuantity = guestLine.quantity() + userLine.quantity();
+            if (totalQuantity <= stock.getOrDefault(guestLine.productId(), 0)) {
+                cartStore.setQuantity(USER_CART, guestLine.productId(), totalQuantity);
+            }
+        }
+        cartStore.clear(GUEST_CART);
+        return guestLines.size();
+    }
+
+    @Benchmark
+    public int merge() {
+        Set<Long> guestProducts = cartStore.getLines(GUEST_CART).stream()
+                .map(CartLine::productId)
+                .collect(Collectors.toSet());
+        Map<Long, Integer> limits = new HashMap<>();
+        for (CartLine userLine : cartStore.getLines(USER_CART)) {
+            if (guestProducts.contains(userLine.productId())) {
+                limits.put(userLine.productId(), stock.getOrDefault(userLine.productId(), 0));
+            }
+        }
+        return cartStore.merge(GUEST_CART, USER_CART, limits);
+    }
+}
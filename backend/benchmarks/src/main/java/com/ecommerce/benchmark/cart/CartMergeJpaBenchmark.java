@@ -0,0 +1,224 @@
+package com.ecommerce.benchmark.cart;
+
+import com.ecommerce.order.entity.ShoppingCart;
+import com.ecommerce.order.repository.ShoppingCartRepository;
+import com.ecommerce.product.entity.Category;
+import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.entity.ProductInventory;
+import com.ecommerce.product.repository.ProductInventoryRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Baseline for {@link CartMergeBenchmark}: the guest cart transfer as it
+ * ran on the shopping_cart table before carts moved to Redis. For each
+ * product in both carts it does two findBySessionIdAndProductId /
+ * findByUserIdAndProductId lookups, the product and inventory reads of
+ * validateProductAvailability, a save and a delete, then moves the
+ * remaining guest lines with one update. Same cart shapes as the Redis
+ * benchmark: half of the guest lines are also in the user cart, with
+ * stock of index % 8.
+ *
+ * Runs on in-memory H2 in MySQL mode behind Hikari, so it counts the
+ * Hibernate and JDBC work of every round trip but no network latency;
+ * against MySQL the loop only gets slower.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CartMergeJpaBenchmark {
+
+    private static final String SESSION_ID = "benchmark";
+    private static final Long USER_ID = 42L;
+
+    @Param({"10", "100", "1000"})
+    public int lines;
+
+    private AnnotationConfigApplicationContext context;
+    private JpaCartMerge cartMerge;
+    private List<Long> productIds;
+
+    @Setup
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext(JpaConfig.class);
+        cartMerge = context.getBean(JpaCartMerge.class);
+        productIds = cartMerge.createProducts(lines);
+    }
+
+    @Setup(Level.Invocation)
+    public void fillCarts() {
+        cartMerge.fillCarts(SESSION_ID, USER_ID, productIds);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int perLineLoop() {
+        return cartMerge.transferGuestCartToUser(SESSION_ID, USER_ID);
+    }
+
+    /**
+     * The transfer loop of CartService before the Redis cart store, with
+     * the product and inventory lookups of InventoryService inlined
+     */
+    @Transactional
+    public static class JpaCartMerge {
+
+        @Autowired
+        private ShoppingCartRepository cartRepository;
+
+        @Autowired
+        private ProductInventoryRepository inventoryRepository;
+
+        @PersistenceContext
+        private EntityManager entityManager;
+
+        public int transferGuestCartToUser(String sessionId, Long userId) {
+            List<Long> conflictingProducts = cartRepository.findConflictingProducts(sessionId, userId);
+
+            for (Long productId : conflictingProducts) {
+                Optional<ShoppingCart> guestItem = cartRepository.findBySessionIdAndProductId(sessionId, productId);
+                Optional<ShoppingCart> userItem = cartRepository.findByUserIdAndProductId(userId, productId);
+
+                if (guestItem.isPresent() && userItem.isPresent()) {
+                    int totalQuantity = guestItem.get().getQuantity() + userItem.get().getQuantity();
+                    if (isAvailable(productId, totalQuantity)) {
+                        userItem.get().setQuantity(totalQuantity);
+                        cartRepository.save(userItem.get());
+                    }
+                    cartRepository.delete(guestItem.get());
+                }
+            }
+
+            cartRepository.transferGuestCartToUser(sessionId, userId);
+            return conflictingProducts.size();
+        }
+
+        // The queries of InventoryService.validateProductAvailability
+        private boolean isAvailable(Long productId, int requestedQuantity) {
+            Product product = entityManager.find(Product.class, productId);
+            if (product == null || !product.getIsActive()) {
+                return false;
+            }
+            return inventoryRepository.findByProductId(productId)
+                    .map(inventory -> inventory.isInStock() && inventory.canReserve(requestedQuantity))
+                    .orElse(false);
+        }
+
+        public List<Long> createProducts(int count) {
+            Category category = new Category("Benchmark", "Cart merge benchmark");
+            entityManager.persist(category);
+            List<Long> ids = new ArrayList<>(count);
+            for (int index = 1; index <= count; index++) {
+                Product product = new Product("SKU-" + index, "Product " + index, "Description",
+                        new BigDecimal("19.99"), category);
+                product.setInventory(new ProductInventory(product, index % 8));
+                entityManager.persist(product);
+                ids.add(product.getId());
+            }
+            return ids;
+        }
+
+        /**
+         * Guest cart with every product, user cart with every second one
+         */
+        public void fillCarts(String sessionId, Long userId, List<Long> productIds) {
+            cartRepository.deleteBySessionId(sessionId);
+            cartRepository.deleteByUserId(userId);
+            List<ShoppingCart> items = new ArrayList<>();
+            for (int index = 1; index <= productIds.size(); index++) {
+                Long productId = productIds.get(index - 1);
+                items.add(new ShoppingCart(sessionId, productId, 2));
+                if (index % 2 == 0) {
+                    items.add(new ShoppingCart(userId, productId, 3));
+                }
+            }
+            cartRepository.saveAll(items);
+            entityManager.flush();
+            entityManager.clear();
+        }
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    @EnableJpaRepositories(basePackageClasses = {ShoppingCartRepository.class, ProductInventoryRepository.class},
+        includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE,
+            classes = {ShoppingCartRepository.class, ProductInventoryRepository.class}))
+    static class JpaConfig {
+
+        @Bean(destroyMethod = "close")
+        public HikariDataSource dataSource() {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setJdbcUrl("jdbc:h2:mem:cart-merge;MODE=MySQL;DB_CLOSE_DELAY=-1");
+            dataSource.setUsername("sa");
+            return dataSource;
+        }
+
+        @Bean
+        public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+            LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+            factory.setDataSource(dataSource);
+            factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            factory.setPackagesToScan("com.ecommerce.order.entity", "com.ecommerce.product.entity");
+            // Schema and naming as Spring Boot sets them up for the services
+            factory.setJpaPropertyMap(Map.of(
+                    "hibernate.hbm2ddl.auto", "create-drop",
+                    "hibernate.physical_naming_strategy",
+                    "org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy",
+                    "hibernate.implicit_naming_strategy",
+                    "org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy"));
+            return factory;
+        }
+
+        @Bean
+        public JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+            return new JpaTransactionManager(entityManagerFactory);
+        }
+
+        @Bean
+        public JpaCartMerge jpaCartMerge() {
+            return new JpaCartMerge();
+        }
+    }
+}
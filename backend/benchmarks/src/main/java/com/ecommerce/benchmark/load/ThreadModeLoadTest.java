@@ -0,0 +1,190 @@
+package com.ecommerce.benchmark.load;
+
+import com.ecommerce.user.util.JwtUtil;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Load against a running server, for comparing the platform-thread and
+ * virtual-thread modes: holds open SSE notification streams while
+ * concurrent clients call a JDBC-backed endpoint, then reports how many
+ * streams the server accepted, the request throughput and latency, the
+ * server's live thread count and its Hikari connections (active and
+ * pending, summed over the service pools). Virtual threads remove the
+ * thread ceiling but not the pool's, so requests that no longer wait for a
+ * thread show up as pending connections. Run it once against each mode
+ * with the same settings:
+ *
+ * <pre>
+ * java -Dload.sse=2000 -Dload.concurrency=200 -cp benchmarks/target/benchmarks.jar \
+ *     com.ecommerce.benchmark.load.ThreadModeLoadTest
+ * </pre>
+ *
+ * Settings (system properties): load.url, load.path, load.sse,
+ * load.concurrency, load.seconds and load.jwt-secret, which must match
+ * the server's jwt.secret.
+ */
+public class ThreadModeLoadTest {
+
+    private static final String BASE_URL = System.getProperty("load.url", "http://localhost:8080");
+    private static final String PATH = System.getProperty("load.path", "/api/orders/my-orders?page=0&size=10");
+    private static final int SSE_STREAMS = Integer.getInteger("load.sse", 1000);
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 200);
+    private static final int SECONDS = Integer.getInteger("load.seconds", 60);
+    private static final String JWT_SECRET = System.getProperty("load.jwt-secret",
+            "mySecretKey123456789012345678901234567890");
+
+    private static final Pattern MEASUREMENT = Pattern.compile("\"value\"\\s*:\\s*([0-9.Ee+-]+)");
+
+    public static void main(String[] args) throws Exception {
+        String token = new JwtUtil(JWT_SECRET, 3_600_000L, 3_600_000L).generateToken("load@example.com", 1L, "ADMIN");
+        // One connection per stream, as browsers hold them
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newFixedThreadPool(8))
+                .build();
+
+        double threadsBefore = metric(client, token, "jvm.threads.live");
+        System.out.printf("Server threads before: %.0f%n", threadsBefore);
+
+        // Streams are read asynchronously, so holding them needs no client threads
+        AtomicInteger openStreams = new AtomicInteger();
+        AtomicInteger failedStreams = new AtomicInteger();
+        CountDownLatch streamsSettled = new CountDownLatch(SSE_STREAMS);
+        List<CompletableFuture<HttpResponse<Stream<String>>>> streams = new ArrayList<>(SSE_STREAMS);
+        for (int i = 0; i < SSE_STREAMS; i++) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(BASE_URL + "/api/notifications/stream"))
+                    .header("Authorization", "Bearer " + token)
+                    .header("Accept", "text/event-stream")
+                    .GET()
+                    .build();
+            streams.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofLines())
+                    .whenComplete((response, error) -> {
+                        if (error == null && response.statusCode() == 200) {
+                            openStreams.incrementAndGet();
+                        } else {
+                            failedStreams.incrementAndGet();
+                        }
+                        streamsSettled.countDown();
+                    }));
+        }
+        streamsSettled.await(2, TimeUnit.MINUTES);
+        System.out.printf("SSE streams open: %d of %d (%d failed)%n", openStreams.get(), SSE_STREAMS, failedStreams.get());
+
+        long[] latencies = new long[1 << 22];
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SECONDS);
+        ExecutorService workers = Executors.newFixedThreadPool(CONCURRENCY);
+        HttpRequest call = HttpRequest.newBuilder(URI.create(BASE_URL + PATH))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        long start = System.nanoTime();
+        for (int i = 0; i < CONCURRENCY; i++) {
+            workers.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    long requestStart = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(call, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                        continue;
+                    }
+                    int n = completed.getAndIncrement();
+                    if (n < latencies.length) {
+                        latencies[n] = System.nanoTime() - requestStart;
+                    }
+                }
+            });
+        }
+        double peakThreads = 0;
+        double peakActive = 0;
+        double peakPending = 0;
+        while (System.nanoTime() < deadline) {
+            Thread.sleep(1000);
+            double threads = metric(client, token, "jvm.threads.live");
+            double active = metric(client, token, "hikaricp.connections.active");
+            double pending = metric(client, token, "hikaricp.connections.pending");
+            if (!Double.isNaN(threads)) {
+                peakThreads = Math.max(peakThreads, threads);
+            }
+            if (!Double.isNaN(active)) {
+                peakActive = Math.max(peakActive, active);
+            }
+            if (!Double.isNaN(pending)) {
+                peakPending = Math.max(peakPending, pending);
+            }
+        }
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.MINUTES);
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        int samples = Math.min(completed.get(), latencies.length);
+        long[] sorted = Arrays.copyOf(latencies, samples);
+        Arrays.sort(sorted);
+
+        System.out.println("=== Thread mode load test ===");
+        System.out.printf("Endpoint:            %s%s%n", BASE_URL, PATH);
+        System.out.printf("SSE streams:         %d requested, %d opened%n", SSE_STREAMS, openStreams.get());
+        System.out.printf("Request clients:     %d for %d s%n", CONCURRENCY, SECONDS);
+        System.out.printf("Requests:            %d ok, %d failed%n", completed.get(), errors.get());
+        System.out.printf("Throughput:          %.1f req/s%n", completed.get() / elapsedSeconds);
+        System.out.printf("Latency p50/p99/max: %.1f / %.1f / %.1f ms%n",
+                percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 1.0));
+        System.out.printf("Server threads:      %.0f before, %.0f peak under load%n", threadsBefore, peakThreads);
+        System.out.printf("Hikari connections:  %.0f peak active of %.0f max, %.0f peak pending%n",
+                peakActive, metric(client, token, "hikaricp.connections.max"), peakPending);
+
+        streams.forEach(stream -> stream.thenAccept(response -> response.body().close()));
+        System.exit(0);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    /**
+     * Current value of a server gauge from the actuator metrics endpoint
+     */
+    private static double metric(HttpClient client, String token, String name) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(BASE_URL + "/actuator/metrics/" + name))
+                    .header("Authorization", "Bearer " + token)
+                    .timeout(Duration.ofSeconds(10))
+                    .GET()
+                    .build();
+            String body = client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+            Matcher matcher = MEASUREMENT.matcher(body);
+            return matcher.find() ? Double.parseDouble(matcher.group(1)) : Double.NaN;
+        } catch (Exception e) {
+            return Double.NaN;
+        }
+    }
+}
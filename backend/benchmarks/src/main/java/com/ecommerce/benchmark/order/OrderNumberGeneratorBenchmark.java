@@ -0,0 +1,49 @@
+package com.ecommerce.benchmark.order;
+
+import com.ecommerce.order.service.OrderNumberGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order numbers per second from one generator, alone and shared by several
+ * threads contending on its sequence. Above 4096 numbers per millisecond the
+ * timestamp runs ahead of the clock instead of blocking, so the contended
+ * figure is bounded by the CAS loop rather than the clock.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderNumberGeneratorBenchmark {
+
+    private OrderNumberGenerator generator;
+
+    @Setup
+    public void setUp() {
+        generator = new OrderNumberGenerator(1, 1_000L);
+    }
+
+    @Benchmark
+    public String next() {
+        return generator.next();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String nextContended() {
+        return generator.next();
+    }
+}
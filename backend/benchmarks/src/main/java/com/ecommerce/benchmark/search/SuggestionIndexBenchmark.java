@@ -0,0 +1,80 @@
+package com.ecommerce.benchmark.search;
+
+import com.ecommerce.product.dto.SearchSuggestionResponse;
+import com.ecommerce.product.entity.Category;
+import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.search.ProductSuggestionIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Autocomplete latency of the in-memory suggestion index for short typed
+ * prefixes. Sampled, so the report includes p99 and p99.9 alongside the
+ * mean; the lookup walks the prefix only, so the numbers should barely move
+ * between catalog sizes.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SuggestionIndexBenchmark {
+
+    private static final String[] WORDS = {"wireless", "wired", "smart", "portable", "mini", "pro", "ultra", "eco", "classic", "sport"};
+    private static final String[] NOUNS = {"headphones", "speaker", "watch", "charger", "camera", "lamp", "keyboard", "mouse", "bottle", "bag"};
+    private static final String[] BRANDS = {"Acme", "Northwind", "Globex", "Initech", "Umbrella", "Soylent"};
+
+    @Param({"10000", "200000"})
+    public int products;
+
+    private ProductSuggestionIndex suggestionIndex;
+    private String[] prefixes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        Category[] categories = new Category[NOUNS.length];
+        for (int i = 0; i < categories.length; i++) {
+            categories[i] = new Category(NOUNS[i], null);
+            categories[i].setId((long) i + 1);
+        }
+
+        suggestionIndex = new ProductSuggestionIndex();
+        for (long id = 1; id <= products; id++) {
+            int noun = random.nextInt(NOUNS.length);
+            Product product = new Product("SKU-" + id,
+                    WORDS[random.nextInt(WORDS.length)] + " " + NOUNS[noun] + " " + random.nextInt(50_000),
+                    null, BigDecimal.TEN, categories[noun]);
+            product.setId(id);
+            product.setBrand(BRANDS[random.nextInt(BRANDS.length)]);
+            suggestionIndex.index(product);
+        }
+
+        prefixes = new String[1024];
+        for (int i = 0; i < prefixes.length; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            prefixes[i] = word.substring(0, Math.min(word.length(), 2 + random.nextInt(word.length() - 1)));
+        }
+    }
+
+    @Benchmark
+    public SearchSuggestionResponse suggest() {
+        String prefix = prefixes[next++ & (prefixes.length - 1)];
+        return suggestionIndex.suggest(prefix);
+    }
+}
@@ -0,0 +1,193 @@
+package com.ecommerce.benchmark.security;
+
+import com.ecommerce.user.config.SecurityConfig;
+import com.ecommerce.user.security.JwtAuthenticationFilter;
+import com.ecommerce.user.security.JwtClaimsCache;
+import com.ecommerce.user.security.TokenRevocationService;
+import com.ecommerce.user.service.CustomUserDetailsService;
+import com.ecommerce.user.util.JwtUtil;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of authentication: the JWT filter on its own, and the
+ * whole Spring Security chain from {@link SecurityConfig} on an API request.
+ * Run with {@code -prof gc} for the bytes allocated per request.
+ *
+ * The chain benchmarks build a fresh mock request and response per call,
+ * as a container would; {@link #mockRequestBaseline()} measures just that,
+ * to be subtracted from them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final String API_PATH = "/api/orders";
+    private static final String AUTHENTICATION = JwtAuthenticationFilterBenchmark.class.getName() + ".AUTHENTICATION";
+
+    // Stands in for the dispatcher: records who the request was authenticated as
+    private static final FilterChain APPLICATION = (request, response) -> {
+        request.setAttribute(AUTHENTICATION, SecurityContextHolder.getContext().getAuthentication());
+        SecurityContextHolder.clearContext();
+    };
+
+    private AnnotationConfigWebApplicationContext context;
+    private JwtAuthenticationFilter jwtFilter;
+    private JwtClaimsCache claimsCache;
+    private Filter securityFilterChain;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = new AnnotationConfigWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.register(BenchmarkSecurityConfig.class);
+        context.refresh();
+
+        jwtFilter = context.getBean(JwtAuthenticationFilter.class);
+        claimsCache = context.getBean(JwtClaimsCache.class);
+        securityFilterChain = context.getBean("springSecurityFilterChain", Filter.class);
+        token = context.getBean(JwtUtil.class).generateToken(JwtUtilBenchmark.EMAIL, JwtUtilBenchmark.USER_ID,
+                JwtUtilBenchmark.ROLE);
+
+        // Measuring a rejected request by mistake would look like a large speed-up
+        if (securityChain() == null || jwtFilterOnly(new Requests(this)) == null) {
+            throw new IllegalStateException("Benchmark request was not authenticated");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Requests reused by one thread; the JWT filter leaves them as it found them
+     */
+    @State(Scope.Thread)
+    public static class Requests {
+        final MockHttpServletRequest bearer = new MockHttpServletRequest("GET", API_PATH);
+        final MockHttpServletRequest anonymous = new MockHttpServletRequest("GET", API_PATH);
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        public Requests() {
+        }
+
+        Requests(JwtAuthenticationFilterBenchmark benchmark) {
+            setUp(benchmark);
+        }
+
+        @Setup
+        public void setUp(JwtAuthenticationFilterBenchmark benchmark) {
+            bearer.addHeader("Authorization", "Bearer " + benchmark.token);
+        }
+    }
+
+    @Benchmark
+    public Object jwtFilterOnly(Requests requests) throws Exception {
+        jwtFilter.doFilter(requests.bearer, requests.response, APPLICATION);
+        return requests.bearer.getAttribute(AUTHENTICATION);
+    }
+
+    @Benchmark
+    public Object jwtFilterUncachedToken(Requests requests) throws Exception {
+        // Signature verification on every call, as for the first request with a token
+        claimsCache.clear();
+        jwtFilter.doFilter(requests.bearer, requests.response, APPLICATION);
+        return requests.bearer.getAttribute(AUTHENTICATION);
+    }
+
+    @Benchmark
+    public Object jwtFilterAnonymous(Requests requests) throws Exception {
+        jwtFilter.doFilter(requests.anonymous, requests.response, APPLICATION);
+        return requests.anonymous.getAttribute(AUTHENTICATION);
+    }
+
+    @Benchmark
+    public Authentication securityChain() throws Exception {
+        HttpServletRequest request = apiRequest();
+        securityFilterChain.doFilter(request, new MockHttpServletResponse(), APPLICATION);
+        return (Authentication) request.getAttribute(AUTHENTICATION);
+    }
+
+    @Benchmark
+    public Object mockRequestBaseline() {
+        HttpServletRequest request = apiRequest();
+        return new Object[] { request, new MockHttpServletResponse() };
+    }
+
+    private HttpServletRequest apiRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", API_PATH);
+        request.setServletPath(API_PATH);
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+
+    /**
+     * The user service's security configuration, with the token beans built
+     * by hand: a secret long enough for HS256 and no Redis
+     */
+    @Configuration
+    @EnableWebMvc
+    @Import(SecurityConfig.class)
+    public static class BenchmarkSecurityConfig {
+
+        @Bean
+        public JwtUtil jwtUtil() {
+            return new JwtUtil(JwtUtilBenchmark.SECRET, 86_400_000L, 604_800_000L);
+        }
+
+        @Bean
+        public TokenRevocationService tokenRevocationService(ObjectProvider<StringRedisTemplate> redisTemplate,
+                                                             ObjectProvider<RedisMessageListenerContainer> listenerContainer) {
+            return new TokenRevocationService(redisTemplate, listenerContainer, 604_800_000L);
+        }
+
+        @Bean
+        public JwtClaimsCache jwtClaimsCache(JwtUtil jwtUtil, TokenRevocationService revocationService) {
+            return new JwtClaimsCache(jwtUtil, revocationService, 10_000);
+        }
+
+        @Bean
+        public JwtAuthenticationFilter jwtAuthenticationFilter(JwtClaimsCache claimsCache) {
+            return new JwtAuthenticationFilter(claimsCache);
+        }
+
+        @Bean
+        public CustomUserDetailsService customUserDetailsService() {
+            // Only password logins read users; bearer requests never do
+            return new CustomUserDetailsService(null);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.ecommerce.common.cache;
+
+/**
+ * Point-in-time hit/miss/eviction counters for one two-level cache
+ */
+public class CacheStatistics {
+    private String cacheName;
+    private long localHits;
+    private long remoteHits;
+    private long misses;
+    private long puts;
+    private long evictions;
+    private long localEvictions;
+    private long remoteInvalidations;
+    private long localSize;
+    
+    public CacheStatistics() {}
+    
+    public CacheStatistics(String cacheName, long localHits, long remoteHits, long misses, long puts,
+                           long evictions, long localEvictions, long remoteInvalidations, long localSize) {
+        this.cacheName = cacheName;
+        this.localHits = localHits;
+        this.remoteHits = remoteHits;
+        this.misses = misses;
+        this.puts = puts;
+        this.evictions = evictions;
+        this.localEvictions = localEvictions;
+        this.remoteInvalidations = remoteInvalidations;
+        this.localSize = localSize;
+    }
+    
+    public String getCacheName() {
+        return cacheName;
+    }
+    
+    /**
+     * Lookups answered from the in-heap L1 cache
+     */
+    public long getLocalHits() {
+        return localHits;
+    }
+    
+    /**
+     * Lookups that missed L1 and were answered by Redis
+     */
+    public long getRemoteHits() {
+        return remoteHits;
+    }
+    
+    public long getMisses() {
+        return misses;
+    }
+    
+    public long getPuts() {
+        return puts;
+    }
+    
+    /**
+     * Explicit evictions and clears issued on this node
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+    
+    /**
+     * L1 entries dropped for size or expiry
+     */
+    public long getLocalEvictions() {
+        return localEvictions;
+    }
+    
+    /**
+     * L1 invalidations received from other nodes over pub/sub
+     */
+    public long getRemoteInvalidations() {
+        return remoteInvalidations;
+    }
+    
+    public long getLocalSize() {
+        return localSize;
+    }
+    
+    public double getHitRatio() {
+        long lookups = localHits + remoteHits + misses;
+        return lookups == 0 ? 0.0 : (double) (localHits + remoteHits) / lookups;
+    }
+}
@@ -0,0 +1,21 @@
+package com.ecommerce.common.cache;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Shared tag -> cache entry index used for tag-based eviction. Entries are
+ * opaque strings identifying a cache and key.
+ */
+public interface CacheTagIndex {
+    
+    /**
+     * Record that the entry carries each of the given tags
+     */
+    void add(String entry, Collection<String> tags);
+    
+    /**
+     * Remove and return every entry recorded under the tag
+     */
+    Set<String> remove(String tag);
+}
@@ -0,0 +1,23 @@
+package com.ecommerce.common.cache;
+
+import java.util.Collection;
+
+/**
+ * Derives the invalidation tags of values stored in specific caches, e.g.
+ * the products on a cached catalog page. Beans of this type are registered
+ * with the {@link TwoLevelCacheManager}, which indexes every stored entry
+ * under its tags so {@link TwoLevelCacheManager#evictTagged} can evict
+ * exactly the entries affected by a change.
+ */
+public interface CacheTagResolver {
+    
+    /**
+     * Caches whose values this resolver understands
+     */
+    Collection<String> getCacheNames();
+    
+    /**
+     * Tags of a value about to be stored; empty if it should not be indexed
+     */
+    Collection<String> getTags(Object value);
+}
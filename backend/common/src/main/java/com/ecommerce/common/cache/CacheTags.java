@@ -0,0 +1,32 @@
+package com.ecommerce.common.cache;
+
+/**
+ * Names of the tags cached entries are indexed under
+ */
+public final class CacheTags {
+    
+    private CacheTags() {}
+    
+    /**
+     * Tag for every cached entry that contains the given product
+     */
+    public static String product(Long productId) {
+        return "product:" + productId;
+    }
+    
+    /**
+     * Tag for every cached listing of the given category, whichever products
+     * it currently shows
+     */
+    public static String category(Long categoryId) {
+        return "category:" + categoryId;
+    }
+    
+    /**
+     * Tag for every cached listing of active (or inactive) products, whichever
+     * products it currently shows
+     */
+    public static String status(boolean active) {
+        return active ? "status:active" : "status:inactive";
+    }
+}
@@ -0,0 +1,55 @@
+package com.ecommerce.common.cache;
+
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Tag index kept as one Redis set per tag. Sets expire once no entry has
+ * been added for longer than the longest cache TTL, so members pointing at
+ * entries that already expired on their own do not accumulate.
+ */
+public class RedisCacheTagIndex implements CacheTagIndex {
+    
+    private static final String KEY_PREFIX = "cache-tag:";
+    
+    private final StringRedisTemplate redisTemplate;
+    private final long ttlSeconds;
+    
+    public RedisCacheTagIndex(StringRedisTemplate redisTemplate, Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.ttlSeconds = ttl.getSeconds();
+    }
+    
+    @Override
+    public void add(String entry, Collection<String> tags) {
+        if (tags.isEmpty()) {
+            return;
+        }
+        // One round trip for all tags of the entry
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (String tag : tags) {
+                stringConnection.sAdd(KEY_PREFIX + tag, entry);
+                stringConnection.expire(KEY_PREFIX + tag, ttlSeconds);
+            }
+            return null;
+        });
+    }
+    
+    @Override
+    public Set<String> remove(String tag) {
+        String key = KEY_PREFIX + tag;
+        Set<String> entries = redisTemplate.opsForSet().members(key);
+        if (entries == null || entries.isEmpty()) {
+            return Set.of();
+        }
+        // Remove only what was read so entries tagged concurrently survive
+        redisTemplate.opsForSet().remove(key, entries.toArray());
+        return entries;
+    }
+}
@@ -0,0 +1,230 @@
+package com.ecommerce.common.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache with a bounded in-heap L1 (Caffeine) in front of a shared L2 (Redis).
+ * Reads try L1 first and populate it from L2; writes and evictions go to L2
+ * and are broadcast so every node drops its L1 copy of the key.
+ */
+public class TwoLevelCache implements Cache {
+    
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> local;
+    private final Cache remote;
+    private final RemoteMultiGet remoteMultiGet;
+    private final TwoLevelCacheManager.InvalidationPublisher publisher;
+    private final CacheTagIndex tagIndex;
+    private final boolean allowNullValues;
+    private volatile CacheTagResolver tagResolver;
+    
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder remoteInvalidations = new LongAdder();
+    
+    TwoLevelCache(String name, com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> local,
+                  Cache remote, RemoteMultiGet remoteMultiGet, TwoLevelCacheManager.InvalidationPublisher publisher,
+                  CacheTagIndex tagIndex) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.remoteMultiGet = remoteMultiGet;
+        this.publisher = publisher;
+        this.tagIndex = tagIndex;
+        // Follows the L2 cache, i.e. spring.cache.redis.cache-null-values for Redis
+        this.allowNullValues = !(remote instanceof AbstractValueAdaptingCache adapting) || adapting.isAllowNullValues();
+    }
+    
+    @Override
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+    
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+        ValueWrapper value = local.getIfPresent(localKey);
+        if (value != null) {
+            localHits.increment();
+            return value;
+        }
+        
+        value = remote.get(key);
+        if (value != null) {
+            remoteHits.increment();
+            local.put(localKey, value);
+        } else {
+            misses.increment();
+        }
+        return value;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper value = get(key);
+        if (value == null) {
+            return null;
+        }
+        Object stored = value.get();
+        if (stored != null && type != null && !type.isInstance(stored)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + stored);
+        }
+        return (T) stored;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper value = get(key);
+        if (value != null) {
+            return (T) value.get();
+        }
+        
+        T loaded;
+        try {
+            loaded = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        // Same path as an explicit put: L2 write, stats, tags and the L1 invalidation broadcast
+        if (loaded != null || allowNullValues) {
+            put(key, loaded);
+        }
+        return loaded;
+    }
+    
+    /**
+     * Values of many keys with at most one L2 round trip: keys held in L1
+     * are served from it and the rest are read from L2 together. Keys
+     * cached in neither level are left out of the result.
+     */
+    public Map<Object, Object> getAll(Collection<?> keys) {
+        Map<Object, Object> values = new HashMap<>();
+        List<Object> remoteKeys = new ArrayList<>();
+        for (Object key : keys) {
+            ValueWrapper value = local.getIfPresent(localKey(key));
+            if (value != null) {
+                localHits.increment();
+                values.put(key, value.get());
+            } else {
+                remoteKeys.add(key);
+            }
+        }
+        if (remoteKeys.isEmpty()) {
+            return values;
+        }
+        
+        Map<Object, ValueWrapper> remoteValues = remoteMultiGet.getAll(remote, remoteKeys);
+        for (Object key : remoteKeys) {
+            ValueWrapper value = remoteValues.get(key);
+            if (value != null) {
+                remoteHits.increment();
+                local.put(localKey(key), value);
+                values.put(key, value.get());
+            } else {
+                misses.increment();
+            }
+        }
+        return values;
+    }
+    
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        puts.increment();
+        local.put(localKey(key), new SimpleValueWrapper(value));
+        publisher.publishEvict(name, localKey(key));
+        recordTags(key, value);
+    }
+    
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        evictions.increment();
+        local.invalidate(localKey(key));
+        publisher.publishEvict(name, localKey(key));
+    }
+    
+    @Override
+    public void clear() {
+        remote.clear();
+        evictions.increment();
+        local.invalidateAll();
+        publisher.publishClear(name);
+    }
+    
+    /**
+     * Drop an L1 entry because another node changed it
+     */
+    void invalidateLocal(String key) {
+        remoteInvalidations.increment();
+        local.invalidate(key);
+    }
+    
+    /**
+     * Drop all L1 entries because another node cleared the cache
+     */
+    void clearLocal() {
+        remoteInvalidations.increment();
+        local.invalidateAll();
+    }
+    
+    void setTagResolver(CacheTagResolver tagResolver) {
+        this.tagResolver = tagResolver;
+    }
+    
+    public CacheStatistics getStatistics() {
+        return new CacheStatistics(name, localHits.sum(), remoteHits.sum(), misses.sum(), puts.sum(),
+                evictions.sum(), local.stats().evictionCount(), remoteInvalidations.sum(), local.estimatedSize());
+    }
+    
+    /**
+     * Index the entry under the tags of its value so a change to anything it
+     * contains evicts just this entry
+     */
+    private void recordTags(Object key, Object value) {
+        CacheTagResolver resolver = tagResolver;
+        if (resolver == null || tagIndex == null || value == null) {
+            return;
+        }
+        Collection<String> tags = resolver.getTags(value);
+        if (!tags.isEmpty()) {
+            tagIndex.add(TwoLevelCacheManager.tagEntry(name, localKey(key)), tags);
+        }
+    }
+    
+    /**
+     * Reads several keys of an L2 cache together; keys missing from the
+     * result are misses
+     */
+    interface RemoteMultiGet {
+        Map<Object, ValueWrapper> getAll(Cache remote, List<Object> keys);
+    }
+    
+    /**
+     * L1 keys use the string form of the cache key, the same form Redis keys
+     * and invalidation messages use, so a Long id and its string match
+     */
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
@@ -0,0 +1,228 @@
+package com.ecommerce.common.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.NullValue;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.util.ByteUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * CacheManager that puts a per-node Caffeine L1 in front of each cache of a
+ * shared (Redis) L2 cache manager. Changes made on one node are published on
+ * {@link #INVALIDATION_CHANNEL} so the other nodes drop their L1 copies; the
+ * L1 TTL bounds staleness if a message is ever lost.
+ *
+ * Caches with a registered {@link CacheTagResolver} also index their entries
+ * in a {@link CacheTagIndex}, so {@link #evictTagged} can evict only the
+ * entries that contain a changed item instead of clearing the whole cache.
+ */
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TwoLevelCacheManager.class);
+    
+    public static final String INVALIDATION_CHANNEL = "cache:l1-invalidation";
+    
+    private static final char EVICT = 'E';
+    private static final char CLEAR = 'C';
+    
+    private final CacheManager remoteCacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final CacheTagIndex tagIndex;
+    private final long localMaximumSize;
+    private final Duration localTtl;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CacheTagResolver> tagResolvers = new ConcurrentHashMap<>();
+    private final InvalidationPublisher publisher = new InvalidationPublisher();
+    
+    public TwoLevelCacheManager(CacheManager remoteCacheManager, StringRedisTemplate redisTemplate,
+                                CacheTagIndex tagIndex, long localMaximumSize, Duration localTtl) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.tagIndex = tagIndex;
+        this.localMaximumSize = localMaximumSize;
+        this.localTtl = localTtl;
+    }
+    
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+    
+    @Override
+    public Collection<String> getCacheNames() {
+        return remoteCacheManager.getCacheNames();
+    }
+    
+    /**
+     * Index entries of the resolver's caches under the tags of their values
+     */
+    public void registerTagResolver(CacheTagResolver resolver) {
+        for (String cacheName : resolver.getCacheNames()) {
+            tagResolvers.put(cacheName, resolver);
+            TwoLevelCache cache = caches.get(cacheName);
+            if (cache != null) {
+                cache.setTagResolver(resolver);
+            }
+        }
+    }
+    
+    /**
+     * Evict every entry, in any cache, that was stored with the given tag.
+     * Returns the number of entries evicted.
+     */
+    public int evictTagged(String tag) {
+        if (tagIndex == null) {
+            return 0;
+        }
+        
+        int evicted = 0;
+        for (String entry : tagIndex.remove(tag)) {
+            String[] parts = entry.split("\n", 2);
+            Cache cache = parts.length == 2 ? getCache(parts[0]) : null;
+            if (cache != null) {
+                cache.evict(parts[1]);
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+    
+    /**
+     * Statistics for every cache that has been used on this node, by cache name
+     */
+    public Map<String, CacheStatistics> getStatistics() {
+        Map<String, CacheStatistics> statistics = new TreeMap<>();
+        caches.forEach((name, cache) -> statistics.put(name, cache.getStatistics()));
+        return statistics;
+    }
+    
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\n", 4);
+        if (parts.length < 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        
+        TwoLevelCache cache = caches.get(parts[1]);
+        if (cache == null) {
+            return;
+        }
+        
+        if (parts[2].charAt(0) == CLEAR) {
+            cache.clearLocal();
+        } else if (parts.length == 4) {
+            cache.invalidateLocal(parts[3]);
+        }
+    }
+    
+    private TwoLevelCache createCache(String name) {
+        Cache remote = remoteCacheManager.getCache(name);
+        if (remote == null) {
+            return null;
+        }
+        
+        com.github.benmanes.caffeine.cache.Cache<String, Cache.ValueWrapper> local = Caffeine.newBuilder()
+                .maximumSize(localMaximumSize)
+                .expireAfterWrite(localTtl)
+                .recordStats()
+                .build();
+        TwoLevelCache cache = new TwoLevelCache(name, local, remote, this::remoteGetAll, publisher, tagIndex);
+        cache.setTagResolver(tagResolvers.get(name));
+        return cache;
+    }
+    
+    /**
+     * Read keys of an L2 cache with one MGET when it is a Redis cache, one
+     * at a time otherwise. A failed read counts as all misses.
+     */
+    private Map<Object, Cache.ValueWrapper> remoteGetAll(Cache remote, List<Object> keys) {
+        Map<Object, Cache.ValueWrapper> values = new HashMap<>();
+        if (redisTemplate == null || !(remote instanceof RedisCache redisCache)) {
+            for (Object key : keys) {
+                Cache.ValueWrapper value = remote.get(key);
+                if (value != null) {
+                    values.put(key, value);
+                }
+            }
+            return values;
+        }
+        
+        // Same keys and value format as RedisCache.get
+        RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+        String prefix = config.usePrefix() ? config.getKeyPrefixFor(redisCache.getName()) : "";
+        byte[][] rawKeys = new byte[keys.size()][];
+        for (int i = 0; i < rawKeys.length; i++) {
+            rawKeys[i] = ByteUtils.getBytes(config.getKeySerializationPair().write(prefix + keys.get(i)));
+        }
+        List<byte[]> rawValues;
+        try {
+            rawValues = redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                    connection.stringCommands().mGet(rawKeys));
+        } catch (RuntimeException e) {
+            logger.warn("Failed to read {} keys of cache {}: {}", keys.size(), redisCache.getName(), e.getMessage());
+            return values;
+        }
+        for (int i = 0; rawValues != null && i < keys.size(); i++) {
+            byte[] raw = rawValues.get(i);
+            if (raw != null) {
+                Object value = config.getValueSerializationPair().read(ByteBuffer.wrap(raw));
+                values.put(keys.get(i), new SimpleValueWrapper(value instanceof NullValue ? null : value));
+            }
+        }
+        return values;
+    }
+    
+    /**
+     * Tag index member identifying a key of a cache
+     */
+    static String tagEntry(String cacheName, String key) {
+        return cacheName + "\n" + key;
+    }
+    
+    /**
+     * Broadcasts L1 invalidations to the other nodes
+     */
+    class InvalidationPublisher {
+        
+        void publishEvict(String cacheName, String key) {
+            publish(nodeId + "\n" + cacheName + "\n" + EVICT + "\n" + key);
+        }
+        
+        void publishClear(String cacheName) {
+            publish(nodeId + "\n" + cacheName + "\n" + CLEAR);
+        }
+        
+        private void publish(String message) {
+            if (redisTemplate == null) {
+                return;
+            }
+            try {
+                redisTemplate.convertAndSend(INVALIDATION_CHANNEL, message);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to publish cache invalidation; other nodes rely on L1 expiry", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.ecommerce.common.cache.serialization;
+
+/**
+ * Hand-written binary layout for one cached type. Fields are written in a
+ * fixed order without names or type hints, so a codec must only ever append
+ * fields; changing the layout of an existing field needs a new type id.
+ */
+public interface BinaryCodec<T> {
+    
+    /**
+     * Identifier written in front of every value; unique across codecs and
+     * never reused for a different layout
+     */
+    int getTypeId();
+    
+    Class<T> getType();
+    
+    /**
+     * Whether this codec can write the value. Defaults to an exact class
+     * match so subclasses with extra state fall back to JSON.
+     */
+    default boolean canEncode(Object value) {
+        return value.getClass() == getType();
+    }
+    
+    void write(BinaryWriter out, T value);
+    
+    T read(BinaryReader in);
+}
@@ -0,0 +1,127 @@
+package com.ecommerce.common.cache.serialization;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Reads values written by {@link BinaryWriter}, in the same order
+ */
+public final class BinaryReader {
+    
+    private final byte[] buffer;
+    private final int limit;
+    private int position;
+    
+    public BinaryReader(byte[] buffer) {
+        this(buffer, 0, buffer.length);
+    }
+    
+    public BinaryReader(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+    
+    public int readByte() {
+        if (position >= limit) {
+            throw new IllegalStateException("Unexpected end of cached value");
+        }
+        return buffer[position++];
+    }
+    
+    public byte[] readBytes(int length) {
+        if (length < 0 || position + length > limit) {
+            throw new IllegalStateException("Unexpected end of cached value");
+        }
+        byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+        position += length;
+        return bytes;
+    }
+    
+    public boolean readBoolean() {
+        return readByte() != 0;
+    }
+    
+    public int readVarInt() {
+        int raw = (int) readUnsignedVarLong();
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+    
+    public long readVarLong() {
+        long raw = readUnsignedVarLong();
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+    
+    public int readUnsignedVarInt() {
+        return (int) readUnsignedVarLong();
+    }
+    
+    private long readUnsignedVarLong() {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalStateException("Malformed varint in cached value");
+    }
+    
+    public String readString() {
+        if (!readPresence()) {
+            return null;
+        }
+        int length = readUnsignedVarInt();
+        if (length < 0 || position + length > limit) {
+            throw new IllegalStateException("Unexpected end of cached value");
+        }
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+    
+    public Long readNullableLong() {
+        return readPresence() ? readVarLong() : null;
+    }
+    
+    public Integer readNullableInt() {
+        return readPresence() ? readVarInt() : null;
+    }
+    
+    public Boolean readNullableBoolean() {
+        int value = readByte();
+        return value == 0 ? null : value == 2;
+    }
+    
+    public BigDecimal readBigDecimal() {
+        if (!readPresence()) {
+            return null;
+        }
+        int scale = readVarInt();
+        if (readByte() == 0) {
+            return BigDecimal.valueOf(readVarLong(), scale);
+        }
+        return new BigDecimal(new BigInteger(readBytes(readUnsignedVarInt())), scale);
+    }
+    
+    public LocalDateTime readDateTime() {
+        if (!readPresence()) {
+            return null;
+        }
+        long epochSecond = readVarLong();
+        return LocalDateTime.ofEpochSecond(epochSecond, readUnsignedVarInt(), ZoneOffset.UTC);
+    }
+    
+    public boolean readPresence() {
+        return readByte() != 0;
+    }
+    
+    public int remaining() {
+        return limit - position;
+    }
+}
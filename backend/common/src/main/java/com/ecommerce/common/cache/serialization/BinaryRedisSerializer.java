@@ -0,0 +1,160 @@
+package com.ecommerce.common.cache.serialization;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Redis value serializer that writes registered types with their
+ * {@link BinaryCodec} instead of JSON, optionally LZ4-compressing values
+ * above a size threshold. Values without a codec are delegated to the
+ * fallback serializer.
+ *
+ * Layout: one format byte, the codec type id as a varint (0 for fallback
+ * values), then the payload. Compressed values store the uncompressed
+ * payload length before the LZ4 block. Format bytes never start a JSON
+ * document, so entries written by the fallback serializer before this one
+ * was enabled are still readable.
+ */
+public class BinaryRedisSerializer implements RedisSerializer<Object> {
+    
+    private static final byte FORMAT_PLAIN = 0x01;
+    private static final byte FORMAT_LZ4 = 0x02;
+    private static final int FALLBACK_TYPE_ID = 0;
+    
+    private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4FastDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().fastDecompressor();
+    
+    private final Map<Integer, BinaryCodec<?>> codecsById = new HashMap<>();
+    private final Map<Class<?>, List<BinaryCodec<?>>> codecsByType = new HashMap<>();
+    private final RedisSerializer<Object> fallback;
+    private final int compressionThreshold;
+    
+    /**
+     * @param compressionThreshold payload size in bytes from which values are
+     *                             LZ4-compressed; negative disables compression
+     */
+    public BinaryRedisSerializer(Collection<? extends BinaryCodec<?>> codecs, RedisSerializer<Object> fallback,
+                                 int compressionThreshold) {
+        for (BinaryCodec<?> codec : codecs) {
+            if (codec.getTypeId() <= FALLBACK_TYPE_ID) {
+                throw new IllegalArgumentException("Codec type ids must be positive: " + codec.getClass().getName());
+            }
+            BinaryCodec<?> previous = codecsById.putIfAbsent(codec.getTypeId(), codec);
+            if (previous != null) {
+                throw new IllegalArgumentException("Duplicate codec type id " + codec.getTypeId() + ": "
+                        + previous.getClass().getName() + " and " + codec.getClass().getName());
+            }
+            codecsByType.computeIfAbsent(codec.getType(), type -> new ArrayList<>()).add(codec);
+        }
+        this.fallback = fallback;
+        this.compressionThreshold = compressionThreshold;
+    }
+    
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return null;
+        }
+        
+        BinaryWriter payload = new BinaryWriter();
+        BinaryCodec<Object> codec = codecFor(value);
+        if (codec != null) {
+            payload.writeUnsignedVarInt(codec.getTypeId());
+            codec.write(payload, value);
+        } else {
+            payload.writeUnsignedVarInt(FALLBACK_TYPE_ID);
+            payload.writeBytes(fallback.serialize(value));
+        }
+        
+        if (compressionThreshold < 0 || payload.size() < compressionThreshold) {
+            BinaryWriter out = new BinaryWriter(payload.size() + 1);
+            out.writeByte(FORMAT_PLAIN);
+            out.writeBytes(payload.buffer(), 0, payload.size());
+            return out.toByteArray();
+        }
+        
+        int maxCompressed = COMPRESSOR.maxCompressedLength(payload.size());
+        byte[] compressed = new byte[maxCompressed];
+        int compressedLength = COMPRESSOR.compress(payload.buffer(), 0, payload.size(), compressed, 0, maxCompressed);
+        
+        BinaryWriter out = new BinaryWriter(compressedLength + 6);
+        out.writeByte(FORMAT_LZ4);
+        out.writeUnsignedVarInt(payload.size());
+        out.writeBytes(compressed, 0, compressedLength);
+        return out.toByteArray();
+    }
+    
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        
+        try {
+            BinaryReader payload;
+            if (bytes[0] == FORMAT_PLAIN) {
+                payload = new BinaryReader(bytes, 1, bytes.length - 1);
+            } else if (bytes[0] == FORMAT_LZ4) {
+                BinaryReader header = new BinaryReader(bytes, 1, bytes.length - 1);
+                int length = header.readUnsignedVarInt();
+                byte[] raw = new byte[length];
+                DECOMPRESSOR.decompress(bytes, bytes.length - header.remaining(), raw, 0, length);
+                payload = new BinaryReader(raw);
+            } else {
+                // Written by the fallback serializer directly
+                return fallback.deserialize(bytes);
+            }
+            
+            int typeId = payload.readUnsignedVarInt();
+            if (typeId == FALLBACK_TYPE_ID) {
+                return fallback.deserialize(payload.readBytes(payload.remaining()));
+            }
+            BinaryCodec<?> codec = codecsById.get(typeId);
+            if (codec == null) {
+                throw new SerializationException("No binary codec registered for type id " + typeId);
+            }
+            return codec.read(payload);
+        } catch (SerializationException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new SerializationException("Could not read binary cache value", e);
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private BinaryCodec<Object> codecFor(Object value) {
+        for (Class<?> type = value.getClass(); type != null; type = type.getSuperclass()) {
+            BinaryCodec<?> codec = firstEncoding(codecsByType.get(type), value);
+            if (codec != null) {
+                return (BinaryCodec<Object>) codec;
+            }
+            for (Class<?> implemented : type.getInterfaces()) {
+                codec = firstEncoding(codecsByType.get(implemented), value);
+                if (codec != null) {
+                    return (BinaryCodec<Object>) codec;
+                }
+            }
+        }
+        return null;
+    }
+    
+    private static BinaryCodec<?> firstEncoding(List<BinaryCodec<?>> candidates, Object value) {
+        if (candidates != null) {
+            for (BinaryCodec<?> candidate : candidates) {
+                if (candidate.canEncode(value)) {
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+}
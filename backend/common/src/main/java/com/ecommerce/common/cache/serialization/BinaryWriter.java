@@ -0,0 +1,145 @@
+package com.ecommerce.common.cache.serialization;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer with compact encodings for the field types our DTOs
+ * use. Integers are zig-zag varints, and every nullable field is prefixed
+ * with a presence byte.
+ */
+public final class BinaryWriter {
+    
+    private byte[] buffer;
+    private int position;
+    
+    public BinaryWriter() {
+        this(256);
+    }
+    
+    public BinaryWriter(int initialCapacity) {
+        this.buffer = new byte[initialCapacity];
+    }
+    
+    public void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+    }
+    
+    public void writeBytes(byte[] bytes) {
+        writeBytes(bytes, 0, bytes.length);
+    }
+    
+    public void writeBytes(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer, position, length);
+        position += length;
+    }
+    
+    public void writeBoolean(boolean value) {
+        writeByte(value ? 1 : 0);
+    }
+    
+    public void writeVarInt(int value) {
+        writeUnsignedVarLong(((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+    }
+    
+    public void writeVarLong(long value) {
+        writeUnsignedVarLong((value << 1) ^ (value >> 63));
+    }
+    
+    public void writeUnsignedVarInt(int value) {
+        writeUnsignedVarLong(value & 0xFFFFFFFFL);
+    }
+    
+    private void writeUnsignedVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+    
+    public void writeString(String value) {
+        if (!writePresence(value)) {
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeUnsignedVarInt(bytes.length);
+        writeBytes(bytes);
+    }
+    
+    public void writeNullableLong(Long value) {
+        if (writePresence(value)) {
+            writeVarLong(value);
+        }
+    }
+    
+    public void writeNullableInt(Integer value) {
+        if (writePresence(value)) {
+            writeVarInt(value);
+        }
+    }
+    
+    public void writeNullableBoolean(Boolean value) {
+        writeByte(value == null ? 0 : value ? 2 : 1);
+    }
+    
+    /**
+     * Scale plus unscaled value; prices fit the unscaled value in a varint
+     */
+    public void writeBigDecimal(BigDecimal value) {
+        if (!writePresence(value)) {
+            return;
+        }
+        writeVarInt(value.scale());
+        BigInteger unscaled = value.unscaledValue();
+        if (unscaled.bitLength() < 64) {
+            writeByte(0);
+            writeVarLong(unscaled.longValue());
+        } else {
+            byte[] bytes = unscaled.toByteArray();
+            writeByte(1);
+            writeUnsignedVarInt(bytes.length);
+            writeBytes(bytes);
+        }
+    }
+    
+    public void writeDateTime(LocalDateTime value) {
+        if (writePresence(value)) {
+            writeVarLong(value.toEpochSecond(ZoneOffset.UTC));
+            writeUnsignedVarInt(value.getNano());
+        }
+    }
+    
+    /**
+     * Writes a presence byte; returns whether the value should follow
+     */
+    public boolean writePresence(Object value) {
+        writeByte(value != null ? 1 : 0);
+        return value != null;
+    }
+    
+    public int size() {
+        return position;
+    }
+    
+    byte[] buffer() {
+        return buffer;
+    }
+    
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+    
+    private void ensureCapacity(int extra) {
+        if (position + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+        }
+    }
+}
@@ -1,10 +1,21 @@
 package com.ecommerce.common.config;
 
+import com.ecommerce.common.cache.CacheTagResolver;
+import com.ecommerce.common.cache.RedisCacheTagIndex;
+import com.ecommerce.common.cache.TwoLevelCacheManager;
+import com.ecommerce.common.cache.serialization.BinaryCodec;
+import com.ecommerce.common.cache.serialization.BinaryRedisSerializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.session.data.redis.config.annotation.web.http.EnableRedisHttpSession;
 import org.springframework.cache.annotation.EnableCaching;
@@ -12,11 +23,17 @@ import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 
 import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Configuration
 @EnableRedisHttpSession(maxInactiveIntervalInSeconds = 1800) // 30 minutes
 @EnableCaching
 public class RedisConfig {
+    
+    // Longest entry TTL below; tag sets outlive every entry they point to
+    private static final Duration MAX_ENTRY_TTL = Duration.ofHours(1);
 
     @Bean
     public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
@@ -35,8 +52,43 @@ public class RedisConfig {
         return template;
     }
 
+    /**
+     * Two-level cache manager: a bounded in-heap L1 per node in front of the
+     * Redis caches below, with L1 invalidations broadcast over Redis pub/sub.
+     * Entries of caches with a CacheTagResolver are indexed by tag in Redis.
+     */
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public TwoLevelCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                             StringRedisTemplate stringRedisTemplate,
+                                             ObjectProvider<CacheTagResolver> tagResolvers,
+                                             ObjectProvider<BinaryCodec<?>> binaryCodecs,
+                                             @Value("${cache.local.maximum-size:10000}") long localMaximumSize,
+                                             @Value("${cache.local.ttl:60s}") Duration localTtl,
+                                             @Value("${cache.binary.caches:}") Set<String> binaryCaches,
+                                             @Value("${cache.binary.compression-threshold:512}") int compressionThreshold) {
+        List<BinaryCodec<?>> codecs = binaryCodecs.orderedStream().collect(Collectors.toList());
+        BinaryRedisSerializer binarySerializer = new BinaryRedisSerializer(codecs,
+                new GenericJackson2JsonRedisSerializer(), compressionThreshold);
+        RedisCacheManager redisCacheManager = redisCacheManager(connectionFactory, binaryCaches, binarySerializer);
+        redisCacheManager.afterPropertiesSet();
+        
+        TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(redisCacheManager, stringRedisTemplate,
+                new RedisCacheTagIndex(stringRedisTemplate, MAX_ENTRY_TTL), localMaximumSize, localTtl);
+        tagResolvers.orderedStream().forEach(cacheManager::registerTagResolver);
+        return cacheManager;
+    }
+    
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                           TwoLevelCacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(TwoLevelCacheManager.INVALIDATION_CHANNEL));
+        return container;
+    }
+    
+    private RedisCacheManager redisCacheManager(RedisConnectionFactory connectionFactory, Set<String> binaryCaches,
+                                                BinaryRedisSerializer binarySerializer) {
         RedisCacheConfiguration defaultConfig = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(10)) // Default TTL of 10 minutes
                 .serializeKeysWith(org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair
@@ -45,24 +97,41 @@ public class RedisConfig {
                         .fromSerializer(new GenericJackson2JsonRedisSerializer()));
 
         // Product-related caches - longer TTL since products don't change frequently
-        RedisCacheConfiguration productConfig = defaultConfig.entryTtl(Duration.ofHours(1));
+        RedisCacheConfiguration productConfig = defaultConfig.entryTtl(MAX_ENTRY_TTL);
         
         // Cart-related caches - shorter TTL for real-time updates
         RedisCacheConfiguration cartConfig = defaultConfig.entryTtl(Duration.ofMinutes(5));
         
         // Search and catalog caches - medium TTL
         RedisCacheConfiguration catalogConfig = defaultConfig.entryTtl(Duration.ofMinutes(15));
+        
+        // Sales reports - short TTL, recomputed as new orders come in
+        RedisCacheConfiguration reportConfig = defaultConfig.entryTtl(Duration.ofMinutes(5));
 
-        return RedisCacheManager.builder(connectionFactory)
-                .cacheDefaults(defaultConfig)
-                .withCacheConfiguration("products", productConfig)
-                .withCacheConfiguration("products-by-sku", productConfig)
-                .withCacheConfiguration("product-brands", productConfig)
-                .withCacheConfiguration("product-price-range", productConfig)
-                .withCacheConfiguration("product-catalog", catalogConfig)
-                .withCacheConfiguration("product-search", catalogConfig)
-                .withCacheConfiguration("user-cart", cartConfig)
-                .withCacheConfiguration("guest-cart", cartConfig)
-                .build();
+        RedisCacheManager.RedisCacheManagerBuilder builder = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(defaultConfig);
+        withCache(builder, "products", productConfig, binaryCaches, binarySerializer);
+        withCache(builder, "products-by-sku", productConfig, binaryCaches, binarySerializer);
+        withCache(builder, "product-brands", productConfig, binaryCaches, binarySerializer);
+        withCache(builder, "product-price-range", productConfig, binaryCaches, binarySerializer);
+        withCache(builder, "product-catalog", catalogConfig, binaryCaches, binarySerializer);
+        withCache(builder, "product-search", catalogConfig, binaryCaches, binarySerializer);
+        withCache(builder, "user-cart", cartConfig, binaryCaches, binarySerializer);
+        withCache(builder, "guest-cart", cartConfig, binaryCaches, binarySerializer);
+        withCache(builder, "sales-reports", reportConfig, binaryCaches, binarySerializer);
+        return builder.build();
+    }
+    
+    /**
+     * Register a cache, switching its values to the binary serializer when
+     * it is listed in cache.binary.caches
+     */
+    private void withCache(RedisCacheManager.RedisCacheManagerBuilder builder, String cacheName,
+                           RedisCacheConfiguration config, Set<String> binaryCaches,
+                           BinaryRedisSerializer binarySerializer) {
+        if (binaryCaches.contains(cacheName)) {
+            config = config.serializeValuesWith(SerializationPair.fromSerializer(binarySerializer));
+        }
+        builder.withCacheConfiguration(cacheName, config);
     }
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.ecommerce.common.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.regex.Pattern;
+
+/**
+ * Opaque keyset-pagination cursor: the sort key of the last row served,
+ * URL-safe Base64 encoded. Clients pass it back unchanged to get the rows
+ * after it, which lets the query seek through an index instead of counting
+ * and skipping an OFFSET.
+ */
+public final class SeekCursor {
+    
+    private static final String SEPARATOR = "|";
+    
+    private SeekCursor() {
+    }
+    
+    /**
+     * Encode the sort key values of a row, most significant first
+     */
+    public static String encode(Object... keys) {
+        StringBuilder raw = new StringBuilder();
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                raw.append(SEPARATOR);
+            }
+            raw.append(keys[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Decode a cursor into its key values; null for no cursor (first page)
+     */
+    public static String[] decode(String cursor, int keyCount) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] keys = raw.split(Pattern.quote(SEPARATOR), -1);
+            if (keys.length != keyCount) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return keys;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.ecommerce.common.service;
 
+import com.ecommerce.common.cache.CacheStatistics;
+import com.ecommerce.common.cache.CacheTags;
+import com.ecommerce.common.cache.TwoLevelCacheManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.Cache;
@@ -8,7 +11,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class CacheInvalidationService {
@@ -32,7 +37,8 @@ public class CacheInvalidationService {
     }
     
     /**
-     * Invalidate specific product cache by ID
+     * Invalidate specific product cache by ID, along with the catalog pages,
+     * search results and cart summaries that contain the product
      */
     public void invalidateProductCache(Long productId) {
         Cache productCache = cacheManager.getCache("products");
@@ -41,9 +47,53 @@ public class CacheInvalidationService {
             logger.info("Invalidated product cache for ID: {}", productId);
         }
         
-        // Also invalidate catalog and search caches as they might contain this product
-        evictCache("product-catalog");
-        evictCache("product-search");
+        if (cacheManager instanceof TwoLevelCacheManager) {
+            int evicted = ((TwoLevelCacheManager) cacheManager).evictTagged(CacheTags.product(productId));
+            logger.debug("Evicted {} cached entries containing product ID: {}", evicted, productId);
+        } else {
+            // No tag index; catalog and search caches might contain this product
+            evictCache("product-catalog");
+            evictCache("product-search");
+        }
+    }
+    
+    /**
+     * Invalidate products that were created, edited or changed status, the
+     * cached pages showing them, and every cached page of the listings (see
+     * {@link CacheTags#category} and {@link CacheTags#status}) they joined or
+     * left. A product joining or leaving a listing shifts the pages that do
+     * not show it too; an edit that keeps it in the same listings only
+     * affects the pages tagged with the product. The brand and price range
+     * summaries are cleared only when summariesChanged is set.
+     */
+    public void invalidateProductListings(Collection<Long> productIds, Collection<String> listingTags,
+                                          boolean summariesChanged) {
+        Cache productCache = cacheManager.getCache("products");
+        if (productCache != null) {
+            productIds.forEach(productCache::evict);
+        }
+        
+        if (cacheManager instanceof TwoLevelCacheManager) {
+            TwoLevelCacheManager twoLevelCacheManager = (TwoLevelCacheManager) cacheManager;
+            int evicted = 0;
+            for (Long productId : productIds) {
+                evicted += twoLevelCacheManager.evictTagged(CacheTags.product(productId));
+            }
+            for (String tag : listingTags) {
+                evicted += twoLevelCacheManager.evictTagged(tag);
+            }
+            logger.debug("Evicted {} cached entries listing products {} or tagged {}", evicted, productIds, listingTags);
+        } else {
+            evictCache("product-catalog");
+            evictCache("product-search");
+        }
+        
+        // Derived from the whole active listing
+        if (summariesChanged) {
+            evictCache("product-brands");
+            evictCache("product-price-range");
+        }
+        logger.info("Invalidated caches for {} products and listings {}", productIds.size(), listingTags);
     }
     
     /**
@@ -112,21 +162,24 @@ public class CacheInvalidationService {
     }
     
     /**
-     * Get cache statistics for monitoring
+     * Get per-cache hit/miss/eviction statistics for monitoring
+     */
+    public Map<String, CacheStatistics> getCacheStatistics() {
+        if (cacheManager instanceof TwoLevelCacheManager) {
+            return ((TwoLevelCacheManager) cacheManager).getStatistics();
+        }
+        return Map.of();
+    }
+    
+    /**
+     * Log cache statistics for monitoring
      */
     public void logCacheStatistics() {
-        List<String> cacheNames = Arrays.asList(
-            "products", "products-by-sku", "product-brands", "product-price-range",
-            "product-catalog", "product-search", "user-cart", "guest-cart"
-        );
-        
-        cacheNames.forEach(cacheName -> {
-            Cache cache = cacheManager.getCache(cacheName);
-            if (cache != null) {
-                // Log cache statistics if available
-                logger.info("Cache '{}' is active", cacheName);
-            }
-        });
+        getCacheStatistics().forEach((cacheName, stats) ->
+            logger.info("Cache '{}': L1 hits={}, L2 hits={}, misses={}, hit ratio={}, evictions={}, L1 evictions={}, L1 size={}",
+                    cacheName, stats.getLocalHits(), stats.getRemoteHits(), stats.getMisses(),
+                    String.format("%.2f", stats.getHitRatio()), stats.getEvictions(),
+                    stats.getLocalEvictions(), stats.getLocalSize()));
     }
     
     private void evictCache(String cacheName) {
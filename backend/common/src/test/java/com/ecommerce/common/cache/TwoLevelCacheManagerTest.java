@@ -0,0 +1,173 @@
+package com.ecommerce.common.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TwoLevelCacheManagerTest {
+
+    private ConcurrentMapCacheManager remoteCacheManager;
+    private TwoLevelCacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        remoteCacheManager = new ConcurrentMapCacheManager("products", "product-catalog");
+        cacheManager = new TwoLevelCacheManager(remoteCacheManager, null, new InMemoryTagIndex(), 100, Duration.ofMinutes(1));
+        cacheManager.registerTagResolver(new CacheTagResolver() {
+            @Override
+            public Collection<String> getCacheNames() {
+                return List.of("product-catalog");
+            }
+
+            @Override
+            public Collection<String> getTags(Object value) {
+                return ((List<?>) value).stream().map(id -> CacheTags.product((Long) id)).toList();
+            }
+        });
+    }
+
+    @Test
+    void testGet_ServesRepeatReadsFromLocalCache() {
+        remoteCacheManager.getCache("products").put(1L, "Laptop");
+        Cache cache = cacheManager.getCache("products");
+
+        assertEquals("Laptop", cache.get(1L).get());
+        assertEquals("Laptop", cache.get(1L).get());
+        assertNull(cache.get(2L));
+
+        CacheStatistics stats = cacheManager.getStatistics().get("products");
+        assertEquals(1, stats.getRemoteHits());
+        assertEquals(1, stats.getLocalHits());
+        assertEquals(1, stats.getMisses());
+    }
+
+    @Test
+    void testGetWithLoader_StoresLoadedValueInBothLevels() {
+        Cache cache = cacheManager.getCache("products");
+
+        assertEquals("Laptop", cache.get(1L, () -> "Laptop"));
+        assertEquals("Laptop", cache.get(1L, () -> "Mouse"));
+
+        assertEquals("Laptop", remoteCacheManager.getCache("products").get(1L).get());
+        CacheStatistics stats = cacheManager.getStatistics().get("products");
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getPuts());
+        assertEquals(1, stats.getLocalHits());
+    }
+
+    @Test
+    void testGetWithLoader_DoesNotCacheNullWhenNullValuesAreDisabled() {
+        remoteCacheManager.setAllowNullValues(false);
+        Cache cache = cacheManager.getCache("products");
+
+        assertNull(cache.get(1L, () -> null));
+
+        assertNull(cache.get(1L));
+        assertNull(remoteCacheManager.getCache("products").get(1L));
+        assertEquals("Laptop", cache.get(1L, () -> "Laptop"));
+        assertEquals(0, cacheManager.getStatistics().get("products").getLocalHits());
+    }
+
+    @Test
+    void testGetAll_CombinesLocalAndRemoteHits() {
+        Cache cache = cacheManager.getCache("products");
+        cache.put(1L, "Laptop");
+        remoteCacheManager.getCache("products").put(2L, "Mouse");
+
+        Map<Object, Object> values = ((TwoLevelCache) cache).getAll(List.of(1L, 2L, 3L));
+
+        assertEquals(Map.of(1L, "Laptop", 2L, "Mouse"), values);
+        CacheStatistics stats = cacheManager.getStatistics().get("products");
+        assertEquals(1, stats.getLocalHits());
+        assertEquals(1, stats.getRemoteHits());
+        assertEquals(1, stats.getMisses());
+        // Remote hits are kept in L1
+        assertEquals(Map.of(2L, "Mouse"), ((TwoLevelCache) cache).getAll(List.of(2L)));
+        assertEquals(2, cacheManager.getStatistics().get("products").getLocalHits());
+    }
+
+    @Test
+    void testEvict_RemovesFromBothLevels() {
+        Cache cache = cacheManager.getCache("products");
+        cache.put(1L, "Laptop");
+
+        cache.evict(1L);
+
+        assertNull(cache.get(1L));
+        assertNull(remoteCacheManager.getCache("products").get(1L));
+    }
+
+    @Test
+    void testOnMessage_InvalidatesLocalCopyFromOtherNode() {
+        Cache cache = cacheManager.getCache("products");
+        cache.put(1L, "Laptop");
+        // Another node changed the entry in Redis and broadcast the key
+        remoteCacheManager.getCache("products").put(1L, "Laptop Pro");
+
+        cacheManager.onMessage(message("other-node\nproducts\nE\n1"), null);
+
+        assertEquals("Laptop Pro", cache.get(1L).get());
+        assertEquals(1, cacheManager.getStatistics().get("products").getRemoteInvalidations());
+    }
+
+    @Test
+    void testOnMessage_ClearsLocalCache() {
+        Cache cache = cacheManager.getCache("products");
+        cache.put(1L, "Laptop");
+        cache.put(2L, "Mouse");
+        remoteCacheManager.getCache("products").clear();
+
+        cacheManager.onMessage(message("other-node\nproducts\nC"), null);
+
+        assertNull(cache.get(1L));
+        assertNull(cache.get(2L));
+    }
+
+    @Test
+    void testEvictTagged_EvictsOnlyEntriesContainingTheProduct() {
+        Cache catalog = cacheManager.getCache("product-catalog");
+        catalog.put("page-0", List.of(1L, 2L));
+        catalog.put("page-1", List.of(3L, 4L));
+
+        int evicted = cacheManager.evictTagged(CacheTags.product(2L));
+
+        assertEquals(1, evicted);
+        assertNull(catalog.get("page-0"));
+        assertNull(remoteCacheManager.getCache("product-catalog").get("page-0"));
+        assertEquals(List.of(3L, 4L), catalog.get("page-1").get());
+        assertEquals(0, cacheManager.evictTagged(CacheTags.product(2L)));
+    }
+
+    private DefaultMessage message(String body) {
+        return new DefaultMessage(TwoLevelCacheManager.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static class InMemoryTagIndex implements CacheTagIndex {
+        private final Map<String, Set<String>> entriesByTag = new HashMap<>();
+
+        @Override
+        public void add(String entry, Collection<String> tags) {
+            tags.forEach(tag -> entriesByTag.computeIfAbsent(tag, t -> new HashSet<>()).add(entry));
+        }
+
+        @Override
+        public Set<String> remove(String tag) {
+            Set<String> entries = entriesByTag.remove(tag);
+            return entries != null ? entries : Set.of();
+        }
+    }
+}
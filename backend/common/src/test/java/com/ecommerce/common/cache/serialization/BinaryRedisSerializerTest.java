@@ -0,0 +1,119 @@
+package com.ecommerce.common.cache.serialization;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryRedisSerializerTest {
+
+    private final GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+
+    @Test
+    void testRoundTrip_UsesCodecForRegisteredType() {
+        BinaryRedisSerializer serializer = new BinaryRedisSerializer(List.of(new SampleCodec()), json, -1);
+        Sample sample = new Sample(-42L, "Laptop", new BigDecimal("-1299.99"), LocalDateTime.of(2024, 1, 15, 10, 30, 0, 123456789));
+
+        byte[] bytes = serializer.serialize(sample);
+        Sample restored = (Sample) serializer.deserialize(bytes);
+
+        assertEquals(sample.id, restored.id);
+        assertEquals(sample.name, restored.name);
+        assertEquals(sample.price, restored.price);
+        assertEquals(sample.createdAt, restored.createdAt);
+        assertTrue(bytes.length < json.serialize(Map.of("id", -42L, "name", "Laptop")).length);
+    }
+
+    @Test
+    void testRoundTrip_CompressesAboveThreshold() {
+        BinaryRedisSerializer serializer = new BinaryRedisSerializer(List.of(new SampleCodec()), json, 64);
+        Sample sample = new Sample(1L, "x".repeat(2000), BigDecimal.ONE, null);
+
+        byte[] bytes = serializer.serialize(sample);
+        Sample restored = (Sample) serializer.deserialize(bytes);
+
+        assertTrue(bytes.length < 200);
+        assertEquals(sample.name, restored.name);
+        assertNull(restored.createdAt);
+    }
+
+    @Test
+    void testRoundTrip_FallsBackToJsonForUnknownTypes() {
+        BinaryRedisSerializer serializer = new BinaryRedisSerializer(List.of(new SampleCodec()), json, 64);
+
+        List<String> brands = new ArrayList<>(List.of("Acme", "Deskly"));
+        assertEquals(brands, serializer.deserialize(serializer.serialize(brands)));
+        // Entries written before the binary serializer was enabled
+        assertEquals(brands, serializer.deserialize(json.serialize(brands)));
+    }
+
+    @Test
+    void testConstructor_RejectsDuplicateTypeIds() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new BinaryRedisSerializer(List.of(new SampleCodec(), new SampleCodec()), json, -1));
+    }
+
+    @Test
+    void testVarInts_RoundTripExtremes() {
+        BinaryWriter out = new BinaryWriter(1);
+        out.writeVarInt(Integer.MIN_VALUE);
+        out.writeVarInt(Integer.MAX_VALUE);
+        out.writeVarLong(Long.MIN_VALUE);
+        out.writeNullableInt(null);
+        out.writeBigDecimal(new BigDecimal("123456789012345678901234567890.12"));
+
+        BinaryReader in = new BinaryReader(out.toByteArray());
+        assertEquals(Integer.MIN_VALUE, in.readVarInt());
+        assertEquals(Integer.MAX_VALUE, in.readVarInt());
+        assertEquals(Long.MIN_VALUE, in.readVarLong());
+        assertNull(in.readNullableInt());
+        assertEquals(new BigDecimal("123456789012345678901234567890.12"), in.readBigDecimal());
+        assertEquals(0, in.remaining());
+    }
+
+    static class Sample {
+        final Long id;
+        final String name;
+        final BigDecimal price;
+        final LocalDateTime createdAt;
+
+        Sample(Long id, String name, BigDecimal price, LocalDateTime createdAt) {
+            this.id = id;
+            this.name = name;
+            this.price = price;
+            this.createdAt = createdAt;
+        }
+    }
+
+    static class SampleCodec implements BinaryCodec<Sample> {
+
+        @Override
+        public int getTypeId() {
+            return 1;
+        }
+
+        @Override
+        public Class<Sample> getType() {
+            return Sample.class;
+        }
+
+        @Override
+        public void write(BinaryWriter out, Sample value) {
+            out.writeNullableLong(value.id);
+            out.writeString(value.name);
+            out.writeBigDecimal(value.price);
+            out.writeDateTime(value.createdAt);
+        }
+
+        @Override
+        public Sample read(BinaryReader in) {
+            return new Sample(in.readNullableLong(), in.readString(), in.readBigDecimal(), in.readDateTime());
+        }
+    }
+}
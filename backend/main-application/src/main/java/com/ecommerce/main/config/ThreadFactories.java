@@ -0,0 +1,35 @@
+package com.ecommerce.main.config;
+
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Thread factories for the application's own worker threads, following
+ * the virtual-thread mode (spring.threads.virtual.enabled)
+ */
+public final class ThreadFactories {
+
+    private ThreadFactories() {
+    }
+
+    /**
+     * Named threads: virtual ones when virtual threads are enabled and the
+     * JVM has them (the setting is ignored otherwise, as Spring Boot does),
+     * platform daemon threads otherwise
+     */
+    public static ThreadFactory named(String prefix, boolean virtualThreads) {
+        if (isVirtual(virtualThreads)) {
+            return new VirtualThreadTaskExecutor(prefix).getVirtualThreadFactory();
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(prefix);
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    public static boolean isVirtual(boolean virtualThreads) {
+        return virtualThreads && JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE);
+    }
+}
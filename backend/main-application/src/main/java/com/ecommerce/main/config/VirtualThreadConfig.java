@@ -0,0 +1,42 @@
+package com.ecommerce.main.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Runtime mode with request handling, event listeners and SSE
+ * writers on virtual threads; enabled by the virtual-threads profile
+ * (spring.threads.virtual.enabled) on a JDK 21 build. Spring Boot moves
+ * Tomcat and the task executors onto virtual threads; this adds the
+ * limit on concurrent JDBC work that the Tomcat thread pool used to set.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    /**
+     * Cap each connection pool's callers at its maximum pool size
+     */
+    @Bean
+    public static BeanPostProcessor jdbcConcurrencyLimiter() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource pool) {
+                    logger.info("Limiting {} to {} concurrent connections", beanName, pool.getMaximumPoolSize());
+                    return new ConcurrencyLimitedDataSource(pool, pool.getMaximumPoolSize(),
+                            pool.getConnectionTimeout());
+                }
+                return bean;
+            }
+        };
+    }
+}
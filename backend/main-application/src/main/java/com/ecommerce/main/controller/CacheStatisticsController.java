@@ -0,0 +1,27 @@
+package com.ecommerce.main.controller;
+
+import com.ecommerce.common.cache.CacheStatistics;
+import com.ecommerce.common.service.CacheInvalidationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/cache")
+@PreAuthorize("hasRole('ADMIN')")
+public class CacheStatisticsController {
+    
+    @Autowired
+    private CacheInvalidationService cacheInvalidationService;
+    
+    /**
+     * Hit/miss/eviction statistics of this node's caches, by cache name
+     */
+    @GetMapping("/statistics")
+    public ResponseEntity<Map<String, CacheStatistics>> getCacheStatistics() {
+        return ResponseEntity.ok(cacheInvalidationService.getCacheStatistics());
+    }
+}
@@ -0,0 +1,207 @@
+package com.ecommerce.main.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs the handlers for one kind of event on a fixed number of threads
+ * behind a bounded queue. What happens to work that arrives while the
+ * queue is full is set by the {@link RejectionPolicy}. Queue depth,
+ * active threads and rejections are published as
+ * notifications.executor.* meters tagged with the executor's name.
+ */
+public class BoundedEventExecutor implements Executor {
+
+    private static final Logger logger = LoggerFactory.getLogger(BoundedEventExecutor.class);
+
+    private static final int DROP_OLDEST_ATTEMPTS = 3;
+
+    public enum RejectionPolicy {
+        /** The publishing thread runs the handler itself, slowing the publisher down */
+        CALLER_RUNS,
+        /**
+         * The longest-queued handler is discarded to make room; if other
+         * publishers keep taking the room first, the caller runs it
+         */
+        DROP_OLDEST,
+        /**
+         * A queued handler with the same key is replaced, so only the latest
+         * work per key runs; unkeyed work, or a key with nothing queued, is
+         * run by the caller
+         */
+        COALESCE_BY_KEY;
+
+        /**
+         * Accepts the configuration spelling, e.g. "caller-runs"
+         */
+        public static RejectionPolicy from(String value) {
+            return valueOf(value.trim().replace('-', '_').toUpperCase());
+        }
+    }
+
+    private final String name;
+    private final RejectionPolicy rejectionPolicy;
+    private final ThreadPoolExecutor pool;
+    private final Counter callerRuns;
+    private final Counter dropped;
+    private final Counter coalesced;
+
+    public BoundedEventExecutor(String name, int threads, int queueCapacity, RejectionPolicy rejectionPolicy,
+                                ThreadFactory threadFactory, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.rejectionPolicy = rejectionPolicy;
+        this.pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), threadFactory, this::rejected);
+        this.pool.allowCoreThreadTimeOut(true);
+
+        Gauge.builder("notifications.executor.queued", pool, p -> p.getQueue().size())
+                .description("Event handlers waiting for a thread")
+                .tag("executor", name)
+                .register(meterRegistry);
+        Gauge.builder("notifications.executor.active", pool, ThreadPoolExecutor::getActiveCount)
+                .description("Threads running an event handler")
+                .tag("executor", name)
+                .register(meterRegistry);
+        this.callerRuns = rejections(meterRegistry, "caller_runs");
+        this.dropped = rejections(meterRegistry, "dropped");
+        this.coalesced = rejections(meterRegistry, "coalesced");
+    }
+
+    private Counter rejections(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("notifications.executor.rejections")
+                .description("Event handlers that found the queue full, by what happened to them")
+                .tag("executor", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void execute(Runnable handler) {
+        execute(null, handler);
+    }
+
+    /**
+     * Queue a handler under a key, which the coalesce-by-key policy uses to
+     * replace a queued handler for the same subject
+     */
+    public void execute(Object key, Runnable handler) {
+        pool.execute(new Task(key, handler));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public RejectionPolicy getRejectionPolicy() {
+        return rejectionPolicy;
+    }
+
+    public int getQueuedTasks() {
+        return pool.getQueue().size();
+    }
+
+    public int getActiveThreads() {
+        return pool.getActiveCount();
+    }
+
+    public long getRejectedTasks() {
+        return (long) (callerRuns.count() + dropped.count() + coalesced.count());
+    }
+
+    /**
+     * Stop taking work and give queued handlers a moment to finish
+     */
+    public void shutdown() {
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.warn("Discarding {} queued {} handlers at shutdown", pool.shutdownNow().size(), name);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pool.shutdownNow();
+        }
+    }
+
+    private void rejected(Runnable task, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            logger.debug("Dropping {} handler submitted after shutdown", name);
+            return;
+        }
+        switch (rejectionPolicy) {
+            case DROP_OLDEST -> {
+                BlockingQueue<Runnable> queue = executor.getQueue();
+                for (int attempt = 0; attempt < DROP_OLDEST_ATTEMPTS; attempt++) {
+                    if (queue.poll() != null) {
+                        dropped.increment();
+                    }
+                    if (queue.offer(task)) {
+                        return;
+                    }
+                }
+                // Other publishers keep refilling the queue; run it here rather than spin
+            }
+            case COALESCE_BY_KEY -> {
+                if (task instanceof Task keyed && keyed.key != null && coalesce(executor, keyed)) {
+                    coalesced.increment();
+                    return;
+                }
+            }
+            default -> {
+            }
+        }
+        callerRuns.increment();
+        task.run();
+    }
+
+    private static boolean coalesce(ThreadPoolExecutor executor, Task task) {
+        for (Runnable queued : executor.getQueue()) {
+            if (queued instanceof Task other && task.key.equals(other.key) && other.replace(task)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Queued handler; its work can be swapped until a thread takes it
+     */
+    private final class Task implements Runnable {
+        private final Object key;
+        private final AtomicReference<Runnable> handler;
+
+        Task(Object key, Runnable handler) {
+            this.key = key;
+            this.handler = new AtomicReference<>(handler);
+        }
+
+        boolean replace(Task newer) {
+            Runnable current = handler.get();
+            return current != null && handler.compareAndSet(current, newer.handler.get());
+        }
+
+        @Override
+        public void run() {
+            Runnable work = handler.getAndSet(null);
+            if (work == null) {
+                return;
+            }
+            try {
+                work.run();
+            } catch (RuntimeException e) {
+                logger.error("Error in {} event handler", name, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.ecommerce.main.service;
+
+import com.ecommerce.main.subscription.ProductSubscriptionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Collects inventory changes for a short window and sends them as one
+ * notification per batch. Changes to the same product within the window
+ * become a single change from the first old quantity to the last new one,
+ * so a bulk restock costs a few admin messages rather than one per SKU.
+ * Users hear about a product's stock only if they hold it in their cart or
+ * are viewing it. One window is flushed at a time: while a flush is queued
+ * or running, later windows keep collecting and go out with the next one.
+ */
+@Component
+public class InventoryChangeCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryChangeCoalescer.class);
+
+    // Stock at or below which subscribers are told the product is running out
+    static final int LOW_INVENTORY_THRESHOLD = 5;
+    private static final String FLUSH_KEY = "inventory-flush";
+
+    private final Map<Long, Change> pending = new ConcurrentHashMap<>();
+    // Set while a flush is queued or running on the inventory executor
+    private final AtomicBoolean flushInFlight = new AtomicBoolean();
+    private final NotificationService notificationService;
+    private final NotificationExecutors executors;
+    private final ProductSubscriptionService productSubscriptions;
+    private final WebSocketCartService webSocketCartService;
+    private final int batchSize;
+
+    @Autowired
+    public InventoryChangeCoalescer(NotificationService notificationService, NotificationExecutors executors,
+                                    ProductSubscriptionService productSubscriptions,
+                                    WebSocketCartService webSocketCartService,
+                                    @Value("${notifications.inventory.batch-size:500}") int batchSize) {
+        this.notificationService = notificationService;
+        this.executors = executors;
+        this.productSubscriptions = productSubscriptions;
+        this.webSocketCartService = webSocketCartService;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Add a change to the current window
+     */
+    public void add(InventoryChangeEvent event) {
+        pending.merge(event.getProductId(), Change.of(event), Change::then);
+    }
+
+    /**
+     * Close the current window; its changes are sent on the inventory
+     * executor, unless the previous window is still being sent
+     */
+    @Scheduled(fixedDelayString = "${notifications.inventory.window-millis:500}")
+    public void closeWindow() {
+        if (!pending.isEmpty() && flushInFlight.compareAndSet(false, true)) {
+            try {
+                executors.inventory().execute(FLUSH_KEY, () -> {
+                    try {
+                        flush();
+                    } finally {
+                        flushInFlight.set(false);
+                    }
+                });
+            } catch (RuntimeException e) {
+                flushInFlight.set(false);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Send the changes collected so far
+     */
+    public void flush() {
+        List<Change> changes = drain();
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        long timestamp = System.currentTimeMillis();
+        for (int from = 0; from < changes.size(); from += batchSize) {
+            List<Change> batch = changes.subList(from, Math.min(from + batchSize, changes.size()));
+            notificationService.sendAdminNotification("inventory_change_batch", Map.of(
+                "changes", batch.stream().map(Change::toMap).toList(),
+                "timestamp", timestamp
+            ));
+        }
+
+        int notified = 0;
+        for (Change change : changes) {
+            long[] subscribers = productSubscriptions.getSubscribers(change.productId());
+            if (subscribers.length > 0) {
+                notifySubscribers(change, subscribers, timestamp);
+                notified++;
+            }
+        }
+        logger.debug("Sent {} coalesced inventory changes, {} to subscribed users", changes.size(), notified);
+    }
+
+    private List<Change> drain() {
+        List<Change> changes = new ArrayList<>(pending.size());
+        for (Long productId : pending.keySet()) {
+            Change change = pending.remove(productId);
+            if (change != null) {
+                changes.add(change);
+            }
+        }
+        return changes;
+    }
+
+    private void notifySubscribers(Change change, long[] subscribers, long timestamp) {
+        List<Long> userIds = new ArrayList<>(subscribers.length);
+        for (long userId : subscribers) {
+            userIds.add(userId);
+        }
+        // Clients that have not received the last update get only the latest
+        String type = change.isRunningLow() ? "low_inventory" : "inventory_update";
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("productId", change.productId());
+        data.put("productName", change.productName());
+        data.put("availableQuantity", change.newQuantity());
+        if (change.isRunningLow()) {
+            data.put("message", "Limited stock available for " + change.productName());
+        }
+        data.put("timestamp", timestamp);
+        notificationService.sendToUsers(userIds,
+                new NotificationService.NotificationMessage(type, data, type + ":" + change.productId()));
+
+        List<String> webSocketUsers = productSubscriptions.getWebSocketUsers(subscribers);
+        if (!webSocketUsers.isEmpty()) {
+            webSocketCartService.notifyInventoryChange(webSocketUsers, change.productId(), change.productName(),
+                    change.newQuantity());
+        }
+    }
+
+    /**
+     * Net change to one product over a window
+     */
+    record Change(Long productId, String productName, int oldQuantity, int newQuantity, int events) {
+
+        static Change of(InventoryChangeEvent event) {
+            return new Change(event.getProductId(), event.getProductName(),
+                    event.getOldQuantity(), event.getNewQuantity(), 1);
+        }
+
+        boolean isRunningLow() {
+            return newQuantity < oldQuantity && newQuantity <= LOW_INVENTORY_THRESHOLD;
+        }
+
+        Change then(Change later) {
+            return new Change(productId, later.productName, oldQuantity, later.newQuantity, events + later.events);
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("productId", productId);
+            map.put("productName", productName);
+            map.put("oldQuantity", oldQuantity);
+            map.put("newQuantity", newQuantity);
+            map.put("events", events);
+            return map;
+        }
+    }
+}
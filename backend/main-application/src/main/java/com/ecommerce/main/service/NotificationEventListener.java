@@ -2,7 +2,6 @@ package com.ecommerce.main.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,13 +15,22 @@ public class NotificationEventListener {
     
     @Autowired
     private NotificationService notificationService;
+
+    @Autowired
+    private NotificationExecutors executors;
+
+    @Autowired
+    private InventoryChangeCoalescer inventoryChangeCoalescer;
     
     /**
      * Handle order status change events
      */
     @EventListener
-    @Async
     public void handleOrderStatusChange(OrderStatusChangeEvent event) {
+        executors.orderStatus().execute(() -> notifyOrderStatusChange(event));
+    }
+
+    private void notifyOrderStatusChange(OrderStatusChangeEvent event) {
         logger.info("Handling order status change: {} -> {} for order {}", 
             event.getOldStatus(), event.getNewStatus(), event.getOrderNumber());
         
@@ -49,41 +57,24 @@ public class NotificationEventListener {
     }
     
     /**
-     * Handle inventory change events
+     * Handle inventory change events; they are sent in batches per window
      */
     @EventListener
-    @Async
     public void handleInventoryChange(InventoryChangeEvent event) {
-        logger.info("Handling inventory change for product {}: {} -> {}", 
+        logger.debug("Queueing inventory change for product {}: {} -> {}",
             event.getProductName(), event.getOldQuantity(), event.getNewQuantity());
-        
-        // Notify admins about inventory changes
-        notificationService.sendAdminNotification("inventory_change", Map.of(
-            "productId", event.getProductId(),
-            "productName", event.getProductName(),
-            "oldQuantity", event.getOldQuantity(),
-            "newQuantity", event.getNewQuantity(),
-            "timestamp", System.currentTimeMillis()
-        ));
-        
-        // If inventory decreased significantly, broadcast to all users
-        if (event.getNewQuantity() < event.getOldQuantity() && event.getNewQuantity() <= 5) {
-            notificationService.broadcastToAllUsers("low_inventory", Map.of(
-                "productId", event.getProductId(),
-                "productName", event.getProductName(),
-                "availableQuantity", event.getNewQuantity(),
-                "message", "Limited stock available for " + event.getProductName(),
-                "timestamp", System.currentTimeMillis()
-            ));
-        }
+        inventoryChangeCoalescer.add(event);
     }
     
     /**
      * Handle low stock alert events
      */
     @EventListener
-    @Async
     public void handleLowStockAlert(LowStockAlertEvent event) {
+        executors.lowStock().execute(event.getProductId(), () -> notifyLowStockAlert(event));
+    }
+
+    private void notifyLowStockAlert(LowStockAlertEvent event) {
         logger.info("Handling low stock alert for product {}: {} units (reorder level: {})", 
             event.getProductName(), event.getCurrentQuantity(), event.getReorderLevel());
         
@@ -103,8 +94,11 @@ public class NotificationEventListener {
      * Handle new order events
      */
     @EventListener
-    @Async
     public void handleNewOrder(NewOrderEvent event) {
+        executors.newOrder().execute(() -> notifyNewOrder(event));
+    }
+
+    private void notifyNewOrder(NewOrderEvent event) {
         logger.info("Handling new order: {} for user {} (${:.2f})", 
             event.getOrderNumber(), event.getUserId(), event.getTotalAmount());
         
@@ -0,0 +1,82 @@
+package com.ecommerce.main.service;
+
+import com.ecommerce.main.config.ThreadFactories;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * One bounded executor per kind of notification event, so a storm of one
+ * kind queues behind its own limit instead of growing a shared queue and
+ * delaying the others. Each is configured under
+ * notifications.executors.&lt;name&gt; (threads, queue-capacity,
+ * rejection-policy).
+ *
+ * These are deliberately not Executor beans: defining one would make Spring
+ * Boot drop its default task executor, which plain {@code @Async} methods
+ * elsewhere still use.
+ */
+@Component
+public class NotificationExecutors implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationExecutors.class);
+
+    private final BoundedEventExecutor orderStatus;
+    private final BoundedEventExecutor inventory;
+    private final BoundedEventExecutor lowStock;
+    private final BoundedEventExecutor newOrder;
+
+    @Autowired
+    public NotificationExecutors(Environment environment, MeterRegistry meterRegistry,
+                                 @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.orderStatus = create("order-status", environment, meterRegistry, virtualThreads);
+        this.inventory = create("inventory", environment, meterRegistry, virtualThreads);
+        this.lowStock = create("low-stock", environment, meterRegistry, virtualThreads);
+        this.newOrder = create("new-order", environment, meterRegistry, virtualThreads);
+    }
+
+    private static BoundedEventExecutor create(String name, Environment environment, MeterRegistry meterRegistry,
+                                               boolean virtualThreads) {
+        String prefix = "notifications.executors." + name + ".";
+        int threads = environment.getProperty(prefix + "threads", Integer.class, 2);
+        int queueCapacity = environment.getProperty(prefix + "queue-capacity", Integer.class, 1000);
+        BoundedEventExecutor.RejectionPolicy rejectionPolicy = BoundedEventExecutor.RejectionPolicy.from(
+                environment.getProperty(prefix + "rejection-policy", "caller-runs"));
+        logger.info("Notification executor {}: {} threads, queue of {}, {} when full",
+                name, threads, queueCapacity, rejectionPolicy);
+        return new BoundedEventExecutor(name, threads, queueCapacity, rejectionPolicy,
+                ThreadFactories.named("notify-" + name + "-", virtualThreads), meterRegistry);
+    }
+
+    public BoundedEventExecutor orderStatus() {
+        return orderStatus;
+    }
+
+    public BoundedEventExecutor inventory() {
+        return inventory;
+    }
+
+    public BoundedEventExecutor lowStock() {
+        return lowStock;
+    }
+
+    public BoundedEventExecutor newOrder() {
+        return newOrder;
+    }
+
+    public List<BoundedEventExecutor> all() {
+        return List.of(orderStatus, inventory, lowStock, newOrder);
+    }
+
+    @Override
+    public void destroy() {
+        all().forEach(BoundedEventExecutor::shutdown);
+    }
+}
@@ -1,15 +1,21 @@
 package com.ecommerce.main.service;
 
+import com.ecommerce.main.sse.SseConnection;
+import com.ecommerce.main.subscription.ProductSubscriptionService;
+import com.ecommerce.main.sse.SseFanout;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.Map;
 import java.util.List;
+import java.util.Set;
 
 @Service
 public class NotificationService {
@@ -17,38 +23,47 @@ public class NotificationService {
     private static final Logger logger = LoggerFactory.getLogger(NotificationService.class);
     private static final long SSE_TIMEOUT = 30 * 60 * 1000L; // 30 minutes
     
-    // Store SSE emitters by user ID
-    private final Map<Long, List<SseEmitter>> userEmitters = new ConcurrentHashMap<>();
+    @Autowired
+    private SseFanout fanout;
     
-    // Store admin emitters separately
-    private final List<SseEmitter> adminEmitters = new CopyOnWriteArrayList<>();
+    @Autowired
+    private ProductSubscriptionService productSubscriptions;
+    
+    // Store SSE connections by user ID
+    private final Map<Long, List<SseConnection>> userConnections = new ConcurrentHashMap<>();
+    
+    // Every user connection, so a broadcast need not walk the per-user lists
+    private final Set<SseConnection> allUserConnections = ConcurrentHashMap.newKeySet();
+    
+    // Store admin connections separately
+    private final Set<SseConnection> adminConnections = ConcurrentHashMap.newKeySet();
     
     /**
      * Create SSE connection for a specific user
      */
     public SseEmitter createUserConnection(Long userId) {
         SseEmitter emitter = new SseEmitter(SSE_TIMEOUT);
+        SseConnection connection = fanout.open(emitter, closed -> removeUserConnection(userId, closed));
         
-        // Add emitter to user's list
-        userEmitters.computeIfAbsent(userId, k -> new CopyOnWriteArrayList<>()).add(emitter);
+        // Add connection to user's list
+        userConnections.compute(userId, (id, connections) -> {
+            List<SseConnection> list = connections != null ? connections : new CopyOnWriteArrayList<>();
+            list.add(connection);
+            return list;
+        });
+        allUserConnections.add(connection);
+        productSubscriptions.userConnected(userId);
         
         // Handle completion and timeout
-        emitter.onCompletion(() -> removeUserEmitter(userId, emitter));
-        emitter.onTimeout(() -> removeUserEmitter(userId, emitter));
+        emitter.onCompletion(() -> fanout.close(connection));
+        emitter.onTimeout(() -> fanout.close(connection));
         emitter.onError((ex) -> {
             logger.error("SSE error for user {}: {}", userId, ex.getMessage());
-            removeUserEmitter(userId, emitter);
+            fanout.close(connection);
         });
         
         // Send initial connection message
-        try {
-            emitter.send(SseEmitter.event()
-                .name("connection")
-                .data("Connected to notifications"));
-        } catch (IOException e) {
-            logger.error("Failed to send initial message to user {}: {}", userId, e.getMessage());
-            removeUserEmitter(userId, emitter);
-        }
+        fanout.send(connection, fanout.prepare("connection", "Connected to notifications"));
         
         logger.info("Created SSE connection for user: {}", userId);
         return emitter;
@@ -59,26 +74,20 @@ public class NotificationService {
      */
     public SseEmitter createAdminConnection() {
         SseEmitter emitter = new SseEmitter(SSE_TIMEOUT);
+        SseConnection connection = fanout.open(emitter, adminConnections::remove);
         
-        adminEmitters.add(emitter);
+        adminConnections.add(connection);
         
         // Handle completion and timeout
-        emitter.onCompletion(() -> adminEmitters.remove(emitter));
-        emitter.onTimeout(() -> adminEmitters.remove(emitter));
+        emitter.onCompletion(() -> fanout.close(connection));
+        emitter.onTimeout(() -> fanout.close(connection));
         emitter.onError((ex) -> {
             logger.error("SSE error for admin: {}", ex.getMessage());
-            adminEmitters.remove(emitter);
+            fanout.close(connection);
         });
         
         // Send initial connection message
-        try {
-            emitter.send(SseEmitter.event()
-                .name("connection")
-                .data("Connected to admin notifications"));
-        } catch (IOException e) {
-            logger.error("Failed to send initial message to admin: {}", e.getMessage());
-            adminEmitters.remove(emitter);
-        }
+        fanout.send(connection, fanout.prepare("connection", "Connected to admin notifications"));
         
         logger.info("Created SSE connection for admin");
         return emitter;
@@ -113,7 +122,8 @@ public class NotificationService {
                 "productName", productName,
                 "availableQuantity", availableQuantity,
                 "timestamp", System.currentTimeMillis()
-            )
+            ),
+            "inventory_update:" + productId
         );
         
         sendToUser(userId, notification);
@@ -159,93 +169,66 @@ public class NotificationService {
      * Send notification to all admin users
      */
     public void sendAdminNotification(String type, Object data) {
-        NotificationMessage notification = new NotificationMessage(type, data);
-        
-        List<SseEmitter> deadEmitters = new CopyOnWriteArrayList<>();
-        
-        for (SseEmitter emitter : adminEmitters) {
-            try {
-                emitter.send(SseEmitter.event()
-                    .name(notification.getType())
-                    .data(notification.getData()));
-            } catch (IOException e) {
-                logger.error("Failed to send admin notification: {}", e.getMessage());
-                deadEmitters.add(emitter);
-            }
-        }
-        
-        // Remove dead emitters
-        adminEmitters.removeAll(deadEmitters);
+        int sent = fanout.send(adminConnections, fanout.prepare(type, data));
         
-        logger.info("Sent admin notification: {} to {} admins", type, adminEmitters.size());
+        logger.info("Sent admin notification: {} to {} admins", type, sent);
     }
     
     /**
      * Broadcast notification to all connected users
      */
     public void broadcastToAllUsers(String type, Object data) {
-        NotificationMessage notification = new NotificationMessage(type, data);
+        broadcastToAllUsers(new NotificationMessage(type, data));
+    }
+    
+    /**
+     * Broadcast notification to all connected users; a newer notification
+     * with the same coalesce key replaces one a client has not received yet
+     */
+    public void broadcastToAllUsers(NotificationMessage notification) {
+        int sent = fanout.send(allUserConnections, prepare(notification));
         
-        userEmitters.forEach((userId, emitters) -> {
-            List<SseEmitter> deadEmitters = new CopyOnWriteArrayList<>();
-            
-            for (SseEmitter emitter : emitters) {
-                try {
-                    emitter.send(SseEmitter.event()
-                        .name(notification.getType())
-                        .data(notification.getData()));
-                } catch (IOException e) {
-                    logger.error("Failed to send broadcast to user {}: {}", userId, e.getMessage());
-                    deadEmitters.add(emitter);
-                }
-            }
-            
-            // Remove dead emitters
-            emitters.removeAll(deadEmitters);
-            if (emitters.isEmpty()) {
-                userEmitters.remove(userId);
+        logger.info("Broadcast notification: {} to {} connections", notification.getType(), sent);
+    }
+    
+    /**
+     * Send one notification to each of the given users' connections
+     */
+    public void sendToUsers(Collection<Long> userIds, NotificationMessage notification) {
+        SseFanout.OutboundEvent event = prepare(notification);
+        int sent = 0;
+        for (Long userId : userIds) {
+            List<SseConnection> connections = userConnections.get(userId);
+            if (connections != null) {
+                sent += fanout.send(connections, event);
             }
-        });
+        }
         
-        logger.info("Broadcast notification: {} to {} users", type, userEmitters.size());
+        logger.debug("Sent notification: {} to {} connections of {} users", notification.getType(), sent, userIds.size());
     }
     
     private void sendToUser(Long userId, NotificationMessage notification) {
-        List<SseEmitter> emitters = userEmitters.get(userId);
-        if (emitters == null || emitters.isEmpty()) {
+        List<SseConnection> connections = userConnections.get(userId);
+        if (connections == null || connections.isEmpty()) {
             logger.debug("No active connections for user: {}", userId);
             return;
         }
         
-        List<SseEmitter> deadEmitters = new CopyOnWriteArrayList<>();
-        
-        for (SseEmitter emitter : emitters) {
-            try {
-                emitter.send(SseEmitter.event()
-                    .name(notification.getType())
-                    .data(notification.getData()));
-            } catch (IOException e) {
-                logger.error("Failed to send notification to user {}: {}", userId, e.getMessage());
-                deadEmitters.add(emitter);
-            }
-        }
-        
-        // Remove dead emitters
-        emitters.removeAll(deadEmitters);
-        if (emitters.isEmpty()) {
-            userEmitters.remove(userId);
-        }
+        fanout.send(connections, prepare(notification));
     }
     
-    private void removeUserEmitter(Long userId, SseEmitter emitter) {
-        List<SseEmitter> emitters = userEmitters.get(userId);
-        if (emitters != null) {
-            emitters.remove(emitter);
-            if (emitters.isEmpty()) {
-                userEmitters.remove(userId);
-            }
-        }
-        logger.debug("Removed SSE emitter for user: {}", userId);
+    private SseFanout.OutboundEvent prepare(NotificationMessage notification) {
+        return fanout.prepare(notification.getType(), notification.getData(), notification.getCoalesceKey());
+    }
+    
+    private void removeUserConnection(Long userId, SseConnection connection) {
+        allUserConnections.remove(connection);
+        userConnections.computeIfPresent(userId, (id, connections) -> {
+            connections.remove(connection);
+            return connections.isEmpty() ? null : connections;
+        });
+        productSubscriptions.userDisconnected(userId);
+        logger.debug("Removed SSE connection for user: {}", userId);
     }
     
     /**
@@ -323,25 +306,32 @@ public class NotificationService {
      * Get connection statistics
      */
     public Map<String, Object> getConnectionStats() {
-        int totalUserConnections = userEmitters.values().stream()
-            .mapToInt(List::size)
-            .sum();
-        
-        return Map.of(
-            "connectedUsers", userEmitters.size(),
-            "totalUserConnections", totalUserConnections,
-            "adminConnections", adminEmitters.size()
-        );
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("connectedUsers", userConnections.size());
+        stats.put("totalUserConnections", allUserConnections.size());
+        stats.put("adminConnections", adminConnections.size());
+        stats.put("shards", fanout.getShardCount());
+        stats.put("queuedEvents", fanout.getQueuedEvents());
+        stats.put("droppedEvents", fanout.getDroppedEvents());
+        stats.put("coalescedEvents", fanout.getCoalescedEvents());
+        stats.put("meanSendMillis", fanout.getMeanSendMillis());
+        return stats;
     }
     
     // Inner class for notification messages
     public static class NotificationMessage {
         private final String type;
         private final Object data;
+        private final String coalesceKey;
         
         public NotificationMessage(String type, Object data) {
+            this(type, data, null);
+        }
+        
+        public NotificationMessage(String type, Object data, String coalesceKey) {
             this.type = type;
             this.data = data;
+            this.coalesceKey = coalesceKey;
         }
         
         public String getType() {
@@ -351,5 +341,12 @@ public class NotificationService {
         public Object getData() {
             return data;
         }
+        
+        /**
+         * Notifications with the same key supersede each other, or null
+         */
+        public String getCoalesceKey() {
+            return coalesceKey;
+        }
     }
 }
\ No newline at end of file
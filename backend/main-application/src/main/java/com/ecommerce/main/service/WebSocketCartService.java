@@ -6,6 +6,7 @@ import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
 import java.util.Map;
 
 @Service
@@ -57,6 +58,27 @@ public class WebSocketCartService {
         }
     }
     
+    /**
+     * Notify several users about an inventory change, building the message once
+     */
+    public void notifyInventoryChange(Collection<String> userIds, Long productId, String productName, int availableQuantity) {
+        InventoryUpdateMessage message = new InventoryUpdateMessage(
+            productId,
+            productName,
+            availableQuantity,
+            System.currentTimeMillis()
+        );
+        
+        for (String userId : userIds) {
+            try {
+                messagingTemplate.convertAndSendToUser(userId, "/queue/inventory-updates", message);
+            } catch (Exception e) {
+                logger.error("Failed to send inventory update to user {}: {}", userId, e.getMessage());
+            }
+        }
+        logger.debug("Sent inventory update to {} users: {} - {} available", userIds.size(), productName, availableQuantity);
+    }
+    
     /**
      * Send admin dashboard updates
      */
@@ -0,0 +1,115 @@
+package com.ecommerce.main.sse;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+/**
+ * One open SSE stream and the events waiting to be written to it. Events
+ * are queued by any thread and written only by the connection's shard, in
+ * order; the queue is bounded, so a client that stops reading loses its
+ * oldest events instead of holding memory or delaying other clients.
+ */
+public final class SseConnection {
+
+    private final SseEmitter emitter;
+    private final SseFanout.Shard shard;
+    private final Consumer<SseConnection> onClose;
+    private final ArrayDeque<Queued> queue = new ArrayDeque<>();
+    // True while the connection is in its shard's ready queue or being drained
+    private boolean scheduled;
+    private volatile boolean closed;
+
+    SseConnection(SseEmitter emitter, SseFanout.Shard shard, Consumer<SseConnection> onClose) {
+        this.emitter = emitter;
+        this.shard = shard;
+        this.onClose = onClose;
+    }
+
+    public SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Events waiting to be written
+     */
+    public synchronized int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Queue an event, replacing a queued event with the same coalesce key
+     * or, when the queue is full, the oldest one
+     */
+    synchronized Offer offer(SseFanout.OutboundEvent event, int capacity) {
+        if (closed) {
+            return Offer.CLOSED;
+        }
+        if (event.coalesceKey() != null) {
+            for (Iterator<Queued> it = queue.iterator(); it.hasNext(); ) {
+                if (event.coalesceKey().equals(it.next().event().coalesceKey())) {
+                    it.remove();
+                    queue.addLast(new Queued(event, System.nanoTime()));
+                    return Offer.COALESCED;
+                }
+            }
+        }
+        Offer offer = Offer.QUEUED;
+        if (queue.size() >= capacity) {
+            queue.pollFirst();
+            offer = Offer.DROPPED_OLDEST;
+        }
+        queue.addLast(new Queued(event, System.nanoTime()));
+        if (!scheduled) {
+            scheduled = true;
+            shard.schedule(this);
+        }
+        return offer;
+    }
+
+    /**
+     * Next event to write, or null once the queue is empty, in which case
+     * the connection leaves its shard until the next offer
+     */
+    synchronized Queued poll() {
+        Queued next = queue.pollFirst();
+        if (next == null) {
+            scheduled = false;
+        }
+        return next;
+    }
+
+    void reschedule() {
+        shard.schedule(this);
+    }
+
+    /**
+     * Stop accepting events, returning how many queued events were discarded
+     */
+    int close() {
+        int discarded;
+        synchronized (this) {
+            if (closed) {
+                return 0;
+            }
+            closed = true;
+            discarded = queue.size();
+            queue.clear();
+        }
+        onClose.accept(this);
+        return discarded;
+    }
+
+    record Queued(SseFanout.OutboundEvent event, long queuedAtNanos) {
+    }
+
+    enum Offer {
+        QUEUED, COALESCED, DROPPED_OLDEST, CLOSED
+    }
+}
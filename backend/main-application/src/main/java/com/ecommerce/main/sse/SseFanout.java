@@ -0,0 +1,284 @@
+package com.ecommerce.main.sse;
+
+import com.ecommerce.main.config.ThreadFactories;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Writes server-sent events to open connections off the publishing thread.
+ * Connections are spread over a fixed number of shards, each with one
+ * writer thread; publishing only serializes the event once and appends it
+ * to each recipient's bounded queue, so it costs the same however slowly
+ * the recipients read. A client that stalls delays only the connections
+ * on its own shard, and loses its oldest events once its queue is full.
+ * In virtual-thread mode the writers are virtual threads, so a write that
+ * blocks on a slow socket does not hold a platform thread.
+ */
+@Component
+public class SseFanout implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(SseFanout.class);
+
+    // Events written to one connection before the shard moves on to the next
+    private static final int DRAIN_BATCH = 16;
+
+    private final ObjectMapper objectMapper;
+    private final Shard[] shards;
+    private final int queueCapacity;
+    private final AtomicInteger nextShard = new AtomicInteger();
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final AtomicLong queuedEvents = new AtomicLong();
+    private final Counter publishedEvents;
+    private final Counter coalescedEvents;
+    private final Counter droppedEvents;
+    private final Counter failedSends;
+    private final Timer sendTimer;
+    private final Timer deliveryTimer;
+
+    @Autowired
+    public SseFanout(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                     @Value("${notifications.sse.shards:0}") int shards,
+                     @Value("${notifications.sse.queue-capacity:64}") int queueCapacity,
+                     @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.objectMapper = objectMapper;
+        this.queueCapacity = queueCapacity;
+        this.shards = new Shard[shards > 0 ? shards : Runtime.getRuntime().availableProcessors()];
+        ThreadFactory threadFactory = ThreadFactories.named("sse-shard-", virtualThreads);
+        for (int i = 0; i < this.shards.length; i++) {
+            this.shards[i] = new Shard(threadFactory);
+        }
+
+        Gauge.builder("notifications.sse.connections", openConnections, AtomicInteger::get)
+                .description("Open SSE connections")
+                .register(meterRegistry);
+        Gauge.builder("notifications.sse.queued", queuedEvents, AtomicLong::get)
+                .description("Events waiting in connection queues")
+                .register(meterRegistry);
+        publishedEvents = Counter.builder("notifications.sse.published")
+                .description("Events queued for a connection")
+                .register(meterRegistry);
+        coalescedEvents = Counter.builder("notifications.sse.coalesced")
+                .description("Queued events replaced by a newer event with the same key")
+                .register(meterRegistry);
+        droppedEvents = Counter.builder("notifications.sse.dropped")
+                .description("Events dropped because the connection's queue was full")
+                .register(meterRegistry);
+        failedSends = Counter.builder("notifications.sse.failed")
+                .description("Writes that failed and closed their connection")
+                .register(meterRegistry);
+        sendTimer = Timer.builder("notifications.sse.send")
+                .description("Time to write one event to a connection")
+                .register(meterRegistry);
+        deliveryTimer = Timer.builder("notifications.sse.delivery")
+                .description("Time from queueing an event to writing it")
+                .register(meterRegistry);
+
+        for (Shard shard : this.shards) {
+            shard.thread.start();
+        }
+        logger.info("SSE fan-out started with {} {} shards, {} events queued per connection",
+                this.shards.length, ThreadFactories.isVirtual(virtualThreads) ? "virtual-thread" : "platform-thread",
+                queueCapacity);
+    }
+
+    /**
+     * Start delivering to an emitter. onClose runs once when the connection
+     * is closed, whether by the caller or after a failed write.
+     */
+    public SseConnection open(SseEmitter emitter, Consumer<SseConnection> onClose) {
+        Shard shard = shards[Math.floorMod(nextShard.getAndIncrement(), shards.length)];
+        openConnections.incrementAndGet();
+        return new SseConnection(emitter, shard, connection -> {
+            openConnections.decrementAndGet();
+            onClose.accept(connection);
+        });
+    }
+
+    /**
+     * Stop delivering to a connection and discard its queued events
+     */
+    public void close(SseConnection connection) {
+        queuedEvents.addAndGet(-connection.close());
+    }
+
+    /**
+     * Serialize an event for any number of recipients
+     */
+    public OutboundEvent prepare(String name, Object data) {
+        return prepare(name, data, null);
+    }
+
+    /**
+     * Serialize an event for any number of recipients. A queued event with
+     * the same coalesce key is replaced by this one rather than sent too.
+     */
+    public OutboundEvent prepare(String name, Object data, String coalesceKey) {
+        try {
+            String json = data instanceof String text ? text : objectMapper.writeValueAsString(data);
+            return new OutboundEvent(name, json, coalesceKey);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize " + name + " event", e);
+        }
+    }
+
+    /**
+     * Queue an event for one connection, returning whether it was accepted
+     */
+    public boolean send(SseConnection connection, OutboundEvent event) {
+        // Counted before the offer so the writer never sees it go negative
+        queuedEvents.incrementAndGet();
+        SseConnection.Offer offer = connection.offer(event, queueCapacity);
+        if (offer != SseConnection.Offer.QUEUED) {
+            queuedEvents.decrementAndGet();
+        }
+        switch (offer) {
+            case CLOSED:
+                return false;
+            case COALESCED:
+                coalescedEvents.increment();
+                break;
+            case DROPPED_OLDEST:
+                droppedEvents.increment();
+                break;
+            default:
+                break;
+        }
+        publishedEvents.increment();
+        return true;
+    }
+
+    /**
+     * Queue an event for each connection, returning how many accepted it
+     */
+    public int send(Collection<SseConnection> connections, OutboundEvent event) {
+        int accepted = 0;
+        for (SseConnection connection : connections) {
+            if (send(connection, event)) {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Events waiting in all connection queues
+     */
+    public long getQueuedEvents() {
+        return queuedEvents.get();
+    }
+
+    public long getDroppedEvents() {
+        return (long) droppedEvents.count();
+    }
+
+    public long getCoalescedEvents() {
+        return (long) coalescedEvents.count();
+    }
+
+    /**
+     * Mean time to write one event to a connection
+     */
+    public double getMeanSendMillis() {
+        return sendTimer.mean(TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        for (Shard shard : shards) {
+            shard.thread.interrupt();
+        }
+    }
+
+    private void drain(SseConnection connection) {
+        for (int written = 0; written < DRAIN_BATCH; written++) {
+            SseConnection.Queued queued = connection.poll();
+            if (queued == null) {
+                return;
+            }
+            queuedEvents.decrementAndGet();
+            if (connection.isClosed()) {
+                continue;
+            }
+            OutboundEvent event = queued.event();
+            long start = System.nanoTime();
+            try {
+                connection.getEmitter().send(SseEmitter.event().name(event.name()).data(event.json()));
+            } catch (IOException | IllegalStateException e) {
+                // Client went away, or the emitter already completed
+                logger.debug("Failed to send {} event: {}", event.name(), e.getMessage());
+                failedSends.increment();
+                close(connection);
+                continue;
+            }
+            long end = System.nanoTime();
+            sendTimer.record(end - start, TimeUnit.NANOSECONDS);
+            deliveryTimer.record(end - queued.queuedAtNanos(), TimeUnit.NANOSECONDS);
+        }
+        // Batch used up: back of the line, behind the shard's other connections
+        connection.reschedule();
+    }
+
+    /**
+     * An event serialized once for all its recipients
+     */
+    public record OutboundEvent(String name, String json, String coalesceKey) {
+    }
+
+    /**
+     * Connections with queued events, written one batch at a time by a
+     * single thread
+     */
+    final class Shard {
+        private final BlockingQueue<SseConnection> ready = new LinkedBlockingQueue<>();
+        private final Thread thread;
+
+        Shard(ThreadFactory threadFactory) {
+            thread = threadFactory.newThread(this::run);
+        }
+
+        void schedule(SseConnection connection) {
+            ready.add(connection);
+        }
+
+        private void run() {
+            while (!Thread.currentThread().isInterrupted()) {
+                SseConnection connection;
+                try {
+                    connection = ready.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                try {
+                    drain(connection);
+                } catch (RuntimeException e) {
+                    logger.error("Unexpected failure writing SSE events", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.ecommerce.main.subscription;
+
+import java.util.Arrays;
+
+/**
+ * Set of longs in one open-addressed array, about 8 to 16 bytes per
+ * member against some 60 for a boxed HashSet entry. Zero marks a free
+ * slot, so zero itself is tracked by a flag. Methods are synchronized so
+ * that a snapshot taken while another thread updates the set is consistent.
+ */
+final class LongHashSet {
+
+    private static final int MIN_CAPACITY = 4;
+
+    private long[] slots;
+    private int size;
+    private boolean containsZero;
+
+    LongHashSet() {
+        slots = new long[MIN_CAPACITY];
+    }
+
+    synchronized boolean add(long value) {
+        if (value == 0) {
+            boolean added = !containsZero;
+            containsZero = true;
+            return added;
+        }
+        int index = indexOf(slots, value);
+        if (slots[index] == value) {
+            return false;
+        }
+        slots[index] = value;
+        size++;
+        // Keep the table at most half full
+        if (2 * size > slots.length) {
+            resize(slots.length * 2);
+        }
+        return true;
+    }
+
+    synchronized boolean remove(long value) {
+        if (value == 0) {
+            boolean removed = containsZero;
+            containsZero = false;
+            return removed;
+        }
+        int index = indexOf(slots, value);
+        if (slots[index] != value) {
+            return false;
+        }
+        slots[index] = 0;
+        size--;
+        closeGap(index);
+        if (slots.length > MIN_CAPACITY && 8 * size < slots.length) {
+            resize(slots.length / 2);
+        }
+        return true;
+    }
+
+    synchronized boolean contains(long value) {
+        return value == 0 ? containsZero : slots[indexOf(slots, value)] == value;
+    }
+
+    synchronized int size() {
+        return containsZero ? size + 1 : size;
+    }
+
+    synchronized boolean isEmpty() {
+        return size == 0 && !containsZero;
+    }
+
+    /**
+     * Members in no particular order
+     */
+    synchronized long[] toArray() {
+        long[] values = new long[size()];
+        int next = 0;
+        if (containsZero) {
+            values[next++] = 0;
+        }
+        for (long slot : slots) {
+            if (slot != 0) {
+                values[next++] = slot;
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public synchronized String toString() {
+        long[] values = toArray();
+        Arrays.sort(values);
+        return Arrays.toString(values);
+    }
+
+    // Slot holding the value, or the free slot where it would go
+    private static int indexOf(long[] table, long value) {
+        int mask = table.length - 1;
+        int index = hash(value) & mask;
+        while (table[index] != 0 && table[index] != value) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private static int hash(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Move later members of the probe run back over a freed slot, so that
+     * lookups never stop early at it
+     */
+    private void closeGap(int gap) {
+        int mask = slots.length - 1;
+        int index = (gap + 1) & mask;
+        while (slots[index] != 0) {
+            int home = hash(slots[index]) & mask;
+            // Move unless the member's home lies cyclically after the gap, up to its slot
+            if (((index - home) & mask) >= ((index - gap) & mask)) {
+                slots[gap] = slots[index];
+                slots[index] = 0;
+                gap = index;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private void resize(int capacity) {
+        long[] resized = new long[capacity];
+        for (long slot : slots) {
+            if (slot != 0) {
+                resized[indexOf(resized, slot)] = slot;
+            }
+        }
+        slots = resized;
+    }
+}
@@ -0,0 +1,174 @@
+package com.ecommerce.main.subscription;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Which connected users care about each product: those holding it in
+ * their cart and those viewing it. Only users with an open notification
+ * connection are indexed, so a product's subscribers can be found without
+ * walking every connection.
+ *
+ * Each interest is kept both ways, product to users and user to products,
+ * in {@link LongHashSet}s. Updates to a product's set, and removal of a set
+ * once empty, happen inside the map's compute for that product. Interests
+ * are added and dropped inside the compute for the user's connection count.
+ */
+@Component
+public class ProductSubscriptionIndex {
+
+    private static final long[] NONE = new long[0];
+
+    // Open connections per user, counting notification streams and WebSocket sessions
+    private final Map<Long, Integer> connections = new ConcurrentHashMap<>();
+
+    private final Interest cart = new Interest();
+    private final Interest viewing = new Interest();
+
+    /**
+     * Count an opened connection, returning true for the user's first
+     */
+    public boolean connect(long userId) {
+        return connections.merge(userId, 1, Integer::sum) == 1;
+    }
+
+    /**
+     * Count a closed connection; with the user's last one their interests
+     * leave the index
+     */
+    public void disconnect(long userId) {
+        connections.computeIfPresent(userId, (id, count) -> {
+            if (count > 1) {
+                return count - 1;
+            }
+            cart.removeUser(userId);
+            viewing.removeUser(userId);
+            return null;
+        });
+    }
+
+    public boolean isConnected(long userId) {
+        return connections.containsKey(userId);
+    }
+
+    /**
+     * Replace a connected user's cart products
+     */
+    public void setCart(long userId, Collection<Long> productIds) {
+        whileConnected(userId, () -> {
+            cart.removeUser(userId);
+            productIds.forEach(productId -> cart.add(userId, productId));
+        });
+    }
+
+    public void addToCart(long userId, long productId) {
+        whileConnected(userId, () -> cart.add(userId, productId));
+    }
+
+    public void removeFromCart(long userId, long productId) {
+        cart.remove(userId, productId);
+    }
+
+    public void startViewing(long userId, long productId) {
+        whileConnected(userId, () -> viewing.add(userId, productId));
+    }
+
+    public void stopViewing(long userId, long productId) {
+        viewing.remove(userId, productId);
+    }
+
+    /**
+     * Connected users holding or viewing a product, each once
+     */
+    public long[] getSubscribers(long productId) {
+        long[] holders = cart.users(productId);
+        long[] viewers = viewing.users(productId);
+        if (viewers.length == 0) {
+            return holders;
+        }
+        if (holders.length == 0) {
+            return viewers;
+        }
+        LongHashSet union = new LongHashSet();
+        for (long userId : holders) {
+            union.add(userId);
+        }
+        for (long userId : viewers) {
+            union.add(userId);
+        }
+        return union.toArray();
+    }
+
+    public int getConnectedUsers() {
+        return connections.size();
+    }
+
+    public int getSubscribedProducts() {
+        return cart.byProduct.size() + viewing.byProduct.size();
+    }
+
+    /**
+     * Index an interest of a connected user inside the compute for their
+     * connection count, so a disconnect cannot come in between and leave
+     * the interest behind
+     */
+    private void whileConnected(long userId, Runnable update) {
+        connections.computeIfPresent(userId, (id, count) -> {
+            update.run();
+            return count;
+        });
+    }
+
+    /**
+     * One kind of interest, indexed by product and by user
+     */
+    private static final class Interest {
+        private final Map<Long, LongHashSet> byProduct = new ConcurrentHashMap<>();
+        private final Map<Long, LongHashSet> byUser = new ConcurrentHashMap<>();
+
+        void add(long userId, long productId) {
+            byUser.compute(userId, (id, products) -> {
+                LongHashSet set = products != null ? products : new LongHashSet();
+                set.add(productId);
+                return set;
+            });
+            byProduct.compute(productId, (id, users) -> {
+                LongHashSet set = users != null ? users : new LongHashSet();
+                set.add(userId);
+                return set;
+            });
+        }
+
+        void remove(long userId, long productId) {
+            byUser.computeIfPresent(userId, (id, products) -> {
+                products.remove(productId);
+                return products.isEmpty() ? null : products;
+            });
+            removeFromProduct(productId, userId);
+        }
+
+        void removeUser(long userId) {
+            LongHashSet products = byUser.remove(userId);
+            if (products != null) {
+                for (long productId : products.toArray()) {
+                    removeFromProduct(productId, userId);
+                }
+            }
+        }
+
+        long[] users(long productId) {
+            LongHashSet users = byProduct.get(productId);
+            return users != null ? users.toArray() : NONE;
+        }
+
+        private void removeFromProduct(long productId, long userId) {
+            byProduct.computeIfPresent(productId, (id, users) -> {
+                users.remove(userId);
+                return users.isEmpty() ? null : users;
+            });
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.ecommerce.main.subscription;
+
+import com.ecommerce.order.cart.CartChangedEvent;
+import com.ecommerce.order.cart.CartLine;
+import com.ecommerce.order.cart.CartStore;
+import com.ecommerce.user.service.CustomUserDetailsService.CustomUserPrincipal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the {@link ProductSubscriptionIndex} current. A user's cart is
+ * indexed when they open their first connection and then followed through
+ * {@link CartChangedEvent}s. Viewing comes from STOMP frames: a client
+ * subscribes to /user/queue/products/{productId} while showing a product
+ * and unsubscribes when it stops. Inventory updates for the product still
+ * arrive on /user/queue/inventory-updates.
+ */
+@Service
+public class ProductSubscriptionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSubscriptionService.class);
+
+    private static final int CART_LOCK_STRIPES = 64;
+
+    private static final Pattern VIEW_DESTINATION = Pattern.compile("/user/queue/products/(\\d+)");
+
+    private final ProductSubscriptionIndex index;
+    private final CartStore cartStore;
+
+    // WebSocket sessions by session id
+    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+
+    // Principal names of users with WebSocket sessions, for sending to their user destinations
+    private final Map<Long, WebSocketUser> webSocketUsers = new ConcurrentHashMap<>();
+
+    // Subscriptions per user and product, so a product stays viewed until its last one ends
+    private final Map<Long, Map<Long, Integer>> views = new ConcurrentHashMap<>();
+
+    // Striped per-user locks ordering a user's cart changes against their cart being indexed
+    private final Object[] cartLocks = new Object[CART_LOCK_STRIPES];
+
+    @Autowired
+    public ProductSubscriptionService(ProductSubscriptionIndex index, CartStore cartStore) {
+        this.index = index;
+        this.cartStore = cartStore;
+        for (int i = 0; i < cartLocks.length; i++) {
+            cartLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * A user opened a notification connection
+     */
+    public void userConnected(Long userId) {
+        if (index.connect(userId)) {
+            // Cart changes wait for the cart to be read and indexed, so none is overwritten by it
+            synchronized (cartLock(userId)) {
+                try {
+                    index.setCart(userId, cartStore.getLines(CartStore.userCart(userId)).stream()
+                            .map(CartLine::productId)
+                            .toList());
+                } catch (RuntimeException e) {
+                    logger.warn("Cart of user {} not indexed: {}", userId, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * A user closed a notification connection
+     */
+    public void userDisconnected(Long userId) {
+        index.disconnect(userId);
+    }
+
+    /**
+     * Connected users holding or viewing a product
+     */
+    public long[] getSubscribers(Long productId) {
+        return index.getSubscribers(productId);
+    }
+
+    /**
+     * Principal names of those users with a WebSocket session
+     */
+    public List<String> getWebSocketUsers(long[] userIds) {
+        List<String> names = new ArrayList<>();
+        for (long userId : userIds) {
+            WebSocketUser user = webSocketUsers.get(userId);
+            if (user != null) {
+                names.add(user.name());
+            }
+        }
+        return names;
+    }
+
+    @EventListener
+    public void handleCartChanged(CartChangedEvent event) {
+        long userId = event.getUserId();
+        synchronized (cartLock(userId)) {
+            switch (event.getKind()) {
+                case ADDED -> event.getProductIds().forEach(productId -> index.addToCart(userId, productId));
+                case REMOVED -> event.getProductIds().forEach(productId -> index.removeFromCart(userId, productId));
+                case CLEARED -> index.setCart(userId, List.of());
+            }
+        }
+    }
+
+    @EventListener
+    public void handleSessionConnected(SessionConnectedEvent event) {
+        Long userId = userIdOf(event.getUser());
+        String sessionId = StompHeaderAccessor.wrap(event.getMessage()).getSessionId();
+        if (userId == null || sessionId == null) {
+            return;
+        }
+        sessions.put(sessionId, new WebSocketSession(userId, new ConcurrentHashMap<>()));
+        webSocketUsers.merge(userId, new WebSocketUser(event.getUser().getName(), 1),
+                (current, added) -> new WebSocketUser(current.name(), current.sessions() + 1));
+        userConnected(userId);
+    }
+
+    @EventListener
+    public void handleSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String destination = accessor.getDestination();
+        WebSocketSession session = accessor.getSessionId() != null ? sessions.get(accessor.getSessionId()) : null;
+        if (destination == null || session == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+        Matcher matcher = VIEW_DESTINATION.matcher(destination);
+        if (matcher.matches()) {
+            long productId = Long.parseLong(matcher.group(1));
+            if (session.views().putIfAbsent(accessor.getSubscriptionId(), productId) == null) {
+                startViewing(session.userId(), productId);
+            }
+        }
+    }
+
+    @EventListener
+    public void handleUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        WebSocketSession session = accessor.getSessionId() != null ? sessions.get(accessor.getSessionId()) : null;
+        if (session == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+        Long productId = session.views().remove(accessor.getSubscriptionId());
+        if (productId != null) {
+            stopViewing(session.userId(), productId);
+        }
+    }
+
+    @EventListener
+    public void handleSessionDisconnect(SessionDisconnectEvent event) {
+        WebSocketSession session = sessions.remove(event.getSessionId());
+        if (session == null) {
+            return;
+        }
+        session.views().values().forEach(productId -> stopViewing(session.userId(), productId));
+        webSocketUsers.computeIfPresent(session.userId(), (id, user) -> user.sessions() > 1
+                ? new WebSocketUser(user.name(), user.sessions() - 1) : null);
+        userDisconnected(session.userId());
+    }
+
+    private void startViewing(long userId, long productId) {
+        views.compute(userId, (id, products) -> {
+            Map<Long, Integer> counts = products != null ? products : new HashMap<>();
+            if (counts.merge(productId, 1, Integer::sum) == 1) {
+                index.startViewing(userId, productId);
+            }
+            return counts;
+        });
+    }
+
+    private void stopViewing(long userId, long productId) {
+        views.computeIfPresent(userId, (id, counts) -> {
+            if (counts.merge(productId, -1, Integer::sum) == 0) {
+                counts.remove(productId);
+                index.stopViewing(userId, productId);
+            }
+            return counts.isEmpty() ? null : counts;
+        });
+    }
+
+    private Object cartLock(long userId) {
+        return cartLocks[Math.floorMod(Long.hashCode(userId), cartLocks.length)];
+    }
+
+    private static Long userIdOf(Principal principal) {
+        if (principal instanceof Authentication authentication
+                && authentication.getPrincipal() instanceof CustomUserPrincipal user) {
+            return user.getUserId();
+        }
+        return null;
+    }
+
+    /**
+     * Owner of a WebSocket session and its product views by subscription id
+     */
+    private record WebSocketSession(long userId, Map<String, Long> views) {
+    }
+
+    private record WebSocketUser(String name, int sessions) {
+    }
+}
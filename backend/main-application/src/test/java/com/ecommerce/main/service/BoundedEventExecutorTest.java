@@ -0,0 +1,105 @@
+package com.ecommerce.main.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A full queue must never grow: each policy either slows the caller,
+ * discards old work or merges it
+ */
+class BoundedEventExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch blocking = new CountDownLatch(1);
+    private final List<String> ran = new CopyOnWriteArrayList<>();
+    private BoundedEventExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void testCallerRuns_RunsOnPublishingThreadWhenFull() throws Exception {
+        executor = create(BoundedEventExecutor.RejectionPolicy.CALLER_RUNS);
+        occupyThread();
+        executor.execute(record("queued"));
+
+        Thread publisher = Thread.currentThread();
+        executor.execute(() -> ran.add(Thread.currentThread() == publisher ? "caller" : "pool"));
+
+        assertEquals(List.of("caller"), ran);
+        assertEquals(1, executor.getQueuedTasks());
+        assertEquals(1, executor.getActiveThreads());
+        assertEquals(1.0, meterRegistry.get("notifications.executor.rejections")
+                .tags("executor", "test", "outcome", "caller_runs").counter().count());
+    }
+
+    @Test
+    void testDropOldest_DiscardsLongestQueued() throws Exception {
+        executor = create(BoundedEventExecutor.RejectionPolicy.DROP_OLDEST);
+        occupyThread();
+        executor.execute(record("first"));
+        executor.execute(record("second"));
+
+        release.countDown();
+        executor.shutdown();
+        assertEquals(List.of("second"), ran);
+        assertEquals(1, executor.getRejectedTasks());
+    }
+
+    @Test
+    void testCoalesceByKey_ReplacesQueuedHandlerForSameKey() throws Exception {
+        executor = create(BoundedEventExecutor.RejectionPolicy.COALESCE_BY_KEY);
+        occupyThread();
+        executor.execute(1L, record("product 1 v1"));
+        executor.execute(1L, record("product 1 v2"));
+        executor.execute(2L, record("product 2"));
+
+        // Product 2 had nothing queued to merge with, so the caller ran it
+        assertEquals(List.of("product 2"), ran);
+        release.countDown();
+        executor.shutdown();
+        assertEquals(List.of("product 2", "product 1 v2"), ran);
+        assertEquals(1.0, meterRegistry.get("notifications.executor.rejections")
+                .tags("executor", "test", "outcome", "coalesced").counter().count());
+    }
+
+    @Test
+    void testPolicy_AcceptsConfigurationSpelling() {
+        executor = create(BoundedEventExecutor.RejectionPolicy.from(" coalesce-by-key"));
+        assertEquals(BoundedEventExecutor.RejectionPolicy.COALESCE_BY_KEY, executor.getRejectionPolicy());
+    }
+
+    // One thread and a queue of one
+    private BoundedEventExecutor create(BoundedEventExecutor.RejectionPolicy rejectionPolicy) {
+        return new BoundedEventExecutor("test", 1, 1, rejectionPolicy, Executors.defaultThreadFactory(), meterRegistry);
+    }
+
+    private void occupyThread() throws InterruptedException {
+        executor.execute(() -> {
+            blocking.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(blocking.await(5, TimeUnit.SECONDS));
+    }
+
+    private Runnable record(String name) {
+        return () -> ran.add(name);
+    }
+}
@@ -0,0 +1,139 @@
+package com.ecommerce.main.service;
+
+import com.ecommerce.main.subscription.ProductSubscriptionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryChangeCoalescerTest {
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private NotificationExecutors executors;
+
+    @Mock
+    private ProductSubscriptionService productSubscriptions;
+
+    @Mock
+    private WebSocketCartService webSocketCartService;
+
+    private InventoryChangeCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        coalescer = new InventoryChangeCoalescer(notificationService, executors, productSubscriptions,
+                webSocketCartService, 2);
+        lenient().when(productSubscriptions.getSubscribers(anyLong())).thenReturn(new long[0]);
+    }
+
+    @Test
+    void testChangesToSameProduct_KeepFirstOldAndLastNewQuantity() {
+        coalescer.add(change(1L, 100, 60));
+        coalescer.add(change(1L, 60, 20));
+        coalescer.add(change(1L, 20, 40));
+
+        coalescer.flush();
+
+        List<Map<String, Object>> changes = sentBatches().get(0);
+        assertEquals(1, changes.size());
+        assertEquals(100, changes.get(0).get("oldQuantity"));
+        assertEquals(40, changes.get(0).get("newQuantity"));
+        assertEquals(3, changes.get(0).get("events"));
+        verify(notificationService, never()).sendToUsers(anyCollection(), any());
+    }
+
+    @Test
+    void testManyProducts_SentInBatches() {
+        for (long productId = 1; productId <= 5; productId++) {
+            coalescer.add(change(productId, 0, 100));
+        }
+
+        coalescer.flush();
+        coalescer.flush();
+
+        List<List<Map<String, Object>>> batches = sentBatches();
+        assertEquals(List.of(2, 2, 1), batches.stream().map(List::size).toList());
+    }
+
+    @Test
+    void testRunningLow_SentOnlyToSubscribers() {
+        when(productSubscriptions.getSubscribers(1L)).thenReturn(new long[] {11L});
+        when(productSubscriptions.getWebSocketUsers(any())).thenReturn(List.of("buyer@example.com"));
+        coalescer.add(change(1L, 8, 3));
+        coalescer.add(change(2L, 50, 40));
+
+        coalescer.flush();
+
+        ArgumentCaptor<NotificationService.NotificationMessage> message =
+                ArgumentCaptor.forClass(NotificationService.NotificationMessage.class);
+        verify(notificationService).sendToUsers(eq(List.of(11L)), message.capture());
+        assertEquals("low_inventory", message.getValue().getType());
+        assertEquals("low_inventory:1", message.getValue().getCoalesceKey());
+        verify(webSocketCartService).notifyInventoryChange(List.of("buyer@example.com"), 1L, "Product 1", 3);
+        verify(notificationService, never()).broadcastToAllUsers(any(NotificationService.NotificationMessage.class));
+    }
+
+    @Test
+    void testOtherChange_SentAsInventoryUpdate() {
+        when(productSubscriptions.getSubscribers(1L)).thenReturn(new long[] {11L, 12L});
+        coalescer.add(change(1L, 20, 40));
+
+        coalescer.flush();
+
+        ArgumentCaptor<NotificationService.NotificationMessage> message =
+                ArgumentCaptor.forClass(NotificationService.NotificationMessage.class);
+        verify(notificationService).sendToUsers(eq(List.of(11L, 12L)), message.capture());
+        assertEquals("inventory_update", message.getValue().getType());
+        verifyNoInteractions(webSocketCartService);
+    }
+
+    @Test
+    void testCloseWindow_WhileFlushInFlight_DoesNotStartAnother() {
+        BoundedEventExecutor inventoryExecutor = mock(BoundedEventExecutor.class);
+        when(executors.inventory()).thenReturn(inventoryExecutor);
+        coalescer.add(change(1L, 100, 60));
+        coalescer.closeWindow();
+        coalescer.add(change(2L, 50, 40));
+        coalescer.closeWindow();
+
+        ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+        verify(inventoryExecutor, times(1)).execute(eq("inventory-flush"), flush.capture());
+
+        // Both windows go out in the one flush; the next window may flush again
+        flush.getValue().run();
+        assertEquals(2, sentBatches().get(0).size());
+        coalescer.add(change(3L, 10, 20));
+        coalescer.closeWindow();
+        verify(inventoryExecutor, times(2)).execute(eq("inventory-flush"), any(Runnable.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<Map<String, Object>>> sentBatches() {
+        ArgumentCaptor<Object> data = ArgumentCaptor.forClass(Object.class);
+        verify(notificationService, atLeastOnce()).sendAdminNotification(eq("inventory_change_batch"), data.capture());
+        return data.getAllValues().stream()
+                .map(batch -> (List<Map<String, Object>>) ((Map<String, Object>) batch).get("changes"))
+                .toList();
+    }
+
+    private static InventoryChangeEvent change(Long productId, int oldQuantity, int newQuantity) {
+        return new InventoryChangeEvent(InventoryChangeCoalescerTest.class, productId, "Product " + productId,
+                oldQuantity, newQuantity);
+    }
+}
@@ -0,0 +1,154 @@
+package com.ecommerce.main.sse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Publishing must not wait for slow clients, and a client that falls
+ * behind must lose old events rather than queue them without bound
+ */
+class SseFanoutTest {
+
+    private SseFanout fanout;
+
+    @AfterEach
+    void tearDown() {
+        fanout.destroy();
+    }
+
+    @Test
+    void testStalledClient_DoesNotDelayOtherShards() throws Exception {
+        fanout = new SseFanout(new ObjectMapper(), new SimpleMeterRegistry(), 2, 8, false);
+        RecordingEmitter stalled = new RecordingEmitter(new CountDownLatch(1));
+        RecordingEmitter healthy = new RecordingEmitter(null);
+        SseConnection stalledConnection = fanout.open(stalled, c -> { });
+        SseConnection healthyConnection = fanout.open(healthy, c -> { });
+
+        int accepted = fanout.send(List.of(stalledConnection, healthyConnection),
+                fanout.prepare("promotional", Map.of("title", "Sale")));
+
+        assertEquals(2, accepted);
+        assertEquals("promotional:{\"title\":\"Sale\"}", healthy.next());
+        stalled.release.countDown();
+        assertEquals("promotional:{\"title\":\"Sale\"}", stalled.next());
+    }
+
+    @Test
+    void testFullQueue_DropsOldestEvents() throws Exception {
+        fanout = new SseFanout(new ObjectMapper(), new SimpleMeterRegistry(), 1, 3, false);
+        RecordingEmitter emitter = new RecordingEmitter(new CountDownLatch(1));
+        SseConnection connection = fanout.open(emitter, c -> { });
+        fanout.send(connection, fanout.prepare("system", "0"));
+        emitter.writing.await(5, TimeUnit.SECONDS);
+
+        // Event 0 is being written; 1 and 2 do not fit behind 3, 4 and 5
+        for (int i = 1; i <= 5; i++) {
+            fanout.send(connection, fanout.prepare("system", Integer.toString(i)));
+        }
+        assertEquals(3, connection.getQueueDepth());
+        assertEquals(2, fanout.getDroppedEvents());
+
+        emitter.release.countDown();
+        assertEquals(List.of("system:0", "system:3", "system:4", "system:5"), emitter.take(4));
+        assertEquals(0, fanout.getQueuedEvents());
+    }
+
+    @Test
+    void testQueuedEventWithSameKey_IsReplaced() throws Exception {
+        fanout = new SseFanout(new ObjectMapper(), new SimpleMeterRegistry(), 1, 8, false);
+        RecordingEmitter emitter = new RecordingEmitter(new CountDownLatch(1));
+        SseConnection connection = fanout.open(emitter, c -> { });
+        fanout.send(connection, fanout.prepare("system", "first"));
+        emitter.writing.await(5, TimeUnit.SECONDS);
+
+        fanout.send(connection, fanout.prepare("inventory_update", Map.of("availableQuantity", 5), "inventory_update:1"));
+        fanout.send(connection, fanout.prepare("inventory_update", Map.of("availableQuantity", 9), "inventory_update:2"));
+        fanout.send(connection, fanout.prepare("inventory_update", Map.of("availableQuantity", 3), "inventory_update:1"));
+
+        emitter.release.countDown();
+        assertEquals(List.of("system:first",
+                "inventory_update:{\"availableQuantity\":9}",
+                "inventory_update:{\"availableQuantity\":3}"), emitter.take(3));
+        assertEquals(1, fanout.getCoalescedEvents());
+    }
+
+    @Test
+    void testFailedWrite_ClosesConnection() throws Exception {
+        fanout = new SseFanout(new ObjectMapper(), new SimpleMeterRegistry(), 1, 8, false);
+        CountDownLatch closed = new CountDownLatch(1);
+        SseConnection connection = fanout.open(new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        }, c -> closed.countDown());
+
+        assertTrue(fanout.send(connection, fanout.prepare("system", "lost")));
+
+        assertTrue(closed.await(5, TimeUnit.SECONDS));
+        assertTrue(connection.isClosed());
+        assertFalse(fanout.send(connection, fanout.prepare("system", "after close")));
+    }
+
+    /**
+     * Records events as name:data; when given a latch, the first write
+     * blocks until it is released
+     */
+    private static class RecordingEmitter extends SseEmitter {
+        private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        private final CountDownLatch writing = new CountDownLatch(1);
+        private final CountDownLatch release;
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            writing.countDown();
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            String frame = builder.build().stream()
+                    .map(item -> item.getData().toString())
+                    .collect(Collectors.joining());
+            String name = frame.substring(frame.indexOf("event:") + 6, frame.indexOf('\n'));
+            String data = frame.substring(frame.indexOf("data:") + 5, frame.lastIndexOf("\n\n"));
+            events.add(name + ":" + data);
+        }
+
+        String next() throws InterruptedException {
+            String event = events.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event, "no event written");
+            return event;
+        }
+
+        List<String> take(int count) throws InterruptedException {
+            List<String> taken = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                taken.add(next());
+            }
+            return taken;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.ecommerce.main.subscription;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSubscriptionIndexTest {
+
+    private final ProductSubscriptionIndex index = new ProductSubscriptionIndex();
+
+    @Test
+    void testSubscribers_AreCartHoldersAndViewersOnce() {
+        index.connect(1L);
+        index.connect(2L);
+        index.connect(3L);
+        index.setCart(1L, List.of(10L, 11L));
+        index.addToCart(2L, 10L);
+        index.startViewing(2L, 10L);
+        index.startViewing(3L, 10L);
+
+        assertArrayEquals(new long[] {1L, 2L, 3L}, sorted(index.getSubscribers(10L)));
+        assertArrayEquals(new long[] {1L}, sorted(index.getSubscribers(11L)));
+        assertEquals(0, index.getSubscribers(12L).length);
+    }
+
+    @Test
+    void testDisconnectedUsers_AreNotIndexed() {
+        index.addToCart(1L, 10L);
+        index.startViewing(1L, 10L);
+        assertEquals(0, index.getSubscribers(10L).length);
+
+        index.connect(1L);
+        index.connect(1L);
+        index.addToCart(1L, 10L);
+        index.disconnect(1L);
+        assertArrayEquals(new long[] {1L}, index.getSubscribers(10L));
+
+        // Gone with the last connection
+        index.disconnect(1L);
+        assertEquals(0, index.getSubscribers(10L).length);
+        assertEquals(0, index.getSubscribedProducts());
+        assertEquals(0, index.getConnectedUsers());
+    }
+
+    @Test
+    void testRemovingFromCart_KeepsViewing() {
+        index.connect(1L);
+        index.addToCart(1L, 10L);
+        index.startViewing(1L, 10L);
+
+        index.removeFromCart(1L, 10L);
+        assertArrayEquals(new long[] {1L}, index.getSubscribers(10L));
+        index.stopViewing(1L, 10L);
+        assertEquals(0, index.getSubscribers(10L).length);
+    }
+
+    @Test
+    void testConcurrentDisconnects_LeaveNothingBehind() throws Exception {
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads * 2);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long userId = t;
+                // One thread connects and disconnects the user while another keeps indexing them
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        index.connect(userId);
+                        index.disconnect(userId);
+                    }
+                }));
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        index.addToCart(userId, i % 50);
+                        index.startViewing(userId, i % 50);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, index.getConnectedUsers());
+        assertEquals(0, index.getSubscribedProducts());
+    }
+
+    @Test
+    void testLongHashSet_MatchesHashSet() {
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            long value = random.nextInt(2_000) - 100;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+        }
+
+        assertEquals(expected.size(), set.size());
+        assertArrayEquals(expected.stream().mapToLong(Long::longValue).sorted().toArray(), sorted(set.toArray()));
+        for (long value = -100; value < 1_900; value++) {
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+    }
+
+    private static long[] sorted(long[] values) {
+        long[] copy = values.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+}
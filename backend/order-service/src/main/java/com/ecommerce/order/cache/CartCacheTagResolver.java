@@ -0,0 +1,33 @@
+package com.ecommerce.order.cache;
+
+import com.ecommerce.common.cache.CacheTagResolver;
+import com.ecommerce.common.cache.CacheTags;
+import com.ecommerce.order.dto.CartSummaryDto;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Tags cached cart summaries with the products in the cart
+ */
+@Component
+public class CartCacheTagResolver implements CacheTagResolver {
+    
+    @Override
+    public Collection<String> getCacheNames() {
+        return List.of("user-cart", "guest-cart");
+    }
+    
+    @Override
+    public Collection<String> getTags(Object value) {
+        if (!(value instanceof CartSummaryDto) || ((CartSummaryDto) value).getItems() == null) {
+            return Set.of();
+        }
+        return ((CartSummaryDto) value).getItems().stream()
+                .map(item -> CacheTags.product(item.getProductId()))
+                .collect(Collectors.toSet());
+    }
+}
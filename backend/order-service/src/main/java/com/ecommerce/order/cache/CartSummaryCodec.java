@@ -0,0 +1,101 @@
+package com.ecommerce.order.cache;
+
+import com.ecommerce.common.cache.serialization.BinaryCodec;
+import com.ecommerce.common.cache.serialization.BinaryReader;
+import com.ecommerce.common.cache.serialization.BinaryWriter;
+import com.ecommerce.order.dto.CartItemDto;
+import com.ecommerce.order.dto.CartSummaryDto;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary cache layout for {@link CartSummaryDto}. Totals are stored rather
+ * than recomputed so a cached summary reads back exactly as it was built.
+ */
+@Component
+public class CartSummaryCodec implements BinaryCodec<CartSummaryDto> {
+    
+    public static final int TYPE_ID = 3;
+    
+    @Override
+    public int getTypeId() {
+        return TYPE_ID;
+    }
+    
+    @Override
+    public Class<CartSummaryDto> getType() {
+        return CartSummaryDto.class;
+    }
+    
+    @Override
+    public void write(BinaryWriter out, CartSummaryDto summary) {
+        List<CartItemDto> items = summary.getItems();
+        if (out.writePresence(items)) {
+            out.writeUnsignedVarInt(items.size());
+            for (CartItemDto item : items) {
+                writeItem(out, item);
+            }
+        }
+        out.writeVarInt(summary.getTotalItems());
+        out.writeVarInt(summary.getTotalQuantity());
+        out.writeBigDecimal(summary.getSubtotal());
+        out.writeBigDecimal(summary.getEstimatedTax());
+        out.writeBigDecimal(summary.getEstimatedShipping());
+        out.writeBigDecimal(summary.getEstimatedTotal());
+        out.writeString(summary.getCurrency());
+    }
+    
+    @Override
+    public CartSummaryDto read(BinaryReader in) {
+        CartSummaryDto summary = new CartSummaryDto();
+        if (in.readPresence()) {
+            int size = in.readUnsignedVarInt();
+            List<CartItemDto> items = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                items.add(readItem(in));
+            }
+            summary.setItems(items);
+        }
+        // Setters recompute derived totals, so apply the stored ones last
+        int totalItems = in.readVarInt();
+        int totalQuantity = in.readVarInt();
+        summary.setSubtotal(in.readBigDecimal());
+        summary.setEstimatedTax(in.readBigDecimal());
+        summary.setEstimatedShipping(in.readBigDecimal());
+        summary.setEstimatedTotal(in.readBigDecimal());
+        summary.setTotalItems(totalItems);
+        summary.setTotalQuantity(totalQuantity);
+        summary.setCurrency(in.readString());
+        return summary;
+    }
+    
+    private void writeItem(BinaryWriter out, CartItemDto item) {
+        out.writeNullableLong(item.getId());
+        out.writeNullableLong(item.getProductId());
+        out.writeString(item.getProductName());
+        out.writeString(item.getProductSku());
+        out.writeBigDecimal(item.getUnitPrice());
+        out.writeString(item.getImageUrl());
+        out.writeNullableInt(item.getQuantity());
+        out.writeBigDecimal(item.getTotalPrice());
+        out.writeDateTime(item.getCreatedAt());
+        out.writeDateTime(item.getUpdatedAt());
+    }
+    
+    private CartItemDto readItem(BinaryReader in) {
+        CartItemDto item = new CartItemDto();
+        item.setId(in.readNullableLong());
+        item.setProductId(in.readNullableLong());
+        item.setProductName(in.readString());
+        item.setProductSku(in.readString());
+        item.setUnitPrice(in.readBigDecimal());
+        item.setImageUrl(in.readString());
+        item.setQuantity(in.readNullableInt());
+        item.setTotalPrice(in.readBigDecimal());
+        item.setCreatedAt(in.readDateTime());
+        item.setUpdatedAt(in.readDateTime());
+        return item;
+    }
+}
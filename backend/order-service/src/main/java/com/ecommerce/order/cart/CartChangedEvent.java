@@ -0,0 +1,48 @@
+package com.ecommerce.order.cart;
+
+import org.springframework.context.ApplicationEvent;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Products entering or leaving a registered user's cart. Quantity changes
+ * to a product already in the cart, whether from adding more of it or from
+ * merging a guest cart that also holds it, are not published.
+ */
+public class CartChangedEvent extends ApplicationEvent {
+
+    public enum Kind {
+        ADDED,
+        REMOVED,
+        /** Every product left the cart; the event lists none */
+        CLEARED
+    }
+
+    private final Long userId;
+    private final Kind kind;
+    private final Collection<Long> productIds;
+
+    public CartChangedEvent(Object source, Long userId, Kind kind, Collection<Long> productIds) {
+        super(source);
+        this.userId = userId;
+        this.kind = kind;
+        this.productIds = productIds;
+    }
+
+    public static CartChangedEvent cleared(Object source, Long userId) {
+        return new CartChangedEvent(source, userId, Kind.CLEARED, List.of());
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Collection<Long> getProductIds() {
+        return productIds;
+    }
+}
@@ -0,0 +1,182 @@
+package com.ecommerce.order.cart;
+
+import com.ecommerce.order.repository.ShoppingCartRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Writes cart changes from {@link CartStore} behind to shopping_cart. Changes
+ * are read from the change stream in batches and coalesced per cart line,
+ * and every changed line is written from the cart's current state in Redis:
+ * any number of changes to a line cost one write, and replaying changes
+ * after a failure is harmless.
+ */
+@Service
+public class CartFlushService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartFlushService.class);
+
+    private final CartStore cartStore;
+    private final ShoppingCartRepository cartRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    @Autowired
+    public CartFlushService(CartStore cartStore, ShoppingCartRepository cartRepository,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${cart.store.batch-size:500}") int batchSize) {
+        this.cartStore = cartStore;
+        this.cartRepository = cartRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Write outstanding changes, a batch per transaction, until none are left
+     */
+    @Scheduled(fixedDelayString = "${cart.store.flush-interval-millis:1000}")
+    public void flush() {
+        while (flushBatch() == batchSize) {
+            // More changes are waiting
+        }
+    }
+
+    /**
+     * Write one batch of changes, returning how many were written. If the
+     * batch fails it is written again cart by cart, so one cart that cannot
+     * be written does not hold back the others; changes that fail to be
+     * written stay in the stream and are retried.
+     */
+    public int flushBatch() {
+        List<CartStore.Change> changes;
+        try {
+            changes = cartStore.readChanges(batchSize);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to read cart changes: {}", e.getMessage());
+            return 0;
+        }
+        if (changes.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            write(changes);
+        } catch (RuntimeException e) {
+            logger.error("Failed to write {} cart changes, retrying cart by cart: {}",
+                    changes.size(), e.getMessage(), e);
+            return writeEachCart(changes);
+        }
+        cartStore.acknowledge(changes.stream().map(CartStore.Change::id).toList());
+        return changes.size();
+    }
+
+    private int writeEachCart(List<CartStore.Change> changes) {
+        Map<String, List<CartStore.Change>> changesByCart = changes.stream()
+                .collect(Collectors.groupingBy(CartStore.Change::cartId));
+        int written = 0;
+        for (Map.Entry<String, List<CartStore.Change>> cart : changesByCart.entrySet()) {
+            try {
+                write(cart.getValue());
+            } catch (RuntimeException e) {
+                logger.error("Failed to write {} changes of cart {}, will retry: {}",
+                        cart.getValue().size(), cart.getKey(), e.getMessage());
+                continue;
+            }
+            cartStore.acknowledge(cart.getValue().stream().map(CartStore.Change::id).toList());
+            written += cart.getValue().size();
+        }
+        return written;
+    }
+
+    private void write(List<CartStore.Change> changes) {
+        // Products changed per cart; carts changed as a whole are written in full
+        Map<String, Set<Long>> changedLines = new HashMap<>();
+        Set<String> changedCarts = new HashSet<>();
+        for (CartStore.Change change : changes) {
+            if (change.productId() == null) {
+                changedCarts.add(change.cartId());
+            } else {
+                changedLines.computeIfAbsent(change.cartId(), cartId -> new HashSet<>()).add(change.productId());
+            }
+        }
+        changedLines.keySet().removeAll(changedCarts);
+
+        Set<String> cartIds = new HashSet<>(changedCarts);
+        cartIds.addAll(changedLines.keySet());
+        Map<String, Map<Long, CartLine>> carts = cartStore.snapshot(cartIds);
+        transactionTemplate.executeWithoutResult(status -> {
+            for (String cartId : changedCarts) {
+                writeCart(cartId, carts.get(cartId));
+            }
+            changedLines.forEach((cartId, productIds) -> writeLines(cartId, productIds, carts.get(cartId)));
+        });
+        logger.debug("Wrote {} cart changes across {} carts", changes.size(), cartIds.size());
+    }
+
+    private void writeCart(String cartId, Map<Long, CartLine> lines) {
+        if (lines == null) {
+            logger.warn("Cart {} left Redis before its changes were written", cartId);
+            return;
+        }
+        Long userId = CartStore.userIdOf(cartId);
+        String sessionId = CartStore.sessionIdOf(cartId);
+        if (lines.isEmpty()) {
+            if (userId != null) {
+                cartRepository.deleteByUserId(userId);
+            } else {
+                cartRepository.deleteBySessionId(sessionId);
+            }
+            return;
+        }
+        if (userId != null) {
+            cartRepository.deleteByUserIdAndProductIdNotIn(userId, lines.keySet());
+        } else {
+            cartRepository.deleteBySessionIdAndProductIdNotIn(sessionId, lines.keySet());
+        }
+        for (CartLine line : lines.values()) {
+            writeLine(userId, sessionId, line);
+        }
+    }
+
+    private void writeLines(String cartId, Set<Long> productIds, Map<Long, CartLine> lines) {
+        if (lines == null) {
+            logger.warn("Cart {} left Redis before its changes were written", cartId);
+            return;
+        }
+        Long userId = CartStore.userIdOf(cartId);
+        String sessionId = CartStore.sessionIdOf(cartId);
+        for (Long productId : productIds) {
+            CartLine line = lines.get(productId);
+            if (line != null) {
+                writeLine(userId, sessionId, line);
+            } else if (userId != null) {
+                cartRepository.deleteByUserIdAndProductId(userId, productId);
+            } else {
+                cartRepository.deleteBySessionIdAndProductId(sessionId, productId);
+            }
+        }
+    }
+
+    private void writeLine(Long userId, String sessionId, CartLine line) {
+        if (userId != null) {
+            cartRepository.upsertUserCartItem(userId, line.productId(), line.quantity(),
+                    line.createdAt(), line.updatedAt());
+        } else {
+            cartRepository.upsertGuestCartItem(sessionId, line.productId(), line.quantity(),
+                    line.createdAt(), line.updatedAt());
+        }
+    }
+}
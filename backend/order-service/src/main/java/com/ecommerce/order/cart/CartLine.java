@@ -0,0 +1,35 @@
+package com.ecommerce.order.cart;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * One product in a cart as held by {@link CartStore}
+ */
+public record CartLine(Long productId, int quantity, LocalDateTime createdAt, LocalDateTime updatedAt) {
+
+    /**
+     * Hash value layout: quantity:createdAtMillis:updatedAtMillis
+     */
+    static CartLine decode(Long productId, String value) {
+        int first = value.indexOf(':');
+        int second = value.indexOf(':', first + 1);
+        return new CartLine(productId,
+                Integer.parseInt(value, 0, first, 10),
+                toDateTime(Long.parseLong(value, first + 1, second, 10)),
+                toDateTime(Long.parseLong(value, second + 1, value.length(), 10)));
+    }
+
+    String encode() {
+        return quantity + ":" + toMillis(createdAt) + ":" + toMillis(updatedAt);
+    }
+
+    private static LocalDateTime toDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,552 @@
+package com.ecommerce.order.cart;
+
+import com.ecommerce.order.entity.ShoppingCart;
+import com.ecommerce.order.repository.ShoppingCartRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Active carts, one Redis hash per cart mapping product id to quantity and
+ * timestamps. A cart is loaded from shopping_cart on first use; from then on
+ * the hash is the source of truth and requests never read the table.
+ *
+ * Every change appends the cart and product to {@link #CHANGE_STREAM} in the
+ * same script that updates the hash, and {@link CartFlushService} writes the
+ * changes to shopping_cart behind the requests. Changes leave the stream only
+ * once written, so those read by a node that died before writing them are
+ * claimed and replayed by another node.
+ */
+@Component
+public class CartStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartStore.class);
+
+    public static final String CHANGE_STREAM = "cart:changes";
+    // Changes that failed to be written too many times, kept for inspection
+    public static final String DEAD_LETTER_STREAM = "cart:changes:dead";
+    static final String FLUSH_GROUP = "cart-flush";
+
+    private static final String KEY_PREFIX = "cart:";
+    private static final String USER_PREFIX = "user:";
+    private static final String SESSION_PREFIX = "session:";
+    // Hash field present once the cart has been loaded, so an empty cart is not reloaded
+    private static final String LOADED = "loaded";
+    // Product of a change covering the whole cart
+    private static final String WHOLE_CART = "*";
+
+    // ARGV: product id, quantity, now (millis), TTL (seconds), cart id. Returns the new value, or nil if not loaded.
+    private static final RedisScript<String> SET_SCRIPT = RedisScript.of("""
+            if redis.call('HEXISTS', KEYS[1], 'loaded') == 0 then
+                return false
+            end
+            local created = ARGV[3]
+            local current = redis.call('HGET', KEYS[1], ARGV[1])
+            if current then
+                created = string.match(current, '^%d+:(%d+):')
+            end
+            local value = ARGV[2] .. ':' .. created .. ':' .. ARGV[3]
+            redis.call('HSET', KEYS[1], ARGV[1], value)
+            redis.call('EXPIRE', KEYS[1], ARGV[4])
+            redis.call('XADD', KEYS[2], '*', 'cart', ARGV[5], 'product', ARGV[1])
+            return value
+            """, String.class);
+
+    // ARGV: product id, quantity to add, quantity limit, now (millis), TTL (seconds), cart id. Returns the new
+    // value, nil if not loaded, or '!' followed by the quantity asked for if it exceeds the limit.
+    private static final RedisScript<String> ADD_SCRIPT = RedisScript.of("""
+            if redis.call('HEXISTS', KEYS[1], 'loaded') == 0 then
+                return false
+            end
+            local quantity = tonumber(ARGV[2])
+            local created = ARGV[4]
+            local current = redis.call('HGET', KEYS[1], ARGV[1])
+            if current then
+                local existing, existingCreated = string.match(current, '^(%d+):(%d+):')
+                quantity = quantity + tonumber(existing)
+                created = existingCreated
+            end
+            if quantity > tonumber(ARGV[3]) then
+                return string.format('!%d', quantity)
+            end
+            local value = string.format('%d:%s:%s', quantity, created, ARGV[4])
+            redis.call('HSET', KEYS[1], ARGV[1], value)
+            redis.call('EXPIRE', KEYS[1], ARGV[5])
+            redis.call('XADD', KEYS[2], '*', 'cart', ARGV[6], 'product', ARGV[1])
+            return value
+            """, String.class);
+
+    // ARGV: product id, TTL (seconds), cart id. Returns 1 if removed, 0 if absent, -1 if not loaded.
+    private static final RedisScript<Long> REMOVE_SCRIPT = RedisScript.of("""
+            if redis.call('HEXISTS', KEYS[1], 'loaded') == 0 then
+                return -1
+            end
+            if redis.call('HDEL', KEYS[1], ARGV[1]) == 0 then
+                return 0
+            end
+            redis.call('EXPIRE', KEYS[1], ARGV[2])
+            redis.call('XADD', KEYS[2], '*', 'cart', ARGV[3], 'product', ARGV[1])
+            return 1
+            """, Long.class);
+
+    // ARGV: TTL (seconds), cart id
+    private static final RedisScript<Long> CLEAR_SCRIPT = RedisScript.of("""
+            redis.call('DEL', KEYS[1])
+            redis.call('HSET', KEYS[1], 'loaded', '1')
+            redis.call('EXPIRE', KEYS[1], ARGV[1])
+            redis.call('XADD', KEYS[2], '*', 'cart', ARGV[2], 'product', '*')
+            return 1
+            """, Long.class);
+
+    // ARGV: TTL (seconds), then product id / value pairs. Leaves a cart loaded concurrently alone.
+    private static final RedisScript<Long> LOAD_SCRIPT = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[1]) == 1 then
+                return 0
+            end
+            redis.call('HSET', KEYS[1], 'loaded', '1')
+            -- HSET in chunks to stay within Lua's argument limit
+            for i = 2, #ARGV, 1000 do
+                redis.call('HSET', KEYS[1], unpack(ARGV, i, math.min(i + 999, #ARGV)))
+            end
+            redis.call('EXPIRE', KEYS[1], ARGV[1])
+            return 1
+            """, Long.class);
+
+    // KEYS: target cart, source cart, change stream. ARGV: now (millis), TTL (seconds), target cart id,
+    // source cart id, then product id / quantity limit pairs. Returns the lines moved, -1 or -2 if the
+    // target or source is not loaded.
+    private static final RedisScript<Long> MERGE_SCRIPT = RedisScript.of("""
+            if redis.call('HEXISTS', KEYS[1], 'loaded') == 0 then
+                return -1
+            end
+            if redis.call('HEXISTS', KEYS[2], 'loaded') == 0 then
+                return -2
+            end
+            local limits = {}
+            for i = 5, #ARGV, 2 do
+                limits[ARGV[i]] = tonumber(ARGV[i + 1])
+            end
+            local source = redis.call('HGETALL', KEYS[2])
+            local values = {}
+            for i = 1, #source, 2 do
+                local product = source[i]
+                if product ~= 'loaded' then
+                    local quantity, created = string.match(source[i + 1], '^(%d+):(%d+):')
+                    quantity = tonumber(quantity)
+                    local current = redis.call('HGET', KEYS[1], product)
+                    if current then
+                        local existing, existingCreated = string.match(current, '^(%d+):(%d+):')
+                        existing = tonumber(existing)
+                        local limit = limits[product] or existing
+                        quantity = math.min(quantity + existing, math.max(limit, existing))
+                        created = existingCreated
+                    end
+                    table.insert(values, product)
+                    table.insert(values, string.format('%d:%s:%s', quantity, created, ARGV[1]))
+                end
+            end
+            if #values == 0 then
+                return 0
+            end
+            -- HSET in chunks to stay within Lua's argument limit
+            for i = 1, #values, 1000 do
+                redis.call('HSET', KEYS[1], unpack(values, i, math.min(i + 999, #values)))
+            end
+            redis.call('DEL', KEYS[2])
+            redis.call('HSET', KEYS[2], 'loaded', '1')
+            redis.call('EXPIRE', KEYS[1], ARGV[2])
+            redis.call('EXPIRE', KEYS[2], ARGV[2])
+            redis.call('XADD', KEYS[3], '*', 'cart', ARGV[3], 'product', '*')
+            redis.call('XADD', KEYS[3], '*', 'cart', ARGV[4], 'product', '*')
+            return #values / 2
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ShoppingCartRepository cartRepository;
+    private final String idleTtlSeconds;
+    private final Duration claimIdle;
+    private final int maxDeliveries;
+    private final String consumerName;
+    private volatile boolean flushGroupCreated;
+
+    @Autowired
+    public CartStore(StringRedisTemplate redisTemplate, ShoppingCartRepository cartRepository,
+                     @Value("${cart.store.idle-ttl:7d}") Duration idleTtl,
+                     @Value("${cart.store.claim-idle:5m}") Duration claimIdle,
+                     @Value("${cart.store.max-deliveries:5}") int maxDeliveries) {
+        this.redisTemplate = redisTemplate;
+        this.cartRepository = cartRepository;
+        this.idleTtlSeconds = Long.toString(idleTtl.getSeconds());
+        this.claimIdle = claimIdle;
+        this.maxDeliveries = maxDeliveries;
+        this.consumerName = consumerName();
+    }
+
+    public static String userCart(Long userId) {
+        return USER_PREFIX + userId;
+    }
+
+    public static String guestCart(String sessionId) {
+        return SESSION_PREFIX + sessionId;
+    }
+
+    /**
+     * User id of a registered user's cart, or null for a guest cart
+     */
+    static Long userIdOf(String cartId) {
+        return cartId.startsWith(USER_PREFIX) ? Long.valueOf(cartId.substring(USER_PREFIX.length())) : null;
+    }
+
+    /**
+     * Session id of a guest cart, or null for a registered user's cart
+     */
+    static String sessionIdOf(String cartId) {
+        return cartId.startsWith(SESSION_PREFIX) ? cartId.substring(SESSION_PREFIX.length()) : null;
+    }
+
+    /**
+     * Lines of a cart, most recently added first
+     */
+    public List<CartLine> getLines(String cartId) {
+        List<CartLine> lines = new ArrayList<>(entries(cartId).values());
+        lines.sort(Comparator.comparing(CartLine::createdAt).reversed());
+        return lines;
+    }
+
+    /**
+     * A product's line in a cart, or null if the product is not in it
+     */
+    public CartLine getLine(String cartId, Long productId) {
+        List<String> values = redisTemplate.<String, String>opsForHash().multiGet(key(cartId),
+                List.of(productId.toString(), LOADED));
+        if (values.get(1) == null) {
+            return entries(cartId).get(productId);
+        }
+        return values.get(0) == null ? null : CartLine.decode(productId, values.get(0));
+    }
+
+    /**
+     * Total quantity of all products in a cart
+     */
+    public int getTotalQuantity(String cartId) {
+        return entries(cartId).values().stream().mapToInt(CartLine::quantity).sum();
+    }
+
+    /**
+     * Set a product's quantity, adding it to the cart if needed
+     */
+    public CartLine setQuantity(String cartId, Long productId, int quantity) {
+        List<String> keys = List.of(key(cartId), CHANGE_STREAM);
+        String product = productId.toString();
+        for (int attempt = 0; ; attempt++) {
+            String value = redisTemplate.execute(SET_SCRIPT, keys, product, Integer.toString(quantity),
+                    Long.toString(System.currentTimeMillis()), idleTtlSeconds, cartId);
+            if (value != null) {
+                return CartLine.decode(productId, value);
+            }
+            ensureLoaded(cartId, attempt);
+        }
+    }
+
+    /**
+     * Add to a product's quantity, adding it to the cart if needed, in one
+     * step so concurrent additions are never lost. Returns null and leaves
+     * the cart unchanged if the new quantity would exceed the limit.
+     */
+    public CartLine addQuantity(String cartId, Long productId, int quantity, int limit) {
+        List<String> keys = List.of(key(cartId), CHANGE_STREAM);
+        String product = productId.toString();
+        for (int attempt = 0; ; attempt++) {
+            String value = redisTemplate.execute(ADD_SCRIPT, keys, product, Integer.toString(quantity),
+                    Integer.toString(limit), Long.toString(System.currentTimeMillis()), idleTtlSeconds, cartId);
+            if (value != null) {
+                return value.startsWith("!") ? null : CartLine.decode(productId, value);
+            }
+            ensureLoaded(cartId, attempt);
+        }
+    }
+
+    /**
+     * Remove a product from a cart, returning whether it was in it
+     */
+    public boolean remove(String cartId, Long productId) {
+        List<String> keys = List.of(key(cartId), CHANGE_STREAM);
+        for (int attempt = 0; ; attempt++) {
+            Long removed = redisTemplate.execute(REMOVE_SCRIPT, keys, productId.toString(), idleTtlSeconds, cartId);
+            if (removed != null && removed >= 0) {
+                return removed == 1;
+            }
+            ensureLoaded(cartId, attempt);
+        }
+    }
+
+    /**
+     * Remove every product from a cart
+     */
+    public void clear(String cartId) {
+        redisTemplate.execute(CLEAR_SCRIPT, List.of(key(cartId), CHANGE_STREAM), idleTtlSeconds, cartId);
+    }
+
+    /**
+     * Move every line of one cart into another and empty the first, in one
+     * step. A product already in the target cart gets the sum of both
+     * quantities, but no more than its limit and no less than the target
+     * had; products without a limit keep the target's quantity. Returns
+     * the number of lines moved.
+     */
+    public int merge(String fromCartId, String toCartId, Map<Long, Integer> limits) {
+        List<String> keys = List.of(key(toCartId), key(fromCartId), CHANGE_STREAM);
+        List<String> args = new ArrayList<>(4 + 2 * limits.size());
+        args.add(Long.toString(System.currentTimeMillis()));
+        args.add(idleTtlSeconds);
+        args.add(toCartId);
+        args.add(fromCartId);
+        limits.forEach((productId, limit) -> {
+            args.add(productId.toString());
+            args.add(limit.toString());
+        });
+        for (int attempt = 0; ; attempt++) {
+            Long merged = redisTemplate.execute(MERGE_SCRIPT, keys, args.toArray());
+            if (merged != null && merged >= 0) {
+                return merged.intValue();
+            }
+            ensureLoaded(merged != null && merged == -2 ? fromCartId : toCartId, attempt);
+        }
+    }
+
+    // Write-behind: the change stream and current cart state, for CartFlushService
+
+    /**
+     * A change to one product of a cart, or to the whole cart when
+     * productId is null
+     */
+    public record Change(RecordId id, String cartId, Long productId) {
+    }
+
+    /**
+     * Up to count changes not yet written to shopping_cart: first those this
+     * node read before, including ones claimed from nodes that stopped
+     * without writing them, then new ones. Changes delivered
+     * cart.store.max-deliveries times without being written are moved to
+     * {@link #DEAD_LETTER_STREAM} so they no longer hold up the rest.
+     */
+    public List<Change> readChanges(int count) {
+        StreamOperations<String, Object, Object> streams = redisTemplate.opsForStream();
+        if (!flushGroupCreated) {
+            createFlushGroup(streams);
+        }
+        Consumer consumer = Consumer.from(FLUSH_GROUP, consumerName);
+        StreamReadOptions options = StreamReadOptions.empty().count(count);
+        List<MapRecord<String, Object, Object>> records;
+        try {
+            claimAbandoned(streams, count);
+            deadLetterUndeliverable(streams, count);
+            records = streams.read(consumer, options, StreamOffset.create(CHANGE_STREAM, ReadOffset.from("0")));
+            if (records == null || records.isEmpty()) {
+                records = streams.read(consumer, options, StreamOffset.create(CHANGE_STREAM, ReadOffset.lastConsumed()));
+            }
+        } catch (RuntimeException e) {
+            // The stream may have been deleted along with the group; recreate it next time
+            flushGroupCreated = false;
+            throw e;
+        }
+        if (records == null) {
+            return List.of();
+        }
+
+        List<Change> changes = new ArrayList<>(records.size());
+        List<RecordId> malformed = new ArrayList<>();
+        for (MapRecord<String, Object, Object> record : records) {
+            Object cartId = record.getValue().get("cart");
+            Object product = record.getValue().get("product");
+            if (cartId == null || product == null) {
+                malformed.add(record.getId());
+            } else {
+                changes.add(new Change(record.getId(), cartId.toString(),
+                        WHOLE_CART.equals(product) ? null : Long.valueOf(product.toString())));
+            }
+        }
+        if (!malformed.isEmpty()) {
+            logger.warn("Dropping {} malformed cart changes", malformed.size());
+            acknowledge(malformed);
+        }
+        return changes;
+    }
+
+    /**
+     * Current lines of the given carts by product id, in one round trip.
+     * Carts no longer in Redis are left out.
+     */
+    public Map<String, Map<Long, CartLine>> snapshot(Collection<String> cartIds) {
+        List<String> ids = new ArrayList<>(cartIds);
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (String cartId : ids) {
+                stringConnection.hGetAll(key(cartId));
+            }
+            return null;
+        });
+
+        Map<String, Map<Long, CartLine>> carts = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Map<?, ?> entries = (Map<?, ?>) results.get(i);
+            if (entries != null && !entries.isEmpty()) {
+                carts.put(ids.get(i), toLines(entries));
+            }
+        }
+        return carts;
+    }
+
+    /**
+     * Drop changes that have been written to shopping_cart
+     */
+    public void acknowledge(Collection<RecordId> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        RecordId[] recordIds = ids.toArray(new RecordId[0]);
+        StreamOperations<String, Object, Object> streams = redisTemplate.opsForStream();
+        streams.acknowledge(CHANGE_STREAM, FLUSH_GROUP, recordIds);
+        streams.delete(CHANGE_STREAM, recordIds);
+    }
+
+    // Private helper methods
+
+    private Map<Long, CartLine> entries(String cartId) {
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(key(cartId));
+        for (int attempt = 0; entries.isEmpty(); attempt++) {
+            ensureLoaded(cartId, attempt);
+            entries = redisTemplate.opsForHash().entries(key(cartId));
+        }
+        return toLines(entries);
+    }
+
+    /**
+     * Load a cart from shopping_cart unless another request already has
+     */
+    private void ensureLoaded(String cartId, int attempt) {
+        if (attempt >= 3) {
+            // Only a cart expiring again straight after each load gets here
+            throw new IllegalStateException("Cart " + cartId + " could not be loaded");
+        }
+        Long userId = userIdOf(cartId);
+        List<ShoppingCart> rows = userId != null
+                ? cartRepository.findByUserIdOrderByCreatedAtDesc(userId)
+                : cartRepository.findBySessionIdOrderByCreatedAtDesc(sessionIdOf(cartId));
+
+        List<String> args = new ArrayList<>(1 + 2 * rows.size());
+        args.add(idleTtlSeconds);
+        for (ShoppingCart row : rows) {
+            LocalDateTime createdAt = row.getCreatedAt() != null ? row.getCreatedAt() : LocalDateTime.now();
+            LocalDateTime updatedAt = row.getUpdatedAt() != null ? row.getUpdatedAt() : createdAt;
+            args.add(row.getProductId().toString());
+            args.add(new CartLine(row.getProductId(), row.getQuantity(), createdAt, updatedAt).encode());
+        }
+        redisTemplate.execute(LOAD_SCRIPT, List.of(key(cartId)), args.toArray());
+    }
+
+    private static Map<Long, CartLine> toLines(Map<?, ?> entries) {
+        Map<Long, CartLine> lines = new HashMap<>();
+        entries.forEach((field, value) -> {
+            if (!LOADED.equals(field)) {
+                Long productId = Long.valueOf(field.toString());
+                lines.put(productId, CartLine.decode(productId, value.toString()));
+            }
+        });
+        return lines;
+    }
+
+    private void createFlushGroup(StreamOperations<String, Object, Object> streams) {
+        try {
+            streams.createGroup(CHANGE_STREAM, ReadOffset.from("0"), FLUSH_GROUP);
+        } catch (RuntimeException e) {
+            // BUSYGROUP: created by this or another node before
+            logger.debug("Cart flush group exists: {}", e.getMessage());
+        }
+        flushGroupCreated = true;
+    }
+
+    /**
+     * Take over changes that another node read but has not written for
+     * longer than the claim timeout
+     */
+    private void claimAbandoned(StreamOperations<String, Object, Object> streams, int count) {
+        PendingMessages pending = streams.pending(CHANGE_STREAM, FLUSH_GROUP, Range.unbounded(), count);
+        RecordId[] abandoned = pending.stream()
+                .filter(message -> !consumerName.equals(message.getConsumerName()))
+                .filter(message -> message.getElapsedTimeSinceLastDelivery().compareTo(claimIdle) >= 0)
+                .map(PendingMessage::getId)
+                .toArray(RecordId[]::new);
+        if (abandoned.length > 0) {
+            streams.claim(CHANGE_STREAM, FLUSH_GROUP, consumerName, claimIdle, abandoned);
+            logger.warn("Claimed {} cart changes left unwritten by other nodes", abandoned.length);
+        }
+    }
+
+    /**
+     * Move this node's changes that keep failing to be written to the dead
+     * letter stream, and drop them from the change stream
+     */
+    private void deadLetterUndeliverable(StreamOperations<String, Object, Object> streams, int count) {
+        PendingMessages pending = streams.pending(CHANGE_STREAM, Consumer.from(FLUSH_GROUP, consumerName),
+                Range.unbounded(), count);
+        List<RecordId> undeliverable = pending.stream()
+                .filter(message -> message.getTotalDeliveryCount() >= maxDeliveries)
+                .map(PendingMessage::getId)
+                .toList();
+        if (undeliverable.isEmpty()) {
+            return;
+        }
+        for (RecordId id : undeliverable) {
+            List<MapRecord<String, Object, Object>> records =
+                    streams.range(CHANGE_STREAM, Range.closed(id.getValue(), id.getValue()));
+            if (records != null && !records.isEmpty()) {
+                streams.add(MapRecord.create(DEAD_LETTER_STREAM, records.get(0).getValue()));
+            }
+        }
+        acknowledge(undeliverable);
+        logger.error("Moved {} cart changes that failed {} times to {}", undeliverable.size(), maxDeliveries,
+                DEAD_LETTER_STREAM);
+    }
+
+    private static String key(String cartId) {
+        return KEY_PREFIX + cartId;
+    }
+
+    private static String consumerName() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "localhost";
+        }
+        return host + ":" + ProcessHandle.current().pid();
+    }
+}
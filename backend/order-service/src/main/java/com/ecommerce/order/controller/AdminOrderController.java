@@ -1,16 +1,21 @@
 package com.ecommerce.order.controller;
 
+import com.ecommerce.common.pagination.CursorPage;
 import com.ecommerce.order.dto.*;
 import com.ecommerce.order.entity.OrderStatus;
 import com.ecommerce.order.service.OrderService;
 import com.ecommerce.order.service.AdminOrderService;
+import com.ecommerce.order.service.SalesReportService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -21,11 +26,14 @@ public class AdminOrderController {
     
     private final OrderService orderService;
     private final AdminOrderService adminOrderService;
+    private final SalesReportService salesReportService;
     
     @Autowired
-    public AdminOrderController(OrderService orderService, AdminOrderService adminOrderService) {
+    public AdminOrderController(OrderService orderService, AdminOrderService adminOrderService,
+                                SalesReportService salesReportService) {
         this.orderService = orderService;
         this.adminOrderService = adminOrderService;
+        this.salesReportService = salesReportService;
     }
     
     /**
@@ -46,6 +54,25 @@ public class AdminOrderController {
         return ResponseEntity.ok(orders);
     }
     
+    /**
+     * Get all orders with filtering, by cursor (no total count; pass
+     * nextCursor back to get the following page)
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPage<OrderDto>> getAllOrdersByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) String orderNumber,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate) {
+        
+        CursorPage<OrderDto> orders = adminOrderService.getAllOrdersWithFiltersByCursor(
+                cursor, size, status, orderNumber, userId, startDate, endDate);
+        return ResponseEntity.ok(orders);
+    }
+    
     /**
      * Get order by ID (admin view with full details)
      */
@@ -170,6 +197,26 @@ public class AdminOrderController {
         return ResponseEntity.ok(statistics);
     }
     
+    /**
+     * Rebuild the order statistics rollups for a range of days from the orders table
+     */
+    @PostMapping("/statistics/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildStatistics(
+            @RequestParam String startDate,
+            @RequestParam String endDate) {
+        
+        try {
+            long orders = adminOrderService.rebuildStatistics(startDate, endDate);
+            Map<String, Object> response = new HashMap<>();
+            response.put("startDate", startDate);
+            response.put("endDate", endDate);
+            response.put("orders", orders);
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     /**
      * Get sales report
      */
@@ -179,7 +226,7 @@ public class AdminOrderController {
             @RequestParam(required = false) String startDate,
             @RequestParam(required = false) String endDate) {
         
-        SalesReportDto salesReport = adminOrderService.getSalesReport(period, startDate, endDate);
+        SalesReportDto salesReport = salesReportService.getSalesReport(period, startDate, endDate);
         return ResponseEntity.ok(salesReport);
     }
     
@@ -210,19 +257,17 @@ public class AdminOrderController {
      * Export orders to CSV
      */
     @GetMapping("/export")
-    public ResponseEntity<byte[]> exportOrders(
+    public ResponseEntity<StreamingResponseBody> exportOrders(
             @RequestParam(required = false) OrderStatus status,
             @RequestParam(required = false) String startDate,
             @RequestParam(required = false) String endDate) {
         
-        try {
-            byte[] csvData = adminOrderService.exportOrdersToCSV(status, startDate, endDate);
-            return ResponseEntity.ok()
-                    .header("Content-Type", "text/csv")
-                    .header("Content-Disposition", "attachment; filename=orders.csv")
-                    .body(csvData);
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError().build();
-        }
+        // Rows are written straight to the response as they are read
+        StreamingResponseBody csvData = outputStream ->
+                adminOrderService.exportOrdersToCSV(status, startDate, endDate, outputStream);
+        return ResponseEntity.ok()
+                .header("Content-Type", "text/csv")
+                .header("Content-Disposition", "attachment; filename=orders.csv")
+                .body(csvData);
     }
 }
\ No newline at end of file
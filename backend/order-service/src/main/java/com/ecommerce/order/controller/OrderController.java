@@ -1,5 +1,6 @@
 package com.ecommerce.order.controller;
 
+import com.ecommerce.common.pagination.CursorPage;
 import com.ecommerce.order.dto.*;
 import com.ecommerce.order.entity.OrderStatus;
 import com.ecommerce.order.service.OrderService;
@@ -122,6 +123,27 @@ public class OrderController {
         }
     }
     
+    /**
+     * Get current user's orders by cursor (no total count; pass nextCursor
+     * back to get the following page)
+     */
+    @GetMapping("/my-orders/cursor")
+    @PreAuthorize("hasRole('CUSTOMER') or hasRole('ADMIN')")
+    public ResponseEntity<CursorPage<OrderDto>> getMyOrdersByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") @Min(1) int size,
+            @RequestParam(required = false) OrderStatus status,
+            Authentication authentication) {
+        try {
+            Long userId = getUserIdFromAuthentication(authentication);
+            return ResponseEntity.ok(orderService.getOrdersByUserIdByCursor(userId, status, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
     /**
      * Get recent orders for current user
      */
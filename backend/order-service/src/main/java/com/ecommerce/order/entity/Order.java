@@ -5,11 +5,11 @@ import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
-import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -77,7 +77,6 @@ public class Order {
     @Column(columnDefinition = "TEXT")
     private String notes;
     
-    @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
@@ -102,6 +101,17 @@ public class Order {
         this.totalAmount = totalAmount;
     }
     
+    /**
+     * Creation time in whole seconds, so the value held in memory is the one
+     * the created_at column stores rather than one it rounds up or down
+     */
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        }
+    }
+    
     // Getters and Setters
     public Long getId() {
         return id;
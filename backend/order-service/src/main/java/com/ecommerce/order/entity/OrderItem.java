@@ -15,7 +15,8 @@ import java.time.LocalDateTime;
 @Table(name = "order_items", indexes = {
     @Index(name = "idx_order", columnList = "order_id"),
     @Index(name = "idx_product", columnList = "productId"),
-    @Index(name = "idx_product_sku", columnList = "productSku")
+    @Index(name = "idx_product_sku", columnList = "productSku"),
+    @Index(name = "idx_order_items_product_created", columnList = "productId, createdAt")
 })
 public class OrderItem {
     
@@ -5,13 +5,19 @@ import com.ecommerce.order.entity.OrderStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
@@ -108,6 +114,61 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
                                      @Param("endDate") LocalDateTime endDate,
                                      Pageable pageable);
     
+    /**
+     * Every order matching the export filters as a forward-only cursor of
+     * read-only entities, fetched a bounded number of rows at a time. The
+     * stream must be closed inside a transaction; detach each order once it
+     * has been written so the persistence context stays small.
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+                 @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT o FROM Order o WHERE " +
+           "(:status IS NULL OR o.status = :status) AND " +
+           "(:startDate IS NULL OR o.createdAt >= :startDate) AND " +
+           "(:endDate IS NULL OR o.createdAt <= :endDate) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    Stream<Order> streamForExport(@Param("status") OrderStatus status,
+                                  @Param("startDate") LocalDateTime startDate,
+                                  @Param("endDate") LocalDateTime endDate);
+    
+    /**
+     * Keyset page of a user's orders, newest first: the rows after the given
+     * (createdAt, id) position, or the first rows when it is null. Seeks on
+     * the (user_id, created_at) indexes without an OFFSET or a count.
+     */
+    @Query("SELECT o FROM Order o WHERE o.userId = :userId AND " +
+           "(:status IS NULL OR o.status = :status) AND " +
+           "(:afterCreatedAt IS NULL OR o.createdAt < :afterCreatedAt OR " +
+           " (o.createdAt = :afterCreatedAt AND o.id < :afterId)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findByUserIdAfter(@Param("userId") Long userId,
+                                  @Param("status") OrderStatus status,
+                                  @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                  @Param("afterId") Long afterId,
+                                  Pageable pageable);
+    
+    /**
+     * Keyset page of orders with admin filters, newest first; seeks on the
+     * (status, created_at) or created_at index
+     */
+    @Query("SELECT o FROM Order o WHERE " +
+           "(:status IS NULL OR o.status = :status) AND " +
+           "(:orderNumber IS NULL OR o.orderNumber LIKE %:orderNumber%) AND " +
+           "(:userId IS NULL OR o.userId = :userId) AND " +
+           "(:startDate IS NULL OR o.createdAt >= :startDate) AND " +
+           "(:endDate IS NULL OR o.createdAt <= :endDate) AND " +
+           "(:afterCreatedAt IS NULL OR o.createdAt < :afterCreatedAt OR " +
+           " (o.createdAt = :afterCreatedAt AND o.id < :afterId)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findOrdersWithFiltersAfter(@Param("status") OrderStatus status,
+                                           @Param("orderNumber") String orderNumber,
+                                           @Param("userId") Long userId,
+                                           @Param("startDate") LocalDateTime startDate,
+                                           @Param("endDate") LocalDateTime endDate,
+                                           @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                           @Param("afterId") Long afterId,
+                                           Pageable pageable);
+    
     /**
      * Count orders in date range
      */
@@ -127,4 +188,20 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
      */
     @Query("SELECT SUM(o.totalAmount) FROM Order o WHERE o.status IN ('DELIVERED', 'SHIPPED') AND o.createdAt BETWEEN :startDate AND :endDate")
     java.math.BigDecimal getTotalRevenueInDateRange(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
-}
\ No newline at end of file
+    
+    /**
+     * Order count and value per status for orders created in [from, to)
+     */
+    @Query("SELECT o.status, COUNT(o), SUM(o.totalAmount) FROM Order o " +
+           "WHERE o.createdAt >= :from AND o.createdAt < :to GROUP BY o.status")
+    List<Object[]> sumByStatusCreatedBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    /**
+     * Order count and value per creation day, hour and status for orders
+     * created in [from, to), used to rebuild the statistics rollups
+     */
+    @Query("SELECT extract(date from o.createdAt), extract(hour from o.createdAt), o.status, COUNT(o), SUM(o.totalAmount) " +
+           "FROM Order o WHERE o.createdAt >= :from AND o.createdAt < :to " +
+           "GROUP BY extract(date from o.createdAt), extract(hour from o.createdAt), o.status")
+    List<Object[]> sumByCreationHourAndStatus(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
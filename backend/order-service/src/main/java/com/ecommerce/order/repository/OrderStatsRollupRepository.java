@@ -0,0 +1,59 @@
+package com.ecommerce.order.repository;
+
+import com.ecommerce.order.entity.OrderStatsRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OrderStatsRollupRepository extends JpaRepository<OrderStatsRollup, Long> {
+
+    /**
+     * Add to a rollup shard row, creating it if needed. A single statement,
+     * so concurrent orders in the same period never lose an update.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO order_stats_rollup (granularity, period_start, status, shard, order_count, total_amount) " +
+                   "VALUES (:granularity, :periodStart, :status, :shard, :count, :amount) " +
+                   "ON DUPLICATE KEY UPDATE order_count = order_count + :count, total_amount = total_amount + :amount",
+           nativeQuery = true)
+    int increment(@Param("granularity") String granularity,
+                  @Param("periodStart") LocalDateTime periodStart,
+                  @Param("status") String status,
+                  @Param("shard") int shard,
+                  @Param("count") long count,
+                  @Param("amount") BigDecimal amount);
+
+    /**
+     * Order count and value per status over the rollup rows starting in [from, to)
+     */
+    @Query("SELECT r.status, SUM(r.orderCount), SUM(r.totalAmount) FROM OrderStatsRollup r " +
+           "WHERE r.granularity = :granularity AND r.periodStart >= :from AND r.periodStart < :to " +
+           "GROUP BY r.status")
+    List<Object[]> sumByStatus(@Param("granularity") OrderStatsRollup.Granularity granularity,
+                               @Param("from") LocalDateTime from,
+                               @Param("to") LocalDateTime to);
+
+    /**
+     * Order count and value per period start and status over the rollup rows
+     * starting in [from, to)
+     */
+    @Query("SELECT r.periodStart, r.status, r.orderCount, r.totalAmount FROM OrderStatsRollup r " +
+           "WHERE r.granularity = :granularity AND r.periodStart >= :from AND r.periodStart < :to")
+    List<Object[]> findByPeriod(@Param("granularity") OrderStatsRollup.Granularity granularity,
+                                @Param("from") LocalDateTime from,
+                                @Param("to") LocalDateTime to);
+
+    /**
+     * Delete the rollup rows of both granularities starting in [from, to)
+     */
+    @Modifying
+    @Query("DELETE FROM OrderStatsRollup r WHERE r.periodStart >= :from AND r.periodStart < :to")
+    int deleteInRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
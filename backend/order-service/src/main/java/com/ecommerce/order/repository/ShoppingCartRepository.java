@@ -7,6 +7,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -61,6 +63,40 @@ public interface ShoppingCartRepository extends JpaRepository<ShoppingCart, Long
     @Query("DELETE FROM ShoppingCart c WHERE c.sessionId = :sessionId AND c.productId = :productId")
     void deleteBySessionIdAndProductId(@Param("sessionId") String sessionId, @Param("productId") Long productId);
     
+    // Delete a registered user's cart items other than the given products
+    @Modifying
+    @Query("DELETE FROM ShoppingCart c WHERE c.userId = :userId AND c.productId NOT IN :productIds")
+    void deleteByUserIdAndProductIdNotIn(@Param("userId") Long userId, @Param("productIds") Collection<Long> productIds);
+    
+    // Delete a guest user's cart items other than the given products
+    @Modifying
+    @Query("DELETE FROM ShoppingCart c WHERE c.sessionId = :sessionId AND c.productId NOT IN :productIds")
+    void deleteBySessionIdAndProductIdNotIn(@Param("sessionId") String sessionId, @Param("productIds") Collection<Long> productIds);
+    
+    // Write a registered user's cart item from the cart store, creating or overwriting it
+    @Modifying
+    @Query(value = "INSERT INTO shopping_cart (user_id, product_id, quantity, created_at, updated_at) " +
+                   "VALUES (:userId, :productId, :quantity, :createdAt, :updatedAt) " +
+                   "ON DUPLICATE KEY UPDATE quantity = VALUES(quantity), updated_at = VALUES(updated_at)",
+           nativeQuery = true)
+    int upsertUserCartItem(@Param("userId") Long userId,
+                           @Param("productId") Long productId,
+                           @Param("quantity") int quantity,
+                           @Param("createdAt") LocalDateTime createdAt,
+                           @Param("updatedAt") LocalDateTime updatedAt);
+    
+    // Write a guest user's cart item from the cart store, creating or overwriting it
+    @Modifying
+    @Query(value = "INSERT INTO shopping_cart (session_id, product_id, quantity, created_at, updated_at) " +
+                   "VALUES (:sessionId, :productId, :quantity, :createdAt, :updatedAt) " +
+                   "ON DUPLICATE KEY UPDATE quantity = VALUES(quantity), updated_at = VALUES(updated_at)",
+           nativeQuery = true)
+    int upsertGuestCartItem(@Param("sessionId") String sessionId,
+                            @Param("productId") Long productId,
+                            @Param("quantity") int quantity,
+                            @Param("createdAt") LocalDateTime createdAt,
+                            @Param("updatedAt") LocalDateTime updatedAt);
+    
     // Transfer guest cart to user cart when user logs in
     @Modifying
     @Query("UPDATE ShoppingCart c SET c.userId = :userId, c.sessionId = null WHERE c.sessionId = :sessionId")
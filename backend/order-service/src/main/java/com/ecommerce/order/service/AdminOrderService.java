@@ -1,9 +1,12 @@
 package com.ecommerce.order.service;
 
+import com.ecommerce.common.pagination.CursorPage;
 import com.ecommerce.order.dto.*;
 import com.ecommerce.order.entity.*;
 import com.ecommerce.order.repository.OrderRepository;
 import com.ecommerce.order.repository.OrderStatusHistoryRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -12,13 +15,21 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.Writer;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -27,14 +38,20 @@ public class AdminOrderService {
     private final OrderRepository orderRepository;
     private final OrderStatusHistoryRepository orderStatusHistoryRepository;
     private final OrderService orderService;
+    private final OrderStatsRollupService orderStatsRollupService;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
     
     @Autowired
     public AdminOrderService(OrderRepository orderRepository, 
                            OrderStatusHistoryRepository orderStatusHistoryRepository,
-                           OrderService orderService) {
+                           OrderService orderService,
+                           OrderStatsRollupService orderStatsRollupService) {
         this.orderRepository = orderRepository;
         this.orderStatusHistoryRepository = orderStatusHistoryRepository;
         this.orderService = orderService;
+        this.orderStatsRollupService = orderStatsRollupService;
     }
     
     /**
@@ -62,6 +79,27 @@ public class AdminOrderService {
         return orders.map(this::convertToDto);
     }
     
+    /**
+     * Get orders with the same filters by cursor instead of page number, for
+     * browsing deep into a large order table without OFFSET scans or counts
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<OrderDto> getAllOrdersWithFiltersByCursor(String cursor, int size, OrderStatus status,
+                                                                String orderNumber, Long userId,
+                                                                String startDate, String endDate) {
+        size = CursorPage.limitSize(size);
+        OrderCursor after = OrderCursor.parse(cursor);
+        
+        LocalDateTime start = startDate != null ? 
+                LocalDateTime.parse(startDate + "T00:00:00") : null;
+        LocalDateTime end = endDate != null ? 
+                LocalDateTime.parse(endDate + "T23:59:59") : null;
+        
+        List<Order> orders = orderRepository.findOrdersWithFiltersAfter(status, orderNumber, userId, start, end,
+                after.createdAt, after.id, PageRequest.of(0, size + 1));
+        return CursorPage.of(orders, size, this::convertToDto, OrderCursor::of);
+    }
+    
     /**
      * Update order status (admin version with additional validation)
      */
@@ -78,6 +116,7 @@ public class AdminOrderService {
         
         order.setStatus(request.getNewStatus());
         order = orderRepository.save(order);
+        orderStatsRollupService.recordStatusChange(order, previousStatus);
         
         // Create status history entry
         OrderStatusHistory statusHistory = new OrderStatusHistory(
@@ -105,6 +144,7 @@ public class AdminOrderService {
         
         order.setStatus(OrderStatus.PROCESSING);
         order = orderRepository.save(order);
+        orderStatsRollupService.recordStatusChange(order, OrderStatus.CONFIRMED);
         
         // Create status history entry
         String notes = "Order fulfilled. " + 
@@ -134,6 +174,7 @@ public class AdminOrderService {
         
         order.setStatus(OrderStatus.SHIPPED);
         order = orderRepository.save(order);
+        orderStatsRollupService.recordStatusChange(order, OrderStatus.PROCESSING);
         
         // Create status history entry
         String notes = "Order shipped. " +
@@ -166,9 +207,11 @@ public class AdminOrderService {
             throw new RuntimeException("Refund amount cannot exceed order total");
         }
         
+        OrderStatus previousStatus = order.getStatus();
         order.setStatus(OrderStatus.REFUNDED);
         order.setPaymentStatus(PaymentStatus.REFUNDED);
         order = orderRepository.save(order);
+        orderStatsRollupService.recordStatusChange(order, previousStatus);
         
         // Create status history entry
         String notes = "Order refunded. Amount: $" + request.getRefundAmount() + ". " +
@@ -204,6 +247,7 @@ public class AdminOrderService {
         }
         
         order = orderRepository.save(order);
+        orderStatsRollupService.recordStatusChange(order, previousStatus);
         
         // Create status history entry
         String notes = "Order cancelled by admin. " +
@@ -239,23 +283,24 @@ public class AdminOrderService {
     public OrderStatisticsDto getOrderStatistics(String startDate, String endDate) {
         LocalDateTime start = startDate != null ? 
                 LocalDateTime.parse(startDate + "T00:00:00") : LocalDateTime.now().minusDays(30);
+        // Exclusive end, so a whole last day is answered from its daily rollup
         LocalDateTime end = endDate != null ? 
-                LocalDateTime.parse(endDate + "T23:59:59") : LocalDateTime.now();
+                LocalDate.parse(endDate).plusDays(1).atStartOfDay() : LocalDateTime.now();
         
         OrderStatisticsDto statistics = new OrderStatisticsDto();
+        OrderStatsTotals totals = orderStatsRollupService.getTotals(start, end);
         
         // Get basic counts
-        statistics.setTotalOrders(orderRepository.countOrdersInDateRange(start, end));
-        statistics.setPendingOrders(orderRepository.countOrdersByStatusInDateRange(OrderStatus.PENDING, start, end));
-        statistics.setProcessingOrders(orderRepository.countOrdersByStatusInDateRange(OrderStatus.PROCESSING, start, end));
-        statistics.setShippedOrders(orderRepository.countOrdersByStatusInDateRange(OrderStatus.SHIPPED, start, end));
-        statistics.setDeliveredOrders(orderRepository.countOrdersByStatusInDateRange(OrderStatus.DELIVERED, start, end));
-        statistics.setCancelledOrders(orderRepository.countOrdersByStatusInDateRange(OrderStatus.CANCELLED, start, end));
-        statistics.setRefundedOrders(orderRepository.countOrdersByStatusInDateRange(OrderStatus.REFUNDED, start, end));
+        statistics.setTotalOrders(totals.getTotalCount());
+        statistics.setPendingOrders(totals.getCount(OrderStatus.PENDING));
+        statistics.setProcessingOrders(totals.getCount(OrderStatus.PROCESSING));
+        statistics.setShippedOrders(totals.getCount(OrderStatus.SHIPPED));
+        statistics.setDeliveredOrders(totals.getCount(OrderStatus.DELIVERED));
+        statistics.setCancelledOrders(totals.getCount(OrderStatus.CANCELLED));
+        statistics.setRefundedOrders(totals.getCount(OrderStatus.REFUNDED));
         
         // Get revenue data
-        BigDecimal totalRevenue = orderRepository.getTotalRevenueInDateRange(start, end);
-        statistics.setTotalRevenue(totalRevenue != null ? totalRevenue : BigDecimal.ZERO);
+        statistics.setTotalRevenue(totals.getRevenue());
         
         if (statistics.getTotalOrders() > 0) {
             statistics.setAverageOrderValue(statistics.getTotalRevenue()
@@ -278,51 +323,49 @@ public class AdminOrderService {
     }
     
     /**
-     * Export orders to CSV
+     * Stream orders to the output as CSV. Rows come from a forward-only
+     * cursor and are detached once written, so memory use stays flat however
+     * many orders match.
      */
     @Transactional(readOnly = true)
-    public byte[] exportOrdersToCSV(OrderStatus status, String startDate, String endDate) throws Exception {
+    public void exportOrdersToCSV(OrderStatus status, String startDate, String endDate,
+                                  OutputStream outputStream) throws IOException {
         LocalDateTime start = startDate != null ? 
                 LocalDateTime.parse(startDate + "T00:00:00") : null;
         LocalDateTime end = endDate != null ? 
                 LocalDateTime.parse(endDate + "T23:59:59") : null;
         
-        List<Order> orders;
-        if (status != null || start != null || end != null) {
-            Pageable pageable = PageRequest.of(0, 10000); // Large page for export
-            orders = orderRepository.findOrdersWithFilters(status, null, null, start, end, pageable).getContent();
-        } else {
-            orders = orderRepository.findAll();
-        }
-        
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        PrintWriter writer = new PrintWriter(outputStream);
+        // Not a PrintWriter: it would swallow the error when the client goes away
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
         
         // CSV Header
-        writer.println("Order Number,User ID,Status,Payment Status,Subtotal,Tax,Shipping,Total,Currency,Created At,Updated At");
+        writer.write("Order Number,User ID,Status,Payment Status,Subtotal,Tax,Shipping,Total,Currency,Created At,Updated At");
+        writer.write(System.lineSeparator());
         
         // CSV Data
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        for (Order order : orders) {
-            writer.printf("%s,%d,%s,%s,%.2f,%.2f,%.2f,%.2f,%s,%s,%s%n",
-                    order.getOrderNumber(),
-                    order.getUserId(),
-                    order.getStatus(),
-                    order.getPaymentStatus(),
-                    order.getSubtotal(),
-                    order.getTaxAmount(),
-                    order.getShippingAmount(),
-                    order.getTotalAmount(),
-                    order.getCurrency(),
-                    order.getCreatedAt().format(formatter),
-                    order.getUpdatedAt().format(formatter)
-            );
+        try (Stream<Order> orders = orderRepository.streamForExport(status, start, end)) {
+            Iterator<Order> iterator = orders.iterator();
+            while (iterator.hasNext()) {
+                Order order = iterator.next();
+                writer.write(String.format("%s,%d,%s,%s,%.2f,%.2f,%.2f,%.2f,%s,%s,%s%n",
+                        order.getOrderNumber(),
+                        order.getUserId(),
+                        order.getStatus(),
+                        order.getPaymentStatus(),
+                        order.getSubtotal(),
+                        order.getTaxAmount(),
+                        order.getShippingAmount(),
+                        order.getTotalAmount(),
+                        order.getCurrency(),
+                        order.getCreatedAt().format(formatter),
+                        order.getUpdatedAt().format(formatter)
+                ));
+                entityManager.detach(order);
+            }
         }
         
         writer.flush();
-        writer.close();
-        
-        return outputStream.toByteArray();
     }
     
     /**
@@ -343,45 +386,11 @@ public class AdminOrderService {
     }
     
     /**
-     * Get sales report
+     * Rebuild the statistics rollups of the orders created between the given
+     * days (inclusive), returning how many orders they now cover
      */
-    @Transactional(readOnly = true)
-    public SalesReportDto getSalesReport(String period, String startDate, String endDate) {
-        LocalDateTime start = startDate != null ? 
-                LocalDateTime.parse(startDate + "T00:00:00") : getDefaultStartDate(period);
-        LocalDateTime end = endDate != null ? 
-                LocalDateTime.parse(endDate + "T23:59:59") : LocalDateTime.now();
-        
-        SalesReportDto report = new SalesReportDto();
-        report.setPeriod(period);
-        
-        // Get basic sales data
-        BigDecimal totalSales = orderRepository.getTotalRevenueInDateRange(start, end);
-        report.setTotalSales(totalSales != null ? totalSales : BigDecimal.ZERO);
-        
-        long totalOrders = orderRepository.countOrdersInDateRange(start, end);
-        report.setTotalOrders(totalOrders);
-        
-        if (totalOrders > 0) {
-            report.setAverageOrderValue(report.getTotalSales()
-                    .divide(BigDecimal.valueOf(totalOrders), 2, BigDecimal.ROUND_HALF_UP));
-        } else {
-            report.setAverageOrderValue(BigDecimal.ZERO);
-        }
-        
-        // Get top products (mock data for now - would need product service integration)
-        List<SalesReportDto.TopProductDto> topProducts = getTopProductsForPeriod(start, end);
-        report.setTopProducts(topProducts);
-        
-        // Get sales by category (mock data for now)
-        Map<String, BigDecimal> salesByCategory = getSalesByCategoryForPeriod(start, end);
-        report.setSalesByCategory(salesByCategory);
-        
-        // Get sales trend data
-        List<SalesReportDto.SalesTrendDataDto> salesTrend = getSalesTrendForPeriod(period, start, end);
-        report.setSalesTrend(salesTrend);
-        
-        return report;
+    public long rebuildStatistics(String startDate, String endDate) {
+        return orderStatsRollupService.rebuild(LocalDate.parse(startDate), LocalDate.parse(endDate));
     }
     
     /**
@@ -426,61 +435,6 @@ public class AdminOrderService {
         return outputStream.toByteArray();
     }
     
-    private LocalDateTime getDefaultStartDate(String period) {
-        return switch (period.toLowerCase()) {
-            case "daily" -> LocalDateTime.now().minusDays(1);
-            case "weekly" -> LocalDateTime.now().minusDays(7);
-            case "monthly" -> LocalDateTime.now().minusDays(30);
-            case "yearly" -> LocalDateTime.now().minusDays(365);
-            default -> LocalDateTime.now().minusDays(30);
-        };
-    }
-    
-    private List<SalesReportDto.TopProductDto> getTopProductsForPeriod(LocalDateTime start, LocalDateTime end) {
-        // This would require integration with product service
-        // For now, return mock data
-        List<SalesReportDto.TopProductDto> topProducts = new ArrayList<>();
-        topProducts.add(new SalesReportDto.TopProductDto(1L, "Sample Product 1", 50, new BigDecimal("1250.00")));
-        topProducts.add(new SalesReportDto.TopProductDto(2L, "Sample Product 2", 35, new BigDecimal("875.00")));
-        topProducts.add(new SalesReportDto.TopProductDto(3L, "Sample Product 3", 28, new BigDecimal("700.00")));
-        return topProducts;
-    }
-    
-    private Map<String, BigDecimal> getSalesByCategoryForPeriod(LocalDateTime start, LocalDateTime end) {
-        // This would require integration with product service
-        // For now, return mock data
-        Map<String, BigDecimal> salesByCategory = new HashMap<>();
-        salesByCategory.put("Electronics", new BigDecimal("5000.00"));
-        salesByCategory.put("Clothing", new BigDecimal("3500.00"));
-        salesByCategory.put("Books", new BigDecimal("1200.00"));
-        salesByCategory.put("Home & Garden", new BigDecimal("2800.00"));
-        return salesByCategory;
-    }
-    
-    private List<SalesReportDto.SalesTrendDataDto> getSalesTrendForPeriod(String period, LocalDateTime start, LocalDateTime end) {
-        // This would require more complex queries based on the period
-        // For now, return mock data
-        List<SalesReportDto.SalesTrendDataDto> trendData = new ArrayList<>();
-        
-        if (period.equals("daily")) {
-            for (int i = 7; i >= 0; i--) {
-                LocalDateTime date = LocalDateTime.now().minusDays(i);
-                String dateStr = date.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-                trendData.add(new SalesReportDto.SalesTrendDataDto(dateStr, 
-                    new BigDecimal(String.valueOf(500 + (i * 100))), 15 + i));
-            }
-        } else if (period.equals("monthly")) {
-            for (int i = 12; i >= 0; i--) {
-                LocalDateTime date = LocalDateTime.now().minusMonths(i);
-                String dateStr = date.format(DateTimeFormatter.ofPattern("yyyy-MM"));
-                trendData.add(new SalesReportDto.SalesTrendDataDto(dateStr, 
-                    new BigDecimal(String.valueOf(15000 + (i * 2000))), 450 + (i * 50)));
-            }
-        }
-        
-        return trendData;
-    }
-    
     /**
      * Convert Order entity to DTO (reuse from OrderService)
      */
@@ -1,69 +1,53 @@
 package com.ecommerce.order.service;
 
+import com.ecommerce.order.cart.CartChangedEvent;
+import com.ecommerce.order.cart.CartLine;
+import com.ecommerce.order.cart.CartStore;
 import com.ecommerce.order.dto.AddToCartRequest;
 import com.ecommerce.order.dto.CartItemDto;
 import com.ecommerce.order.dto.CartSummaryDto;
 import com.ecommerce.order.dto.UpdateCartItemRequest;
-import com.ecommerce.order.entity.ShoppingCart;
-import com.ecommerce.order.repository.ShoppingCartRepository;
 import com.ecommerce.product.dto.ProductResponse;
 import com.ecommerce.product.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
-@Transactional
 public class CartService {
     
     @Autowired
-    private ShoppingCartRepository cartRepository;
+    private CartStore cartStore;
     
     @Autowired
     private ProductService productService;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     /**
      * Add item to cart for registered user
      */
     @CacheEvict(value = "user-cart", key = "#userId")
     public CartItemDto addToCart(Long userId, AddToCartRequest request) {
-        // Validate product exists and is available
-        ProductResponse product = productService.getProductById(request.getProductId());
-        if (!product.getIsActive()) {
-            throw new RuntimeException("Product is not available");
+        CartItemDto item = addToCart(CartStore.userCart(userId), request);
+        // The add is atomic, so the line is new exactly when it holds only this request's quantity
+        if (item.getQuantity().equals(request.getQuantity())) {
+            eventPublisher.publishEvent(new CartChangedEvent(this, userId, CartChangedEvent.Kind.ADDED,
+                    List.of(request.getProductId())));
         }
-        
-        // Check inventory availability
-        productService.validateProductAvailability(request.getProductId(), request.getQuantity());
-        
-        // Check if item already exists in cart
-        Optional<ShoppingCart> existingItem = cartRepository.findByUserIdAndProductId(userId, request.getProductId());
-        
-        ShoppingCart cartItem;
-        if (existingItem.isPresent()) {
-            // Update existing item quantity
-            cartItem = existingItem.get();
-            int newQuantity = cartItem.getQuantity() + request.getQuantity();
-            
-            // Validate total quantity against inventory
-            productService.validateProductAvailability(request.getProductId(), newQuantity);
-            
-            cartItem.setQuantity(newQuantity);
-        } else {
-            // Create new cart item
-            cartItem = new ShoppingCart(userId, request.getProductId(), request.getQuantity());
-        }
-        
-        cartItem = cartRepository.save(cartItem);
-        return convertToCartItemDto(cartItem, product);
+        return item;
     }
     
     /**
@@ -71,35 +55,7 @@ public class CartService {
      */
     @CacheEvict(value = "guest-cart", key = "#sessionId")
     public CartItemDto addToCart(String sessionId, AddToCartRequest request) {
-        // Validate product exists and is available
-        ProductResponse product = productService.getProductById(request.getProductId());
-        if (!product.getIsActive()) {
-            throw new RuntimeException("Product is not available");
-        }
-        
-        // Check inventory availability
-        productService.validateProductAvailability(request.getProductId(), request.getQuantity());
-        
-        // Check if item already exists in cart
-        Optional<ShoppingCart> existingItem = cartRepository.findBySessionIdAndProductId(sessionId, request.getProductId());
-        
-        ShoppingCart cartItem;
-        if (existingItem.isPresent()) {
-            // Update existing item quantity
-            cartItem = existingItem.get();
-            int newQuantity = cartItem.getQuantity() + request.getQuantity();
-            
-            // Validate total quantity against inventory
-            productService.validateProductAvailability(request.getProductId(), newQuantity);
-            
-            cartItem.setQuantity(newQuantity);
-        } else {
-            // Create new cart item
-            cartItem = new ShoppingCart(sessionId, request.getProductId(), request.getQuantity());
-        }
-        
-        cartItem = cartRepository.save(cartItem);
-        return convertToCartItemDto(cartItem, product);
+        return addToCart(CartStore.guestCart(sessionId), request);
     }
     
     /**
@@ -107,34 +63,15 @@ public class CartService {
      */
     @CacheEvict(value = "user-cart", key = "#userId")
     public CartItemDto updateCartItem(Long userId, Long productId, UpdateCartItemRequest request) {
-        ShoppingCart cartItem = cartRepository.findByUserIdAndProductId(userId, productId)
-                .orElseThrow(() -> new RuntimeException("Cart item not found"));
-        
-        // Validate inventory availability
-        productService.validateProductAvailability(productId, request.getQuantity());
-        
-        cartItem.setQuantity(request.getQuantity());
-        cartItem = cartRepository.save(cartItem);
-        
-        ProductResponse product = productService.getProductById(productId);
-        return convertToCartItemDto(cartItem, product);
+        return updateCartItem(CartStore.userCart(userId), productId, request);
     }
     
     /**
      * Update cart item quantity for guest user
      */
+    @CacheEvict(value = "guest-cart", key = "#sessionId")
     public CartItemDto updateCartItem(String sessionId, Long productId, UpdateCartItemRequest request) {
-        ShoppingCart cartItem = cartRepository.findBySessionIdAndProductId(sessionId, productId)
-                .orElseThrow(() -> new RuntimeException("Cart item not found"));
-        
-        // Validate inventory availability
-        productService.validateProductAvailability(productId, request.getQuantity());
-        
-        cartItem.setQuantity(request.getQuantity());
-        cartItem = cartRepository.save(cartItem);
-        
-        ProductResponse product = productService.getProductById(productId);
-        return convertToCartItemDto(cartItem, product);
+        return updateCartItem(CartStore.guestCart(sessionId), productId, request);
     }
     
     /**
@@ -142,14 +79,18 @@ public class CartService {
      */
     @CacheEvict(value = "user-cart", key = "#userId")
     public void removeFromCart(Long userId, Long productId) {
-        cartRepository.deleteByUserIdAndProductId(userId, productId);
+        if (cartStore.remove(CartStore.userCart(userId), productId)) {
+            eventPublisher.publishEvent(new CartChangedEvent(this, userId, CartChangedEvent.Kind.REMOVED,
+                    List.of(productId)));
+        }
     }
     
     /**
      * Remove item from cart for guest user
      */
+    @CacheEvict(value = "guest-cart", key = "#sessionId")
     public void removeFromCart(String sessionId, Long productId) {
-        cartRepository.deleteBySessionIdAndProductId(sessionId, productId);
+        cartStore.remove(CartStore.guestCart(sessionId), productId);
     }
     
     /**
@@ -157,109 +98,150 @@ public class CartService {
      */
     @CacheEvict(value = "user-cart", key = "#userId")
     public void clearCart(Long userId) {
-        cartRepository.deleteByUserId(userId);
+        cartStore.clear(CartStore.userCart(userId));
+        eventPublisher.publishEvent(CartChangedEvent.cleared(this, userId));
     }
     
     /**
      * Clear all items from cart for guest user
      */
+    @CacheEvict(value = "guest-cart", key = "#sessionId")
     public void clearCart(String sessionId) {
-        cartRepository.deleteBySessionId(sessionId);
+        cartStore.clear(CartStore.guestCart(sessionId));
     }
     
     /**
      * Get cart summary for registered user
      */
-    @Transactional(readOnly = true)
     @Cacheable(value = "user-cart", key = "#userId")
     public CartSummaryDto getCartSummary(Long userId) {
-        List<ShoppingCart> cartItems = cartRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        return buildCartSummary(cartItems);
+        return buildCartSummary(cartStore.getLines(CartStore.userCart(userId)));
     }
     
     /**
      * Get cart summary for guest user
      */
-    @Transactional(readOnly = true)
     @Cacheable(value = "guest-cart", key = "#sessionId")
     public CartSummaryDto getCartSummary(String sessionId) {
-        List<ShoppingCart> cartItems = cartRepository.findBySessionIdOrderByCreatedAtDesc(sessionId);
-        return buildCartSummary(cartItems);
+        return buildCartSummary(cartStore.getLines(CartStore.guestCart(sessionId)));
     }
     
     /**
      * Get cart item count for registered user
      */
-    @Transactional(readOnly = true)
     public int getCartItemCount(Long userId) {
-        return cartRepository.getTotalQuantityByUserId(userId);
+        return cartStore.getTotalQuantity(CartStore.userCart(userId));
     }
     
     /**
      * Get cart item count for guest user
      */
-    @Transactional(readOnly = true)
     public int getCartItemCount(String sessionId) {
-        return cartRepository.getTotalQuantityBySessionId(sessionId);
+        return cartStore.getTotalQuantity(CartStore.guestCart(sessionId));
     }
     
     /**
      * Transfer guest cart to user cart when user logs in
      */
+    @Caching(evict = {
+        @CacheEvict(value = "user-cart", key = "#userId"),
+        @CacheEvict(value = "guest-cart", key = "#sessionId")
+    })
     public void transferGuestCartToUser(String sessionId, Long userId) {
-        // Find conflicting products (products that exist in both carts)
-        List<Long> conflictingProducts = cartRepository.findConflictingProducts(sessionId, userId);
+        String guestCart = CartStore.guestCart(sessionId);
+        String userCart = CartStore.userCart(userId);
+        Set<Long> guestProducts = cartStore.getLines(guestCart).stream()
+                .map(CartLine::productId)
+                .collect(Collectors.toSet());
+        if (guestProducts.isEmpty()) {
+            return;
+        }
         
-        // For conflicting products, merge quantities
-        for (Long productId : conflictingProducts) {
-            Optional<ShoppingCart> guestItem = cartRepository.findBySessionIdAndProductId(sessionId, productId);
-            Optional<ShoppingCart> userItem = cartRepository.findByUserIdAndProductId(userId, productId);
-            
-            if (guestItem.isPresent() && userItem.isPresent()) {
-                int totalQuantity = guestItem.get().getQuantity() + userItem.get().getQuantity();
-                
-                // Validate total quantity against inventory
-                try {
-                    productService.validateProductAvailability(productId, totalQuantity);
-                    userItem.get().setQuantity(totalQuantity);
-                    cartRepository.save(userItem.get());
-                } catch (RuntimeException e) {
-                    // If total quantity exceeds inventory, keep user cart quantity
-                    // and log the issue (in a real application, you might want to notify the user)
+        // Products in both carts merge up to the stock available; inactive
+        // products keep the user cart quantity
+        List<Long> sharedProducts = cartStore.getLines(userCart).stream()
+                .map(CartLine::productId)
+                .filter(guestProducts::contains)
+                .collect(Collectors.toList());
+        Map<Long, Integer> limits = new HashMap<>();
+        if (!sharedProducts.isEmpty()) {
+            Map<Long, ProductResponse> products = productService.getProductsByIds(sharedProducts);
+            Map<Long, Integer> availableQuantities = productService.getAvailableQuantities(sharedProducts);
+            for (Long productId : sharedProducts) {
+                ProductResponse product = products.get(productId);
+                if (product != null && product.getIsActive()) {
+                    limits.put(productId, availableQuantities.getOrDefault(productId, 0));
                 }
-                
-                // Remove guest cart item
-                cartRepository.delete(guestItem.get());
             }
         }
         
-        // Transfer remaining guest cart items to user
-        cartRepository.transferGuestCartToUser(sessionId, userId);
+        cartStore.merge(guestCart, userCart, limits);
+        // Only products new to the user cart enter it
+        Set<Long> addedProducts = new HashSet<>(guestProducts);
+        sharedProducts.forEach(addedProducts::remove);
+        if (!addedProducts.isEmpty()) {
+            eventPublisher.publishEvent(new CartChangedEvent(this, userId, CartChangedEvent.Kind.ADDED, addedProducts));
+        }
     }
     
     /**
      * Validate cart items against current inventory
      */
-    @Transactional(readOnly = true)
     public List<CartItemDto> validateCartInventory(Long userId) {
-        List<ShoppingCart> cartItems = cartRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        return validateCartItemsInventory(cartItems);
+        return validateCartItemsInventory(cartStore.getLines(CartStore.userCart(userId)));
     }
     
     /**
      * Validate cart items against current inventory for guest user
      */
-    @Transactional(readOnly = true)
     public List<CartItemDto> validateCartInventory(String sessionId) {
-        List<ShoppingCart> cartItems = cartRepository.findBySessionIdOrderByCreatedAtDesc(sessionId);
-        return validateCartItemsInventory(cartItems);
+        return validateCartItemsInventory(cartStore.getLines(CartStore.guestCart(sessionId)));
     }
     
     // Private helper methods
     
-    private CartSummaryDto buildCartSummary(List<ShoppingCart> cartItems) {
-        List<CartItemDto> cartItemDtos = cartItems.stream()
-                .map(this::convertToCartItemDto)
+    private CartItemDto addToCart(String cartId, AddToCartRequest request) {
+        // Validate product exists and is available
+        ProductResponse product = productService.getProductById(request.getProductId());
+        if (!product.getIsActive()) {
+            throw new RuntimeException("Product is not available");
+        }
+        
+        // Check inventory availability
+        productService.validateProductAvailability(request.getProductId(), request.getQuantity());
+        
+        // Add to any quantity already in the cart, in one step, as long as
+        // the total stays within the quantity available
+        int available = productService.getAvailableQuantities(List.of(request.getProductId()))
+                .getOrDefault(request.getProductId(), 0);
+        CartLine line = cartStore.addQuantity(cartId, request.getProductId(), request.getQuantity(), available);
+        if (line == null) {
+            CartLine existingLine = cartStore.getLine(cartId, request.getProductId());
+            int requested = request.getQuantity() + (existingLine != null ? existingLine.quantity() : 0);
+            throw new RuntimeException("Insufficient quantity available. Available: " + available +
+                    ", Requested: " + requested);
+        }
+        return convertToCartItemDto(line, product);
+    }
+    
+    private CartItemDto updateCartItem(String cartId, Long productId, UpdateCartItemRequest request) {
+        if (cartStore.getLine(cartId, productId) == null) {
+            throw new RuntimeException("Cart item not found");
+        }
+        
+        // Validate inventory availability
+        productService.validateProductAvailability(productId, request.getQuantity());
+        
+        CartLine line = cartStore.setQuantity(cartId, productId, request.getQuantity());
+        
+        ProductResponse product = productService.getProductById(productId);
+        return convertToCartItemDto(line, product);
+    }
+    
+    private CartSummaryDto buildCartSummary(List<CartLine> cartLines) {
+        Map<Long, ProductResponse> products = productService.getProductsByIds(productIds(cartLines));
+        List<CartItemDto> cartItemDtos = cartLines.stream()
+                .map(cartLine -> convertToCartItemDto(cartLine, products))
                 .collect(Collectors.toList());
         
         CartSummaryDto summary = new CartSummaryDto(cartItemDtos);
@@ -280,59 +262,66 @@ public class CartService {
         return summary;
     }
     
-    private CartItemDto convertToCartItemDto(ShoppingCart cartItem) {
-        try {
-            ProductResponse product = productService.getProductById(cartItem.getProductId());
-            return convertToCartItemDto(cartItem, product);
-        } catch (RuntimeException e) {
-            // Product might have been deleted, create a basic DTO
-            CartItemDto dto = new CartItemDto();
-            dto.setId(cartItem.getId());
-            dto.setProductId(cartItem.getProductId());
-            dto.setProductName("Product not available");
-            dto.setQuantity(cartItem.getQuantity());
-            dto.setUnitPrice(BigDecimal.ZERO);
-            dto.setTotalPrice(BigDecimal.ZERO);
-            dto.setCreatedAt(cartItem.getCreatedAt());
-            dto.setUpdatedAt(cartItem.getUpdatedAt());
-            return dto;
+    private CartItemDto convertToCartItemDto(CartLine cartLine, Map<Long, ProductResponse> products) {
+        ProductResponse product = products.get(cartLine.productId());
+        if (product != null) {
+            return convertToCartItemDto(cartLine, product);
         }
+        
+        // Product might have been deleted, create a basic DTO
+        CartItemDto dto = new CartItemDto();
+        dto.setProductId(cartLine.productId());
+        dto.setProductName("Product not available");
+        dto.setQuantity(cartLine.quantity());
+        dto.setUnitPrice(BigDecimal.ZERO);
+        dto.setTotalPrice(BigDecimal.ZERO);
+        dto.setCreatedAt(cartLine.createdAt());
+        dto.setUpdatedAt(cartLine.updatedAt());
+        return dto;
     }
     
-    private CartItemDto convertToCartItemDto(ShoppingCart cartItem, ProductResponse product) {
+    // Cart lines are keyed by product; the DTO id stays unset
+    private CartItemDto convertToCartItemDto(CartLine cartLine, ProductResponse product) {
         CartItemDto dto = new CartItemDto();
-        dto.setId(cartItem.getId());
-        dto.setProductId(cartItem.getProductId());
+        dto.setProductId(cartLine.productId());
         dto.setProductName(product.getName());
         dto.setProductSku(product.getSku());
         dto.setUnitPrice(product.getPrice());
         dto.setImageUrl(product.getPrimaryImageUrl());
-        dto.setQuantity(cartItem.getQuantity());
-        dto.setTotalPrice(product.getPrice().multiply(BigDecimal.valueOf(cartItem.getQuantity())));
-        dto.setCreatedAt(cartItem.getCreatedAt());
-        dto.setUpdatedAt(cartItem.getUpdatedAt());
+        dto.setQuantity(cartLine.quantity());
+        dto.setTotalPrice(product.getPrice().multiply(BigDecimal.valueOf(cartLine.quantity())));
+        dto.setCreatedAt(cartLine.createdAt());
+        dto.setUpdatedAt(cartLine.updatedAt());
         return dto;
     }
     
-    private List<CartItemDto> validateCartItemsInventory(List<ShoppingCart> cartItems) {
-        return cartItems.stream()
-                .map(cartItem -> {
-                    CartItemDto dto = convertToCartItemDto(cartItem);
+    private List<CartItemDto> validateCartItemsInventory(List<CartLine> cartLines) {
+        // Products from the cache, stock read fresh: both in one call each
+        List<Long> productIds = productIds(cartLines);
+        Map<Long, ProductResponse> products = productService.getProductsByIds(productIds);
+        Map<Long, Integer> availableQuantities = productService.getAvailableQuantities(productIds);
+        
+        return cartLines.stream()
+                .map(cartLine -> {
+                    CartItemDto dto = convertToCartItemDto(cartLine, products);
                     
                     // Check if product is still available and has sufficient inventory
-                    try {
-                        ProductResponse product = productService.getProductById(cartItem.getProductId());
-                        if (!product.getIsActive() || !product.isInStock()) {
-                            dto.setProductName(dto.getProductName() + " (No longer available)");
-                        } else if (!productService.isProductAvailable(cartItem.getProductId(), cartItem.getQuantity())) {
-                            dto.setProductName(dto.getProductName() + " (Limited stock: " + product.getAvailableQuantity() + " available)");
-                        }
-                    } catch (RuntimeException e) {
+                    ProductResponse product = products.get(cartLine.productId());
+                    int available = availableQuantities.getOrDefault(cartLine.productId(), 0);
+                    if (product == null) {
                         dto.setProductName(dto.getProductName() + " (Product not found)");
+                    } else if (!product.getIsActive() || !product.isInStock()) {
+                        dto.setProductName(dto.getProductName() + " (No longer available)");
+                    } else if (available < cartLine.quantity()) {
+                        dto.setProductName(dto.getProductName() + " (Limited stock: " + available + " available)");
                     }
                     
                     return dto;
                 })
                 .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+    
+    private static List<Long> productIds(List<CartLine> cartLines) {
+        return cartLines.stream().map(CartLine::productId).distinct().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,39 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.common.pagination.SeekCursor;
+import com.ecommerce.order.entity.Order;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Position in an order listing sorted by creation time then id, both descending
+ */
+final class OrderCursor {
+    
+    static final OrderCursor START = new OrderCursor(null, null);
+    
+    final LocalDateTime createdAt;
+    final Long id;
+    
+    private OrderCursor(LocalDateTime createdAt, Long id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+    
+    static String of(Order order) {
+        return SeekCursor.encode(order.getCreatedAt(), order.getId());
+    }
+    
+    static OrderCursor parse(String cursor) {
+        String[] keys = SeekCursor.decode(cursor, 2);
+        if (keys == null) {
+            return START;
+        }
+        try {
+            return new OrderCursor(LocalDateTime.parse(keys[0]), Long.valueOf(keys[1]));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
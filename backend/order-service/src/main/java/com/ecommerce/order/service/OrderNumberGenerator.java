@@ -0,0 +1,154 @@
+package com.ecommerce.order.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Snowflake-style order numbers: a millisecond timestamp, the node id and a
+ * per-node sequence, rendered as ORD-yyyyMMddHHmmssSSS-NNNN-SSSS (UTC).
+ * Numbers are unique across nodes with distinct ids without asking the
+ * database, and sort in creation order within a node.
+ *
+ * The timestamp and sequence live in one atomic long that only moves
+ * forward. When more than 4096 numbers are needed in a millisecond, or the
+ * wall clock steps back, the timestamp simply runs ahead of the clock until
+ * it catches up, so generation never blocks and never repeats.
+ */
+@Component
+public class OrderNumberGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderNumberGenerator.class);
+
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final String PREFIX = "ORD-";
+    static final int LENGTH = PREFIX.length() + 17 + 1 + 4 + 1 + 4;
+
+    private final int nodeId;
+    private final LongSupplier clock;
+    private final long skewWarningMillis;
+    // (timestamp << SEQUENCE_BITS) | sequence of the last number handed out
+    private final AtomicLong last = new AtomicLong();
+    private volatile boolean clockBehind;
+
+    @Autowired
+    public OrderNumberGenerator(@Value("${order.number.node-id:-1}") int nodeId,
+                                @Value("${order.number.skew-warning-millis:1000}") long skewWarningMillis) {
+        this(nodeId >= 0 ? nodeId : deriveNodeId(), System::currentTimeMillis, skewWarningMillis);
+    }
+
+    OrderNumberGenerator(int nodeId, LongSupplier clock, long skewWarningMillis) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+        this.skewWarningMillis = skewWarningMillis;
+    }
+
+    /**
+     * Next order number of this node
+     */
+    public String next() {
+        long now = clock.getAsLong();
+        long candidate = now << SEQUENCE_BITS;
+        long previous;
+        long next;
+        do {
+            previous = last.get();
+            next = Math.max(previous + 1, candidate);
+        } while (!last.compareAndSet(previous, next));
+
+        checkSkew(now, next >>> SEQUENCE_BITS);
+        return format(next >>> SEQUENCE_BITS, nodeId, next & SEQUENCE_MASK);
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    private void checkSkew(long now, long timestamp) {
+        boolean behind = timestamp - now > skewWarningMillis;
+        if (behind != clockBehind) {
+            clockBehind = behind;
+            if (behind) {
+                logger.warn("Clock is {} ms behind the last order number; numbering continues ahead of it",
+                        timestamp - now);
+            } else {
+                logger.info("Clock has caught up with order numbering");
+            }
+        }
+    }
+
+    /**
+     * Render the parts of an order number without going through the
+     * java.time formatters
+     */
+    static String format(long epochMillis, int nodeId, long sequence) {
+        char[] chars = new char[LENGTH];
+        PREFIX.getChars(0, PREFIX.length(), chars, 0);
+
+        long days = Math.floorDiv(epochMillis, 86_400_000L);
+        long millisOfDay = Math.floorMod(epochMillis, 86_400_000L);
+
+        // Civil date from days since 1970-01-01 (proleptic Gregorian)
+        long z = days + 719_468;
+        long era = Math.floorDiv(z, 146_097);
+        long dayOfEra = z - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1_460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long monthIndex = (5 * dayOfYear + 2) / 153;
+        long day = dayOfYear - (153 * monthIndex + 2) / 5 + 1;
+        long month = monthIndex < 10 ? monthIndex + 3 : monthIndex - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        int at = PREFIX.length();
+        at = digits(chars, at, year, 4);
+        at = digits(chars, at, month, 2);
+        at = digits(chars, at, day, 2);
+        at = digits(chars, at, millisOfDay / 3_600_000, 2);
+        at = digits(chars, at, millisOfDay / 60_000 % 60, 2);
+        at = digits(chars, at, millisOfDay / 1_000 % 60, 2);
+        at = digits(chars, at, millisOfDay % 1_000, 3);
+        chars[at++] = '-';
+        at = digits(chars, at, nodeId, 4);
+        chars[at++] = '-';
+        digits(chars, at, sequence, 4);
+        return new String(chars);
+    }
+
+    private static int digits(char[] chars, int at, long value, int width) {
+        for (int i = at + width - 1; i >= at; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return at + width;
+    }
+
+    /**
+     * Fallback when no node id is configured: unique enough for a single
+     * node or a quick deployment, but clusters should set order.number.node-id
+     */
+    private static int deriveNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "localhost";
+        }
+        int nodeId = Math.floorMod(31 * host.hashCode() + Long.hashCode(ProcessHandle.current().pid()), MAX_NODE_ID + 1);
+        logger.warn("order.number.node-id is not set; using node id {} derived from host and process", nodeId);
+        return nodeId;
+    }
+}
@@ -1,5 +1,6 @@
 package com.ecommerce.order.service;
 
+import com.ecommerce.common.pagination.CursorPage;
 import com.ecommerce.order.dto.*;
 import com.ecommerce.order.entity.*;
 import com.ecommerce.order.repository.OrderRepository;
@@ -14,7 +15,6 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -26,14 +26,20 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
     private final OrderStatusHistoryRepository orderStatusHistoryRepository;
+    private final OrderStatsRollupService orderStatsRollupService;
+    private final OrderNumberGenerator orderNumberGenerator;
     
     @Autowired
     public OrderService(OrderRepository orderRepository, 
                        OrderItemRepository orderItemRepository,
-                       OrderStatusHistoryRepository orderStatusHistoryRepository) {
+                       OrderStatusHistoryRepository orderStatusHistoryRepository,
+                       OrderStatsRollupService orderStatsRollupService,
+                       OrderNumberGenerator orderNumberGenerator) {
         this.orderRepository = orderRepository;
         this.orderItemRepository = orderItemRepository;
         this.orderStatusHistoryRepository = orderStatusHistoryRepository;
+        this.orderStatsRollupService = orderStatsRollupService;
+        this.orderNumberGenerator = orderNumberGenerator;
     }
     
     /**
@@ -41,7 +47,7 @@ public class OrderService {
      */
     public OrderDto createOrder(Long userId, CreateOrderRequest request) {
         // Generate unique order number
-        String orderNumber = generateOrderNumber();
+        String orderNumber = orderNumberGenerator.next();
         
         // Calculate totals
         BigDecimal subtotal = request.getItems().stream()
@@ -93,6 +99,7 @@ public class OrderService {
                 order, null, OrderStatus.PENDING.name(), userId, "Order created");
         order.addStatusHistory(statusHistory);
         orderStatusHistoryRepository.save(statusHistory);
+        orderStatsRollupService.recordCreated(order);
         
         return convertToDto(order);
     }
@@ -125,6 +132,20 @@ public class OrderService {
                 .map(this::convertToDto);
     }
     
+    /**
+     * Get a user's orders by cursor instead of page number: each page seeks
+     * past the last order of the previous one, so deep pages cost the same
+     * as the first and no total count is run. Status is optional.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<OrderDto> getOrdersByUserIdByCursor(Long userId, OrderStatus status, String cursor, int size) {
+        size = CursorPage.limitSize(size);
+        OrderCursor after = OrderCursor.parse(cursor);
+        List<Order> orders = orderRepository.findByUserIdAfter(userId, status, after.createdAt, after.id,
+                PageRequest.of(0, size + 1));
+        return CursorPage.of(orders, size, this::convertToDto, OrderCursor::of);
+    }
+    
     /**
      * Get orders by user ID and status
      */
@@ -164,6 +185,7 @@ public class OrderService {
         // Update order status
         order.setStatus(request.getNewStatus());
         order = orderRepository.save(order);
+        orderStatsRollupService.recordStatusChange(order, previousStatus);
         
         // Create status history entry
         OrderStatusHistory statusHistory = new OrderStatusHistory(
@@ -248,23 +270,6 @@ public class OrderService {
                 .collect(Collectors.toList());
     }
     
-    /**
-     * Generate unique order number
-     */
-    private String generateOrderNumber() {
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-        String randomSuffix = String.valueOf((int) (Math.random() * 1000));
-        String orderNumber = "ORD-" + timestamp + "-" + String.format("%03d", Integer.parseInt(randomSuffix));
-        
-        // Ensure uniqueness
-        while (orderRepository.existsByOrderNumber(orderNumber)) {
-            randomSuffix = String.valueOf((int) (Math.random() * 1000));
-            orderNumber = "ORD-" + timestamp + "-" + String.format("%03d", Integer.parseInt(randomSuffix));
-        }
-        
-        return orderNumber;
-    }
-    
     /**
      * Validate status transition
      */
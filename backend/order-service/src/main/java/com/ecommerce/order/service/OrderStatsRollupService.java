@@ -0,0 +1,191 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.entity.OrderStatsRollup;
+import com.ecommerce.order.entity.OrderStatus;
+import com.ecommerce.order.repository.OrderRepository;
+import com.ecommerce.order.repository.OrderStatsRollupRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static com.ecommerce.order.entity.OrderStatsRollup.Granularity.DAY;
+import static com.ecommerce.order.entity.OrderStatsRollup.Granularity.HOUR;
+
+/**
+ * Maintains hourly and daily order rollups by creation time and current
+ * status, and answers range statistics from them. Updates run in the
+ * caller's transaction, so the rollups commit or roll back with the order.
+ * Each order updates the shard rows picked by its id, so concurrent orders
+ * in the same hour mostly lock different rows until they commit.
+ */
+@Service
+@Transactional
+public class OrderStatsRollupService {
+
+    static final int SHARDS = 16;
+
+    private final OrderStatsRollupRepository rollupRepository;
+    private final OrderRepository orderRepository;
+
+    @Autowired
+    public OrderStatsRollupService(OrderStatsRollupRepository rollupRepository,
+                                   OrderRepository orderRepository) {
+        this.rollupRepository = rollupRepository;
+        this.orderRepository = orderRepository;
+    }
+
+    /**
+     * Count a newly created order
+     */
+    public void recordCreated(Order order) {
+        apply(order, order.getStatus(), 1);
+    }
+
+    /**
+     * Move an order from the rollups of its previous status to its current one
+     */
+    public void recordStatusChange(Order order, OrderStatus previousStatus) {
+        OrderStatus status = order.getStatus();
+        if (previousStatus == status) {
+            return;
+        }
+        if (previousStatus == null) {
+            apply(order, status, 1);
+            return;
+        }
+        // Always touch rows in status order, so concurrent transitions cannot deadlock
+        if (previousStatus.compareTo(status) < 0) {
+            apply(order, previousStatus, -1);
+            apply(order, status, 1);
+        } else {
+            apply(order, status, 1);
+            apply(order, previousStatus, -1);
+        }
+    }
+
+    /**
+     * Totals for orders created in [from, to). Whole days come from the daily
+     * rollups and whole hours from the hourly ones; only the minutes before
+     * the first and after the last full hour are read from the orders table.
+     */
+    @Transactional(readOnly = true)
+    public OrderStatsTotals getTotals(LocalDateTime from, LocalDateTime to) {
+        OrderStatsTotals totals = new OrderStatsTotals();
+        LocalDateTime firstHour = ceil(from, ChronoUnit.HOURS);
+        LocalDateTime lastHour = to.truncatedTo(ChronoUnit.HOURS);
+        if (!firstHour.isBefore(lastHour)) {
+            totals.addAll(orderRepository.sumByStatusCreatedBetween(from, to));
+            return totals;
+        }
+        if (from.isBefore(firstHour)) {
+            totals.addAll(orderRepository.sumByStatusCreatedBetween(from, firstHour));
+        }
+        if (lastHour.isBefore(to)) {
+            totals.addAll(orderRepository.sumByStatusCreatedBetween(lastHour, to));
+        }
+
+        LocalDateTime firstDay = ceil(firstHour, ChronoUnit.DAYS);
+        LocalDateTime lastDay = lastHour.truncatedTo(ChronoUnit.DAYS);
+        if (!firstDay.isBefore(lastDay)) {
+            totals.addAll(rollupRepository.sumByStatus(HOUR, firstHour, lastHour));
+            return totals;
+        }
+        if (firstHour.isBefore(firstDay)) {
+            totals.addAll(rollupRepository.sumByStatus(HOUR, firstHour, firstDay));
+        }
+        totals.addAll(rollupRepository.sumByStatus(DAY, firstDay, lastDay));
+        if (lastDay.isBefore(lastHour)) {
+            totals.addAll(rollupRepository.sumByStatus(HOUR, lastDay, lastHour));
+        }
+        return totals;
+    }
+
+    /**
+     * Totals per creation day for orders created in [from, to), keyed and
+     * ordered by day. Whole days are read in one query over the daily
+     * rollups; a partial first or last day is answered as in getTotals.
+     */
+    @Transactional(readOnly = true)
+    public SortedMap<LocalDate, OrderStatsTotals> getDailyTotals(LocalDateTime from, LocalDateTime to) {
+        SortedMap<LocalDate, OrderStatsTotals> daily = new TreeMap<>();
+        LocalDateTime firstDay = ceil(from, ChronoUnit.DAYS);
+        LocalDateTime lastDay = to.truncatedTo(ChronoUnit.DAYS);
+        if (from.isBefore(firstDay)) {
+            daily.put(from.toLocalDate(), getTotals(from, firstDay.isBefore(to) ? firstDay : to));
+        }
+        if (firstDay.isBefore(lastDay)) {
+            for (Object[] row : rollupRepository.findByPeriod(DAY, firstDay, lastDay)) {
+                daily.computeIfAbsent(((LocalDateTime) row[0]).toLocalDate(), day -> new OrderStatsTotals())
+                        .add((OrderStatus) row[1], ((Number) row[2]).longValue(), (BigDecimal) row[3]);
+            }
+        }
+        if (lastDay.isBefore(to) && !lastDay.isBefore(firstDay)) {
+            daily.put(lastDay.toLocalDate(), getTotals(lastDay, to));
+        }
+        return daily;
+    }
+
+    /**
+     * Recompute the rollups of the orders created on the given days from the
+     * orders table, returning how many orders they cover. On MySQL the delete
+     * holds its range locks until commit, so orders created meanwhile wait
+     * and are counted exactly once.
+     */
+    public long rebuild(LocalDate startDay, LocalDate endDay) {
+        if (endDay.isBefore(startDay)) {
+            throw new IllegalArgumentException("End date must not be before start date");
+        }
+        LocalDateTime from = startDay.atStartOfDay();
+        LocalDateTime to = endDay.plusDays(1).atStartOfDay();
+        rollupRepository.deleteInRange(from, to);
+
+        List<OrderStatsRollup> rollups = new ArrayList<>();
+        Map<List<Object>, OrderStatsRollup> daily = new LinkedHashMap<>();
+        long orders = 0;
+        for (Object[] row : orderRepository.sumByCreationHourAndStatus(from, to)) {
+            LocalDate day = (LocalDate) row[0];
+            int hour = ((Number) row[1]).intValue();
+            OrderStatus status = (OrderStatus) row[2];
+            long count = ((Number) row[3]).longValue();
+            BigDecimal amount = (BigDecimal) row[4];
+
+            rollups.add(new OrderStatsRollup(HOUR, day.atTime(hour, 0), status, count, amount));
+            OrderStatsRollup dayRollup = daily.computeIfAbsent(List.of(day, status),
+                    key -> new OrderStatsRollup(DAY, day.atStartOfDay(), status, 0, BigDecimal.ZERO));
+            dayRollup.setOrderCount(dayRollup.getOrderCount() + count);
+            dayRollup.setTotalAmount(dayRollup.getTotalAmount().add(amount));
+            orders += count;
+        }
+        rollups.addAll(daily.values());
+        rollupRepository.saveAll(rollups);
+        return orders;
+    }
+
+    private void apply(Order order, OrderStatus status, int sign) {
+        // Whole seconds, as stored: a fresh order still has the in-memory value, a loaded one the stored value
+        LocalDateTime createdAt = (order.getCreatedAt() != null ? order.getCreatedAt() : LocalDateTime.now())
+                .truncatedTo(ChronoUnit.SECONDS);
+        // The same shard for every update of an order, so a status change finds the row it was counted in
+        int shard = order.getId() != null ? (int) Math.floorMod(order.getId(), (long) SHARDS) : 0;
+        BigDecimal amount = sign > 0 ? order.getTotalAmount() : order.getTotalAmount().negate();
+        rollupRepository.increment(HOUR.name(), createdAt.truncatedTo(ChronoUnit.HOURS), status.name(), shard, sign, amount);
+        rollupRepository.increment(DAY.name(), createdAt.truncatedTo(ChronoUnit.DAYS), status.name(), shard, sign, amount);
+    }
+
+    private static LocalDateTime ceil(LocalDateTime time, ChronoUnit unit) {
+        LocalDateTime floor = time.truncatedTo(unit);
+        return floor.equals(time) ? floor : floor.plus(1, unit);
+    }
+}
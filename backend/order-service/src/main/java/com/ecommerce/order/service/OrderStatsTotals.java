@@ -0,0 +1,52 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.order.entity.OrderStatus;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Order count and value per status over a range of creation times
+ */
+public final class OrderStatsTotals {
+
+    private final Map<OrderStatus, Long> counts = new EnumMap<>(OrderStatus.class);
+    private final Map<OrderStatus, BigDecimal> amounts = new EnumMap<>(OrderStatus.class);
+
+    /**
+     * Add (status, count, amount) rows as returned by the per-status sum queries
+     */
+    void addAll(List<Object[]> rows) {
+        for (Object[] row : rows) {
+            add((OrderStatus) row[0], ((Number) row[1]).longValue(), (BigDecimal) row[2]);
+        }
+    }
+
+    void add(OrderStatus status, long count, BigDecimal amount) {
+        counts.merge(status, count, Long::sum);
+        if (amount != null) {
+            amounts.merge(status, amount, BigDecimal::add);
+        }
+    }
+
+    public long getCount(OrderStatus status) {
+        return counts.getOrDefault(status, 0L);
+    }
+
+    public BigDecimal getAmount(OrderStatus status) {
+        return amounts.getOrDefault(status, BigDecimal.ZERO);
+    }
+
+    public long getTotalCount() {
+        return counts.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * Value of shipped and delivered orders, the statuses revenue has always counted
+     */
+    public BigDecimal getRevenue() {
+        return getAmount(OrderStatus.SHIPPED).add(getAmount(OrderStatus.DELIVERED));
+    }
+}
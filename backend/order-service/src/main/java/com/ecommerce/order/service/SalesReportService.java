@@ -0,0 +1,197 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.order.dto.SalesReportDto;
+import com.ecommerce.order.entity.OrderStatus;
+import com.ecommerce.order.repository.OrderItemRepository;
+import com.ecommerce.product.service.ProductService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.stream.Stream;
+
+/**
+ * Builds the admin sales report. Product and category figures come from a
+ * single pass over the sold order items, ordered by product so each
+ * product is totalled as it streams past and only the best sellers are
+ * kept; the trend series comes from the daily order statistics rollups.
+ */
+@Service
+@Transactional(readOnly = true)
+public class SalesReportService {
+
+    // Revenue has always counted shipped and delivered orders only
+    static final Set<OrderStatus> SOLD_STATUSES = EnumSet.of(OrderStatus.SHIPPED, OrderStatus.DELIVERED);
+
+    static final int TOP_PRODUCTS = 10;
+    static final String UNCATEGORIZED = "Uncategorized";
+
+    private static final int CATEGORY_LOOKUP_BATCH = 1000;
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private final OrderItemRepository orderItemRepository;
+    private final OrderStatsRollupService orderStatsRollupService;
+    private final ProductService productService;
+
+    @Autowired
+    public SalesReportService(OrderItemRepository orderItemRepository,
+                              OrderStatsRollupService orderStatsRollupService,
+                              ProductService productService) {
+        this.orderItemRepository = orderItemRepository;
+        this.orderStatsRollupService = orderStatsRollupService;
+        this.productService = productService;
+    }
+
+    /**
+     * Get sales report. Cached per period and requested range; reports for
+     * an open range are refreshed when the cache entry expires.
+     */
+    @Cacheable(value = "sales-reports", key = "#period + ':' + #startDate + ':' + #endDate")
+    public SalesReportDto getSalesReport(String period, String startDate, String endDate) {
+        LocalDateTime start = startDate != null ?
+                LocalDateTime.parse(startDate + "T00:00:00") : getDefaultStartDate(period);
+        LocalDateTime end = endDate != null ?
+                LocalDate.parse(endDate).plusDays(1).atStartOfDay() : LocalDateTime.now();
+
+        SalesReportDto report = new SalesReportDto();
+        report.setPeriod(period);
+
+        // Get basic sales data
+        OrderStatsTotals totals = orderStatsRollupService.getTotals(start, end);
+        report.setTotalSales(totals.getRevenue());
+
+        long totalOrders = totals.getTotalCount();
+        report.setTotalOrders(totalOrders);
+
+        if (totalOrders > 0) {
+            report.setAverageOrderValue(report.getTotalSales()
+                    .divide(BigDecimal.valueOf(totalOrders), 2, RoundingMode.HALF_UP));
+        } else {
+            report.setAverageOrderValue(BigDecimal.ZERO);
+        }
+
+        // Get top products and sales by category
+        ProductSales productSales = aggregateProductSales(start, end);
+        report.setTopProducts(productSales.topProducts());
+        report.setSalesByCategory(productSales.salesByCategory());
+
+        // Get sales trend data
+        report.setSalesTrend(getSalesTrend(period, start, end));
+
+        return report;
+    }
+
+    /**
+     * Total the sold items of each product in one streaming pass, keeping the
+     * best sellers in a bounded min-heap, then fold every product's revenue
+     * into its category
+     */
+    ProductSales aggregateProductSales(LocalDateTime start, LocalDateTime end) {
+        PriorityQueue<SalesReportDto.TopProductDto> topProducts = new PriorityQueue<>(TOP_PRODUCTS + 1,
+                Comparator.comparing(SalesReportDto.TopProductDto::getRevenue)
+                        .thenComparing(SalesReportDto.TopProductDto::getProductId, Comparator.reverseOrder()));
+        Map<Long, BigDecimal> revenueByProduct = new HashMap<>();
+
+        try (Stream<Object[]> rows = orderItemRepository.streamSalesByProduct(start, end, SOLD_STATUSES)) {
+            Iterator<Object[]> iterator = rows.iterator();
+            SalesReportDto.TopProductDto current = null;
+            while (iterator.hasNext()) {
+                Object[] row = iterator.next();
+                Long productId = (Long) row[0];
+                if (current == null || !current.getProductId().equals(productId)) {
+                    if (current != null) {
+                        finish(current, topProducts, revenueByProduct);
+                    }
+                    current = new SalesReportDto.TopProductDto(productId, (String) row[1], 0, BigDecimal.ZERO);
+                }
+                current.setQuantitySold(current.getQuantitySold() + ((Number) row[2]).longValue());
+                current.setRevenue(current.getRevenue().add((BigDecimal) row[3]));
+            }
+            if (current != null) {
+                finish(current, topProducts, revenueByProduct);
+            }
+        }
+
+        List<SalesReportDto.TopProductDto> ranked = new ArrayList<>(topProducts);
+        ranked.sort(topProducts.comparator().reversed());
+        return new ProductSales(ranked, salesByCategory(revenueByProduct));
+    }
+
+    private void finish(SalesReportDto.TopProductDto product,
+                        PriorityQueue<SalesReportDto.TopProductDto> topProducts,
+                        Map<Long, BigDecimal> revenueByProduct) {
+        revenueByProduct.put(product.getProductId(), product.getRevenue());
+        topProducts.offer(product);
+        if (topProducts.size() > TOP_PRODUCTS) {
+            topProducts.poll();
+        }
+    }
+
+    private Map<String, BigDecimal> salesByCategory(Map<Long, BigDecimal> revenueByProduct) {
+        Map<String, BigDecimal> salesByCategory = new HashMap<>();
+        List<Long> productIds = new ArrayList<>(revenueByProduct.keySet());
+        for (int from = 0; from < productIds.size(); from += CATEGORY_LOOKUP_BATCH) {
+            List<Long> batch = productIds.subList(from, Math.min(from + CATEGORY_LOOKUP_BATCH, productIds.size()));
+            Map<Long, String> categories = productService.getCategoryNames(batch);
+            for (Long productId : batch) {
+                salesByCategory.merge(categories.getOrDefault(productId, UNCATEGORIZED),
+                        revenueByProduct.get(productId), BigDecimal::add);
+            }
+        }
+        return salesByCategory;
+    }
+
+    /**
+     * Revenue and order count per day, or per month for monthly and yearly
+     * reports, with empty buckets included so the series has no gaps
+     */
+    List<SalesReportDto.SalesTrendDataDto> getSalesTrend(String period, LocalDateTime start, LocalDateTime end) {
+        boolean byMonth = period.equalsIgnoreCase("monthly") || period.equalsIgnoreCase("yearly");
+        DateTimeFormatter format = byMonth ? MONTH_FORMAT : DAY_FORMAT;
+
+        Map<String, SalesReportDto.SalesTrendDataDto> buckets = new LinkedHashMap<>();
+        for (LocalDate day = start.toLocalDate(); day.atStartOfDay().isBefore(end); day = day.plusDays(1)) {
+            String key = day.format(format);
+            buckets.computeIfAbsent(key, date -> new SalesReportDto.SalesTrendDataDto(date, BigDecimal.ZERO, 0));
+        }
+
+        SortedMap<LocalDate, OrderStatsTotals> daily = orderStatsRollupService.getDailyTotals(start, end);
+        daily.forEach((day, totals) -> {
+            SalesReportDto.SalesTrendDataDto bucket = buckets.get(day.format(format));
+            bucket.setSales(bucket.getSales().add(totals.getRevenue()));
+            bucket.setOrders(bucket.getOrders() + totals.getTotalCount());
+        });
+        return new ArrayList<>(buckets.values());
+    }
+
+    private LocalDateTime getDefaultStartDate(String period) {
+        return switch (period.toLowerCase()) {
+            case "daily" -> LocalDateTime.now().minusDays(1);
+            case "weekly" -> LocalDateTime.now().minusDays(7);
+            case "monthly" -> LocalDateTime.now().minusDays(30);
+            case "yearly" -> LocalDateTime.now().minusDays(365);
+            default -> LocalDateTime.now().minusDays(30);
+        };
+    }
+
+    record ProductSales(List<SalesReportDto.TopProductDto> topProducts, Map<String, BigDecimal> salesByCategory) {
+    }
+}
@@ -0,0 +1,56 @@
+package com.ecommerce.order.cache;
+
+import com.ecommerce.common.cache.serialization.BinaryRedisSerializer;
+import com.ecommerce.order.dto.CartItemDto;
+import com.ecommerce.order.dto.CartSummaryDto;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartSummaryCodecTest {
+
+    private final RedisSerializer<Object> json = new GenericJackson2JsonRedisSerializer()
+            .configure(mapper -> mapper.registerModule(new JavaTimeModule())
+                    .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false));
+    private final BinaryRedisSerializer binary = new BinaryRedisSerializer(List.of(new CartSummaryCodec()), json, -1);
+
+    @Test
+    void testRoundTrip_CartSummary() {
+        List<CartItemDto> items = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            BigDecimal unitPrice = new BigDecimal("19.99");
+            items.add(new CartItemDto(id, id * 10, "Product " + id, "SKU-" + id, unitPrice, "/images/" + id + ".jpg",
+                    (int) id, unitPrice.multiply(BigDecimal.valueOf(id)), LocalDateTime.now(), LocalDateTime.now()));
+        }
+        CartSummaryDto summary = new CartSummaryDto(items);
+        summary.setEstimatedTax(new BigDecimal("25.49"));
+
+        byte[] bytes = binary.serialize(summary);
+        CartSummaryDto restored = (CartSummaryDto) binary.deserialize(bytes);
+
+        assertEquals(summary.getTotalQuantity(), restored.getTotalQuantity());
+        assertEquals(summary.getSubtotal(), restored.getSubtotal());
+        assertEquals(summary.getEstimatedTotal(), restored.getEstimatedTotal());
+        assertEquals(items.get(4).getTotalPrice(), restored.getItems().get(4).getTotalPrice());
+        assertTrue(bytes.length < json.serialize(summary).length);
+    }
+
+    @Test
+    void testRoundTrip_EmptyCart() {
+        CartSummaryDto summary = new CartSummaryDto(new ArrayList<>());
+
+        CartSummaryDto restored = (CartSummaryDto) binary.deserialize(binary.serialize(summary));
+
+        assertTrue(restored.getItems().isEmpty());
+        assertEquals(summary.getSubtotal(), restored.getSubtotal());
+    }
+}
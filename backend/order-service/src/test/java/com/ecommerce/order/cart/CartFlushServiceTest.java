@@ -0,0 +1,153 @@
+package com.ecommerce.order.cart;
+
+import com.ecommerce.order.entity.ShoppingCart;
+import com.ecommerce.order.repository.ShoppingCartRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.stream.RecordId;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Changes read from the cart store must leave shopping_cart matching the
+ * carts' current state in Redis, and stay in the stream if writing fails
+ */
+@DataJpaTest(showSql = false, properties = "spring.datasource.url=jdbc:h2:mem:cart-flush;MODE=MySQL;DB_CLOSE_DELAY=-1")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(CartFlushService.class)
+class CartFlushServiceTest {
+
+    @SpringBootConfiguration
+    @EntityScan("com.ecommerce.order.entity")
+    @EnableJpaRepositories("com.ecommerce.order.repository")
+    static class TestConfig {
+    }
+
+    @MockBean
+    private CartStore cartStore;
+
+    @Autowired
+    private CartFlushService flushService;
+
+    @Autowired
+    private ShoppingCartRepository cartRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+    private long sequence;
+
+    @Test
+    void testRepeatedChanges_WriteEachLineFromCurrentState() {
+        ShoppingCart kept = persist(new ShoppingCart(1L, 10L, 2));
+        persist(new ShoppingCart(1L, 30L, 1));
+        persist(new ShoppingCart(2L, 10L, 9));
+        List<CartStore.Change> changes = List.of(change("user:1", 10L), change("user:1", 10L),
+                change("user:1", 20L), change("user:1", 30L));
+        when(cartStore.readChanges(anyInt())).thenReturn(changes);
+        // Product 40 was added after the batch was read: its own change writes it later
+        when(cartStore.snapshot(any())).thenReturn(Map.of("user:1",
+                lines(new CartLine(10L, 5, now, now), new CartLine(20L, 1, now, now), new CartLine(40L, 3, now, now))));
+
+        assertEquals(4, flushService.flushBatch());
+
+        Map<Long, ShoppingCart> rows = rows(cartRepository.findByUserIdOrderByCreatedAtDesc(1L));
+        assertEquals(Map.of(10L, 5, 20L, 1), quantities(rows));
+        assertEquals(kept.getId(), rows.get(10L).getId());
+        assertEquals(9, cartRepository.getTotalQuantityByUserId(2L));
+        verify(cartStore).acknowledge(changes.stream().map(CartStore.Change::id).toList());
+    }
+
+    @Test
+    void testWholeCartChanges_ReplaceTheCart() {
+        persist(new ShoppingCart("abc", 10L, 2));
+        persist(new ShoppingCart("abc", 20L, 1));
+        persist(new ShoppingCart(1L, 10L, 4));
+        List<CartStore.Change> changes = List.of(change("session:abc", 10L), change("session:abc", null),
+                change("session:abc", 30L), change("user:1", null));
+        when(cartStore.readChanges(anyInt())).thenReturn(changes);
+        // Guest cart cleared and refilled; user cart cleared
+        when(cartStore.snapshot(any())).thenReturn(Map.of(
+                "session:abc", lines(new CartLine(30L, 2, now, now)),
+                "user:1", Map.of()));
+
+        assertEquals(4, flushService.flushBatch());
+
+        assertEquals(Map.of(30L, 2), quantities(rows(cartRepository.findBySessionIdOrderByCreatedAtDesc("abc"))));
+        assertTrue(cartRepository.findByUserIdOrderByCreatedAtDesc(1L).isEmpty());
+    }
+
+    @Test
+    void testFailedWrite_LeavesChangesInStream() {
+        when(cartStore.readChanges(anyInt())).thenReturn(List.of(change("user:1", 10L)));
+        when(cartStore.snapshot(any())).thenThrow(new RedisConnectionFailureException("Connection refused"));
+
+        assertEquals(0, flushService.flushBatch());
+
+        verify(cartStore, never()).acknowledge(any());
+    }
+
+    @Test
+    void testFailedCart_DoesNotHoldBackOtherCarts() {
+        List<CartStore.Change> changes = List.of(change("user:1", 10L), change("user:2", 10L), change("user:1", 20L));
+        when(cartStore.readChanges(anyInt())).thenReturn(changes);
+        when(cartStore.snapshot(any())).thenAnswer(invocation -> {
+            Collection<String> cartIds = invocation.getArgument(0);
+            if (cartIds.contains("user:2")) {
+                throw new RedisConnectionFailureException("Connection reset");
+            }
+            return Map.of("user:1", lines(new CartLine(10L, 1, now, now), new CartLine(20L, 2, now, now)));
+        });
+
+        assertEquals(2, flushService.flushBatch());
+
+        assertEquals(Map.of(10L, 1, 20L, 2), quantities(rows(cartRepository.findByUserIdOrderByCreatedAtDesc(1L))));
+        verify(cartStore).acknowledge(List.of(changes.get(0).id(), changes.get(2).id()));
+        verify(cartStore, never()).acknowledge(argThat(ids -> ids.contains(changes.get(1).id())));
+    }
+
+    private ShoppingCart persist(ShoppingCart item) {
+        ShoppingCart saved = entityManager.persistAndFlush(item);
+        entityManager.clear();
+        return saved;
+    }
+
+    private CartStore.Change change(String cartId, Long productId) {
+        return new CartStore.Change(RecordId.of(1_700_000_000_000L, sequence++), cartId, productId);
+    }
+
+    private static Map<Long, CartLine> lines(CartLine... lines) {
+        return Arrays.stream(lines).collect(Collectors.toMap(CartLine::productId, Function.identity()));
+    }
+
+    private Map<Long, ShoppingCart> rows(List<ShoppingCart> items) {
+        return items.stream().collect(Collectors.toMap(ShoppingCart::getProductId, Function.identity()));
+    }
+
+    private static Map<Long, Integer> quantities(Map<Long, ShoppingCart> rows) {
+        return rows.values().stream().collect(Collectors.toMap(ShoppingCart::getProductId, ShoppingCart::getQuantity));
+    }
+}
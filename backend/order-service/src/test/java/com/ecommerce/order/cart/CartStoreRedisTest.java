@@ -0,0 +1,231 @@
+package com.ecommerce.order.cart;
+
+import com.ecommerce.order.entity.ShoppingCart;
+import com.ecommerce.order.repository.ShoppingCartRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The cart store's Lua scripts against a real Redis: the add limit and
+ * concurrent additions, removal, clearing, the chunked load of large carts,
+ * the merge clamp, and the change stream writing carts back to
+ * shopping_cart. Needs Docker; skipped without it.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest(showSql = false, properties = "spring.datasource.url=jdbc:h2:mem:cart-store;MODE=MySQL;DB_CLOSE_DELAY=-1")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CartStoreRedisTest {
+
+    @Container
+    private static final GenericContainer<?> redis = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
+            .withExposedPorts(6379);
+
+    @SpringBootConfiguration
+    @EntityScan("com.ecommerce.order.entity")
+    @EnableJpaRepositories("com.ecommerce.order.repository")
+    static class TestConfig {
+    }
+
+    @Autowired
+    private ShoppingCartRepository cartRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+    private CartStore cartStore;
+    private CartFlushService flushService;
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(redis.getHost(), redis.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+        cartRepository.deleteAll();
+
+        cartStore = new CartStore(redisTemplate, cartRepository, Duration.ofDays(7), Duration.ofMinutes(5), 5);
+        flushService = new CartFlushService(cartStore, cartRepository, transactionManager, 500);
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void testAddQuantity_RejectsQuantityBeyondLimit() {
+        String cart = CartStore.userCart(1L);
+
+        assertEquals(3, cartStore.addQuantity(cart, 10L, 3, 5).quantity());
+        assertNull(cartStore.addQuantity(cart, 10L, 3, 5));
+        assertEquals(3, cartStore.getLine(cart, 10L).quantity());
+        assertEquals(5, cartStore.addQuantity(cart, 10L, 2, 5).quantity());
+        assertNull(cartStore.addQuantity(cart, 20L, 6, 5));
+        assertNull(cartStore.getLine(cart, 20L));
+    }
+
+    @Test
+    void testConcurrentAdds_NeverLoseOrExceedQuantity() throws Exception {
+        String cart = CartStore.userCart(1L);
+        int threads = 16;
+        int addsPerThread = 100;
+        int limit = 1000;
+        AtomicInteger accepted = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < addsPerThread; i++) {
+                    if (cartStore.addQuantity(cart, 10L, 1, limit) != null) {
+                        accepted.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        assertEquals(limit, accepted.get());
+        assertEquals(limit, cartStore.getLine(cart, 10L).quantity());
+    }
+
+    @Test
+    void testSetRemoveAndClear() {
+        cartRepository.save(new ShoppingCart(1L, 10L, 2));
+        String cart = CartStore.userCart(1L);
+
+        assertEquals(2, cartStore.getLine(cart, 10L).quantity());
+        assertEquals(4, cartStore.setQuantity(cart, 20L, 4).quantity());
+        assertTrue(cartStore.remove(cart, 10L));
+        assertFalse(cartStore.remove(cart, 10L));
+        assertEquals(Map.of(20L, 4), quantities(cartStore.getLines(cart)));
+
+        cartStore.clear(cart);
+
+        // Cleared carts stay loaded: the row still in shopping_cart is not read back
+        assertTrue(cartStore.getLines(cart).isEmpty());
+        assertNull(cartStore.getLine(cart, 10L));
+    }
+
+    @Test
+    void testLoad_LargeCartBeyondLuaArgumentLimit() {
+        // 5000 lines are 10,001 script arguments, more than one unpack can take
+        List<ShoppingCart> rows = new ArrayList<>();
+        for (long productId = 1; productId <= 5000; productId++) {
+            rows.add(new ShoppingCart(7L, productId, (int) (productId % 9) + 1));
+        }
+        cartRepository.saveAll(rows);
+
+        List<CartLine> lines = cartStore.getLines(CartStore.userCart(7L));
+
+        assertEquals(5000, lines.size());
+        Map<Long, Integer> quantities = quantities(lines);
+        for (long productId = 1; productId <= 5000; productId++) {
+            assertEquals((int) (productId % 9) + 1, quantities.get(productId));
+        }
+    }
+
+    @Test
+    void testMerge_ClampsSharedLinesToLimit() {
+        String guest = CartStore.guestCart("abc");
+        String user = CartStore.userCart(1L);
+        cartStore.setQuantity(guest, 1L, 2);
+        cartStore.setQuantity(guest, 2L, 2);
+        cartStore.setQuantity(guest, 3L, 2);
+        cartStore.setQuantity(guest, 4L, 2);
+        cartStore.setQuantity(user, 2L, 3);
+        cartStore.setQuantity(user, 3L, 3);
+        cartStore.setQuantity(user, 4L, 3);
+
+        // 2: sum 5 clamped to 4; 3: limit below the user's quantity keeps 3; 4: no limit keeps 3
+        int moved = cartStore.merge(guest, user, Map.of(2L, 4, 3L, 2));
+
+        assertEquals(4, moved);
+        assertEquals(Map.of(1L, 2, 2L, 4, 3L, 3, 4L, 3), quantities(cartStore.getLines(user)));
+        assertTrue(cartStore.getLines(guest).isEmpty());
+    }
+
+    @Test
+    void testLoadThenFlush_RoundTripsToShoppingCart() {
+        cartRepository.save(new ShoppingCart(1L, 10L, 2));
+        cartRepository.save(new ShoppingCart(1L, 20L, 1));
+        cartRepository.save(new ShoppingCart("abc", 40L, 1));
+        String user = CartStore.userCart(1L);
+        String guest = CartStore.guestCart("abc");
+
+        cartStore.addQuantity(user, 10L, 3, 99);
+        cartStore.remove(user, 20L);
+        cartStore.setQuantity(user, 30L, 4);
+        cartStore.setQuantity(guest, 50L, 2);
+        cartStore.merge(guest, user, Map.of());
+        assertEquals(6, redisTemplate.opsForStream().size(CartStore.CHANGE_STREAM).longValue());
+
+        flushService.flush();
+
+        assertEquals(Map.of(10L, 5, 30L, 4, 40L, 1, 50L, 2),
+                rows(cartRepository.findByUserIdOrderByCreatedAtDesc(1L)));
+        assertTrue(cartRepository.findBySessionIdOrderByCreatedAtDesc("abc").isEmpty());
+        assertEquals(0, redisTemplate.opsForStream().size(CartStore.CHANGE_STREAM).longValue());
+
+        // A fresh store reading the table back sees the same cart
+        redisTemplate.delete("cart:" + user);
+        assertEquals(Map.of(10L, 5, 30L, 4, 40L, 1, 50L, 2), quantities(cartStore.getLines(user)));
+    }
+
+    private static Map<Long, Integer> quantities(List<CartLine> lines) {
+        return lines.stream().collect(Collectors.toMap(CartLine::productId, CartLine::quantity));
+    }
+
+    private static Map<Long, Integer> rows(List<ShoppingCart> rows) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        rows.forEach(row -> quantities.put(row.getProductId(), row.getQuantity()));
+        return quantities;
+    }
+}
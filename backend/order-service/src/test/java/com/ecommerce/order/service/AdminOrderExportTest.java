@@ -0,0 +1,88 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.entity.OrderStatus;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exports more orders than one fetch batch; every matching order must be
+ * written once and none of them may stay in the persistence context
+ */
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OrderService.class, OrderNumberGenerator.class, AdminOrderService.class, OrderStatsRollupService.class})
+class AdminOrderExportTest {
+
+    private static final int ORDERS = 1_250;
+
+    @SpringBootConfiguration
+    @EntityScan("com.ecommerce.order.entity")
+    @EnableJpaRepositories("com.ecommerce.order.repository")
+    static class TestConfig {
+    }
+
+    @Autowired
+    private AdminOrderService adminOrderService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = new Order("EXP-" + i, 1L, new BigDecimal("10.00"), new BigDecimal("12.50"));
+            order.setStatus(i % 5 == 0 ? OrderStatus.SHIPPED : OrderStatus.PENDING);
+            entityManager.persist(order);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testExport_WritesEveryOrderWithoutKeepingThemManaged() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        adminOrderService.exportOrdersToCSV(null, null, null, out);
+
+        List<String> lines = lines(out);
+        assertTrue(lines.get(0).startsWith("Order Number,User ID,Status"));
+        assertEquals(ORDERS + 1, lines.size());
+        assertEquals(ORDERS, lines.stream().skip(1).map(line -> line.split(",")[0]).distinct().count());
+        assertTrue(lines.get(1).contains(",12.50,"));
+        assertEquals(0, entityManager.getEntityManager().unwrap(Session.class)
+                .getStatistics().getEntityCount());
+    }
+
+    @Test
+    void testExport_FiltersByStatus() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        adminOrderService.exportOrdersToCSV(OrderStatus.SHIPPED, null, null, out);
+
+        List<String> lines = lines(out);
+        assertEquals(ORDERS / 5 + 1, lines.size());
+        assertTrue(lines.stream().skip(1).allMatch(line -> line.contains(",SHIPPED,")));
+    }
+
+    private List<String> lines(ByteArrayOutputStream out) {
+        return Arrays.asList(out.toString(StandardCharsets.UTF_8).split("\\R"));
+    }
+}
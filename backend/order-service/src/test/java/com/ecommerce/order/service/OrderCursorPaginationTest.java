@@ -0,0 +1,151 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.common.pagination.CursorPage;
+import com.ecommerce.order.dto.OrderDto;
+import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.entity.OrderStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Walks the cursor endpoints page by page; with many orders sharing a
+ * creation time the id tiebreak must still give every order exactly once
+ */
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OrderService.class, OrderNumberGenerator.class, AdminOrderService.class, OrderStatsRollupService.class})
+class OrderCursorPaginationTest {
+
+    @SpringBootConfiguration
+    @EntityScan("com.ecommerce.order.entity")
+    @EnableJpaRepositories("com.ecommerce.order.repository")
+    static class TestConfig {
+    }
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private AdminOrderService adminOrderService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private final List<Order> orders = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        LocalDateTime base = LocalDateTime.of(2024, 3, 1, 12, 0);
+        for (int i = 0; i < 30; i++) {
+            Order order = new Order("ORD-" + i, i % 4 == 0 ? 2L : 1L, new BigDecimal("10.00"), new BigDecimal("12.00"));
+            order.setStatus(i % 3 == 0 ? OrderStatus.SHIPPED : OrderStatus.PENDING);
+            entityManager.persist(order);
+            orders.add(order);
+        }
+        entityManager.flush();
+
+        // Only five distinct creation times, so most rows tie on the first sort key
+        for (int i = 0; i < orders.size(); i++) {
+            LocalDateTime createdAt = base.plusMinutes(i % 5);
+            entityManager.getEntityManager()
+                    .createNativeQuery("UPDATE orders SET created_at = ?1 WHERE id = ?2")
+                    .setParameter(1, Timestamp.valueOf(createdAt))
+                    .setParameter(2, orders.get(i).getId())
+                    .executeUpdate();
+        }
+        entityManager.clear();
+    }
+
+    @Test
+    void testUserOrders_WalksEveryOrderOnceNewestFirst() {
+        List<Long> walked = walk(cursor -> orderService.getOrdersByUserIdByCursor(1L, null, cursor, 4));
+
+        assertEquals(expectedIds(order -> order.getUserId() == 1L), walked);
+    }
+
+    @Test
+    void testUserOrders_FiltersByStatus() {
+        List<Long> walked = walk(cursor -> orderService.getOrdersByUserIdByCursor(1L, OrderStatus.SHIPPED, cursor, 3));
+
+        assertEquals(expectedIds(order -> order.getUserId() == 1L && order.getStatus() == OrderStatus.SHIPPED), walked);
+    }
+
+    @Test
+    void testAdminOrders_WalksFilteredOrders() {
+        List<Long> all = walk(cursor -> adminOrderService.getAllOrdersWithFiltersByCursor(
+                cursor, 7, null, null, null, null, null));
+        List<Long> pending = walk(cursor -> adminOrderService.getAllOrdersWithFiltersByCursor(
+                cursor, 7, OrderStatus.PENDING, null, null, null, null));
+
+        assertEquals(expectedIds(order -> true), all);
+        assertEquals(expectedIds(order -> order.getStatus() == OrderStatus.PENDING), pending);
+    }
+
+    @Test
+    void testCursor_LastPageHasNoNextCursor() {
+        CursorPage<OrderDto> page = orderService.getOrdersByUserIdByCursor(2L, null, null, 100);
+
+        assertEquals(8, page.getContent().size());
+        assertFalse(page.isHasNext());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void testCursor_ClampsPageSize() {
+        CursorPage<OrderDto> page = orderService.getOrdersByUserIdByCursor(2L, null, null, Integer.MAX_VALUE);
+
+        assertEquals(CursorPage.MAX_SIZE, page.getSize());
+        assertEquals(8, page.getContent().size());
+    }
+
+    @Test
+    void testCursor_RejectsMalformedCursor() {
+        assertThrows(IllegalArgumentException.class,
+                () -> orderService.getOrdersByUserIdByCursor(1L, null, "not a cursor", 5));
+    }
+
+    private List<Long> walk(Function<String, CursorPage<OrderDto>> fetch) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<OrderDto> page = fetch.apply(cursor);
+            page.getContent().forEach(order -> ids.add(order.getId()));
+            cursor = page.getNextCursor();
+            assertEquals(page.isHasNext(), cursor != null);
+        } while (cursor != null);
+        return ids;
+    }
+
+    private List<Long> expectedIds(Predicate<Order> filter) {
+        List<Order> expected = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            if (filter.test(orders.get(i))) {
+                expected.add(orders.get(i));
+            }
+        }
+        // created_at was set to minute (index % 5); ids grow with the index
+        expected.sort(Comparator.<Order>comparingInt(order -> orders.indexOf(order) % 5)
+                .thenComparing(Order::getId)
+                .reversed());
+        return expected.stream().map(Order::getId).toList();
+    }
+}
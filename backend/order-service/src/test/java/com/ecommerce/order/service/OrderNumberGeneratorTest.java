@@ -0,0 +1,107 @@
+package com.ecommerce.order.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderNumberGeneratorTest {
+
+    private static final int THREADS = 8;
+    private static final int NUMBERS_PER_THREAD = 200_000;
+
+    @Test
+    void testConcurrentGeneration_NeverRepeats() throws Exception {
+        OrderNumberGenerator generator = new OrderNumberGenerator(7, System::currentTimeMillis, 1000);
+        Set<String> numbers = ConcurrentHashMap.newKeySet(THREADS * NUMBERS_PER_THREAD);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    String previous = "";
+                    for (int i = 0; i < NUMBERS_PER_THREAD; i++) {
+                        String number = generator.next();
+                        // Numbers of one node sort in the order they were handed out
+                        assertTrue(number.compareTo(previous) > 0);
+                        numbers.add(number);
+                        previous = number;
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(THREADS * NUMBERS_PER_THREAD, numbers.size());
+        assertTrue(numbers.stream().allMatch(number -> number.length() == OrderNumberGenerator.LENGTH
+                && number.startsWith("ORD-") && number.contains("-0007-")));
+    }
+
+    @Test
+    void testClockSteppingBack_ContinuesFromLastTimestamp() {
+        AtomicLong now = new AtomicLong(Instant.parse("2024-03-10T12:00:00.500Z").toEpochMilli());
+        OrderNumberGenerator generator = new OrderNumberGenerator(1, now::get, 1000);
+
+        String beforeStep = generator.next();
+        now.addAndGet(-5_000);
+        String afterStep = generator.next();
+        now.addAndGet(10_000);
+        String afterCatchUp = generator.next();
+
+        assertEquals("ORD-20240310120000500-0001-0000", beforeStep);
+        assertEquals("ORD-20240310120000500-0001-0001", afterStep);
+        assertEquals("ORD-20240310120005500-0001-0000", afterCatchUp);
+    }
+
+    @Test
+    void testSequenceOverflow_MovesToNextMillisecond() {
+        long millis = Instant.parse("2024-12-31T23:59:59.999Z").toEpochMilli();
+        OrderNumberGenerator generator = new OrderNumberGenerator(1023, () -> millis, 1000);
+
+        String last = null;
+        for (int i = 0; i <= 1 << OrderNumberGenerator.SEQUENCE_BITS; i++) {
+            last = generator.next();
+        }
+
+        assertEquals("ORD-20250101000000000-1023-0000", last);
+    }
+
+    @Test
+    void testFormat_MatchesJavaTime() {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS").withZone(ZoneOffset.UTC);
+        Random random = new Random(3);
+        for (int i = 0; i < 100_000; i++) {
+            long millis = Math.floorMod(random.nextLong(), 8_000_000_000_000L);
+            String expected = "ORD-" + formatter.format(Instant.ofEpochMilli(millis)) + "-0042-4095";
+
+            assertEquals(expected, OrderNumberGenerator.format(millis, 42, 4095));
+        }
+    }
+
+    @Test
+    void testNodeIdOutOfRange_IsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new OrderNumberGenerator(OrderNumberGenerator.MAX_NODE_ID + 1, System::currentTimeMillis, 1000));
+    }
+}
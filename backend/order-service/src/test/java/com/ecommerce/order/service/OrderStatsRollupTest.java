@@ -0,0 +1,174 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.order.dto.CancelOrderRequest;
+import com.ecommerce.order.dto.CreateOrderItemRequest;
+import com.ecommerce.order.dto.CreateOrderRequest;
+import com.ecommerce.order.dto.OrderDto;
+import com.ecommerce.order.dto.OrderStatisticsDto;
+import com.ecommerce.order.dto.UpdateOrderStatusRequest;
+import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.entity.OrderStatus;
+import com.ecommerce.order.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Statistics answered from the rollups must match a scan of the orders
+ * table for any range, after a rebuild and after later creates and
+ * status changes have been applied incrementally
+ */
+@DataJpaTest(showSql = false, properties = "spring.datasource.url=jdbc:h2:mem:order-stats;MODE=MySQL;DB_CLOSE_DELAY=-1")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OrderService.class, OrderNumberGenerator.class, AdminOrderService.class, OrderStatsRollupService.class})
+class OrderStatsRollupTest {
+
+    @SpringBootConfiguration
+    @EntityScan("com.ecommerce.order.entity")
+    @EnableJpaRepositories("com.ecommerce.order.repository")
+    static class TestConfig {
+    }
+
+    @Autowired
+    private OrderStatsRollupService rollupService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private AdminOrderService adminOrderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private final Random random = new Random(7);
+    private final List<Long> orderIds = new ArrayList<>();
+    private LocalDateTime base;
+
+    @BeforeEach
+    void setUp() {
+        // Orders spread over the last four days, written behind the rollups' back
+        base = LocalDateTime.now().minusDays(4);
+        OrderStatus[] statuses = OrderStatus.values();
+        for (int i = 0; i < 400; i++) {
+            Order order = new Order("STAT-" + i, 1L, new BigDecimal("10.00"),
+                    new BigDecimal(10 + random.nextInt(200) + ".25"));
+            order.setStatus(statuses[random.nextInt(statuses.length)]);
+            entityManager.persist(order);
+            orderIds.add(order.getId());
+        }
+        entityManager.flush();
+        for (Long id : orderIds) {
+            LocalDateTime createdAt = base.plusMinutes(random.nextInt(4 * 24 * 60));
+            entityManager.getEntityManager()
+                    .createNativeQuery("UPDATE orders SET created_at = ?1 WHERE id = ?2")
+                    .setParameter(1, Timestamp.valueOf(createdAt))
+                    .setParameter(2, id)
+                    .executeUpdate();
+        }
+        entityManager.clear();
+    }
+
+    @Test
+    void testRebuild_RollupsMatchOrdersTableForAnyRange() {
+        long covered = rollupService.rebuild(base.toLocalDate(), LocalDateTime.now().toLocalDate());
+
+        assertEquals(orderIds.size(), covered);
+        assertMatchesOrdersTable();
+    }
+
+    @Test
+    void testIncrementalUpdates_KeepRollupsInStepWithOrders() {
+        rollupService.rebuild(base.toLocalDate(), LocalDateTime.now().toLocalDate());
+
+        for (int i = 0; i < 20; i++) {
+            OrderDto created = orderService.createOrder(2L, new CreateOrderRequest(1L, null, null, List.of(
+                    new CreateOrderItemRequest(1L, "SKU-1", "Item", 1 + i, new BigDecimal("19.99")))));
+            if (i % 2 == 0) {
+                orderService.updateOrderStatus(created.getId(),
+                        new UpdateOrderStatusRequest(OrderStatus.CONFIRMED, null), 2L);
+            }
+        }
+        for (Long id : orderIds.subList(0, 60)) {
+            OrderStatus status = orderRepository.findById(id).orElseThrow().getStatus();
+            if (status != OrderStatus.DELIVERED && status != OrderStatus.REFUNDED) {
+                adminOrderService.cancelOrder(id, new CancelOrderRequest("test", false, null));
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        assertMatchesOrdersTable();
+    }
+
+    @Test
+    void testCreatedOrder_BucketedByStoredCreationTime() {
+        OrderDto created = orderService.createOrder(2L, new CreateOrderRequest(1L, null, null, List.of(
+                new CreateOrderItemRequest(1L, "SKU-1", "Item", 1, new BigDecimal("19.99")))));
+        entityManager.flush();
+        entityManager.clear();
+
+        LocalDateTime stored = orderRepository.findById(created.getId()).orElseThrow().getCreatedAt();
+        assertEquals(stored, created.getCreatedAt());
+        assertEquals(0, stored.getNano());
+        assertMatchesOrdersTable();
+    }
+
+    @Test
+    void testOrderStatistics_AnsweredFromRollups() {
+        rollupService.rebuild(base.toLocalDate(), LocalDateTime.now().toLocalDate());
+        String startDate = base.toLocalDate().toString();
+        String endDate = LocalDateTime.now().toLocalDate().toString();
+
+        OrderStatisticsDto statistics = adminOrderService.getOrderStatistics(startDate, endDate);
+
+        assertEquals(orderIds.size(), statistics.getTotalOrders());
+        long shipped = orderRepository.findAll().stream().filter(order -> order.getStatus() == OrderStatus.SHIPPED).count();
+        assertEquals(shipped, statistics.getShippedOrders());
+    }
+
+    private void assertMatchesOrdersTable() {
+        LocalDateTime end = LocalDateTime.now().plusHours(2);
+        List<LocalDateTime[]> ranges = new ArrayList<>();
+        ranges.add(new LocalDateTime[] {base.minusDays(1), end});
+        ranges.add(new LocalDateTime[] {base.truncatedTo(ChronoUnit.DAYS).plusDays(1), base.truncatedTo(ChronoUnit.DAYS).plusDays(3)});
+        ranges.add(new LocalDateTime[] {base.plusMinutes(17), base.plusMinutes(43)});
+        for (int i = 0; i < 30; i++) {
+            LocalDateTime from = base.plusMinutes(random.nextInt(5 * 24 * 60));
+            ranges.add(new LocalDateTime[] {from, from.plusMinutes(random.nextInt(3 * 24 * 60))});
+        }
+
+        for (LocalDateTime[] range : ranges) {
+            OrderStatsTotals expected = new OrderStatsTotals();
+            expected.addAll(orderRepository.sumByStatusCreatedBetween(range[0], range[1]));
+            OrderStatsTotals actual = rollupService.getTotals(range[0], range[1]);
+
+            String message = range[0] + " - " + range[1];
+            assertEquals(expected.getTotalCount(), actual.getTotalCount(), message);
+            for (OrderStatus status : OrderStatus.values()) {
+                assertEquals(expected.getCount(status), actual.getCount(status), message + " " + status);
+                assertEquals(0, expected.getAmount(status).compareTo(actual.getAmount(status)), message + " " + status);
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.order.dto.SalesReportDto;
+import com.ecommerce.product.service.ProductService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks the sales report against the orders table over a year of synthetic
+ * order items (one million by default; set -Dsales.benchmark.items to change
+ * it), and logs the p50 and max latency of each period over repeated runs
+ * (-Dsales.benchmark.runs, default 20). Tagged benchmark, so it only runs
+ * with -Pbenchmarks.
+ */
+@Tag("benchmark")
+@DataJpaTest(showSql = false, properties = "spring.datasource.url=jdbc:h2:mem:sales-benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({SalesReportService.class, OrderStatsRollupService.class})
+class SalesReportBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesReportBenchmarkTest.class);
+
+    private static final int ITEMS = Integer.getInteger("sales.benchmark.items", 1_000_000);
+    private static final int ITEMS_PER_ORDER = 4;
+    private static final int PRODUCTS = 5_000;
+    private static final int RUNS = Math.max(1, Integer.getInteger("sales.benchmark.runs", 20));
+
+    @SpringBootConfiguration
+    @EntityScan("com.ecommerce.order.entity")
+    @EnableJpaRepositories("com.ecommerce.order.repository")
+    static class TestConfig {
+    }
+
+    @Autowired
+    private SalesReportService salesReportService;
+
+    @Autowired
+    private OrderStatsRollupService rollupService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockBean
+    private ProductService productService;
+
+    @Test
+    void testReportOverAYearOfOrderItems_MatchesOrdersTable() {
+        when(productService.getCategoryNames(any())).thenAnswer(invocation -> {
+            Collection<Long> productIds = invocation.getArgument(0);
+            return productIds.stream().collect(Collectors.toMap(id -> id, id -> "Category " + id % 25));
+        });
+
+        int orders = ITEMS / ITEMS_PER_ORDER;
+        generateOrders(orders);
+        long begin = System.nanoTime();
+        long covered = rollupService.rebuild(LocalDate.now().minusDays(366), LocalDate.now());
+        logger.info("Rollup rebuilt over {} orders in {} ms", orders,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+        assertEquals(orders, covered);
+
+        EntityManager em = entityManager.getEntityManager();
+        BigDecimal soldTotal = (BigDecimal) em.createNativeQuery(
+                "SELECT SUM(total_amount) FROM orders WHERE status IN ('SHIPPED', 'DELIVERED')")
+                .getSingleResult();
+        Object[] bestSeller = (Object[]) em.createNativeQuery(
+                "SELECT i.product_id, SUM(i.total_price) AS revenue FROM order_items i " +
+                "JOIN orders o ON o.id = i.order_id WHERE o.status IN ('SHIPPED', 'DELIVERED') " +
+                "GROUP BY i.product_id ORDER BY revenue DESC, i.product_id ASC LIMIT 1")
+                .getSingleResult();
+
+        String startDate = LocalDate.now().minusDays(366).toString();
+        String endDate = LocalDate.now().toString();
+        for (String period : new String[] {"daily", "weekly", "monthly", "yearly"}) {
+            SalesReportDto report = null;
+            long[] nanos = new long[RUNS];
+            for (int run = 0; run < RUNS; run++) {
+                long start = System.nanoTime();
+                report = salesReportService.getSalesReport(period, startDate, endDate);
+                nanos[run] = System.nanoTime() - start;
+            }
+            Arrays.sort(nanos);
+            logger.info("{} report over {} order items: p50 {} ms, max {} ms ({} runs)", period, ITEMS,
+                    TimeUnit.NANOSECONDS.toMillis(nanos[RUNS / 2]), TimeUnit.NANOSECONDS.toMillis(nanos[RUNS - 1]), RUNS);
+
+            assertEquals(orders, report.getTotalOrders(), period);
+            assertEquals(0, soldTotal.compareTo(report.getTotalSales()), period);
+
+            BigDecimal categoryTotal = report.getSalesByCategory().values().stream()
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            assertEquals(0, soldTotal.compareTo(categoryTotal), period);
+
+            BigDecimal trendSales = report.getSalesTrend().stream()
+                    .map(SalesReportDto.SalesTrendDataDto::getSales)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            long trendOrders = report.getSalesTrend().stream()
+                    .mapToLong(SalesReportDto.SalesTrendDataDto::getOrders)
+                    .sum();
+            assertEquals(0, soldTotal.compareTo(trendSales), period);
+            assertEquals(orders, trendOrders, period);
+
+            assertEquals(SalesReportService.TOP_PRODUCTS, report.getTopProducts().size(), period);
+            SalesReportDto.TopProductDto top = report.getTopProducts().get(0);
+            assertEquals(((Number) bestSeller[0]).longValue(), top.getProductId(), period);
+            assertEquals(0, ((BigDecimal) bestSeller[1]).compareTo(top.getRevenue()), period);
+        }
+    }
+
+    /**
+     * Insert orders spread over the last year, each with ITEMS_PER_ORDER
+     * items, in a few set-based statements rather than millions of persists
+     */
+    private void generateOrders(int orders) {
+        EntityManager em = entityManager.getEntityManager();
+        em.createNativeQuery(
+                "INSERT INTO orders (order_number, user_id, status, subtotal, tax_amount, shipping_amount, " +
+                "total_amount, currency, payment_status, created_at, updated_at) " +
+                "SELECT 'BENCH-' || X, MOD(X, 10000) + 1, " +
+                "CASE MOD(X, 7) WHEN 0 THEN 'PENDING' WHEN 1 THEN 'CONFIRMED' WHEN 2 THEN 'CANCELLED' " +
+                "WHEN 3 THEN 'PROCESSING' WHEN 4 THEN 'SHIPPED' ELSE 'DELIVERED' END, " +
+                "0, 0, 0, 0, 'USD', 'PAID', " +
+                "DATEADD('MINUTE', -MOD(X * 7919, 525600), LOCALTIMESTAMP), LOCALTIMESTAMP " +
+                "FROM SYSTEM_RANGE(1, ?1)")
+                .setParameter(1, orders)
+                .executeUpdate();
+        em.createNativeQuery(
+                "INSERT INTO order_items (order_id, product_id, product_sku, product_name, quantity, " +
+                "unit_price, total_price, created_at) " +
+                "SELECT p.order_id, p.product_id, 'SKU-' || p.product_id, 'Product ' || p.product_id, p.quantity, " +
+                "MOD(p.product_id, 200) + 0.99, (MOD(p.product_id, 200) + 0.99) * p.quantity, p.created_at " +
+                "FROM (SELECT o.id AS order_id, o.created_at AS created_at, " +
+                "MOD(o.id * 7919 + r.X * 104729, ?1) + 1 AS product_id, MOD(o.id + r.X, 3) + 1 AS quantity " +
+                "FROM orders o, SYSTEM_RANGE(1, ?2) r) p")
+                .setParameter(1, PRODUCTS)
+                .setParameter(2, ITEMS_PER_ORDER)
+                .executeUpdate();
+        em.createNativeQuery(
+                "UPDATE orders o SET subtotal = (SELECT SUM(i.total_price) FROM order_items i WHERE i.order_id = o.id), " +
+                "total_amount = (SELECT SUM(i.total_price) FROM order_items i WHERE i.order_id = o.id)")
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,160 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.order.dto.SalesReportDto;
+import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.entity.OrderItem;
+import com.ecommerce.order.entity.OrderStatus;
+import com.ecommerce.product.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * The streamed top products, category totals and trend series must match
+ * the same figures computed naively from the orders
+ */
+@DataJpaTest(showSql = false, properties = "spring.datasource.url=jdbc:h2:mem:sales-report;MODE=MySQL;DB_CLOSE_DELAY=-1")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({SalesReportService.class, OrderStatsRollupService.class})
+class SalesReportServiceTest {
+
+    private static final int PRODUCTS = 40;
+
+    @SpringBootConfiguration
+    @EntityScan("com.ecommerce.order.entity")
+    @EnableJpaRepositories("com.ecommerce.order.repository")
+    static class TestConfig {
+    }
+
+    @Autowired
+    private SalesReportService salesReportService;
+
+    @Autowired
+    private OrderStatsRollupService rollupService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockBean
+    private ProductService productService;
+
+    private final Random random = new Random(11);
+    private final List<Order> orders = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        OrderStatus[] statuses = OrderStatus.values();
+        for (int i = 0; i < 300; i++) {
+            Order order = new Order("SALE-" + i, 1L, BigDecimal.ZERO, BigDecimal.ZERO);
+            order.setStatus(statuses[random.nextInt(statuses.length)]);
+            BigDecimal total = BigDecimal.ZERO;
+            for (int line = 0; line < 1 + random.nextInt(4); line++) {
+                long productId = 1 + random.nextInt(PRODUCTS);
+                OrderItem item = new OrderItem(order, productId, "SKU-" + productId, "Product " + productId,
+                        1 + random.nextInt(5), new BigDecimal(5 + productId + ".50"));
+                order.addOrderItem(item);
+                total = total.add(item.getTotalPrice());
+            }
+            order.setSubtotal(total);
+            order.setTotalAmount(total);
+            entityManager.persist(order);
+            orders.add(order);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        // Product n belongs to category n % 3; product 1 is unknown to the catalog
+        when(productService.getCategoryNames(any())).thenAnswer(invocation -> {
+            Collection<Long> productIds = invocation.getArgument(0);
+            return productIds.stream()
+                    .filter(productId -> productId != 1L)
+                    .collect(Collectors.toMap(productId -> productId, productId -> "Category " + productId % 3));
+        });
+        rollupService.rebuild(LocalDate.now().minusDays(1), LocalDate.now());
+    }
+
+    @Test
+    void testTopProducts_MatchNaiveRanking() {
+        SalesReportDto report = salesReportService.getSalesReport("daily",
+                LocalDate.now().toString(), LocalDate.now().toString());
+
+        Map<Long, BigDecimal> revenue = new HashMap<>();
+        Map<Long, Long> quantity = new HashMap<>();
+        for (Order order : orders) {
+            if (SalesReportService.SOLD_STATUSES.contains(order.getStatus())) {
+                for (OrderItem item : order.getOrderItems()) {
+                    revenue.merge(item.getProductId(), item.getTotalPrice(), BigDecimal::add);
+                    quantity.merge(item.getProductId(), (long) item.getQuantity(), Long::sum);
+                }
+            }
+        }
+        List<Long> expected = revenue.keySet().stream()
+                .sorted(Comparator.comparing(revenue::get).reversed().thenComparing(Comparator.naturalOrder()))
+                .limit(SalesReportService.TOP_PRODUCTS)
+                .collect(Collectors.toList());
+
+        List<SalesReportDto.TopProductDto> topProducts = report.getTopProducts();
+        assertEquals(expected, topProducts.stream().map(SalesReportDto.TopProductDto::getProductId).collect(Collectors.toList()));
+        for (SalesReportDto.TopProductDto product : topProducts) {
+            assertEquals(0, revenue.get(product.getProductId()).compareTo(product.getRevenue()));
+            assertEquals(quantity.get(product.getProductId()), product.getQuantitySold());
+            assertEquals("Product " + product.getProductId(), product.getProductName());
+        }
+    }
+
+    @Test
+    void testSalesByCategory_AddsUpToTotalSales() {
+        SalesReportDto report = salesReportService.getSalesReport("daily",
+                LocalDate.now().toString(), LocalDate.now().toString());
+
+        BigDecimal categoryTotal = report.getSalesByCategory().values().stream()
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, report.getTotalSales().compareTo(categoryTotal));
+        assertTrue(report.getSalesByCategory().keySet().stream()
+                .allMatch(name -> name.startsWith("Category ") || name.equals(SalesReportService.UNCATEGORIZED)));
+    }
+
+    @Test
+    void testSalesTrend_HasOneBucketPerDayAddingUpToTotals() {
+        String startDate = LocalDate.now().minusDays(6).toString();
+        String endDate = LocalDate.now().toString();
+
+        SalesReportDto daily = salesReportService.getSalesReport("daily", startDate, endDate);
+        SalesReportDto monthly = salesReportService.getSalesReport("monthly", startDate, endDate);
+
+        assertEquals(7, daily.getSalesTrend().size());
+        assertEquals(startDate, daily.getSalesTrend().get(0).getDate());
+        assertEquals(endDate, daily.getSalesTrend().get(6).getDate());
+        for (SalesReportDto report : List.of(daily, monthly)) {
+            assertEquals(report.getTotalOrders(), report.getSalesTrend().stream()
+                    .mapToLong(SalesReportDto.SalesTrendDataDto::getOrders).sum());
+            assertEquals(0, report.getTotalSales().compareTo(report.getSalesTrend().stream()
+                    .map(SalesReportDto.SalesTrendDataDto::getSales).reduce(BigDecimal.ZERO, BigDecimal::add)));
+        }
+        assertTrue(monthly.getSalesTrend().size() <= 2);
+        assertEquals(orders.size(), daily.getTotalOrders());
+    }
+}
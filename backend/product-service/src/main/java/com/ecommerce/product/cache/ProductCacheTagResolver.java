@@ -0,0 +1,47 @@
+package com.ecommerce.product.cache;
+
+import com.ecommerce.common.cache.CacheTagResolver;
+import com.ecommerce.common.cache.CacheTags;
+import com.ecommerce.product.dto.ProductResponse;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tags cached catalog pages and search results with the products they list
+ * and with the listings they belong to. Product tags catch edits to a listed
+ * product; listing tags are only evicted when a product joins or leaves a
+ * listing, which shifts pages that do not show it (yet).
+ */
+@Component
+public class ProductCacheTagResolver implements CacheTagResolver {
+    
+    @Override
+    public Collection<String> getCacheNames() {
+        return List.of("product-catalog", "product-search");
+    }
+    
+    @Override
+    public Collection<String> getTags(Object value) {
+        if (!(value instanceof Page)) {
+            return Set.of();
+        }
+        // Catalog and search pages only list active products, so even an
+        // empty trailing page belongs to the active listing
+        Set<String> tags = new HashSet<>();
+        tags.add(CacheTags.status(true));
+        for (Object content : ((Page<?>) value).getContent()) {
+            if (content instanceof ProductResponse product) {
+                tags.add(CacheTags.product(product.getId()));
+                if (product.getCategory() != null) {
+                    tags.add(CacheTags.category(product.getCategory().getId()));
+                }
+            }
+        }
+        return tags;
+    }
+}
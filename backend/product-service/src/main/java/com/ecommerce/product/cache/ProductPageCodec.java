@@ -0,0 +1,104 @@
+package com.ecommerce.product.cache;
+
+import com.ecommerce.common.cache.serialization.BinaryCodec;
+import com.ecommerce.common.cache.serialization.BinaryReader;
+import com.ecommerce.common.cache.serialization.BinaryWriter;
+import com.ecommerce.product.dto.ProductResponse;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary cache layout for catalog pages: paging and sort information
+ * followed by the products. Unlike JSON, this round-trips to a real
+ * {@link PageImpl}.
+ */
+@Component
+@SuppressWarnings("rawtypes")
+public class ProductPageCodec implements BinaryCodec<PageImpl> {
+    
+    public static final int TYPE_ID = 2;
+    
+    // Per sort order: bit 0 ascending (so entries written when this was a
+    // plain boolean still read back), bit 1 ignore case, bits 2-3 null handling
+    private static final int ASCENDING = 1;
+    private static final int IGNORE_CASE = 2;
+    private static final int NULL_HANDLING_SHIFT = 2;
+    
+    private final ProductResponseCodec productCodec = new ProductResponseCodec();
+    
+    @Override
+    public int getTypeId() {
+        return TYPE_ID;
+    }
+    
+    @Override
+    public Class<PageImpl> getType() {
+        return PageImpl.class;
+    }
+    
+    @Override
+    public boolean canEncode(Object value) {
+        return value.getClass() == PageImpl.class
+                && ((Page<?>) value).getContent().stream().allMatch(item -> item instanceof ProductResponse);
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public void write(BinaryWriter out, PageImpl page) {
+        Pageable pageable = page.getPageable();
+        out.writeBoolean(pageable.isPaged());
+        if (pageable.isPaged()) {
+            out.writeUnsignedVarInt(pageable.getPageNumber());
+            out.writeUnsignedVarInt(pageable.getPageSize());
+            List<Sort.Order> orders = pageable.getSort().toList();
+            out.writeUnsignedVarInt(orders.size());
+            for (Sort.Order order : orders) {
+                out.writeString(order.getProperty());
+                out.writeByte((order.isAscending() ? ASCENDING : 0)
+                        | (order.isIgnoreCase() ? IGNORE_CASE : 0)
+                        | order.getNullHandling().ordinal() << NULL_HANDLING_SHIFT);
+            }
+        }
+        out.writeVarLong(page.getTotalElements());
+        
+        List<ProductResponse> content = page.getContent();
+        out.writeUnsignedVarInt(content.size());
+        for (ProductResponse product : content) {
+            productCodec.write(out, product);
+        }
+    }
+    
+    @Override
+    public PageImpl read(BinaryReader in) {
+        Pageable pageable = Pageable.unpaged();
+        if (in.readBoolean()) {
+            int pageNumber = in.readUnsignedVarInt();
+            int pageSize = in.readUnsignedVarInt();
+            int orderCount = in.readUnsignedVarInt();
+            List<Sort.Order> orders = new ArrayList<>(orderCount);
+            for (int i = 0; i < orderCount; i++) {
+                String property = in.readString();
+                int flags = in.readByte();
+                Sort.Order order = new Sort.Order((flags & ASCENDING) != 0 ? Sort.Direction.ASC : Sort.Direction.DESC,
+                        property, Sort.NullHandling.values()[flags >>> NULL_HANDLING_SHIFT]);
+                orders.add((flags & IGNORE_CASE) != 0 ? order.ignoreCase() : order);
+            }
+            pageable = PageRequest.of(pageNumber, pageSize, Sort.by(orders));
+        }
+        long total = in.readVarLong();
+        
+        int size = in.readUnsignedVarInt();
+        List<ProductResponse> content = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            content.add(productCodec.read(in));
+        }
+        return new PageImpl<>(content, pageable, total);
+    }
+}
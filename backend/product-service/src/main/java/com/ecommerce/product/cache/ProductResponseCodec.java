@@ -0,0 +1,163 @@
+package com.ecommerce.product.cache;
+
+import com.ecommerce.common.cache.serialization.BinaryCodec;
+import com.ecommerce.common.cache.serialization.BinaryReader;
+import com.ecommerce.common.cache.serialization.BinaryWriter;
+import com.ecommerce.product.dto.CategoryResponse;
+import com.ecommerce.product.dto.InventoryResponse;
+import com.ecommerce.product.dto.ProductImageResponse;
+import com.ecommerce.product.dto.ProductResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary cache layout for {@link ProductResponse}, including its category,
+ * inventory and images
+ */
+@Component
+public class ProductResponseCodec implements BinaryCodec<ProductResponse> {
+    
+    public static final int TYPE_ID = 1;
+    
+    @Override
+    public int getTypeId() {
+        return TYPE_ID;
+    }
+    
+    @Override
+    public Class<ProductResponse> getType() {
+        return ProductResponse.class;
+    }
+    
+    @Override
+    public void write(BinaryWriter out, ProductResponse product) {
+        out.writeNullableLong(product.getId());
+        out.writeString(product.getSku());
+        out.writeString(product.getName());
+        out.writeString(product.getDescription());
+        out.writeBigDecimal(product.getPrice());
+        writeCategory(out, product.getCategory());
+        out.writeString(product.getBrand());
+        out.writeBigDecimal(product.getWeight());
+        out.writeString(product.getDimensions());
+        out.writeNullableBoolean(product.getIsActive());
+        out.writeDateTime(product.getCreatedAt());
+        out.writeDateTime(product.getUpdatedAt());
+        writeInventory(out, product.getInventory());
+        writeImages(out, product.getImages());
+    }
+    
+    @Override
+    public ProductResponse read(BinaryReader in) {
+        ProductResponse product = new ProductResponse();
+        product.setId(in.readNullableLong());
+        product.setSku(in.readString());
+        product.setName(in.readString());
+        product.setDescription(in.readString());
+        product.setPrice(in.readBigDecimal());
+        product.setCategory(readCategory(in));
+        product.setBrand(in.readString());
+        product.setWeight(in.readBigDecimal());
+        product.setDimensions(in.readString());
+        product.setIsActive(in.readNullableBoolean());
+        product.setCreatedAt(in.readDateTime());
+        product.setUpdatedAt(in.readDateTime());
+        product.setInventory(readInventory(in));
+        product.setImages(readImages(in));
+        return product;
+    }
+    
+    private void writeCategory(BinaryWriter out, CategoryResponse category) {
+        if (!out.writePresence(category)) {
+            return;
+        }
+        out.writeNullableLong(category.getId());
+        out.writeString(category.getName());
+        out.writeString(category.getDescription());
+        out.writeNullableLong(category.getParentId());
+        out.writeString(category.getParentName());
+        out.writeNullableBoolean(category.getIsActive());
+        out.writeDateTime(category.getCreatedAt());
+        out.writeDateTime(category.getUpdatedAt());
+    }
+    
+    private CategoryResponse readCategory(BinaryReader in) {
+        if (!in.readPresence()) {
+            return null;
+        }
+        CategoryResponse category = new CategoryResponse();
+        category.setId(in.readNullableLong());
+        category.setName(in.readString());
+        category.setDescription(in.readString());
+        category.setParentId(in.readNullableLong());
+        category.setParentName(in.readString());
+        category.setIsActive(in.readNullableBoolean());
+        category.setCreatedAt(in.readDateTime());
+        category.setUpdatedAt(in.readDateTime());
+        return category;
+    }
+    
+    private void writeInventory(BinaryWriter out, InventoryResponse inventory) {
+        if (!out.writePresence(inventory)) {
+            return;
+        }
+        out.writeNullableLong(inventory.getProductId());
+        out.writeNullableInt(inventory.getQuantityAvailable());
+        out.writeNullableInt(inventory.getQuantityReserved());
+        out.writeNullableInt(inventory.getReorderLevel());
+        out.writeDateTime(inventory.getLastUpdated());
+        out.writeBoolean(inventory.isInStock());
+        out.writeBoolean(inventory.isLowStock());
+    }
+    
+    private InventoryResponse readInventory(BinaryReader in) {
+        if (!in.readPresence()) {
+            return null;
+        }
+        InventoryResponse inventory = new InventoryResponse();
+        inventory.setProductId(in.readNullableLong());
+        inventory.setQuantityAvailable(in.readNullableInt());
+        inventory.setQuantityReserved(in.readNullableInt());
+        inventory.setReorderLevel(in.readNullableInt());
+        inventory.setLastUpdated(in.readDateTime());
+        inventory.setInStock(in.readBoolean());
+        inventory.setLowStock(in.readBoolean());
+        return inventory;
+    }
+    
+    private void writeImages(BinaryWriter out, List<ProductImageResponse> images) {
+        if (!out.writePresence(images)) {
+            return;
+        }
+        out.writeUnsignedVarInt(images.size());
+        for (ProductImageResponse image : images) {
+            out.writeNullableLong(image.getId());
+            out.writeString(image.getImageUrl());
+            out.writeString(image.getAltText());
+            out.writeNullableInt(image.getDisplayOrder());
+            out.writeNullableBoolean(image.getIsPrimary());
+            out.writeDateTime(image.getCreatedAt());
+        }
+    }
+    
+    private List<ProductImageResponse> readImages(BinaryReader in) {
+        if (!in.readPresence()) {
+            return null;
+        }
+        int size = in.readUnsignedVarInt();
+        List<ProductImageResponse> images = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ProductImageResponse image = new ProductImageResponse();
+            image.setId(in.readNullableLong());
+            image.setImageUrl(in.readString());
+            image.setAltText(in.readString());
+            image.setDisplayOrder(in.readNullableInt());
+            image.setIsPrimary(in.readNullableBoolean());
+            image.setCreatedAt(in.readDateTime());
+            images.add(image);
+        }
+        return images;
+    }
+}
@@ -104,6 +104,21 @@ public class InventoryController {
         }
     }
     
+    /**
+     * Reserve several products at once, all or nothing (Internal use)
+     */
+    @PostMapping("/reserve-batch")
+    public ResponseEntity<List<InventoryResponse>> reserveBatch(@Valid @RequestBody BatchReservationRequest request) {
+        try {
+            List<InventoryResponse> updatedInventories = inventoryService.reserveBatch(request.getQuantities());
+            return ResponseEntity.ok(updatedInventories);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+    
     /**
      * Release reserved quantity back to available stock (Internal use)
      */
@@ -138,6 +153,36 @@ public class InventoryController {
         }
     }
     
+    /**
+     * Release a reservation before it expires (Internal use)
+     */
+    @PostMapping("/reservations/{reservationId}/release")
+    public ResponseEntity<InventoryResponse> releaseReservation(@PathVariable Long reservationId) {
+        try {
+            InventoryResponse updatedInventory = inventoryService.releaseReservation(reservationId);
+            return ResponseEntity.ok(updatedInventory);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    /**
+     * Confirm a reservation before it expires (Internal use)
+     */
+    @PostMapping("/reservations/{reservationId}/confirm")
+    public ResponseEntity<InventoryResponse> confirmReservation(@PathVariable Long reservationId) {
+        try {
+            InventoryResponse updatedInventory = inventoryService.confirmReservation(reservationId);
+            return ResponseEntity.ok(updatedInventory);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
     /**
      * Update reorder level for a product (Admin only)
      */
@@ -1,5 +1,6 @@
 package com.ecommerce.product.controller;
 
+import com.ecommerce.common.pagination.CursorPage;
 import com.ecommerce.product.dto.ProductRequest;
 import com.ecommerce.product.dto.ProductResponse;
 import com.ecommerce.product.dto.ProductSearchRequest;
@@ -11,6 +12,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashMap;
 import java.util.List;
@@ -88,6 +90,21 @@ public class ProductController {
         return ResponseEntity.ok(products);
     }
     
+    /**
+     * Catalog by price using cursor pagination (no total count; pass
+     * nextCursor back to get the following page)
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPage<ProductResponse>> getAllProductsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(defaultValue = "asc") String sortDirection) {
+        
+        CursorPage<ProductResponse> products = productService.getAllProductsByCursor(cursor, size, categoryId, sortDirection);
+        return ResponseEntity.ok(products);
+    }
+    
     @PostMapping("/search")
     public ResponseEntity<Page<ProductResponse>> searchProducts(@RequestBody ProductSearchRequest searchRequest) {
         Page<ProductResponse> products = productService.searchProducts(searchRequest);
@@ -105,7 +122,8 @@ public class ProductController {
             @RequestParam(defaultValue = "name") String sortBy,
             @RequestParam(defaultValue = "asc") String sortDirection,
             @RequestParam(defaultValue = "0") Integer page,
-            @RequestParam(defaultValue = "20") Integer size) {
+            @RequestParam(defaultValue = "20") Integer size,
+            @RequestParam(defaultValue = "false") Boolean includeFacets) {
         
         ProductSearchRequest searchRequest = new ProductSearchRequest();
         searchRequest.setSearchTerm(searchTerm);
@@ -124,6 +142,7 @@ public class ProductController {
         searchRequest.setSortDirection(sortDirection);
         searchRequest.setPage(page);
         searchRequest.setSize(size);
+        searchRequest.setIncludeFacets(includeFacets);
         
         Page<ProductResponse> products = productService.searchProducts(searchRequest);
         return ResponseEntity.ok(products);
@@ -292,23 +311,21 @@ public class ProductController {
         List<String> popularTerms = productService.getPopularSearchTerms();
         return ResponseEntity.ok(popularTerms);
     }
-
+    
     /**
      * Export products to CSV
      */
     @GetMapping("/export/csv")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<String> exportProductsToCSV(
+    public ResponseEntity<StreamingResponseBody> exportProductsToCSV(
             @RequestParam(required = false) List<Long> categoryIds,
             @RequestParam(required = false) Boolean isActive) {
-        try {
-            String csvData = productService.exportProductsToCSV(categoryIds, isActive);
-            return ResponseEntity.ok()
-                    .header("Content-Type", "text/csv")
-                    .header("Content-Disposition", "attachment; filename=products.csv")
-                    .body(csvData);
-        } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().build();
-        }
+        // Rows are written straight to the response as they are read
+        StreamingResponseBody csvData = outputStream ->
+                productService.exportProductsToCSV(categoryIds, isActive, outputStream);
+        return ResponseEntity.ok()
+                .header("Content-Type", "text/csv")
+                .header("Content-Disposition", "attachment; filename=products.csv")
+                .body(csvData);
     }
 }
\ No newline at end of file
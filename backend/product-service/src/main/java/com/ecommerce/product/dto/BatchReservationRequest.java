@@ -0,0 +1,30 @@
+package com.ecommerce.product.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.Map;
+
+public class BatchReservationRequest {
+    
+    @NotEmpty(message = "At least one product is required")
+    private Map<@NotNull Long, @NotNull(message = "Quantity is required") @Min(value = 1, message = "Quantity must be positive") Integer> quantities;
+    
+    // Default constructor
+    public BatchReservationRequest() {}
+    
+    // Constructor
+    public BatchReservationRequest(Map<Long, Integer> quantities) {
+        this.quantities = quantities;
+    }
+    
+    // Getters and Setters
+    public Map<Long, Integer> getQuantities() {
+        return quantities;
+    }
+    
+    public void setQuantities(Map<Long, Integer> quantities) {
+        this.quantities = quantities;
+    }
+}
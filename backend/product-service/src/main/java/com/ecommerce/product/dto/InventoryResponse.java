@@ -12,6 +12,8 @@ public class InventoryResponse {
     private LocalDateTime lastUpdated;
     private boolean isInStock;
     private boolean isLowStock;
+    private Long reservationId;
+    private LocalDateTime reservationExpiresAt;
     
     // Default constructor
     public InventoryResponse() {}
@@ -87,4 +89,20 @@ public class InventoryResponse {
     public Integer getTotalQuantity() {
         return quantityAvailable + quantityReserved;
     }
-}
\ No newline at end of file
+    
+    public Long getReservationId() {
+        return reservationId;
+    }
+    
+    public void setReservationId(Long reservationId) {
+        this.reservationId = reservationId;
+    }
+    
+    public LocalDateTime getReservationExpiresAt() {
+        return reservationExpiresAt;
+    }
+    
+    public void setReservationExpiresAt(LocalDateTime reservationExpiresAt) {
+        this.reservationExpiresAt = reservationExpiresAt;
+    }
+}
@@ -0,0 +1,41 @@
+package com.ecommerce.product.dto;
+
+import java.math.BigDecimal;
+
+public class PriceBucketCount {
+    private BigDecimal minPrice; // inclusive
+    private BigDecimal maxPrice; // exclusive, null for the open-ended top bucket
+    private long count;
+    
+    public PriceBucketCount() {}
+    
+    public PriceBucketCount(BigDecimal minPrice, BigDecimal maxPrice, long count) {
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.count = count;
+    }
+    
+    public BigDecimal getMinPrice() {
+        return minPrice;
+    }
+    
+    public void setMinPrice(BigDecimal minPrice) {
+        this.minPrice = minPrice;
+    }
+    
+    public BigDecimal getMaxPrice() {
+        return maxPrice;
+    }
+    
+    public void setMaxPrice(BigDecimal maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+    
+    public long getCount() {
+        return count;
+    }
+    
+    public void setCount(long count) {
+        this.count = count;
+    }
+}
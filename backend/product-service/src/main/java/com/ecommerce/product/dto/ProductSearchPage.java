@@ -0,0 +1,26 @@
+package com.ecommerce.product.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * Search results page that can also carry facet counts. Serializes like a
+ * regular page, with an extra "facets" property when facets were requested.
+ */
+public class ProductSearchPage extends PageImpl<ProductResponse> {
+    
+    private final SearchFacets facets;
+    
+    public ProductSearchPage(List<ProductResponse> content, Pageable pageable, long total, SearchFacets facets) {
+        super(content, pageable, total);
+        this.facets = facets;
+    }
+    
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public SearchFacets getFacets() {
+        return facets;
+    }
+}
@@ -14,6 +14,7 @@ public class ProductSearchRequest {
     private String sortDirection = "asc"; // asc, desc
     private Integer page = 0;
     private Integer size = 20;
+    private Boolean includeFacets = false;
     
     // Default constructor
     public ProductSearchRequest() {}
@@ -99,6 +100,14 @@ public class ProductSearchRequest {
         this.size = size;
     }
     
+    public Boolean getIncludeFacets() {
+        return includeFacets;
+    }
+    
+    public void setIncludeFacets(Boolean includeFacets) {
+        this.includeFacets = includeFacets;
+    }
+    
     // Helper methods
     public boolean hasSearchTerm() {
         return searchTerm != null && !searchTerm.trim().isEmpty();
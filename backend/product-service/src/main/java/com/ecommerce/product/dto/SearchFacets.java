@@ -0,0 +1,57 @@
+package com.ecommerce.product.dto;
+
+import java.util.List;
+
+/**
+ * Facet counts returned alongside search results. Each facet is counted over
+ * the matches with every other filter applied, so the storefront can show how
+ * many results each alternative value would give.
+ */
+public class SearchFacets {
+    private List<FacetCount> brands;
+    private List<FacetCount> categories;
+    private List<PriceBucketCount> priceBuckets;
+    private long inStockCount;
+    
+    public SearchFacets() {}
+    
+    public SearchFacets(List<FacetCount> brands, List<FacetCount> categories,
+                        List<PriceBucketCount> priceBuckets, long inStockCount) {
+        this.brands = brands;
+        this.categories = categories;
+        this.priceBuckets = priceBuckets;
+        this.inStockCount = inStockCount;
+    }
+    
+    public List<FacetCount> getBrands() {
+        return brands;
+    }
+    
+    public void setBrands(List<FacetCount> brands) {
+        this.brands = brands;
+    }
+    
+    public List<FacetCount> getCategories() {
+        return categories;
+    }
+    
+    public void setCategories(List<FacetCount> categories) {
+        this.categories = categories;
+    }
+    
+    public List<PriceBucketCount> getPriceBuckets() {
+        return priceBuckets;
+    }
+    
+    public void setPriceBuckets(List<PriceBucketCount> priceBuckets) {
+        this.priceBuckets = priceBuckets;
+    }
+    
+    public long getInStockCount() {
+        return inStockCount;
+    }
+    
+    public void setInStockCount(long inStockCount) {
+        this.inStockCount = inStockCount;
+    }
+}
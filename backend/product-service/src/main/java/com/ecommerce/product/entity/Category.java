@@ -3,6 +3,7 @@ package com.ecommerce.product.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -16,6 +17,7 @@ import java.util.List;
     @Index(name = "idx_active", columnList = "isActive"),
     @Index(name = "idx_name", columnList = "name")
 })
+@BatchSize(size = Product.FETCH_BATCH_SIZE)
 public class Category {
     
     @Id
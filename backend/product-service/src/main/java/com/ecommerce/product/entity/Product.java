@@ -5,6 +5,7 @@ import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -23,6 +24,13 @@ import java.util.List;
 })
 public class Product {
     
+    /**
+     * Lazy associations of this many products (or categories) are loaded
+     * together, so mapping a page to responses costs a fixed number of
+     * queries instead of one per product and association
+     */
+    public static final int FETCH_BATCH_SIZE = 100;
+    
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -76,6 +84,7 @@ public class Product {
     private ProductInventory inventory;
     
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @BatchSize(size = FETCH_BATCH_SIZE) // images of a whole page load in one query
     private List<ProductImage> images = new ArrayList<>();
     
     // Default constructor
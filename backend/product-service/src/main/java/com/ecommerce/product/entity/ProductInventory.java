@@ -3,6 +3,8 @@ package com.ecommerce.product.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
@@ -12,6 +14,8 @@ import java.time.LocalDateTime;
     @Index(name = "idx_low_stock", columnList = "quantityAvailable, reorderLevel"),
     @Index(name = "idx_available", columnList = "quantityAvailable")
 })
+@DynamicUpdate // entity saves write only changed columns, never stale quantities over atomic updates
+@BatchSize(size = Product.FETCH_BATCH_SIZE)
 public class ProductInventory {
     
     @Id
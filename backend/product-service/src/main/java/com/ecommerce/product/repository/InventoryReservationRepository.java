@@ -0,0 +1,60 @@
+package com.ecommerce.product.repository;
+
+import com.ecommerce.product.entity.InventoryReservation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface InventoryReservationRepository extends JpaRepository<InventoryReservation, Long> {
+    
+    /**
+     * Product of a reservation, read without locking so the caller can lock
+     * the inventory row before the reservation
+     */
+    @Query("SELECT r.productId FROM InventoryReservation r WHERE r.id = :id")
+    Optional<Long> findProductIdById(@Param("id") Long id);
+    
+    /**
+     * Products of the given reservations, read without locking
+     */
+    @Query("SELECT DISTINCT r.productId FROM InventoryReservation r WHERE r.id IN :ids")
+    List<Long> findProductIdsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * Lock a reservation so that its owner and the expiry job cannot both
+     * return its quantity
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM InventoryReservation r WHERE r.id = :id")
+    Optional<InventoryReservation> lockById(@Param("id") Long id);
+    
+    /**
+     * Lock those of the given reservations that have expired, in id order
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM InventoryReservation r WHERE r.id IN :ids AND r.expiresAt <= :now ORDER BY r.id")
+    List<InventoryReservation> lockExpired(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+    
+    /**
+     * Lock a product's reservations, the ones expiring first first
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM InventoryReservation r WHERE r.productId = :productId ORDER BY r.expiresAt, r.id")
+    List<InventoryReservation> lockOldestByProductId(@Param("productId") Long productId, Pageable pageable);
+    
+    /**
+     * Ids of expired reservations; an index range scan on expires_at
+     */
+    @Query("SELECT r.id FROM InventoryReservation r WHERE r.expiresAt <= :now ORDER BY r.expiresAt")
+    List<Long> findExpiredIds(@Param("now") LocalDateTime now, Pageable pageable);
+}
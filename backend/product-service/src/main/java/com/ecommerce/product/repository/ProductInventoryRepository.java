@@ -1,13 +1,17 @@
 package com.ecommerce.product.repository;
 
 import com.ecommerce.product.entity.ProductInventory;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -79,6 +83,12 @@ public interface ProductInventoryRepository extends JpaRepository<ProductInvento
     @Query("SELECT CASE WHEN pi.quantityAvailable >= :quantity THEN true ELSE false END FROM ProductInventory pi WHERE pi.productId = :productId")
     Boolean hasAvailableQuantity(@Param("productId") Long productId, @Param("quantity") Integer quantity);
     
+    /**
+     * Product id and available quantity of each of the given products
+     */
+    @Query("SELECT pi.productId, pi.quantityAvailable FROM ProductInventory pi WHERE pi.productId IN :productIds")
+    List<Object[]> findAvailableQuantities(@Param("productIds") Collection<Long> productIds);
+    
     /**
      * Get total inventory value (sum of available quantity * product price)
      */
@@ -95,4 +105,70 @@ public interface ProductInventoryRepository extends JpaRepository<ProductInvento
      * Count products by quantity available
      */
     Long countByQuantityAvailable(Integer quantityAvailable);
-}
\ No newline at end of file
+    
+    /**
+     * Move quantity from available to reserved in one conditional update.
+     * Returns 0 when the product has no inventory or not enough available.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ProductInventory pi SET pi.quantityAvailable = pi.quantityAvailable - :quantity, " +
+           "pi.quantityReserved = pi.quantityReserved + :quantity, pi.lastUpdated = CURRENT_TIMESTAMP " +
+           "WHERE pi.productId = :productId AND pi.quantityAvailable >= :quantity")
+    int reserveQuantity(@Param("productId") Long productId, @Param("quantity") Integer quantity);
+    
+    /**
+     * Move reserved quantity back to available. Returns 0 when less than the
+     * quantity is reserved.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ProductInventory pi SET pi.quantityReserved = pi.quantityReserved - :quantity, " +
+           "pi.quantityAvailable = pi.quantityAvailable + :quantity, pi.lastUpdated = CURRENT_TIMESTAMP " +
+           "WHERE pi.productId = :productId AND pi.quantityReserved >= :quantity")
+    int releaseReservedQuantity(@Param("productId") Long productId, @Param("quantity") Integer quantity);
+    
+    /**
+     * Consume reserved quantity for a completed order. Returns 0 when less
+     * than the quantity is reserved.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ProductInventory pi SET pi.quantityReserved = pi.quantityReserved - :quantity, " +
+           "pi.lastUpdated = CURRENT_TIMESTAMP " +
+           "WHERE pi.productId = :productId AND pi.quantityReserved >= :quantity")
+    int confirmReservedQuantity(@Param("productId") Long productId, @Param("quantity") Integer quantity);
+    
+    /**
+     * Set available stock in place, leaving the reserved quantity as
+     * concurrent reservations left it. Returns 0 when the product has no
+     * inventory.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ProductInventory pi SET pi.quantityAvailable = :quantity, " +
+           "pi.lastUpdated = CURRENT_TIMESTAMP WHERE pi.productId = :productId")
+    int setAvailableQuantity(@Param("productId") Long productId, @Param("quantity") Integer quantity);
+    
+    /**
+     * Add to available stock without overwriting concurrent reservations
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ProductInventory pi SET pi.quantityAvailable = pi.quantityAvailable + :quantity, " +
+           "pi.lastUpdated = CURRENT_TIMESTAMP WHERE pi.productId = :productId")
+    int addStock(@Param("productId") Long productId, @Param("quantity") Integer quantity);
+    
+    /**
+     * Remove from available stock. Returns 0 when not enough is available.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ProductInventory pi SET pi.quantityAvailable = pi.quantityAvailable - :quantity, " +
+           "pi.lastUpdated = CURRENT_TIMESTAMP " +
+           "WHERE pi.productId = :productId AND pi.quantityAvailable >= :quantity")
+    int removeStock(@Param("productId") Long productId, @Param("quantity") Integer quantity);
+    
+    /**
+     * Lock the inventory rows of several products for update. Rows are read
+     * in product id order so concurrent batches always acquire their locks
+     * in the same sequence and cannot deadlock each other.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT pi FROM ProductInventory pi WHERE pi.productId IN :productIds ORDER BY pi.productId")
+    List<ProductInventory> lockByProductIdsInOrder(@Param("productIds") Collection<Long> productIds);
+}
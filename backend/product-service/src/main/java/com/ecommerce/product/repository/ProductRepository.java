@@ -4,13 +4,20 @@ import com.ecommerce.product.entity.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
@@ -85,6 +92,74 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
                                   @Param("inStockOnly") Boolean inStockOnly,
                                   Pageable pageable);
     
+    // Search-term condition of findWithFilters, shared by the facet counts below
+    String SEARCH_TERM_MATCHES = "(:searchTerm IS NULL OR " +
+           "       MATCH(p.name, p.description) AGAINST(:searchTerm IN NATURAL LANGUAGE MODE) OR " +
+           "       LOWER(p.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
+           "       LOWER(p.description) LIKE LOWER(CONCAT('%', :searchTerm, '%'))) ";
+    
+    // Facet counts for findWithFilters; each applies every filter but its own
+    @Query("SELECT p.brand, COUNT(p) FROM Product p " +
+           "LEFT JOIN p.inventory inv " +
+           "WHERE " + SEARCH_TERM_MATCHES +
+           "AND (:categoryIds IS NULL OR p.category.id IN :categoryIds) " +
+           "AND (:minPrice IS NULL OR p.price >= :minPrice) " +
+           "AND (:maxPrice IS NULL OR p.price <= :maxPrice) " +
+           "AND (:inStockOnly = false OR (inv.quantityAvailable > 0)) " +
+           "AND p.isActive = true AND p.brand IS NOT NULL " +
+           "GROUP BY p.brand ORDER BY COUNT(p) DESC, p.brand")
+    List<Object[]> countBrandFacets(@Param("searchTerm") String searchTerm,
+                                    @Param("categoryIds") List<Long> categoryIds,
+                                    @Param("minPrice") BigDecimal minPrice,
+                                    @Param("maxPrice") BigDecimal maxPrice,
+                                    @Param("inStockOnly") Boolean inStockOnly,
+                                    Pageable limit);
+    
+    @Query("SELECT c.id, c.name, COUNT(p) FROM Product p " +
+           "JOIN p.category c " +
+           "LEFT JOIN p.inventory inv " +
+           "WHERE " + SEARCH_TERM_MATCHES +
+           "AND (:brands IS NULL OR p.brand IN :brands) " +
+           "AND (:minPrice IS NULL OR p.price >= :minPrice) " +
+           "AND (:maxPrice IS NULL OR p.price <= :maxPrice) " +
+           "AND (:inStockOnly = false OR (inv.quantityAvailable > 0)) " +
+           "AND p.isActive = true " +
+           "GROUP BY c.id, c.name ORDER BY COUNT(p) DESC, c.name")
+    List<Object[]> countCategoryFacets(@Param("searchTerm") String searchTerm,
+                                       @Param("brands") List<String> brands,
+                                       @Param("minPrice") BigDecimal minPrice,
+                                       @Param("maxPrice") BigDecimal maxPrice,
+                                       @Param("inStockOnly") Boolean inStockOnly,
+                                       Pageable limit);
+    
+    @Query("SELECT p.price, COUNT(p) FROM Product p " +
+           "LEFT JOIN p.inventory inv " +
+           "WHERE " + SEARCH_TERM_MATCHES +
+           "AND (:categoryIds IS NULL OR p.category.id IN :categoryIds) " +
+           "AND (:brands IS NULL OR p.brand IN :brands) " +
+           "AND (:inStockOnly = false OR (inv.quantityAvailable > 0)) " +
+           "AND p.isActive = true " +
+           "GROUP BY p.price")
+    List<Object[]> countByPrice(@Param("searchTerm") String searchTerm,
+                                @Param("categoryIds") List<Long> categoryIds,
+                                @Param("brands") List<String> brands,
+                                @Param("inStockOnly") Boolean inStockOnly);
+    
+    @Query("SELECT COUNT(p) FROM Product p " +
+           "JOIN p.inventory inv " +
+           "WHERE " + SEARCH_TERM_MATCHES +
+           "AND (:categoryIds IS NULL OR p.category.id IN :categoryIds) " +
+           "AND (:brands IS NULL OR p.brand IN :brands) " +
+           "AND (:minPrice IS NULL OR p.price >= :minPrice) " +
+           "AND (:maxPrice IS NULL OR p.price <= :maxPrice) " +
+           "AND inv.quantityAvailable > 0 " +
+           "AND p.isActive = true")
+    long countInStockWithFilters(@Param("searchTerm") String searchTerm,
+                                 @Param("categoryIds") List<Long> categoryIds,
+                                 @Param("brands") List<String> brands,
+                                 @Param("minPrice") BigDecimal minPrice,
+                                 @Param("maxPrice") BigDecimal maxPrice);
+    
     // Find products with low stock
     @Query("SELECT p FROM Product p " +
            "JOIN p.inventory inv " +
@@ -188,6 +263,61 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
            "LIMIT 10")
     List<Object[]> findPopularProductNames();
     
+    // Keyset batches with category and inventory fetched, used to build the search index
+    @Query("SELECT p FROM Product p " +
+           "LEFT JOIN FETCH p.category " +
+           "LEFT JOIN FETCH p.inventory " +
+           "WHERE p.id > :afterId " +
+           "ORDER BY p.id")
+    List<Product> findIndexBatch(@Param("afterId") Long afterId, Pageable pageable);
+    
+    // Products by id with category and inventory fetched; images follow in
+    // batches when first touched
+    @Query("SELECT p FROM Product p " +
+           "LEFT JOIN FETCH p.category " +
+           "LEFT JOIN FETCH p.inventory " +
+           "WHERE p.id IN :ids")
+    List<Product> findAllWithDetailsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Keyset catalog pages by price then id, after the given position (or from the
+    // start when it is null); seeks on the (is_active, category_id, price) index
+    @Query("SELECT p FROM Product p WHERE p.isActive = true " +
+           "AND (:categoryId IS NULL OR p.category.id = :categoryId) " +
+           "AND (:afterPrice IS NULL OR p.price > :afterPrice OR (p.price = :afterPrice AND p.id > :afterId)) " +
+           "ORDER BY p.price ASC, p.id ASC")
+    List<Product> findActiveByPriceAscAfter(@Param("categoryId") Long categoryId,
+                                            @Param("afterPrice") BigDecimal afterPrice,
+                                            @Param("afterId") Long afterId,
+                                            Pageable pageable);
+    
+    @Query("SELECT p FROM Product p WHERE p.isActive = true " +
+           "AND (:categoryId IS NULL OR p.category.id = :categoryId) " +
+           "AND (:afterPrice IS NULL OR p.price < :afterPrice OR (p.price = :afterPrice AND p.id < :afterId)) " +
+           "ORDER BY p.price DESC, p.id DESC")
+    List<Product> findActiveByPriceDescAfter(@Param("categoryId") Long categoryId,
+                                             @Param("afterPrice") BigDecimal afterPrice,
+                                             @Param("afterId") Long afterId,
+                                             Pageable pageable);
+    
+    // Export streams: forward-only cursors over read-only entities, with the
+    // category and inventory fetched in the same row. Callers must close the
+    // stream inside a transaction and detach each product once written.
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+                 @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT p FROM Product p JOIN FETCH p.category LEFT JOIN FETCH p.inventory " +
+           "WHERE (:isActive IS NULL OR p.isActive = :isActive) " +
+           "ORDER BY p.id")
+    Stream<Product> streamForExport(@Param("isActive") Boolean isActive);
+    
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+                 @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT p FROM Product p JOIN FETCH p.category c LEFT JOIN FETCH p.inventory " +
+           "WHERE c.id IN :categoryIds " +
+           "AND (:isActive IS NULL OR p.isActive = :isActive) " +
+           "ORDER BY p.id")
+    Stream<Product> streamForExportByCategoryIds(@Param("categoryIds") List<Long> categoryIds,
+                                                 @Param("isActive") Boolean isActive);
+    
     // Analytics methods
     Long countByIsActive(Boolean isActive);
     
@@ -203,4 +333,7 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
            "WHERE p.isActive = true " +
            "GROUP BY c.id, c.name")
     List<Object[]> countProductsByCategory();
+    
+    @Query("SELECT p.id, c.name FROM Product p JOIN p.category c WHERE p.id IN :productIds")
+    List<Object[]> findCategoryNamesByProductIds(@Param("productIds") Collection<Long> productIds);
 }
\ No newline at end of file
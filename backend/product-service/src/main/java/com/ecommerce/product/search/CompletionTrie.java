@@ -0,0 +1,250 @@
+package com.ecommerce.product.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Weighted prefix-completion structure. A radix tree (edges carry whole
+ * substrings, so there are at most two nodes per entry) where every node
+ * caches the best entries of its subtree. A lookup walks the prefix and
+ * returns that cache, so its cost depends on the prefix length only, not on
+ * how many entries share the prefix.
+ *
+ * Weights are reference counts: {@link #add} and {@link #remove} adjust them,
+ * and an entry disappears when its weight reaches zero.
+ */
+final class CompletionTrie {
+    
+    private static final Comparator<Node> BY_WEIGHT = Comparator.<Node>comparingInt(node -> node.weight).reversed()
+            .thenComparing(node -> node.value);
+    
+    private final int maxCompletions;
+    private final Node root = new Node("");
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    CompletionTrie(int maxCompletions) {
+        this.maxCompletions = maxCompletions;
+    }
+    
+    void add(String value) {
+        update(value, 1);
+    }
+    
+    void remove(String value) {
+        update(value, -1);
+    }
+    
+    /**
+     * Highest-weighted entries starting with the given prefix (case-insensitive)
+     */
+    List<String> complete(String prefix, int limit) {
+        String key = normalize(prefix);
+        lock.readLock().lock();
+        try {
+            Node node = find(key);
+            if (node == null) {
+                return List.of();
+            }
+            int size = Math.min(limit, node.topSize);
+            List<String> completions = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                completions.add(node.top[i].value);
+            }
+            return completions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private void update(String value, int delta) {
+        if (value == null || value.isBlank()) {
+            return;
+        }
+        String key = normalize(value);
+        
+        lock.writeLock().lock();
+        try {
+            List<Node> path = new ArrayList<>();
+            Node node = delta > 0 ? insertPath(key, path) : existingPath(key, path);
+            if (node == null) {
+                return;
+            }
+            
+            node.weight = Math.max(0, node.weight + delta);
+            if (node.weight == 0) {
+                node.value = null;
+            } else if (node.value == null) {
+                node.value = value.trim();
+            }
+            
+            // Refresh cached completions bottom-up and drop emptied leaves
+            for (int i = path.size() - 1; i >= 0; i--) {
+                Node current = path.get(i);
+                if (i > 0 && current.weight == 0 && current.children.length == 0) {
+                    path.get(i - 1).removeChild(current);
+                    continue;
+                }
+                current.recomputeTop(maxCompletions);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    private Node insertPath(String key, List<Node> path) {
+        Node node = root;
+        path.add(node);
+        int offset = 0;
+        while (offset < key.length()) {
+            Node child = node.child(key.charAt(offset));
+            if (child == null) {
+                Node leaf = new Node(key.substring(offset));
+                node.addChild(leaf);
+                path.add(leaf);
+                return leaf;
+            }
+            
+            int common = commonPrefixLength(child.label, key, offset);
+            if (common < child.label.length()) {
+                // Split the edge so the new key can branch off (or end) in the middle
+                Node middle = new Node(child.label.substring(0, common));
+                node.replaceChild(middle);
+                child.label = child.label.substring(common);
+                middle.addChild(child);
+                child = middle;
+            }
+            node = child;
+            path.add(node);
+            offset += common;
+        }
+        return node;
+    }
+    
+    private Node existingPath(String key, List<Node> path) {
+        Node node = root;
+        path.add(node);
+        int offset = 0;
+        while (offset < key.length()) {
+            Node child = node.child(key.charAt(offset));
+            if (child == null || !key.startsWith(child.label, offset)) {
+                return null;
+            }
+            node = child;
+            path.add(node);
+            offset += child.label.length();
+        }
+        return node.weight > 0 ? node : null;
+    }
+    
+    private Node find(String prefix) {
+        Node node = root;
+        int offset = 0;
+        while (offset < prefix.length()) {
+            Node child = node.child(prefix.charAt(offset));
+            if (child == null) {
+                return null;
+            }
+            int remaining = prefix.length() - offset;
+            if (remaining <= child.label.length()) {
+                return child.label.startsWith(prefix.substring(offset)) ? child : null;
+            }
+            if (!prefix.startsWith(child.label, offset)) {
+                return null;
+            }
+            node = child;
+            offset += child.label.length();
+        }
+        return node;
+    }
+    
+    private static int commonPrefixLength(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+    
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    private static final class Node {
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final Node[] NO_TOP = new Node[0];
+        
+        private String label;
+        private Node[] children = NO_CHILDREN; // sorted by first label character
+        private String value;                 // display form, null unless an entry ends here
+        private int weight;
+        private Node[] top = NO_TOP;          // best entries in this subtree, by weight
+        private int topSize;
+        
+        private Node(String label) {
+            this.label = label;
+        }
+        
+        private Node child(char first) {
+            int index = indexOf(first);
+            return index >= 0 ? children[index] : null;
+        }
+        
+        private void addChild(Node child) {
+            int index = -(indexOf(child.label.charAt(0)) + 1);
+            Node[] expanded = new Node[children.length + 1];
+            System.arraycopy(children, 0, expanded, 0, index);
+            expanded[index] = child;
+            System.arraycopy(children, index, expanded, index + 1, children.length - index);
+            children = expanded;
+        }
+        
+        private void replaceChild(Node child) {
+            children[indexOf(child.label.charAt(0))] = child;
+        }
+        
+        private void removeChild(Node child) {
+            int index = indexOf(child.label.charAt(0));
+            Node[] shrunk = new Node[children.length - 1];
+            System.arraycopy(children, 0, shrunk, 0, index);
+            System.arraycopy(children, index + 1, shrunk, index, children.length - index - 1);
+            children = shrunk;
+        }
+        
+        private int indexOf(char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char c = children[mid].label.charAt(0);
+                if (c < first) {
+                    low = mid + 1;
+                } else if (c > first) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+        
+        private void recomputeTop(int maxCompletions) {
+            List<Node> candidates = new ArrayList<>();
+            if (weight > 0) {
+                candidates.add(this);
+            }
+            for (Node child : children) {
+                for (int i = 0; i < child.topSize; i++) {
+                    candidates.add(child.top[i]);
+                }
+            }
+            candidates.sort(BY_WEIGHT);
+            
+            topSize = Math.min(maxCompletions, candidates.size());
+            top = topSize == 0 ? NO_TOP : candidates.subList(0, topSize).toArray(new Node[0]);
+        }
+    }
+}
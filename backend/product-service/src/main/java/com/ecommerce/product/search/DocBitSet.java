@@ -0,0 +1,105 @@
+package com.ecommerce.product.search;
+
+import java.util.Arrays;
+
+/**
+ * Growable bitset over document ordinals. Unlike java.util.BitSet it can count
+ * the size of an intersection without allocating, which is what facet
+ * counting does for every facet value.
+ */
+final class DocBitSet {
+    
+    private long[] words;
+    
+    DocBitSet() {
+        this(64);
+    }
+    
+    DocBitSet(int capacity) {
+        words = new long[Math.max(1, (capacity + 63) >>> 6)];
+    }
+    
+    private DocBitSet(long[] words) {
+        this.words = words;
+    }
+    
+    void set(int index) {
+        int word = index >>> 6;
+        if (word >= words.length) {
+            words = Arrays.copyOf(words, Math.max(word + 1, words.length * 2));
+        }
+        words[word] |= 1L << index;
+    }
+    
+    void clear(int index) {
+        int word = index >>> 6;
+        if (word < words.length) {
+            words[word] &= ~(1L << index);
+        }
+    }
+    
+    boolean get(int index) {
+        int word = index >>> 6;
+        return word < words.length && (words[word] & (1L << index)) != 0;
+    }
+    
+    void and(DocBitSet other) {
+        int shared = Math.min(words.length, other.words.length);
+        for (int i = 0; i < shared; i++) {
+            words[i] &= other.words[i];
+        }
+        for (int i = shared; i < words.length; i++) {
+            words[i] = 0;
+        }
+    }
+    
+    void or(DocBitSet other) {
+        if (other.words.length > words.length) {
+            words = Arrays.copyOf(words, other.words.length);
+        }
+        for (int i = 0; i < other.words.length; i++) {
+            words[i] |= other.words[i];
+        }
+    }
+    
+    int cardinality() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+    
+    int intersectionCount(DocBitSet other) {
+        int shared = Math.min(words.length, other.words.length);
+        int count = 0;
+        for (int i = 0; i < shared; i++) {
+            count += Long.bitCount(words[i] & other.words[i]);
+        }
+        return count;
+    }
+    
+    /**
+     * Index of the next set bit at or after {@code from}, or -1 if none
+     */
+    int nextSetBit(int from) {
+        int word = from >>> 6;
+        if (word >= words.length) {
+            return -1;
+        }
+        long bits = words[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word == words.length) {
+                return -1;
+            }
+            bits = words[word];
+        }
+    }
+    
+    DocBitSet copy() {
+        return new DocBitSet(words.clone());
+    }
+}
@@ -0,0 +1,97 @@
+package com.ecommerce.product.search;
+
+import com.ecommerce.product.entity.Product;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Per-document attributes kept in the search index for filtering and sorting
+ */
+final class IndexedProduct {
+    private final Long productId;
+    private final String name;
+    private final String brand;
+    private final Long categoryId;
+    private final String categoryName;
+    private final BigDecimal price;
+    private final LocalDateTime createdAt;
+    private final boolean active;
+    private final int length;
+    private final String[] terms;
+    private boolean inStock;
+    
+    private IndexedProduct(Product product, int length, String[] terms) {
+        this.productId = product.getId();
+        this.name = product.getName();
+        this.brand = product.getBrand();
+        this.categoryId = product.getCategory() != null ? product.getCategory().getId() : null;
+        this.categoryName = product.getCategory() != null ? product.getCategory().getName() : null;
+        this.price = product.getPrice();
+        this.createdAt = product.getCreatedAt();
+        this.active = Boolean.TRUE.equals(product.getIsActive());
+        this.inStock = product.isInStock();
+        this.length = length;
+        this.terms = terms;
+    }
+    
+    static IndexedProduct of(Product product, Map<String, Integer> termFrequencies) {
+        int length = 0;
+        for (Integer frequency : termFrequencies.values()) {
+            length += frequency;
+        }
+        return new IndexedProduct(product, length, termFrequencies.keySet().toArray(new String[0]));
+    }
+    
+    Long getProductId() {
+        return productId;
+    }
+    
+    String getName() {
+        return name;
+    }
+    
+    String getBrand() {
+        return brand;
+    }
+    
+    Long getCategoryId() {
+        return categoryId;
+    }
+    
+    String getCategoryName() {
+        return categoryName;
+    }
+    
+    BigDecimal getPrice() {
+        return price;
+    }
+    
+    LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    boolean isActive() {
+        return active;
+    }
+    
+    int getLength() {
+        return length;
+    }
+    
+    /**
+     * Distinct terms of the document, so its postings can be retired on delete
+     */
+    String[] getTerms() {
+        return terms;
+    }
+    
+    boolean isInStock() {
+        return inStock;
+    }
+    
+    void setInStock(boolean inStock) {
+        this.inStock = inStock;
+    }
+}
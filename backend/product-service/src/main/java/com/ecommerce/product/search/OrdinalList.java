@@ -0,0 +1,40 @@
+package com.ecommerce.product.search;
+
+import java.util.Arrays;
+
+/**
+ * Unordered list of document ordinals, used for the documents sharing one
+ * price in the price index
+ */
+final class OrdinalList {
+    
+    private int[] ordinals = new int[2];
+    private int size;
+    
+    void add(int ordinal) {
+        if (size == ordinals.length) {
+            ordinals = Arrays.copyOf(ordinals, size * 2);
+        }
+        ordinals[size++] = ordinal;
+    }
+    
+    /**
+     * Remove one occurrence of the ordinal; the last entry takes its place
+     */
+    void remove(int ordinal) {
+        for (int i = 0; i < size; i++) {
+            if (ordinals[i] == ordinal) {
+                ordinals[i] = ordinals[--size];
+                return;
+            }
+        }
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    int get(int index) {
+        return ordinals[index];
+    }
+}
@@ -0,0 +1,71 @@
+package com.ecommerce.product.search;
+
+import java.util.Arrays;
+
+/**
+ * Append-only list of (document ordinal, term frequency) pairs for a single term.
+ * Ordinals are always appended in increasing order, so the list stays sorted.
+ * Entries of deleted documents stay until compaction, so the number of live
+ * documents, which BM25 needs as the document frequency, is counted separately.
+ */
+final class PostingList {
+    
+    private int[] docs = new int[4];
+    private int[] freqs = new int[4];
+    private int size;
+    private int live;
+    
+    void add(int doc, int freq) {
+        if (size == docs.length) {
+            docs = Arrays.copyOf(docs, size * 2);
+            freqs = Arrays.copyOf(freqs, size * 2);
+        }
+        docs[size] = doc;
+        freqs[size] = freq;
+        size++;
+        live++;
+    }
+    
+    /**
+     * Note that one of the listed documents was deleted
+     */
+    void retire() {
+        live--;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    /**
+     * Number of live documents containing the term
+     */
+    int documentFrequency() {
+        return live;
+    }
+    
+    int doc(int index) {
+        return docs[index];
+    }
+    
+    int freq(int index) {
+        return freqs[index];
+    }
+    
+    /**
+     * Rewrite ordinals after compaction, dropping entries mapped to -1
+     */
+    void remap(int[] ordinalMap) {
+        int write = 0;
+        for (int read = 0; read < size; read++) {
+            int newDoc = ordinalMap[docs[read]];
+            if (newDoc >= 0) {
+                docs[write] = newDoc;
+                freqs[write] = freqs[read];
+                write++;
+            }
+        }
+        size = write;
+        live = write;
+    }
+}
@@ -0,0 +1,50 @@
+package com.ecommerce.product.search;
+
+import com.ecommerce.product.dto.PriceBucketCount;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bounds of the price facet histogram, shared by the search index and the
+ * database fallback used while the index is being built
+ */
+public final class PriceBuckets {
+    
+    // Lower bounds of the buckets; the last bucket is open-ended
+    private static final BigDecimal[] LOWER_BOUNDS = {
+        BigDecimal.ZERO, new BigDecimal("25"), new BigDecimal("50"), new BigDecimal("100"),
+        new BigDecimal("250"), new BigDecimal("500"), new BigDecimal("1000")
+    };
+    
+    private PriceBuckets() {
+    }
+    
+    public static int count() {
+        return LOWER_BOUNDS.length;
+    }
+    
+    /**
+     * Index of the bucket a price falls into
+     */
+    public static int of(BigDecimal price) {
+        int bucket = 0;
+        while (bucket + 1 < LOWER_BOUNDS.length && price.compareTo(LOWER_BOUNDS[bucket + 1]) >= 0) {
+            bucket++;
+        }
+        return bucket;
+    }
+    
+    /**
+     * Histogram entries for the given per-bucket counts
+     */
+    public static List<PriceBucketCount> histogram(long[] counts) {
+        List<PriceBucketCount> buckets = new ArrayList<>(LOWER_BOUNDS.length);
+        for (int i = 0; i < LOWER_BOUNDS.length; i++) {
+            BigDecimal upper = i + 1 < LOWER_BOUNDS.length ? LOWER_BOUNDS[i + 1] : null;
+            buckets.add(new PriceBucketCount(LOWER_BOUNDS[i], upper, counts[i]));
+        }
+        return buckets;
+    }
+}
@@ -0,0 +1,46 @@
+package com.ecommerce.product.search;
+
+import com.ecommerce.product.entity.Product;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * A product was saved or its stock changed. Published inside the writing
+ * transaction; {@link ProductIndexListener} applies it to the in-memory
+ * indexes once that transaction commits.
+ */
+public class ProductIndexEvent extends ApplicationEvent {
+
+    private final Product product;
+    private final Long productId;
+    private final boolean inStock;
+
+    private ProductIndexEvent(Object source, Product product, Long productId, boolean inStock) {
+        super(source);
+        this.product = product;
+        this.productId = productId;
+        this.inStock = inStock;
+    }
+
+    public static ProductIndexEvent indexed(Object source, Product product) {
+        return new ProductIndexEvent(source, product, product.getId(), product.isInStock());
+    }
+
+    public static ProductIndexEvent stockChanged(Object source, Long productId, boolean inStock) {
+        return new ProductIndexEvent(source, null, productId, inStock);
+    }
+
+    /**
+     * The saved product, or null when only its stock changed
+     */
+    public Product getProduct() {
+        return product;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public boolean isInStock() {
+        return inStock;
+    }
+}
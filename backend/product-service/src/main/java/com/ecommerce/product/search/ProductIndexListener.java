@@ -0,0 +1,31 @@
+package com.ecommerce.product.search;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Applies product changes to the search and suggestion indexes after the
+ * transaction that made them commits, so a rolled-back write never becomes
+ * searchable. Changes made outside a transaction are applied immediately.
+ */
+@Component
+public class ProductIndexListener {
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private ProductSuggestionIndex suggestionIndex;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductIndexEvent(ProductIndexEvent event) {
+        if (event.getProduct() != null) {
+            searchIndex.index(event.getProduct());
+            suggestionIndex.index(event.getProduct());
+        } else {
+            searchIndex.updateStock(event.getProductId(), event.isInStock());
+        }
+    }
+}
@@ -0,0 +1,599 @@
+package com.ecommerce.product.search;
+
+import com.ecommerce.product.dto.FacetCount;
+import com.ecommerce.product.dto.PriceBucketCount;
+import com.ecommerce.product.dto.ProductSearchRequest;
+import com.ecommerce.product.dto.SearchFacets;
+import com.ecommerce.product.entity.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory inverted index over product name, description, brand and category
+ * name, ranked with BM25. Documents are addressed by dense ordinals; updates
+ * append a new ordinal and tombstone the old one, and the postings are
+ * compacted once enough tombstones accumulate.
+ *
+ * A full rebuild fills a fresh instance and swaps its contents in at the end;
+ * writes made to the live index meanwhile are replayed onto the fresh one
+ * before the swap, so the rebuild never loses them.
+ *
+ * Filters and facets use per-value bitsets (active, in stock, each category,
+ * each brand, each price bucket), so filtering is a bitset intersection and a
+ * facet count is the cardinality of one. Price range filters read a sorted
+ * price index, so they cost the number of products in the range.
+ */
+@Component
+public class ProductSearchIndex {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+    
+    // BM25 parameters
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    
+    // Field boosts applied to term frequencies before scoring
+    private static final int NAME_BOOST = 3;
+    private static final int BRAND_BOOST = 2;
+    private static final int CATEGORY_BOOST = 2;
+    private static final int DESCRIPTION_BOOST = 1;
+    
+    // The last query token is also matched as a prefix (search-as-you-type)
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final float PREFIX_MATCH_WEIGHT = 0.5f;
+    
+    private static final int MIN_DOCUMENTS_FOR_COMPACTION = 1024;
+    private static final double COMPACTION_THRESHOLD = 0.25;
+    
+    public static final int MAX_FACET_VALUES = 50;
+    
+    private static final Set<String> SORT_FIELDS = Set.of("relevance", "name", "price", "createdAt", "brand", "id");
+    
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private TreeMap<String, PostingList> postings = new TreeMap<>();
+    private List<IndexedProduct> documents = new ArrayList<>();
+    private Map<Long, Integer> ordinalsByProductId = new HashMap<>();
+    private DocBitSet activeDocs = new DocBitSet();
+    private DocBitSet inStockDocs = new DocBitSet();
+    private Map<Long, DocBitSet> categoryDocs = new HashMap<>();
+    private Map<Long, String> categoryNames = new HashMap<>();
+    private Map<String, DocBitSet> brandDocs = new HashMap<>();
+    private DocBitSet[] priceBucketDocs = new DocBitSet[PriceBuckets.count()];
+    private TreeMap<BigDecimal, OrdinalList> docsByPrice = new TreeMap<>();
+    private long totalLength;
+    private int liveCount;
+    // Writes to replay onto the index being rebuilt; null when no rebuild runs
+    private List<Consumer<ProductSearchIndex>> pendingWrites;
+    private volatile boolean ready;
+    
+    public ProductSearchIndex() {
+        clearFilters();
+    }
+    
+    /**
+     * Add or replace a product in the index
+     */
+    public void index(Product product) {
+        Map<String, Integer> termFrequencies = analyze(product);
+        IndexedProduct document = IndexedProduct.of(product, termFrequencies);
+        write(index -> index.indexInternal(document, termFrequencies));
+    }
+    
+    /**
+     * Remove a product from the index
+     */
+    public void remove(Long productId) {
+        write(index -> index.removeInternal(productId));
+    }
+    
+    /**
+     * Update the in-stock flag without re-analyzing the product text
+     */
+    public void updateStock(Long productId, boolean inStock) {
+        write(index -> index.updateStockInternal(productId, inStock));
+    }
+    
+    /**
+     * Start a full rebuild. The caller fills the returned index and passes it
+     * to {@link #swapIn}; until then, writes to this index are also kept for
+     * replay onto the new one.
+     */
+    public ProductSearchIndex beginRebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingWrites = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return new ProductSearchIndex();
+    }
+    
+    /**
+     * Replay the writes made since {@link #beginRebuild} onto the rebuilt
+     * index, then serve searches from it
+     */
+    public void swapIn(ProductSearchIndex rebuilt) {
+        lock.writeLock().lock();
+        try {
+            if (pendingWrites != null) {
+                // The rebuilt index is confined to the rebuilding thread, which holds our write lock
+                pendingWrites.forEach(write -> write.accept(rebuilt));
+                pendingWrites = null;
+            }
+            postings = rebuilt.postings;
+            documents = rebuilt.documents;
+            ordinalsByProductId = rebuilt.ordinalsByProductId;
+            activeDocs = rebuilt.activeDocs;
+            inStockDocs = rebuilt.inStockDocs;
+            categoryDocs = rebuilt.categoryDocs;
+            categoryNames = rebuilt.categoryNames;
+            brandDocs = rebuilt.brandDocs;
+            priceBucketDocs = rebuilt.priceBucketDocs;
+            docsByPrice = rebuilt.docsByPrice;
+            totalLength = rebuilt.totalLength;
+            liveCount = rebuilt.liveCount;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Give up on a rebuild started with {@link #beginRebuild}
+     */
+    public void abortRebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingWrites = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void markReady() {
+        ready = true;
+    }
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    public boolean supportsSort(String sortBy) {
+        return sortBy != null && SORT_FIELDS.contains(sortBy);
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Run a search over active products and return one page of product IDs,
+     * plus facet counts when the request asks for them
+     */
+    public SearchHits search(ProductSearchRequest request) {
+        lock.readLock().lock();
+        try {
+            int maxOrdinal = documents.size();
+            float[] scores = null;
+            DocBitSet base;
+            
+            if (request.hasSearchTerm()) {
+                scores = new float[maxOrdinal];
+                base = new DocBitSet(maxOrdinal);
+                scoreTerms(SearchTokenizer.tokenize(request.getSearchTerm()), scores, base);
+                base.and(activeDocs);
+            } else {
+                base = activeDocs.copy();
+            }
+            
+            DocBitSet categoryFilter = request.hasCategoryFilter() ? union(categoryDocs, request.getCategoryIds()) : null;
+            DocBitSet brandFilter = request.hasBrandFilter() ? union(brandDocs, request.getBrands()) : null;
+            DocBitSet priceFilter = request.hasPriceFilter() ? priceFilter(request.getMinPrice(), request.getMaxPrice()) : null;
+            DocBitSet stockFilter = Boolean.TRUE.equals(request.getInStockOnly()) ? inStockDocs : null;
+            
+            DocBitSet matches = intersect(base, categoryFilter, brandFilter, priceFilter, stockFilter);
+            
+            // In long, so a deep page cannot overflow; the heap never holds more than the matches
+            int hitCount = matches.cardinality();
+            long offset = (long) request.getPage() * request.getSize();
+            int limit = (int) Math.min(offset + request.getSize(), hitCount);
+            Comparator<Integer> order = ordering(request.getSortBy(), request.getSortDirection(), scores);
+            PriorityQueue<Integer> top = new PriorityQueue<>(Math.max(1, limit), order.reversed());
+            
+            if (offset < hitCount) {
+                for (int ordinal = matches.nextSetBit(0); ordinal >= 0; ordinal = matches.nextSetBit(ordinal + 1)) {
+                    top.offer(ordinal);
+                    if (top.size() > limit) {
+                        top.poll();
+                    }
+                }
+            }
+            
+            List<Integer> ranked = new ArrayList<>(top);
+            ranked.sort(order);
+            int start = (int) Math.min(offset, limit);
+            List<Long> productIds = new ArrayList<>(limit - start);
+            for (int i = start; i < ranked.size(); i++) {
+                productIds.add(documents.get(ranked.get(i)).getProductId());
+            }
+            
+            SearchFacets facets = null;
+            if (Boolean.TRUE.equals(request.getIncludeFacets())) {
+                facets = computeFacets(base, categoryFilter, brandFilter, priceFilter, stockFilter);
+            }
+            
+            return new SearchHits(productIds, hitCount, facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Each facet is counted with every filter applied except its own, so a
+     * selected brand does not hide the counts of the other brands
+     */
+    private SearchFacets computeFacets(DocBitSet base, DocBitSet categoryFilter, DocBitSet brandFilter,
+                                       DocBitSet priceFilter, DocBitSet stockFilter) {
+        DocBitSet brandScope = intersect(base, categoryFilter, priceFilter, stockFilter);
+        List<FacetCount> brands = new ArrayList<>();
+        for (Map.Entry<String, DocBitSet> entry : brandDocs.entrySet()) {
+            int count = brandScope.intersectionCount(entry.getValue());
+            if (count > 0) {
+                brands.add(new FacetCount(entry.getKey(), entry.getKey(), count));
+            }
+        }
+        
+        DocBitSet categoryScope = intersect(base, brandFilter, priceFilter, stockFilter);
+        List<FacetCount> categories = new ArrayList<>();
+        for (Map.Entry<Long, DocBitSet> entry : categoryDocs.entrySet()) {
+            int count = categoryScope.intersectionCount(entry.getValue());
+            if (count > 0) {
+                categories.add(new FacetCount(String.valueOf(entry.getKey()), categoryNames.get(entry.getKey()), count));
+            }
+        }
+        
+        DocBitSet priceScope = intersect(base, categoryFilter, brandFilter, stockFilter);
+        long[] priceCounts = new long[priceBucketDocs.length];
+        for (int i = 0; i < priceBucketDocs.length; i++) {
+            priceCounts[i] = priceScope.intersectionCount(priceBucketDocs[i]);
+        }
+        List<PriceBucketCount> priceBuckets = PriceBuckets.histogram(priceCounts);
+        
+        DocBitSet stockScope = intersect(base, categoryFilter, brandFilter, priceFilter);
+        long inStockCount = stockScope.intersectionCount(inStockDocs);
+        
+        return new SearchFacets(topValues(brands), topValues(categories), priceBuckets, inStockCount);
+    }
+    
+    private static List<FacetCount> topValues(List<FacetCount> counts) {
+        counts.sort(Comparator.comparingLong(FacetCount::getCount).reversed().thenComparing(FacetCount::getLabel,
+                Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)));
+        return counts.size() > MAX_FACET_VALUES ? new ArrayList<>(counts.subList(0, MAX_FACET_VALUES)) : counts;
+    }
+    
+    private static <K> DocBitSet union(Map<K, DocBitSet> postingsByValue, List<K> values) {
+        DocBitSet union = new DocBitSet();
+        for (K value : values) {
+            DocBitSet bits = postingsByValue.get(value);
+            if (bits != null) {
+                union.or(bits);
+            }
+        }
+        return union;
+    }
+    
+    private static DocBitSet intersect(DocBitSet base, DocBitSet... filters) {
+        DocBitSet result = base.copy();
+        for (DocBitSet filter : filters) {
+            if (filter != null) {
+                result.and(filter);
+            }
+        }
+        return result;
+    }
+    
+    private DocBitSet priceFilter(BigDecimal minPrice, BigDecimal maxPrice) {
+        DocBitSet inRange = new DocBitSet(documents.size());
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            return inRange;
+        }
+        
+        NavigableMap<BigDecimal, OrdinalList> range = docsByPrice;
+        if (minPrice != null) {
+            range = range.tailMap(minPrice, true);
+        }
+        if (maxPrice != null) {
+            range = range.headMap(maxPrice, true);
+        }
+        for (OrdinalList ordinals : range.values()) {
+            for (int i = 0; i < ordinals.size(); i++) {
+                inRange.set(ordinals.get(i));
+            }
+        }
+        return inRange;
+    }
+    
+    private void write(Consumer<ProductSearchIndex> write) {
+        lock.writeLock().lock();
+        try {
+            write.accept(this);
+            if (pendingWrites != null) {
+                pendingWrites.add(write);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    private void indexInternal(IndexedProduct document, Map<String, Integer> termFrequencies) {
+        removeInternal(document.getProductId());
+        
+        int ordinal = documents.size();
+        documents.add(document);
+        ordinalsByProductId.put(document.getProductId(), ordinal);
+        for (Map.Entry<String, Integer> entry : termFrequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new PostingList()).add(ordinal, entry.getValue());
+        }
+        addToFilters(ordinal, document);
+        totalLength += document.getLength();
+        liveCount++;
+    }
+    
+    private void updateStockInternal(Long productId, boolean inStock) {
+        Integer ordinal = ordinalsByProductId.get(productId);
+        if (ordinal != null) {
+            documents.get(ordinal).setInStock(inStock);
+            if (inStock) {
+                inStockDocs.set(ordinal);
+            } else {
+                inStockDocs.clear(ordinal);
+            }
+        }
+    }
+    
+    private void scoreTerms(List<String> tokens, float[] scores, DocBitSet candidates) {
+        if (tokens.isEmpty() || liveCount == 0) {
+            return;
+        }
+        
+        float averageLength = (float) totalLength / liveCount;
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            PostingList exact = postings.get(token);
+            if (exact != null) {
+                accumulate(exact, 1.0f, averageLength, scores, candidates);
+            }
+            
+            if (i == tokens.size() - 1) {
+                int expansions = 0;
+                for (PostingList expansion : postings.subMap(token, false, token + Character.MAX_VALUE, false).values()) {
+                    if (expansion.documentFrequency() == 0) {
+                        continue;
+                    }
+                    if (expansions++ >= MAX_PREFIX_EXPANSIONS) {
+                        break;
+                    }
+                    accumulate(expansion, PREFIX_MATCH_WEIGHT, averageLength, scores, candidates);
+                }
+            }
+        }
+    }
+    
+    private void accumulate(PostingList postingList, float weight, float averageLength, float[] scores, DocBitSet candidates) {
+        int documentFrequency = postingList.documentFrequency();
+        if (documentFrequency == 0) {
+            return;
+        }
+        double idf = Math.log(1 + (liveCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+        if (idf <= 0) {
+            return;
+        }
+        
+        for (int i = 0; i < postingList.size(); i++) {
+            int ordinal = postingList.doc(i);
+            IndexedProduct document = documents.get(ordinal);
+            if (document == null) {
+                continue;
+            }
+            int tf = postingList.freq(i);
+            float norm = K1 * (1 - B + B * document.getLength() / averageLength);
+            scores[ordinal] += weight * (float) idf * (tf * (K1 + 1)) / (tf + norm);
+            candidates.set(ordinal);
+        }
+    }
+    
+    private Comparator<Integer> ordering(String sortBy, String sortDirection, float[] scores) {
+        Comparator<Integer> byProductId = Comparator.comparing(ordinal -> documents.get(ordinal).getProductId());
+        
+        if ("relevance".equals(sortBy)) {
+            if (scores == null) {
+                return byProductId;
+            }
+            Comparator<Integer> byScore = (a, b) -> Float.compare(scores[b], scores[a]);
+            return byScore.thenComparing(byProductId);
+        }
+        
+        Comparator<IndexedProduct> field;
+        switch (sortBy) {
+            case "name":
+                field = Comparator.comparing(IndexedProduct::getName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+                break;
+            case "price":
+                field = Comparator.comparing(IndexedProduct::getPrice, Comparator.nullsLast(Comparator.naturalOrder()));
+                break;
+            case "createdAt":
+                field = Comparator.comparing(IndexedProduct::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder()));
+                break;
+            case "brand":
+                field = Comparator.comparing(IndexedProduct::getBrand, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+                break;
+            default:
+                field = Comparator.comparing(IndexedProduct::getProductId);
+        }
+        if ("desc".equalsIgnoreCase(sortDirection)) {
+            field = field.reversed();
+        }
+        
+        Comparator<IndexedProduct> documentOrder = field;
+        Comparator<Integer> byField = (a, b) -> documentOrder.compare(documents.get(a), documents.get(b));
+        return byField.thenComparing(byProductId);
+    }
+    
+    private void removeInternal(Long productId) {
+        Integer ordinal = ordinalsByProductId.remove(productId);
+        if (ordinal == null) {
+            return;
+        }
+        
+        IndexedProduct removed = documents.set(ordinal, null);
+        for (String term : removed.getTerms()) {
+            postings.get(term).retire();
+        }
+        removeFromFilters(ordinal, removed);
+        totalLength -= removed.getLength();
+        liveCount--;
+        
+        int deleted = documents.size() - liveCount;
+        if (documents.size() >= MIN_DOCUMENTS_FOR_COMPACTION && deleted > documents.size() * COMPACTION_THRESHOLD) {
+            compact();
+        }
+    }
+    
+    /**
+     * Renumber live documents densely and drop tombstoned postings
+     */
+    private void compact() {
+        int[] ordinalMap = new int[documents.size()];
+        List<IndexedProduct> live = new ArrayList<>(liveCount);
+        for (int ordinal = 0; ordinal < documents.size(); ordinal++) {
+            IndexedProduct document = documents.get(ordinal);
+            if (document == null) {
+                ordinalMap[ordinal] = -1;
+            } else {
+                ordinalMap[ordinal] = live.size();
+                ordinalsByProductId.put(document.getProductId(), live.size());
+                live.add(document);
+            }
+        }
+        
+        Iterator<PostingList> iterator = postings.values().iterator();
+        while (iterator.hasNext()) {
+            PostingList postingList = iterator.next();
+            postingList.remap(ordinalMap);
+            if (postingList.size() == 0) {
+                iterator.remove();
+            }
+        }
+        
+        int before = documents.size();
+        documents.clear();
+        documents.addAll(live);
+        clearFilters();
+        for (int ordinal = 0; ordinal < documents.size(); ordinal++) {
+            addToFilters(ordinal, documents.get(ordinal));
+        }
+        logger.debug("Compacted search index from {} to {} documents", before, live.size());
+    }
+    
+    private void addToFilters(int ordinal, IndexedProduct document) {
+        if (document.isActive()) {
+            activeDocs.set(ordinal);
+        }
+        if (document.isInStock()) {
+            inStockDocs.set(ordinal);
+        }
+        if (document.getCategoryId() != null) {
+            categoryDocs.computeIfAbsent(document.getCategoryId(), id -> new DocBitSet()).set(ordinal);
+            categoryNames.put(document.getCategoryId(), document.getCategoryName());
+        }
+        if (document.getBrand() != null) {
+            brandDocs.computeIfAbsent(document.getBrand(), brand -> new DocBitSet()).set(ordinal);
+        }
+        if (document.getPrice() != null) {
+            priceBucketDocs[PriceBuckets.of(document.getPrice())].set(ordinal);
+            docsByPrice.computeIfAbsent(document.getPrice(), price -> new OrdinalList()).add(ordinal);
+        }
+    }
+    
+    private void removeFromFilters(int ordinal, IndexedProduct document) {
+        activeDocs.clear(ordinal);
+        inStockDocs.clear(ordinal);
+        if (document.getCategoryId() != null) {
+            DocBitSet bits = categoryDocs.get(document.getCategoryId());
+            if (bits != null) {
+                bits.clear(ordinal);
+                if (bits.cardinality() == 0) {
+                    categoryDocs.remove(document.getCategoryId());
+                    categoryNames.remove(document.getCategoryId());
+                }
+            }
+        }
+        if (document.getBrand() != null) {
+            DocBitSet bits = brandDocs.get(document.getBrand());
+            if (bits != null) {
+                bits.clear(ordinal);
+                if (bits.cardinality() == 0) {
+                    brandDocs.remove(document.getBrand());
+                }
+            }
+        }
+        if (document.getPrice() != null) {
+            priceBucketDocs[PriceBuckets.of(document.getPrice())].clear(ordinal);
+            OrdinalList ordinals = docsByPrice.get(document.getPrice());
+            if (ordinals != null) {
+                ordinals.remove(ordinal);
+                if (ordinals.size() == 0) {
+                    docsByPrice.remove(document.getPrice());
+                }
+            }
+        }
+    }
+    
+    private void clearFilters() {
+        activeDocs = new DocBitSet();
+        inStockDocs = new DocBitSet();
+        categoryDocs.clear();
+        categoryNames.clear();
+        brandDocs.clear();
+        for (int i = 0; i < priceBucketDocs.length; i++) {
+            priceBucketDocs[i] = new DocBitSet();
+        }
+        docsByPrice.clear();
+    }
+    
+    private static Map<String, Integer> analyze(Product product) {
+        Map<String, Integer> termFrequencies = new HashMap<>();
+        addField(termFrequencies, product.getName(), NAME_BOOST);
+        addField(termFrequencies, product.getBrand(), BRAND_BOOST);
+        addField(termFrequencies, product.getCategory() != null ? product.getCategory().getName() : null, CATEGORY_BOOST);
+        addField(termFrequencies, product.getDescription(), DESCRIPTION_BOOST);
+        return termFrequencies;
+    }
+    
+    private static void addField(Map<String, Integer> termFrequencies, String text, int boost) {
+        for (String token : SearchTokenizer.tokenize(text)) {
+            termFrequencies.merge(token, boost, Integer::sum);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.ecommerce.product.search;
+
+import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Builds the product search and suggestion indexes from the database once the
+ * application is up. Until the build completes, searches and suggestions fall
+ * back to the database queries. Product writes committed during the build
+ * are replayed onto the new indexes before they are swapped in.
+ */
+@Component
+public class ProductSearchIndexInitializer {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndexInitializer.class);
+    
+    private static final int BATCH_SIZE = 1000;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private ProductSearchIndex searchIndex;
+    
+    @Autowired
+    private ProductSuggestionIndex suggestionIndex;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Async
+    @Transactional(readOnly = true)
+    public void buildIndex() {
+        long start = System.currentTimeMillis();
+        // Searches keep using the current indexes (or the database) until the new ones are swapped in
+        ProductSearchIndex rebuiltSearch = searchIndex.beginRebuild();
+        ProductSuggestionIndex rebuiltSuggestions = suggestionIndex.beginRebuild();
+        
+        try {
+            long lastId = 0L;
+            List<Product> batch;
+            do {
+                batch = productRepository.findIndexBatch(lastId, PageRequest.of(0, BATCH_SIZE));
+                for (Product product : batch) {
+                    rebuiltSearch.index(product);
+                    rebuiltSuggestions.index(product);
+                    lastId = product.getId();
+                }
+                // Keep the persistence context from growing with the catalog
+                entityManager.clear();
+            } while (batch.size() == BATCH_SIZE);
+        } catch (RuntimeException e) {
+            searchIndex.abortRebuild();
+            suggestionIndex.abortRebuild();
+            throw e;
+        }
+        
+        searchIndex.swapIn(rebuiltSearch);
+        suggestionIndex.swapIn(rebuiltSuggestions);
+        logger.info("Product search index built with {} products in {} ms",
+                searchIndex.size(), System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,145 @@
+package com.ecommerce.product.search;
+
+import com.ecommerce.product.dto.SearchSuggestionResponse;
+import com.ecommerce.product.entity.Product;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * In-memory autocomplete over product names, brands and category names.
+ * Each entry is weighted by the number of active products carrying it, which
+ * also makes the most common product names the "popular searches".
+ * Rebuilds work like those of {@link ProductSearchIndex}: a fresh instance is
+ * filled and swapped in, with writes made meanwhile replayed onto it.
+ */
+@Component
+public class ProductSuggestionIndex {
+    
+    private static final int PRODUCT_SUGGESTIONS = 10;
+    private static final int BRAND_SUGGESTIONS = 5;
+    private static final int CATEGORY_SUGGESTIONS = 5;
+    private static final int POPULAR_SEARCHES = 10;
+    
+    // Read without the monitor; each trie has its own lock
+    private volatile CompletionTrie productNames = new CompletionTrie(Math.max(PRODUCT_SUGGESTIONS, POPULAR_SEARCHES));
+    private volatile CompletionTrie brands = new CompletionTrie(BRAND_SUGGESTIONS);
+    private volatile CompletionTrie categories = new CompletionTrie(CATEGORY_SUGGESTIONS);
+    
+    // What each product currently contributes, so updates can retract the old values
+    private Map<Long, Contribution> contributions = new HashMap<>();
+    // Writes to replay onto the index being rebuilt; null when no rebuild runs
+    private List<Consumer<ProductSuggestionIndex>> pendingWrites;
+    private volatile boolean ready;
+    
+    /**
+     * Add or replace the suggestions contributed by a product
+     */
+    public void index(Product product) {
+        Long productId = product.getId();
+        Contribution contribution = null;
+        if (Boolean.TRUE.equals(product.getIsActive())) {
+            String categoryName = product.getCategory() != null && Boolean.TRUE.equals(product.getCategory().getIsActive())
+                    ? product.getCategory().getName()
+                    : null;
+            contribution = new Contribution(product.getName(), product.getBrand(), categoryName);
+        }
+        Contribution indexed = contribution;
+        write(index -> index.put(productId, indexed));
+    }
+    
+    public void remove(Long productId) {
+        write(index -> index.put(productId, null));
+    }
+    
+    /**
+     * Start a full rebuild; see {@link ProductSearchIndex#beginRebuild}
+     */
+    public synchronized ProductSuggestionIndex beginRebuild() {
+        pendingWrites = new ArrayList<>();
+        return new ProductSuggestionIndex();
+    }
+    
+    /**
+     * Replay the writes made since {@link #beginRebuild} onto the rebuilt
+     * index, then serve suggestions from it
+     */
+    public synchronized void swapIn(ProductSuggestionIndex rebuilt) {
+        if (pendingWrites != null) {
+            pendingWrites.forEach(write -> write.accept(rebuilt));
+            pendingWrites = null;
+        }
+        productNames = rebuilt.productNames;
+        brands = rebuilt.brands;
+        categories = rebuilt.categories;
+        contributions = rebuilt.contributions;
+        ready = true;
+    }
+    
+    public synchronized void abortRebuild() {
+        pendingWrites = null;
+    }
+    
+    public void markReady() {
+        ready = true;
+    }
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    public SearchSuggestionResponse suggest(String term) {
+        return new SearchSuggestionResponse(
+            productNames.complete(term, PRODUCT_SUGGESTIONS),
+            brands.complete(term, BRAND_SUGGESTIONS),
+            categories.complete(term, CATEGORY_SUGGESTIONS),
+            getPopularSearches(5)
+        );
+    }
+    
+    public List<String> getPopularSearches(int limit) {
+        return productNames.complete("", limit);
+    }
+    
+    private synchronized void write(Consumer<ProductSuggestionIndex> write) {
+        write.accept(this);
+        if (pendingWrites != null) {
+            pendingWrites.add(write);
+        }
+    }
+    
+    private void put(Long productId, Contribution contribution) {
+        retract(contributions.remove(productId));
+        if (contribution != null) {
+            productNames.add(contribution.name);
+            brands.add(contribution.brand);
+            categories.add(contribution.categoryName);
+            contributions.put(productId, contribution);
+        }
+    }
+    
+    private void retract(Contribution contribution) {
+        if (contribution == null) {
+            return;
+        }
+        productNames.remove(contribution.name);
+        brands.remove(contribution.brand);
+        categories.remove(contribution.categoryName);
+    }
+    
+    private static final class Contribution {
+        private final String name;
+        private final String brand;
+        private final String categoryName;
+        
+        private Contribution(String name, String brand, String categoryName) {
+            this.name = name;
+            this.brand = brand;
+            this.categoryName = categoryName;
+        }
+    }
+}
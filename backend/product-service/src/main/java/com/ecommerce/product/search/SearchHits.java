@@ -0,0 +1,33 @@
+package com.ecommerce.product.search;
+
+import com.ecommerce.product.dto.SearchFacets;
+
+import java.util.List;
+
+/**
+ * A page of matching product IDs in rank order, the total number of matches,
+ * and facet counts when they were requested
+ */
+public class SearchHits {
+    private final List<Long> productIds;
+    private final long totalHits;
+    private final SearchFacets facets;
+    
+    public SearchHits(List<Long> productIds, long totalHits, SearchFacets facets) {
+        this.productIds = productIds;
+        this.totalHits = totalHits;
+        this.facets = facets;
+    }
+    
+    public List<Long> getProductIds() {
+        return productIds;
+    }
+    
+    public long getTotalHits() {
+        return totalHits;
+    }
+    
+    public SearchFacets getFacets() {
+        return facets;
+    }
+}
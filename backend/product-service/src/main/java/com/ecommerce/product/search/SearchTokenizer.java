@@ -0,0 +1,35 @@
+package com.ecommerce.product.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits free text into lowercase alphanumeric tokens for indexing and querying
+ */
+final class SearchTokenizer {
+    
+    private SearchTokenizer() {}
+    
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                current.append(Character.toLowerCase(c));
+            } else if (current.length() > 0) {
+                tokens.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (current.length() > 0) {
+            tokens.add(current.toString());
+        }
+        
+        return tokens;
+    }
+}
@@ -1,12 +1,16 @@
 package com.ecommerce.product.service;
 
 import com.ecommerce.product.dto.InventoryResponse;
+import com.ecommerce.product.entity.InventoryReservation;
 import com.ecommerce.product.entity.Product;
 import com.ecommerce.product.entity.ProductInventory;
+import com.ecommerce.product.repository.InventoryReservationRepository;
 import com.ecommerce.product.repository.ProductInventoryRepository;
 import com.ecommerce.product.repository.ProductRepository;
+import com.ecommerce.product.search.ProductIndexEvent;
 import com.ecommerce.common.service.CacheInvalidationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -14,7 +18,12 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,6 +39,15 @@ public class InventoryService {
     @Autowired
     private CacheInvalidationService cacheInvalidationService;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private InventoryReservationRepository reservationRepository;
+    
+    @Autowired
+    private ReservationExpiryService reservationExpiryService;
+    
     /**
      * Get inventory information for a specific product
      */
@@ -48,15 +66,15 @@ public class InventoryService {
             throw new IllegalArgumentException("Inventory quantity cannot be negative");
         }
         
-        ProductInventory inventory = inventoryRepository.findByProductId(productId)
-                .orElseThrow(() -> new RuntimeException("Inventory not found for product id: " + productId));
+        if (inventoryRepository.setAvailableQuantity(productId, newQuantity) == 0) {
+            throw new RuntimeException("Inventory not found for product id: " + productId);
+        }
         
-        inventory.setQuantityAvailable(newQuantity);
-        ProductInventory savedInventory = inventoryRepository.save(inventory);
+        ProductInventory savedInventory = reloadInventory(productId);
+        eventPublisher.publishEvent(ProductIndexEvent.stockChanged(this, productId, savedInventory.isInStock()));
         
-        // Invalidate related caches
+        // Invalidate the product and the cached pages and carts that contain it
         cacheInvalidationService.invalidateProductCache(productId);
-        cacheInvalidationService.invalidateAllCartCaches();
         
         return new InventoryResponse(savedInventory);
     }
@@ -69,15 +87,15 @@ public class InventoryService {
             throw new IllegalArgumentException("Quantity to add must be positive");
         }
         
-        ProductInventory inventory = inventoryRepository.findByProductId(productId)
-                .orElseThrow(() -> new RuntimeException("Inventory not found for product id: " + productId));
+        if (inventoryRepository.addStock(productId, quantityToAdd) == 0) {
+            throw new RuntimeException("Inventory not found for product id: " + productId);
+        }
         
-        inventory.addStock(quantityToAdd);
-        ProductInventory savedInventory = inventoryRepository.save(inventory);
+        ProductInventory savedInventory = reloadInventory(productId);
+        eventPublisher.publishEvent(ProductIndexEvent.stockChanged(this, productId, savedInventory.isInStock()));
         
-        // Invalidate related caches
+        // Invalidate the product and the cached pages and carts that contain it
         cacheInvalidationService.invalidateProductCache(productId);
-        cacheInvalidationService.invalidateAllCartCaches();
         
         return new InventoryResponse(savedInventory);
     }
@@ -90,35 +108,95 @@ public class InventoryService {
             throw new IllegalArgumentException("Quantity to remove must be positive");
         }
         
-        ProductInventory inventory = inventoryRepository.findByProductId(productId)
-                .orElseThrow(() -> new RuntimeException("Inventory not found for product id: " + productId));
+        if (inventoryRepository.removeStock(productId, quantityToRemove) == 0) {
+            reloadInventory(productId);
+            throw new IllegalArgumentException("Cannot remove more quantity than available");
+        }
         
-        inventory.removeStock(quantityToRemove);
-        ProductInventory savedInventory = inventoryRepository.save(inventory);
+        ProductInventory savedInventory = reloadInventory(productId);
+        eventPublisher.publishEvent(ProductIndexEvent.stockChanged(this, productId, savedInventory.isInStock()));
         
         return new InventoryResponse(savedInventory);
     }
     
     /**
-     * Reserve quantity for order processing
+     * Reserve quantity for order processing. The availability check and the
+     * move to reserved are a single conditional UPDATE, so concurrent
+     * checkouts can never oversell and the row lock is held only for that
+     * statement's transaction. The hold expires after the reservation TTL
+     * unless it is released or confirmed first.
      */
     public InventoryResponse reserveQuantity(Long productId, Integer quantityToReserve) {
         if (quantityToReserve <= 0) {
             throw new IllegalArgumentException("Quantity to reserve must be positive");
         }
         
-        ProductInventory inventory = inventoryRepository.findByProductId(productId)
-                .orElseThrow(() -> new RuntimeException("Inventory not found for product id: " + productId));
-        
-        if (!inventory.canReserve(quantityToReserve)) {
+        if (inventoryRepository.reserveQuantity(productId, quantityToReserve) == 0) {
+            ProductInventory inventory = reloadInventory(productId);
             throw new RuntimeException("Insufficient quantity available for reservation. Available: " + 
                     inventory.getQuantityAvailable() + ", Requested: " + quantityToReserve);
         }
         
-        inventory.reserveQuantity(quantityToReserve);
-        ProductInventory savedInventory = inventoryRepository.save(inventory);
+        InventoryReservation reservation = reservationRepository.save(
+                new InventoryReservation(productId, quantityToReserve, reservationExpiryService.nextExpiry()));
+        reservationExpiryService.track(List.of(reservation));
         
-        return new InventoryResponse(savedInventory);
+        ProductInventory savedInventory = reloadInventory(productId);
+        eventPublisher.publishEvent(ProductIndexEvent.stockChanged(this, productId, savedInventory.isInStock()));
+        
+        return withReservation(new InventoryResponse(savedInventory), reservation);
+    }
+    
+    /**
+     * Reserve several products in one transaction. All rows are locked with
+     * a single ordered query, checked, and updated in one batched flush, so
+     * the cost stays roughly flat as the cart grows. If any line cannot be
+     * reserved nothing is.
+     */
+    public List<InventoryResponse> reserveBatch(Map<Long, Integer> quantities) {
+        if (quantities == null || quantities.isEmpty()) {
+            throw new IllegalArgumentException("At least one product is required for reservation");
+        }
+        quantities.forEach((productId, quantity) -> {
+            if (productId == null || quantity == null || quantity <= 0) {
+                throw new IllegalArgumentException("Quantity to reserve must be positive");
+            }
+        });
+        
+        Map<Long, Integer> lines = new TreeMap<>(quantities);
+        List<ProductInventory> inventories = inventoryRepository.lockByProductIdsInOrder(lines.keySet());
+        
+        Map<Long, ProductInventory> inventoriesById = inventories.stream()
+                .collect(Collectors.toMap(ProductInventory::getProductId, inventory -> inventory));
+        for (Map.Entry<Long, Integer> line : lines.entrySet()) {
+            ProductInventory inventory = inventoriesById.get(line.getKey());
+            if (inventory == null) {
+                throw new RuntimeException("Inventory not found for product id: " + line.getKey());
+            }
+            if (!inventory.canReserve(line.getValue())) {
+                throw new RuntimeException("Insufficient quantity available for reservation of product id " +
+                        line.getKey() + ". Available: " + inventory.getQuantityAvailable() +
+                        ", Requested: " + line.getValue());
+            }
+        }
+        
+        for (ProductInventory inventory : inventories) {
+            inventory.reserveQuantity(lines.get(inventory.getProductId()));
+        }
+        inventoryRepository.flush();
+        
+        LocalDateTime expiresAt = reservationExpiryService.nextExpiry();
+        List<InventoryResponse> responses = new ArrayList<>(inventories.size());
+        List<InventoryReservation> reservations = new ArrayList<>(inventories.size());
+        for (ProductInventory inventory : inventories) {
+            InventoryReservation reservation = reservationRepository.save(
+                    new InventoryReservation(inventory.getProductId(), lines.get(inventory.getProductId()), expiresAt));
+            reservations.add(reservation);
+            responses.add(withReservation(new InventoryResponse(inventory), reservation));
+            eventPublisher.publishEvent(ProductIndexEvent.stockChanged(this, inventory.getProductId(), inventory.isInStock()));
+        }
+        reservationExpiryService.track(reservations);
+        return responses;
     }
     
     /**
@@ -129,13 +207,10 @@ public class InventoryService {
             throw new IllegalArgumentException("Quantity to release must be positive");
         }
         
-        ProductInventory inventory = inventoryRepository.findByProductId(productId)
-                .orElseThrow(() -> new RuntimeException("Inventory not found for product id: " + productId));
-        
-        inventory.releaseReservedQuantity(quantityToRelease);
-        ProductInventory savedInventory = inventoryRepository.save(inventory);
-        
-        return new InventoryResponse(savedInventory);
+        // The inventory update locks the row before any hold is locked, the same order as reserveQuantity
+        InventoryResponse response = releaseReserved(productId, quantityToRelease);
+        consumeReservations(productId, quantityToRelease);
+        return response;
     }
     
     /**
@@ -146,13 +221,25 @@ public class InventoryService {
             throw new IllegalArgumentException("Quantity to confirm must be positive");
         }
         
-        ProductInventory inventory = inventoryRepository.findByProductId(productId)
-                .orElseThrow(() -> new RuntimeException("Inventory not found for product id: " + productId));
-        
-        inventory.confirmReservedQuantity(quantityToConfirm);
-        ProductInventory savedInventory = inventoryRepository.save(inventory);
-        
-        return new InventoryResponse(savedInventory);
+        InventoryResponse response = confirmReserved(productId, quantityToConfirm);
+        consumeReservations(productId, quantityToConfirm);
+        return response;
+    }
+    
+    /**
+     * Release a reservation returned by a reserve call before it expires
+     */
+    public InventoryResponse releaseReservation(Long reservationId) {
+        InventoryReservation reservation = takeReservation(reservationId);
+        return releaseReserved(reservation.getProductId(), reservation.getQuantity());
+    }
+    
+    /**
+     * Confirm a reservation returned by a reserve call before it expires
+     */
+    public InventoryResponse confirmReservation(Long reservationId) {
+        InventoryReservation reservation = takeReservation(reservationId);
+        return confirmReserved(reservation.getProductId(), reservation.getQuantity());
     }
     
     /**
@@ -181,6 +268,19 @@ public class InventoryService {
         return hasQuantity != null && hasQuantity;
     }
     
+    /**
+     * Available quantity of each of the given products, in one query;
+     * products without inventory are left out
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Integer> getAvailableQuantities(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+        return inventoryRepository.findAvailableQuantities(productIds).stream()
+                .collect(Collectors.toMap(row -> (Long) row[0], row -> (Integer) row[1]));
+    }
+    
     /**
      * Validate product availability for purchase
      */
@@ -304,6 +404,88 @@ public class InventoryService {
         return new InventoryResponse(savedInventory);
     }
     
+    /**
+     * Read the current row after an atomic update; also distinguishes a
+     * missing inventory from a failed condition
+     */
+    private ProductInventory reloadInventory(Long productId) {
+        return inventoryRepository.findByProductId(productId)
+                .orElseThrow(() -> new RuntimeException("Inventory not found for product id: " + productId));
+    }
+    
+    /**
+     * Remove an outstanding reservation under lock, so the expiry job cannot
+     * return the same quantity. Every path locks the product's inventory row
+     * before its reservations; reserving takes the row first and then inserts
+     * a hold, so locking a hold first could deadlock with it.
+     */
+    private InventoryReservation takeReservation(Long reservationId) {
+        Long productId = reservationRepository.findProductIdById(reservationId)
+                .orElseThrow(() -> new RuntimeException("Reservation not found or already expired: " + reservationId));
+        inventoryRepository.lockByProductIdsInOrder(List.of(productId));
+        InventoryReservation reservation = reservationRepository.lockById(reservationId)
+                .orElseThrow(() -> new RuntimeException("Reservation not found or already expired: " + reservationId));
+        reservationRepository.delete(reservation);
+        reservationExpiryService.untrack(1);
+        return reservation;
+    }
+    
+    private InventoryResponse releaseReserved(Long productId, int quantity) {
+        if (inventoryRepository.releaseReservedQuantity(productId, quantity) == 0) {
+            reloadInventory(productId);
+            throw new IllegalArgumentException("Cannot release more quantity than reserved");
+        }
+        
+        ProductInventory savedInventory = reloadInventory(productId);
+        eventPublisher.publishEvent(ProductIndexEvent.stockChanged(this, productId, savedInventory.isInStock()));
+        
+        return new InventoryResponse(savedInventory);
+    }
+    
+    private InventoryResponse confirmReserved(Long productId, int quantity) {
+        if (inventoryRepository.confirmReservedQuantity(productId, quantity) == 0) {
+            reloadInventory(productId);
+            throw new IllegalArgumentException("Cannot confirm more quantity than reserved");
+        }
+        
+        return new InventoryResponse(reloadInventory(productId));
+    }
+    
+    /**
+     * Take a quantity released or confirmed by product off that product's
+     * holds, soonest-expiring first, so the expiry job does not return it
+     * again. Quantity reserved before holds were tracked has no hold. Called
+     * after the inventory update, which already holds the row lock.
+     */
+    private void consumeReservations(Long productId, int quantity) {
+        if (quantity <= 0) {
+            return;
+        }
+        int remaining = quantity;
+        int removed = 0;
+        // Every hold is at least one unit, so no more than quantity holds are needed
+        for (InventoryReservation reservation : reservationRepository.lockOldestByProductId(productId, PageRequest.of(0, quantity))) {
+            if (reservation.getQuantity() <= remaining) {
+                remaining -= reservation.getQuantity();
+                reservationRepository.delete(reservation);
+                removed++;
+            } else {
+                reservation.setQuantity(reservation.getQuantity() - remaining);
+                remaining = 0;
+            }
+            if (remaining == 0) {
+                break;
+            }
+        }
+        reservationExpiryService.untrack(removed);
+    }
+    
+    private InventoryResponse withReservation(InventoryResponse response, InventoryReservation reservation) {
+        response.setReservationId(reservation.getId());
+        response.setReservationExpiresAt(reservation.getExpiresAt());
+        return response;
+    }
+    
     /**
      * Inner class for inventory statistics
      */
@@ -1,18 +1,36 @@
 package com.ecommerce.product.service;
 
+import com.ecommerce.common.cache.CacheTags;
+import com.ecommerce.common.cache.TwoLevelCache;
+import com.ecommerce.common.pagination.CursorPage;
+import com.ecommerce.common.pagination.SeekCursor;
+import com.ecommerce.common.service.CacheInvalidationService;
+import com.ecommerce.product.dto.FacetCount;
 import com.ecommerce.product.dto.ProductRequest;
 import com.ecommerce.product.dto.ProductResponse;
+import com.ecommerce.product.dto.ProductSearchPage;
 import com.ecommerce.product.dto.ProductSearchRequest;
+import com.ecommerce.product.dto.SearchFacets;
 import com.ecommerce.product.entity.Category;
 import com.ecommerce.product.entity.Product;
 import com.ecommerce.product.entity.ProductInventory;
 import com.ecommerce.product.repository.CategoryRepository;
 import com.ecommerce.product.repository.ProductRepository;
+import com.ecommerce.product.search.ProductIndexEvent;
+import com.ecommerce.product.search.ProductSearchIndex;
+import com.ecommerce.product.search.PriceBuckets;
+import com.ecommerce.product.search.ProductSuggestionIndex;
+import com.ecommerce.product.search.SearchHits;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -21,8 +39,25 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -37,6 +72,24 @@ public class ProductService {
     @Autowired
     private InventoryService inventoryService;
     
+    @Autowired
+    private ProductSearchIndex searchIndex;
+    
+    @Autowired
+    private ProductSuggestionIndex suggestionIndex;
+    
+    @Autowired
+    private CacheInvalidationService cacheInvalidationService;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
     public ProductResponse createProduct(ProductRequest request) {
         Category category = categoryRepository.findById(request.getCategoryId())
                 .orElseThrow(() -> new RuntimeException("Category not found with id: " + request.getCategoryId()));
@@ -62,6 +115,8 @@ public class ProductService {
         product.setInventory(inventory);
         
         Product savedProduct = productRepository.save(product);
+        indexProduct(savedProduct);
+        invalidateProducts(List.of(savedProduct), Map.of());
         return new ProductResponse(savedProduct);
     }
     
@@ -73,6 +128,48 @@ public class ProductService {
         return new ProductResponse(product);
     }
     
+    /**
+     * Products by id, the same values getProductById returns, with one
+     * cache read for all of them and one query for those not cached.
+     * Unknown ids are left out.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, ProductResponse> getProductsByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        
+        Map<Long, ProductResponse> products = new HashMap<>();
+        Cache cache = cacheManager.getCache("products");
+        if (cache instanceof TwoLevelCache twoLevelCache) {
+            twoLevelCache.getAll(ids).forEach((id, product) -> products.put((Long) id, (ProductResponse) product));
+        } else if (cache != null) {
+            for (Long id : ids) {
+                ProductResponse product = cache.get(id, ProductResponse.class);
+                if (product != null) {
+                    products.put(id, product);
+                }
+            }
+        }
+        
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            if (!products.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (Product product : productRepository.findAllWithDetailsByIdIn(missing)) {
+                ProductResponse response = new ProductResponse(product);
+                products.put(product.getId(), response);
+                if (cache != null) {
+                    cache.put(product.getId(), response);
+                }
+            }
+        }
+        return products;
+    }
+    
     @Transactional(readOnly = true)
     @Cacheable(value = "products-by-sku", key = "#sku")
     public ProductResponse getProductBySku(String sku) {
@@ -83,9 +180,7 @@ public class ProductService {
     
     @Caching(evict = {
         @CacheEvict(value = "products", key = "#id"),
-        @CacheEvict(value = "products-by-sku", key = "#result.sku"),
-        @CacheEvict(value = "product-catalog", allEntries = true),
-        @CacheEvict(value = "product-search", allEntries = true)
+        @CacheEvict(value = "products-by-sku", key = "#result.sku")
     })
     public ProductResponse updateProduct(Long id, ProductRequest request) {
         Product product = productRepository.findById(id)
@@ -101,6 +196,7 @@ public class ProductService {
         Category category = categoryRepository.findById(request.getCategoryId())
                 .orElseThrow(() -> new RuntimeException("Category not found with id: " + request.getCategoryId()));
         
+        ListingState before = ListingState.of(product);
         product.setSku(request.getSku());
         product.setName(request.getName());
         product.setDescription(request.getDescription());
@@ -112,6 +208,13 @@ public class ProductService {
         product.setIsActive(request.getIsActive());
         
         Product updatedProduct = productRepository.save(product);
+        indexProduct(updatedProduct);
+        
+        // Evict the cached pages, search results and carts listing this product,
+        // and the listings it moved out of or into
+        ListingState after = ListingState.of(updatedProduct);
+        cacheInvalidationService.invalidateProductListings(List.of(id),
+                changedListings(before, after), summariesChanged(before, after));
         return new ProductResponse(updatedProduct);
     }
     
@@ -120,8 +223,12 @@ public class ProductService {
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
         
         // Soft delete by setting isActive to false
+        Map<Long, ListingState> before = Map.of(id, ListingState.of(product));
         product.setIsActive(false);
         productRepository.save(product);
+        indexProduct(product);
+        
+        invalidateProducts(List.of(product), before);
     }
     
     @Transactional(readOnly = true)
@@ -134,8 +241,103 @@ public class ProductService {
         return products.map(ProductResponse::new);
     }
     
+    /**
+     * Active products by price (then id), optionally in one category, by
+     * cursor instead of page number. Each page seeks past the last product of
+     * the previous one, so there is no OFFSET scan and no count query.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ProductResponse> getAllProductsByCursor(String cursor, int size, Long categoryId, String sortDirection) {
+        size = CursorPage.limitSize(size);
+        
+        BigDecimal afterPrice = null;
+        Long afterId = null;
+        String[] keys = SeekCursor.decode(cursor, 2);
+        if (keys != null) {
+            try {
+                afterPrice = new BigDecimal(keys[0]);
+                afterId = Long.valueOf(keys[1]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor", e);
+            }
+        }
+        
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Product> products = Sort.Direction.fromString(sortDirection).isDescending()
+                ? productRepository.findActiveByPriceDescAfter(categoryId, afterPrice, afterId, limit)
+                : productRepository.findActiveByPriceAscAfter(categoryId, afterPrice, afterId, limit);
+        return CursorPage.of(products, size, ProductResponse::new,
+                product -> SeekCursor.encode(product.getPrice().toPlainString(), product.getId()));
+    }
+    
+    /**
+     * Search active products using the in-memory index, hydrating only the
+     * returned page from the database. Facet counts are attached when the
+     * request sets includeFacets.
+     */
     @Transactional(readOnly = true)
     public Page<ProductResponse> searchProducts(ProductSearchRequest searchRequest) {
+        limitPaging(searchRequest);
+        if (!searchIndex.isReady() || !searchIndex.supportsSort(searchRequest.getSortBy())) {
+            return searchProductsInDatabase(searchRequest);
+        }
+        
+        Pageable pageable = "relevance".equals(searchRequest.getSortBy())
+                ? PageRequest.of(searchRequest.getPage(), searchRequest.getSize())
+                : PageRequest.of(searchRequest.getPage(), searchRequest.getSize(),
+                        Sort.by(Sort.Direction.fromString(searchRequest.getSortDirection()), searchRequest.getSortBy()));
+        
+        SearchHits hits = searchIndex.search(searchRequest);
+        return new ProductSearchPage(hydrateInOrder(hits.getProductIds()), pageable, hits.getTotalHits(), hits.getFacets());
+    }
+    
+    /**
+     * Database search, used while the search index is still being built
+     */
+    private Page<ProductResponse> searchProductsInDatabase(ProductSearchRequest searchRequest) {
+        Page<ProductResponse> results = findProductsInDatabase(searchRequest);
+        if (!Boolean.TRUE.equals(searchRequest.getIncludeFacets())) {
+            return results;
+        }
+        return new ProductSearchPage(results.getContent(), results.getPageable(), results.getTotalElements(),
+                countFacetsInDatabase(searchRequest));
+    }
+    
+    /**
+     * The index's facet counts computed with GROUP BY queries, each applying
+     * every filter but its own
+     */
+    private SearchFacets countFacetsInDatabase(ProductSearchRequest searchRequest) {
+        String searchTerm = searchRequest.hasSearchTerm() ? searchRequest.getSearchTerm() : null;
+        List<Long> categoryIds = searchRequest.hasCategoryFilter() ? searchRequest.getCategoryIds() : null;
+        List<String> brands = searchRequest.hasBrandFilter() ? searchRequest.getBrands() : null;
+        BigDecimal minPrice = searchRequest.getMinPrice();
+        BigDecimal maxPrice = searchRequest.getMaxPrice();
+        boolean inStockOnly = Boolean.TRUE.equals(searchRequest.getInStockOnly());
+        Pageable facetLimit = PageRequest.of(0, ProductSearchIndex.MAX_FACET_VALUES);
+        
+        List<FacetCount> brandCounts = productRepository.countBrandFacets(
+                searchTerm, categoryIds, minPrice, maxPrice, inStockOnly, facetLimit).stream()
+                .map(row -> new FacetCount((String) row[0], (String) row[0], (Long) row[1]))
+                .collect(Collectors.toList());
+        
+        List<FacetCount> categoryCounts = productRepository.countCategoryFacets(
+                searchTerm, brands, minPrice, maxPrice, inStockOnly, facetLimit).stream()
+                .map(row -> new FacetCount(String.valueOf(row[0]), (String) row[1], (Long) row[2]))
+                .collect(Collectors.toList());
+        
+        long[] priceCounts = new long[PriceBuckets.count()];
+        for (Object[] row : productRepository.countByPrice(searchTerm, categoryIds, brands, inStockOnly)) {
+            if (row[0] != null) {
+                priceCounts[PriceBuckets.of((BigDecimal) row[0])] += (Long) row[1];
+            }
+        }
+        
+        long inStockCount = productRepository.countInStockWithFilters(searchTerm, categoryIds, brands, minPrice, maxPrice);
+        return new SearchFacets(brandCounts, categoryCounts, PriceBuckets.histogram(priceCounts), inStockCount);
+    }
+    
+    private Page<ProductResponse> findProductsInDatabase(ProductSearchRequest searchRequest) {
         Sort sort = Sort.by(Sort.Direction.fromString(searchRequest.getSortDirection()), searchRequest.getSortBy());
         Pageable pageable = PageRequest.of(searchRequest.getPage(), searchRequest.getSize(), sort);
         
@@ -185,6 +387,7 @@ public class ProductService {
      */
     @Transactional(readOnly = true)
     public Page<ProductResponse> adminSearchProducts(ProductSearchRequest searchRequest) {
+        limitPaging(searchRequest);
         Sort sort = Sort.by(Sort.Direction.fromString(searchRequest.getSortDirection()), searchRequest.getSortBy());
         Pageable pageable = PageRequest.of(searchRequest.getPage(), searchRequest.getSize(), sort);
         
@@ -257,6 +460,18 @@ public class ProductService {
         return productRepository.countByCategoryId(categoryId);
     }
     
+    /**
+     * Category name of each of the given products; unknown ids are left out
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, String> getCategoryNames(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+        return productRepository.findCategoryNamesByProductIds(productIds).stream()
+                .collect(Collectors.toMap(row -> (Long) row[0], row -> (String) row[1]));
+    }
+    
     /**
      * Validate product availability for purchase
      */
@@ -273,6 +488,14 @@ public class ProductService {
         return inventoryService.isQuantityAvailable(productId, requestedQuantity);
     }
     
+    /**
+     * Available quantity of each of the given products, read in one query
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Integer> getAvailableQuantities(Collection<Long> productIds) {
+        return inventoryService.getAvailableQuantities(productIds);
+    }
+    
     /**
      * Bulk delete products (soft delete by setting isActive to false)
      */
@@ -286,9 +509,12 @@ public class ProductService {
             throw new RuntimeException("Some products not found");
         }
         
+        Map<Long, ListingState> before = listingStates(products);
         products.forEach(product -> product.setIsActive(false));
         productRepository.saveAll(products);
+        products.forEach(this::indexProduct);
         
+        invalidateProducts(products, before);
         return products.size();
     }
     
@@ -309,56 +535,60 @@ public class ProductService {
             throw new RuntimeException("Some products not found");
         }
         
+        Map<Long, ListingState> before = listingStates(products);
         products.forEach(product -> product.setIsActive(isActive));
         productRepository.saveAll(products);
+        products.forEach(this::indexProduct);
         
+        invalidateProducts(products, before);
         return products.size();
     }
     
     /**
-     * Export products to CSV format
+     * Stream products to the output as CSV, reading them through a
+     * forward-only cursor with category and inventory fetched alongside.
+     * Each product is detached once written, so memory use stays flat
+     * however large the catalog is.
      */
     @Transactional(readOnly = true)
-    public String exportProductsToCSV(List<Long> categoryIds, Boolean isActive) {
-        List<Product> products;
-        
-        if (categoryIds != null && !categoryIds.isEmpty()) {
-            if (isActive != null) {
-                products = productRepository.findByCategoryIdInAndIsActive(categoryIds, isActive);
-            } else {
-                products = productRepository.findByCategoryIdIn(categoryIds);
-            }
-        } else {
-            if (isActive != null) {
-                products = productRepository.findByIsActive(isActive);
-            } else {
-                products = productRepository.findAll();
-            }
-        }
-        
-        StringBuilder csv = new StringBuilder();
+    public void exportProductsToCSV(List<Long> categoryIds, Boolean isActive,
+                                    OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
         // CSV Header
-        csv.append("ID,SKU,Name,Description,Price,Category,Brand,Weight,Dimensions,Active,Created At,Updated At,Available Quantity\n");
+        writer.write("ID,SKU,Name,Description,Price,Category,Brand,Weight,Dimensions,Active,Created At,Updated At,Available Quantity\n");
+        
+        Stream<Product> products = categoryIds != null && !categoryIds.isEmpty()
+                ? productRepository.streamForExportByCategoryIds(categoryIds, isActive)
+                : productRepository.streamForExport(isActive);
         
         // CSV Data
-        for (Product product : products) {
-            csv.append(product.getId()).append(",")
-               .append(escapeCSV(product.getSku())).append(",")
-               .append(escapeCSV(product.getName())).append(",")
-               .append(escapeCSV(product.getDescription())).append(",")
-               .append(product.getPrice()).append(",")
-               .append(escapeCSV(product.getCategory().getName())).append(",")
-               .append(escapeCSV(product.getBrand())).append(",")
-               .append(product.getWeight() != null ? product.getWeight() : "").append(",")
-               .append(escapeCSV(product.getDimensions())).append(",")
-               .append(product.getIsActive()).append(",")
-               .append(product.getCreatedAt()).append(",")
-               .append(product.getUpdatedAt()).append(",")
-               .append(product.getInventory() != null ? product.getInventory().getQuantityAvailable() : 0)
-               .append("\n");
+        StringBuilder row = new StringBuilder();
+        try (products) {
+            Iterator<Product> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                Product product = iterator.next();
+                row.setLength(0);
+                row.append(product.getId()).append(",")
+                   .append(escapeCSV(product.getSku())).append(",")
+                   .append(escapeCSV(product.getName())).append(",")
+                   .append(escapeCSV(product.getDescription())).append(",")
+                   .append(product.getPrice()).append(",")
+                   .append(escapeCSV(product.getCategory().getName())).append(",")
+                   .append(escapeCSV(product.getBrand())).append(",")
+                   .append(product.getWeight() != null ? product.getWeight() : "").append(",")
+                   .append(escapeCSV(product.getDimensions())).append(",")
+                   .append(product.getIsActive()).append(",")
+                   .append(product.getCreatedAt()).append(",")
+                   .append(product.getUpdatedAt()).append(",")
+                   .append(product.getInventory() != null ? product.getInventory().getQuantityAvailable() : 0)
+                   .append("\n");
+                writer.append(row);
+                // Cascades to the inventory; categories are few and stay managed
+                entityManager.detach(product);
+            }
         }
         
-        return csv.toString();
+        writer.flush();
     }
     
     private String escapeCSV(String value) {
@@ -375,10 +605,21 @@ public class ProductService {
     }
     
     /**
-     * Get search suggestions based on partial search term
+     * Get search suggestions based on partial search term. Served from the
+     * in-memory completion index; the database queries are only used while
+     * that index is still being built.
      */
     @Transactional(readOnly = true)
     public com.ecommerce.product.dto.SearchSuggestionResponse getSearchSuggestions(String searchTerm) {
+        if (suggestionIndex.isReady()) {
+            if (searchTerm == null || searchTerm.trim().length() < 2) {
+                return new com.ecommerce.product.dto.SearchSuggestionResponse(
+                    List.of(), List.of(), List.of(), suggestionIndex.getPopularSearches(10)
+                );
+            }
+            return suggestionIndex.suggest(searchTerm.trim());
+        }
+        
         if (searchTerm == null || searchTerm.trim().length() < 2) {
             // Return popular searches if search term is too short
             List<Object[]> popularResults = productRepository.findPopularProductNames();
@@ -419,12 +660,132 @@ public class ProductService {
      */
     @Transactional(readOnly = true)
     public List<String> getPopularSearchTerms() {
+        if (suggestionIndex.isReady()) {
+            return suggestionIndex.getPopularSearches(10);
+        }
+        
         List<Object[]> popularResults = productRepository.findPopularProductNames();
         return popularResults.stream()
             .map(result -> (String) result[0])
             .collect(Collectors.toList());
     }
-
+    
+    /**
+     * Reject a negative page and clamp the page size as the cursor listings
+     * do, since both come straight from the request body
+     */
+    private static void limitPaging(ProductSearchRequest searchRequest) {
+        if (searchRequest.getPage() == null || searchRequest.getPage() < 0) {
+            throw new IllegalArgumentException("Page must not be negative");
+        }
+        if (searchRequest.getSize() == null) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        searchRequest.setSize(CursorPage.limitSize(searchRequest.getSize()));
+    }
+    
+    /**
+     * Keep the in-memory search and suggestion indexes in step with a saved
+     * product; they are updated once the transaction commits
+     */
+    private void indexProduct(Product product) {
+        eventPublisher.publishEvent(ProductIndexEvent.indexed(this, product));
+    }
+    
+    /**
+     * The fields of a product that decide which cached listings it shows up
+     * in, and what the brand and price range summaries are made of
+     */
+    private record ListingState(boolean active, Long categoryId, String brand, BigDecimal price) {
+        
+        static ListingState of(Product product) {
+            return new ListingState(Boolean.TRUE.equals(product.getIsActive()),
+                    product.getCategory() != null ? product.getCategory().getId() : null,
+                    product.getBrand(), product.getPrice());
+        }
+        
+        Set<String> listingTags() {
+            Set<String> tags = new HashSet<>();
+            tags.add(CacheTags.status(active));
+            if (categoryId != null) {
+                tags.add(CacheTags.category(categoryId));
+            }
+            return tags;
+        }
+    }
+    
+    private static Map<Long, ListingState> listingStates(Collection<Product> products) {
+        return products.stream().collect(Collectors.toMap(Product::getId, ListingState::of));
+    }
+    
+    /**
+     * Tags of the listings a product joined or left, none when it stays in
+     * the same ones: pages showing an edited product are caught by its
+     * product tag, and the other pages are unaffected. A null before is a
+     * new product.
+     */
+    private static Set<String> changedListings(ListingState before, ListingState after) {
+        if (before == null) {
+            return after.listingTags();
+        }
+        if (before.active() == after.active() && Objects.equals(before.categoryId(), after.categoryId())) {
+            return new HashSet<>();
+        }
+        Set<String> tags = before.listingTags();
+        tags.addAll(after.listingTags());
+        return tags;
+    }
+    
+    /**
+     * Whether the brands and price range of the active products may have changed
+     */
+    private static boolean summariesChanged(ListingState before, ListingState after) {
+        if (before == null) {
+            return after.active();
+        }
+        if (before.active() != after.active()) {
+            return true;
+        }
+        return after.active() && (!Objects.equals(before.brand(), after.brand())
+                || !samePrice(before.price(), after.price()));
+    }
+    
+    private static boolean samePrice(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+    
+    /**
+     * Invalidate saved products given their listing states before the save,
+     * missing for new products
+     */
+    private void invalidateProducts(List<Product> products, Map<Long, ListingState> before) {
+        Set<String> listings = new HashSet<>();
+        boolean summariesChanged = false;
+        for (Product product : products) {
+            ListingState after = ListingState.of(product);
+            listings.addAll(changedListings(before.get(product.getId()), after));
+            summariesChanged |= summariesChanged(before.get(product.getId()), after);
+        }
+        cacheInvalidationService.invalidateProductListings(
+                products.stream().map(Product::getId).collect(Collectors.toList()), listings, summariesChanged);
+        products.forEach(product -> cacheInvalidationService.invalidateProductCacheBySku(product.getSku()));
+    }
+    
+    private List<ProductResponse> hydrateInOrder(List<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        
+        Map<Long, Product> productsById = productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        
+        return productIds.stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .map(ProductResponse::new)
+                .collect(Collectors.toList());
+    }
+    
     private boolean hasComplexFilters(ProductSearchRequest searchRequest) {
         return searchRequest.hasSearchTerm() || 
                searchRequest.hasCategoryFilter() || 
@@ -0,0 +1,212 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.entity.InventoryReservation;
+import com.ecommerce.product.repository.InventoryReservationRepository;
+import com.ecommerce.product.repository.ProductInventoryRepository;
+import com.ecommerce.product.search.ProductSearchIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Releases reservations whose TTL has passed. New holds go into an in-memory
+ * timing wheel, so a tick costs nothing until holds actually fall due; a
+ * periodic sweep over the expires_at index picks up holds this node never
+ * scheduled (created by another node or before a restart).
+ */
+@Service
+public class ReservationExpiryService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ReservationExpiryService.class);
+    
+    @Autowired
+    private InventoryReservationRepository reservationRepository;
+    
+    @Autowired
+    private ProductInventoryRepository inventoryRepository;
+    
+    @Autowired
+    private ProductSearchIndex searchIndex;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${inventory.reservation.ttl:15m}")
+    private Duration ttl;
+    
+    @Value("${inventory.reservation.tick-millis:1000}")
+    private long tickMillis;
+    
+    @Value("${inventory.reservation.batch-size:500}")
+    private int batchSize;
+    
+    private ReservationTimingWheel wheel;
+    private TransactionTemplate transactionTemplate;
+    private final AtomicLong activeHolds = new AtomicLong();
+    private Counter expiredHolds;
+    private Counter reclaimedUnits;
+    
+    @PostConstruct
+    void init() {
+        wheel = new ReservationTimingWheel(tickMillis, System.currentTimeMillis());
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        activeHolds.set(reservationRepository.count());
+        
+        Gauge.builder("inventory.reservations.active", activeHolds, AtomicLong::get)
+                .description("Outstanding inventory reservations")
+                .register(meterRegistry);
+        expiredHolds = Counter.builder("inventory.reservations.expired")
+                .description("Reservations released because their TTL passed")
+                .register(meterRegistry);
+        reclaimedUnits = Counter.builder("inventory.reservations.reclaimed")
+                .description("Units returned to available stock by expired reservations")
+                .baseUnit("units")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Expiry time for a reservation made now
+     */
+    public LocalDateTime nextExpiry() {
+        return LocalDateTime.now().plus(ttl);
+    }
+    
+    /**
+     * Schedule the expiry of new reservations once their transaction commits
+     */
+    public void track(List<InventoryReservation> reservations) {
+        afterCommit(() -> {
+            activeHolds.addAndGet(reservations.size());
+            for (InventoryReservation reservation : reservations) {
+                long deadline = reservation.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                wheel.schedule(reservation.getId(), deadline);
+            }
+        });
+    }
+    
+    /**
+     * Account for reservations released or confirmed by their owner. Their
+     * wheel entries stay and are skipped when they fall due.
+     */
+    public void untrack(int count) {
+        if (count > 0) {
+            afterCommit(() -> activeHolds.addAndGet(-count));
+        }
+    }
+    
+    /**
+     * Release the reservations that fell due in the timing wheel
+     */
+    @Scheduled(fixedDelayString = "${inventory.reservation.tick-millis:1000}")
+    public void expireDueReservations() {
+        List<Long> dueIds = new ArrayList<>();
+        wheel.advance(System.currentTimeMillis(), dueIds::add);
+        for (int from = 0; from < dueIds.size(); from += batchSize) {
+            expire(dueIds.subList(from, Math.min(dueIds.size(), from + batchSize)));
+        }
+    }
+    
+    /**
+     * Release expired reservations found in the table, a page at a time
+     */
+    @Scheduled(fixedDelayString = "${inventory.reservation.sweep-interval-millis:60000}")
+    public void sweepExpiredReservations() {
+        List<Long> expiredIds;
+        do {
+            expiredIds = reservationRepository.findExpiredIds(LocalDateTime.now(), PageRequest.of(0, batchSize));
+        } while (!expiredIds.isEmpty() && expire(expiredIds) == expiredIds.size());
+    }
+    
+    /**
+     * Release those of the given reservations that are still outstanding and
+     * expired, returning how many were released
+     */
+    public int expire(List<Long> reservationIds) {
+        Map<Long, Integer> reclaimed = new TreeMap<>();
+        int expired;
+        try {
+            expired = transactionTemplate.execute(status -> {
+                // Inventory rows first, in product id order, like reserving does
+                List<Long> productIds = reservationRepository.findProductIdsByIdIn(reservationIds);
+                if (productIds.isEmpty()) {
+                    return 0;
+                }
+                inventoryRepository.lockByProductIdsInOrder(productIds);
+                
+                List<InventoryReservation> reservations = reservationRepository.lockExpired(reservationIds, LocalDateTime.now());
+                if (reservations.isEmpty()) {
+                    return 0;
+                }
+                for (InventoryReservation reservation : reservations) {
+                    reclaimed.merge(reservation.getProductId(), reservation.getQuantity(), Integer::sum);
+                }
+                reservationRepository.deleteAllInBatch(reservations);
+                
+                reclaimed.forEach((productId, quantity) -> {
+                    if (inventoryRepository.releaseReservedQuantity(productId, quantity) == 0) {
+                        logger.warn("Reserved quantity of product {} is below its expired reservations ({})",
+                                productId, quantity);
+                    }
+                });
+                return reservations.size();
+            });
+        } catch (RuntimeException e) {
+            // The sweep retries these from the table
+            logger.error("Failed to expire {} reservations: {}", reservationIds.size(), e.getMessage(), e);
+            return 0;
+        }
+        
+        if (expired > 0) {
+            activeHolds.addAndGet(-expired);
+            expiredHolds.increment(expired);
+            reclaimedUnits.increment(reclaimed.values().stream().mapToInt(Integer::intValue).sum());
+            reclaimed.keySet().forEach(productId -> searchIndex.updateStock(productId, true));
+            logger.debug("Expired {} reservations across {} products", expired, reclaimed.size());
+        }
+        return expired;
+    }
+    
+    /**
+     * Holds in the timing wheel, including already released ones not yet due
+     */
+    public int getScheduledCount() {
+        return wheel.size();
+    }
+    
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,142 @@
+package com.ecommerce.product.service;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Hierarchical timing wheel of reservation ids. Each level has 64 slots and
+ * each slot of a level spans a whole revolution of the level below, so four
+ * levels of one-second ticks cover about six months; anything further out
+ * waits in an overflow bucket. Scheduling is O(1) and a tick only touches
+ * the entries that fall due (or cascade down a level), never the whole set.
+ *
+ * Cancelled reservations are not removed: whoever consumes the due ids has
+ * to skip the ones that no longer exist.
+ */
+final class ReservationTimingWheel {
+    
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    
+    private final long tickMillis;
+    private final Bucket[][] wheel = new Bucket[LEVELS][SLOTS];
+    private final Bucket overflow = new Bucket();
+    private final Bucket due = new Bucket();
+    private long currentTick;
+    private int size;
+    
+    ReservationTimingWheel(long tickMillis, long nowMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = nowMillis / tickMillis;
+        for (Bucket[] level : wheel) {
+            for (int i = 0; i < SLOTS; i++) {
+                level[i] = new Bucket();
+            }
+        }
+    }
+    
+    /**
+     * Schedule an id to fall due at the given time (rounded up to a tick)
+     */
+    synchronized void schedule(long id, long deadlineMillis) {
+        long deadlineTick = (deadlineMillis + tickMillis - 1) / tickMillis;
+        if (deadlineTick <= currentTick) {
+            due.add(id, deadlineTick);
+        } else {
+            place(id, deadlineTick);
+        }
+        size++;
+    }
+    
+    /**
+     * Move the wheel up to the given time and hand every id that fell due to
+     * the consumer, in deadline order
+     */
+    synchronized void advance(long nowMillis, LongConsumer expired) {
+        due.drainTo(expired);
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            if ((currentTick & ((1L << (SLOT_BITS * LEVELS)) - 1)) == 0) {
+                overflow.drainTo(this::place);
+            }
+            // Higher levels first, so entries can drop through several levels in one tick
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    wheel[level][slot(currentTick, level)].drainTo(this::place);
+                }
+            }
+            wheel[0][slot(currentTick, 0)].drainTo(expired);
+        }
+    }
+    
+    /**
+     * Ids scheduled and not yet handed out, including cancelled ones
+     */
+    synchronized int size() {
+        return size;
+    }
+    
+    private void place(long id, long deadlineTick) {
+        // The lowest level whose parent window already contains the deadline
+        for (int level = 0; level < LEVELS; level++) {
+            int parentShift = SLOT_BITS * (level + 1);
+            if ((deadlineTick >>> parentShift) == (currentTick >>> parentShift)) {
+                wheel[level][slot(deadlineTick, level)].add(id, deadlineTick);
+                return;
+            }
+        }
+        overflow.add(id, deadlineTick);
+    }
+    
+    private static int slot(long tick, int level) {
+        return (int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+    }
+    
+    private interface EntryConsumer {
+        void accept(long id, long deadlineTick);
+    }
+    
+    /**
+     * Growable array of (id, deadline) pairs, so millions of holds cost
+     * sixteen bytes each rather than a boxed node per entry
+     */
+    private final class Bucket {
+        private long[] entries = new long[0];
+        private int length;
+        
+        private void add(long id, long deadlineTick) {
+            if (length + 2 > entries.length) {
+                entries = Arrays.copyOf(entries, Math.max(8, entries.length * 2));
+            }
+            entries[length++] = id;
+            entries[length++] = deadlineTick;
+        }
+        
+        private void drainTo(LongConsumer consumer) {
+            long[] drained = entries;
+            int count = length;
+            entries = new long[0];
+            length = 0;
+            for (int i = 0; i < count; i += 2) {
+                size--;
+                consumer.accept(drained[i]);
+            }
+        }
+        
+        private void drainTo(EntryConsumer consumer) {
+            long[] drained = entries;
+            int count = length;
+            entries = new long[0];
+            length = 0;
+            for (int i = 0; i < count; i += 2) {
+                consumer.accept(drained[i], drained[i + 1]);
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.ecommerce.product.cache;
+
+import com.ecommerce.common.cache.serialization.BinaryRedisSerializer;
+import com.ecommerce.product.dto.CategoryResponse;
+import com.ecommerce.product.dto.InventoryResponse;
+import com.ecommerce.product.dto.ProductImageResponse;
+import com.ecommerce.product.dto.ProductResponse;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductPageCodecTest {
+
+    private final RedisSerializer<Object> json = new GenericJackson2JsonRedisSerializer()
+            .configure(mapper -> mapper.registerModule(new JavaTimeModule())
+                    .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false));
+    private final BinaryRedisSerializer binary = new BinaryRedisSerializer(
+            List.of(new ProductResponseCodec(), new ProductPageCodec()), json, -1);
+    private final BinaryRedisSerializer binaryLz4 = new BinaryRedisSerializer(
+            List.of(new ProductResponseCodec(), new ProductPageCodec()), json, 512);
+
+    @Test
+    void testRoundTrip_ProductResponse() {
+        ProductResponse product = product(1L);
+
+        byte[] bytes = binary.serialize(product);
+        ProductResponse restored = (ProductResponse) binary.deserialize(bytes);
+
+        assertEquals(product.getName(), restored.getName());
+        assertEquals(product.getPrice(), restored.getPrice());
+        assertEquals(product.getCategory().getName(), restored.getCategory().getName());
+        assertEquals(product.getAvailableQuantity(), restored.getAvailableQuantity());
+        assertEquals(product.getPrimaryImageUrl(), restored.getPrimaryImageUrl());
+        assertEquals(product.getCreatedAt(), restored.getCreatedAt());
+        assertTrue(bytes.length < json.serialize(product).length);
+    }
+
+    @Test
+    void testRoundTrip_CatalogPage() {
+        List<ProductResponse> products = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            products.add(product(id));
+        }
+        Page<ProductResponse> page = new PageImpl<>(products, PageRequest.of(2, 20, Sort.by("name")), 500);
+
+        byte[] bytes = binaryLz4.serialize(page);
+        @SuppressWarnings("unchecked")
+        Page<ProductResponse> restored = (Page<ProductResponse>) binaryLz4.deserialize(bytes);
+
+        assertEquals(500, restored.getTotalElements());
+        assertEquals(2, restored.getNumber());
+        assertEquals(Sort.by("name"), restored.getSort());
+        assertEquals(20, restored.getContent().size());
+        assertEquals(products.get(19).getSku(), restored.getContent().get(19).getSku());
+        assertTrue(bytes.length < json.serialize(page).length);
+    }
+
+    @Test
+    void testRoundTrip_KeepsIgnoreCaseAndNullHandling() {
+        Sort sort = Sort.by(
+                Sort.Order.asc("name").ignoreCase().nullsLast(),
+                Sort.Order.desc("brand").nullsFirst(),
+                Sort.Order.desc("id"));
+        Page<ProductResponse> page = new PageImpl<>(List.of(product(1L)), PageRequest.of(0, 10, sort), 1);
+
+        @SuppressWarnings("unchecked")
+        Page<ProductResponse> restored = (Page<ProductResponse>) binary.deserialize(binary.serialize(page));
+
+        assertEquals(sort, restored.getSort());
+        Sort.Order name = restored.getSort().getOrderFor("name");
+        assertTrue(name.isIgnoreCase());
+        assertEquals(Sort.NullHandling.NULLS_LAST, name.getNullHandling());
+        assertEquals(Sort.NullHandling.NULLS_FIRST, restored.getSort().getOrderFor("brand").getNullHandling());
+    }
+
+    private ProductResponse product(Long id) {
+        CategoryResponse category = new CategoryResponse();
+        category.setId(3L);
+        category.setName("Electronics");
+        category.setDescription("Phones, audio and accessories");
+        category.setIsActive(true);
+        category.setCreatedAt(LocalDateTime.of(2024, 1, 1, 9, 0));
+        category.setUpdatedAt(LocalDateTime.of(2024, 1, 1, 9, 0));
+
+        InventoryResponse inventory = new InventoryResponse();
+        inventory.setProductId(id);
+        inventory.setQuantityAvailable(42);
+        inventory.setQuantityReserved(3);
+        inventory.setReorderLevel(10);
+        inventory.setLastUpdated(LocalDateTime.of(2024, 3, 2, 14, 5));
+        inventory.setInStock(true);
+
+        ProductImageResponse image = new ProductImageResponse();
+        image.setId(id * 10);
+        image.setImageUrl("/uploads/products/" + id + "/main.jpg");
+        image.setAltText("Wireless headphones " + id);
+        image.setDisplayOrder(0);
+        image.setIsPrimary(true);
+        image.setCreatedAt(LocalDateTime.of(2024, 1, 5, 12, 0));
+
+        ProductResponse product = new ProductResponse();
+        product.setId(id);
+        product.setSku("WH-1000-" + id);
+        product.setName("Wireless Noise Cancelling Headphones " + id);
+        product.setDescription("Over-ear wireless headphones with active noise cancelling, 30 hour battery life and quick charge.");
+        product.setPrice(new BigDecimal("199.99"));
+        product.setCategory(category);
+        product.setBrand("Acme");
+        product.setWeight(new BigDecimal("0.25"));
+        product.setDimensions("20x18x8 cm");
+        product.setIsActive(true);
+        product.setCreatedAt(LocalDateTime.of(2024, 1, 5, 12, 0));
+        product.setUpdatedAt(LocalDateTime.of(2024, 3, 2, 14, 5));
+        product.setInventory(inventory);
+        product.setImages(List.of(image));
+        return product;
+    }
+}
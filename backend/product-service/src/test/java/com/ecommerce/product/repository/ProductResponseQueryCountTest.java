@@ -0,0 +1,141 @@
+package com.ecommerce.product.repository;
+
+import com.ecommerce.product.dto.ProductResponse;
+import com.ecommerce.product.entity.Category;
+import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.entity.ProductImage;
+import com.ecommerce.product.entity.ProductInventory;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the SQL statements needed to turn a page of products into
+ * ProductResponse objects; it must not grow with the page size
+ */
+@DataJpaTest(showSql = false, properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ProductResponseQueryCountTest {
+
+    // Page query with the same shape as ProductRepository.findByIsActiveTrue,
+    // which cannot be booted on H2 (MySQL full-text queries)
+    interface CatalogRepository extends JpaRepository<Product, Long> {
+        Page<Product> findByIsActiveTrue(Pageable pageable);
+
+        // Same query as ProductRepository.findAllWithDetailsByIdIn
+        @Query("SELECT p FROM Product p " +
+               "LEFT JOIN FETCH p.category " +
+               "LEFT JOIN FETCH p.inventory " +
+               "WHERE p.id IN :ids")
+        List<Product> findAllWithDetailsByIdIn(@Param("ids") Collection<Long> ids);
+    }
+
+    @SpringBootConfiguration
+    @EntityScan("com.ecommerce.product.entity")
+    @EnableJpaRepositories(basePackageClasses = ProductResponseQueryCountTest.class, considerNestedRepositories = true,
+        includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = CatalogRepository.class))
+    static class TestConfig {
+    }
+
+    @Autowired
+    private CatalogRepository catalogRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        Category parent = new Category();
+        parent.setName("Electronics");
+        entityManager.persist(parent);
+
+        for (int c = 0; c < 10; c++) {
+            Category category = new Category();
+            category.setName("Category " + c);
+            category.setParent(parent);
+            entityManager.persist(category);
+
+            for (int p = 0; p < 10; p++) {
+                Product product = new Product("SKU-" + c + "-" + p, "Product " + c + "-" + p, "Description",
+                        new BigDecimal("19.99"), category);
+                product.setInventory(new ProductInventory(product, p));
+                product.getImages().add(new ProductImage(product, "/images/" + c + "-" + p + "-1.jpg", "Front"));
+                product.getImages().add(new ProductImage(product, "/images/" + c + "-" + p + "-2.jpg", "Back"));
+                entityManager.persist(product);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {5, 20, 50})
+    void testProductPage_BuiltInConstantNumberOfQueries(int pageSize) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Page<ProductResponse> page = catalogRepository.findByIsActiveTrue(PageRequest.of(1, pageSize, Sort.by("id")))
+                .map(ProductResponse::new);
+
+        long queries = statistics.getPrepareStatementCount();
+
+        assertEquals(pageSize, page.getNumberOfElements());
+        assertEquals(2, page.getContent().get(0).getImages().size());
+        assertNotNull(page.getContent().get(0).getInventory());
+        assertEquals("Electronics", page.getContent().get(0).getCategory().getParentName());
+        // page, count, then one batch each for categories, parent categories, inventories and images
+        assertEquals(6, queries, "statements for a page of " + pageSize);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {5, 20, 50})
+    void testProductsById_BuiltInConstantNumberOfQueries(int count) {
+        List<Long> ids = catalogRepository.findAll(Sort.by("id")).stream()
+                .limit(count)
+                .map(Product::getId)
+                .toList();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<ProductResponse> products = catalogRepository.findAllWithDetailsByIdIn(ids).stream()
+                .map(ProductResponse::new)
+                .toList();
+
+        long queries = statistics.getPrepareStatementCount();
+
+        assertEquals(count, products.size());
+        assertEquals(2, products.get(0).getImages().size());
+        assertNotNull(products.get(0).getInventory());
+        // products with category and inventory, then one batch each for parent categories and images
+        assertEquals(3, queries, "statements for " + count + " products");
+    }
+}
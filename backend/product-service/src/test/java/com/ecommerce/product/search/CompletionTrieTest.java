@@ -0,0 +1,73 @@
+package com.ecommerce.product.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompletionTrieTest {
+
+    @Test
+    void testComplete_ReturnsHighestWeightedEntriesForPrefix() {
+        CompletionTrie trie = new CompletionTrie(3);
+        trie.add("Laptop Stand");
+        trie.add("Laptop");
+        trie.add("Laptop");
+        trie.add("Lamp");
+        trie.add("Laptop Sleeve");
+        trie.add("Laptop Sleeve");
+        trie.add("Laptop Sleeve");
+
+        assertEquals(List.of("Laptop Sleeve", "Laptop", "Lamp"), trie.complete("la", 5));
+        assertEquals(List.of("Laptop Sleeve", "Laptop", "Laptop Stand"), trie.complete("LAPTOP", 5));
+        assertEquals(List.of("Laptop Sleeve"), trie.complete("laptop sl", 5));
+        assertEquals(List.of(), trie.complete("laptops", 5));
+    }
+
+    @Test
+    void testRemove_DecrementsAndDropsEntries() {
+        CompletionTrie trie = new CompletionTrie(5);
+        trie.add("Desk");
+        trie.add("Desk Lamp");
+        trie.add("Desk Lamp");
+
+        trie.remove("Desk Lamp");
+        trie.remove("Desk");
+
+        assertEquals(List.of("Desk Lamp"), trie.complete("de", 5));
+
+        trie.remove("Desk Lamp");
+        trie.remove("unknown");
+
+        assertEquals(List.of(), trie.complete("de", 5));
+        assertEquals(List.of(), trie.complete("", 5));
+    }
+
+    @Test
+    void testComplete_MatchesBruteForceOnLargeVocabulary() {
+        CompletionTrie trie = new CompletionTrie(10);
+        Map<String, Integer> weights = new HashMap<>();
+        Random random = new Random(42);
+        String[] words = {"wireless", "wired", "smart", "portable", "mini", "pro", "ultra", "eco", "classic", "sport"};
+        String[] nouns = {"headphones", "speaker", "watch", "charger", "camera", "lamp", "keyboard", "mouse", "bottle", "bag"};
+        for (int i = 0; i < 20_000; i++) {
+            String entry = words[random.nextInt(words.length)] + " " + nouns[random.nextInt(nouns.length)] + " " + random.nextInt(500);
+            trie.add(entry);
+            weights.merge(entry, 1, Integer::sum);
+        }
+
+        for (String prefix : List.of("w", "wi", "wire", "wired", "smart w", "pro ", "eco lamp 1", "zzz")) {
+            List<String> expected = weights.entrySet().stream()
+                    .filter(entry -> entry.getKey().startsWith(prefix))
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                    .limit(10)
+                    .map(Map.Entry::getKey)
+                    .toList();
+            assertEquals(expected, trie.complete(prefix, 10), "completions of '" + prefix + "'");
+        }
+    }
+}
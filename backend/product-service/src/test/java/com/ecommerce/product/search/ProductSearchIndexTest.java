@@ -0,0 +1,215 @@
+package com.ecommerce.product.search;
+
+import com.ecommerce.product.dto.FacetCount;
+import com.ecommerce.product.dto.ProductSearchRequest;
+import com.ecommerce.product.dto.SearchFacets;
+import com.ecommerce.product.entity.Category;
+import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.entity.ProductInventory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex searchIndex;
+    private Category electronics;
+    private Category books;
+
+    @BeforeEach
+    void setUp() {
+        searchIndex = new ProductSearchIndex();
+
+        electronics = new Category();
+        electronics.setId(1L);
+        electronics.setName("Electronics");
+
+        books = new Category();
+        books.setId(2L);
+        books.setName("Books");
+
+        searchIndex.index(product(1L, "Wireless Headphones", "Noise cancelling wireless headphones", "Acme", electronics, "199.99", 5));
+        searchIndex.index(product(2L, "Wired Earbuds", "Compact earbuds with a wireless charging case", "Acme", electronics, "29.99", 0));
+        searchIndex.index(product(3L, "Headphone Stand", "Aluminium stand", "Deskly", electronics, "39.99", 12));
+        searchIndex.index(product(4L, "Audio Engineering Handbook", "Reference book about headphones and speakers", "Press", books, "59.00", 3));
+        searchIndex.markReady();
+    }
+
+    @Test
+    void testSearch_RanksNameMatchesAboveDescriptionMatches() {
+        SearchHits hits = searchIndex.search(request("wireless", "relevance"));
+
+        assertEquals(2, hits.getTotalHits());
+        assertEquals(List.of(1L, 2L), hits.getProductIds());
+    }
+
+    @Test
+    void testSearch_MatchesLastTokenAsPrefix() {
+        SearchHits hits = searchIndex.search(request("headph", "relevance"));
+
+        assertEquals(3, hits.getTotalHits());
+        assertTrue(hits.getProductIds().containsAll(List.of(1L, 3L, 4L)));
+    }
+
+    @Test
+    void testSearch_AppliesFiltersAndFieldSort() {
+        ProductSearchRequest request = request(null, "price");
+        request.setCategoryIds(List.of(1L));
+        request.setInStockOnly(true);
+        request.setSortDirection("desc");
+
+        SearchHits hits = searchIndex.search(request);
+
+        assertEquals(List.of(1L, 3L), hits.getProductIds());
+    }
+
+    @Test
+    void testSearch_Paginates() {
+        ProductSearchRequest request = request(null, "name");
+        request.setSize(2);
+        request.setPage(1);
+
+        SearchHits hits = searchIndex.search(request);
+
+        assertEquals(4, hits.getTotalHits());
+        assertEquals(List.of(2L, 1L), hits.getProductIds());
+    }
+
+    @Test
+    void testSearch_PageBeyondMatches_IsEmpty() {
+        ProductSearchRequest request = request(null, "name");
+        request.setSize(100);
+        request.setPage(Integer.MAX_VALUE);
+
+        SearchHits hits = searchIndex.search(request);
+
+        assertEquals(4, hits.getTotalHits());
+        assertTrue(hits.getProductIds().isEmpty());
+    }
+
+    @Test
+    void testIndex_ReplacesAndRemovesDocuments() {
+        Product renamed = product(1L, "Studio Monitors", "Bookshelf speakers", "Acme", electronics, "249.00", 5);
+        searchIndex.index(renamed);
+        searchIndex.remove(2L);
+
+        assertEquals(0, searchIndex.search(request("wireless", "relevance")).getTotalHits());
+        assertEquals(List.of(1L), searchIndex.search(request("monitors", "relevance")).getProductIds());
+        assertEquals(3, searchIndex.size());
+    }
+
+    @Test
+    void testSearch_ExcludesInactiveAndTracksStock() {
+        Product inactive = product(3L, "Headphone Stand", "Aluminium stand", "Deskly", electronics, "39.99", 12);
+        inactive.setIsActive(false);
+        searchIndex.index(inactive);
+        searchIndex.updateStock(2L, true);
+
+        ProductSearchRequest request = request(null, "id");
+        request.setInStockOnly(true);
+
+        assertEquals(List.of(1L, 2L, 4L), searchIndex.search(request).getProductIds());
+    }
+
+    @Test
+    void testSearch_FiltersByInclusivePriceRange() {
+        searchIndex.index(product(3L, "Headphone Stand", "Aluminium stand", "Deskly", electronics, "59.00", 12));
+
+        ProductSearchRequest request = request(null, "id");
+        request.setMinPrice(new BigDecimal("29.99"));
+        request.setMaxPrice(new BigDecimal("59"));
+        assertEquals(List.of(2L, 3L, 4L), searchIndex.search(request).getProductIds());
+
+        request.setMinPrice(new BigDecimal("60"));
+        request.setMaxPrice(null);
+        assertEquals(List.of(1L), searchIndex.search(request).getProductIds());
+
+        request.setMaxPrice(new BigDecimal("30"));
+        assertEquals(0, searchIndex.search(request).getTotalHits());
+    }
+
+    @Test
+    void testSearch_ComputesFacetsExcludingOwnFilter() {
+        ProductSearchRequest request = request(null, "name");
+        request.setBrands(List.of("Acme"));
+        request.setIncludeFacets(true);
+
+        SearchHits hits = searchIndex.search(request);
+        SearchFacets facets = hits.getFacets();
+
+        assertEquals(2, hits.getTotalHits());
+        assertEquals(List.of("Acme", "Deskly", "Press"), facets.getBrands().stream().map(FacetCount::getValue).toList());
+        assertEquals(2, facets.getBrands().get(0).getCount());
+        assertEquals(1, facets.getCategories().size());
+        assertEquals("Electronics", facets.getCategories().get(0).getLabel());
+        assertEquals(2, facets.getCategories().get(0).getCount());
+        assertEquals(1, facets.getInStockCount());
+        assertEquals(1, facets.getPriceBuckets().get(1).getCount());
+        assertEquals(1, facets.getPriceBuckets().get(3).getCount());
+    }
+
+    @Test
+    void testSearch_OmitsFacetsUnlessRequested() {
+        assertNull(searchIndex.search(request("wireless", "relevance")).getFacets());
+    }
+
+    @Test
+    void testRemove_DeletedDocumentsNoLongerCountTowardsDocumentFrequency() {
+        searchIndex.index(product(10L, "Alpha Widget", "Plain", "Zed", electronics, "10.00", 1));
+        searchIndex.index(product(11L, "Beta Widget", "Plain", "Zed", electronics, "10.00", 1));
+        searchIndex.index(product(12L, "Beta Gadget", "Plain", "Zed", electronics, "10.00", 1));
+        for (long id = 13; id <= 15; id++) {
+            searchIndex.index(product(id, "Alpha Gadget", "Plain", "Zed", electronics, "10.00", 1));
+            searchIndex.remove(id);
+        }
+
+        // Only one live document says "alpha", so it is rarer than "beta" and ranks first
+        assertEquals(List.of(10L, 11L, 12L), searchIndex.search(request("alpha beta", "relevance")).getProductIds());
+    }
+
+    @Test
+    void testRebuild_ReplaysWritesMadeWhileRebuilding() {
+        ProductSearchIndex rebuilt = searchIndex.beginRebuild();
+        // The rebuild read product 1 before it was renamed and product 3 before it was deleted
+        rebuilt.index(product(1L, "Wireless Headphones", "Noise cancelling wireless headphones", "Acme", electronics, "199.99", 5));
+        rebuilt.index(product(3L, "Headphone Stand", "Aluminium stand", "Deskly", electronics, "39.99", 12));
+        searchIndex.index(product(1L, "Studio Monitors", "Bookshelf speakers", "Acme", electronics, "249.00", 5));
+        searchIndex.remove(3L);
+        searchIndex.updateStock(1L, false);
+
+        searchIndex.swapIn(rebuilt);
+
+        assertTrue(searchIndex.isReady());
+        assertEquals(1, searchIndex.size());
+        assertEquals(0, searchIndex.search(request("wireless", "relevance")).getTotalHits());
+        assertEquals(List.of(1L), searchIndex.search(request("monitors", "relevance")).getProductIds());
+        ProductSearchRequest inStock = request(null, "id");
+        inStock.setInStockOnly(true);
+        assertEquals(0, searchIndex.search(inStock).getTotalHits());
+    }
+
+    private ProductSearchRequest request(String searchTerm, String sortBy) {
+        ProductSearchRequest request = new ProductSearchRequest();
+        request.setSearchTerm(searchTerm);
+        request.setSortBy(sortBy);
+        return request;
+    }
+
+    private Product product(Long id, String name, String description, String brand, Category category, String price, int stock) {
+        Product product = new Product();
+        product.setId(id);
+        product.setSku("SKU-" + id);
+        product.setName(name);
+        product.setDescription(description);
+        product.setBrand(brand);
+        product.setCategory(category);
+        product.setPrice(new BigDecimal(price));
+        product.setIsActive(true);
+        product.setInventory(new ProductInventory(product, stock));
+        return product;
+    }
+}
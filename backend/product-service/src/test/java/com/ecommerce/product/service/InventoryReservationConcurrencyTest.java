@@ -0,0 +1,347 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.common.service.CacheInvalidationService;
+import com.ecommerce.product.dto.InventoryResponse;
+import com.ecommerce.product.entity.Category;
+import com.ecommerce.product.entity.InventoryReservation;
+import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.entity.ProductInventory;
+import com.ecommerce.product.repository.InventoryReservationRepository;
+import com.ecommerce.product.repository.ProductInventoryRepository;
+import com.ecommerce.product.repository.ProductRepository;
+import com.ecommerce.product.search.ProductSearchIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stress test for the atomic reservation updates: hundreds of threads hit
+ * one product (or overlapping batches of products) and the stock invariants
+ * must hold exactly. Each run logs its throughput in operations per second.
+ */
+@DataJpaTest(showSql = false, properties = {
+    "spring.datasource.url=jdbc:h2:mem:reservations;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=30000",
+    "spring.datasource.hikari.maximum-pool-size=32"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({InventoryService.class, ReservationExpiryService.class})
+class InventoryReservationConcurrencyTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryReservationConcurrencyTest.class);
+
+    private static final int THREADS = 200;
+    private static final int INITIAL_STOCK = 500;
+
+    // Only the inventory repositories: ProductRepository has MySQL-only queries
+    @SpringBootConfiguration
+    @EntityScan("com.ecommerce.product.entity")
+    @EnableJpaRepositories(basePackageClasses = ProductInventoryRepository.class, includeFilters =
+        @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE,
+            classes = {ProductInventoryRepository.class, InventoryReservationRepository.class}))
+    static class TestConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ProductInventoryRepository inventoryRepository;
+
+    @Autowired
+    private ReservationExpiryService reservationExpiryService;
+
+    @Autowired
+    private InventoryReservationRepository reservationRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private ProductRepository productRepository;
+
+    @MockBean
+    private ProductSearchIndex searchIndex;
+
+    @MockBean
+    private CacheInvalidationService cacheInvalidationService;
+
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        productId = createProduct("Hot Item", INITIAL_STOCK);
+    }
+
+    @Test
+    void testReserve_NeverOversellsUnderContention() throws Exception {
+        int attemptsPerThread = 5; // 1000 single-unit attempts for 500 units
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        hammer("reserve", THREADS * attemptsPerThread, () -> {
+            for (int i = 0; i < attemptsPerThread; i++) {
+                try {
+                    inventoryService.reserveQuantity(productId, 1);
+                    reserved.incrementAndGet();
+                } catch (RuntimeException e) {
+                    rejected.incrementAndGet();
+                }
+            }
+            return null;
+        });
+
+        ProductInventory inventory = inventoryRepository.findByProductId(productId).orElseThrow();
+
+        assertEquals(INITIAL_STOCK, reserved.get());
+        assertEquals(THREADS * attemptsPerThread - INITIAL_STOCK, rejected.get());
+        assertEquals(0, inventory.getQuantityAvailable());
+        assertEquals(INITIAL_STOCK, inventory.getQuantityReserved());
+    }
+
+    @Test
+    void testMixedOperations_ConserveStock() throws Exception {
+        int operationsPerThread = 10;
+        AtomicInteger confirmed = new AtomicInteger();
+
+        hammer("mixed", THREADS * operationsPerThread, () -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < operationsPerThread; i++) {
+                int quantity = 1 + random.nextInt(3);
+                try {
+                    // Confirms are rarer than reserves and releases, like real checkouts
+                    switch (random.nextInt(5)) {
+                        case 0, 1 -> inventoryService.reserveQuantity(productId, quantity);
+                        case 2, 3 -> inventoryService.releaseReservedQuantity(productId, quantity);
+                        default -> {
+                            inventoryService.confirmReservedQuantity(productId, quantity);
+                            confirmed.addAndGet(quantity);
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    // Rejected because the condition did not hold; state unchanged
+                }
+            }
+            return null;
+        });
+
+        ProductInventory inventory = inventoryRepository.findByProductId(productId).orElseThrow();
+
+        assertTrue(inventory.getQuantityAvailable() >= 0);
+        assertTrue(inventory.getQuantityReserved() >= 0);
+        assertEquals(INITIAL_STOCK,
+                inventory.getQuantityAvailable() + inventory.getQuantityReserved() + confirmed.get());
+    }
+
+    @Test
+    void testReserveBatch_RollsBackEveryLineWhenOneFails() {
+        Long secondProductId = createProduct("Cable", 3);
+
+        Map<Long, Integer> lines = new LinkedHashMap<>();
+        lines.put(productId, 10);
+        lines.put(secondProductId, 4);
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> inventoryService.reserveBatch(lines));
+        assertTrue(exception.getMessage().contains("product id " + secondProductId));
+
+        assertEquals(INITIAL_STOCK, inventoryRepository.findByProductId(productId).orElseThrow().getQuantityAvailable());
+        assertEquals(3, inventoryRepository.findByProductId(secondProductId).orElseThrow().getQuantityAvailable());
+
+        lines.put(secondProductId, 3);
+        inventoryService.reserveBatch(lines);
+        assertEquals(10, inventoryRepository.findByProductId(productId).orElseThrow().getQuantityReserved());
+        assertEquals(0, inventoryRepository.findByProductId(secondProductId).orElseThrow().getQuantityAvailable());
+    }
+
+    @Test
+    void testReserveBatch_OverlappingCartsDoNotDeadlock() throws Exception {
+        List<Long> productIds = new ArrayList<>();
+        productIds.add(productId);
+        for (int i = 1; i < 20; i++) {
+            productIds.add(createProduct("Item " + i, INITIAL_STOCK));
+        }
+        AtomicInteger reserved = new AtomicInteger();
+
+        hammer("reserveBatch", THREADS, () -> {
+            // Every cart names the same products in its own random order
+            List<Long> cart = new ArrayList<>(productIds);
+            Collections.shuffle(cart);
+            Map<Long, Integer> lines = new LinkedHashMap<>();
+            cart.forEach(id -> lines.put(id, 1));
+            try {
+                inventoryService.reserveBatch(lines);
+                reserved.incrementAndGet();
+            } catch (RuntimeException e) {
+                // Sold out
+            }
+            return null;
+        });
+
+        assertEquals(THREADS, reserved.get());
+        for (Long id : productIds) {
+            ProductInventory inventory = inventoryRepository.findByProductId(id).orElseThrow();
+            assertEquals(INITIAL_STOCK - THREADS, inventory.getQuantityAvailable());
+            assertEquals(THREADS, inventory.getQuantityReserved());
+        }
+    }
+
+    @Test
+    void testExpiry_ReturnsStockOfAbandonedReservations() {
+        inventoryService.reserveQuantity(productId, 5);
+        Long abandonedId = inventoryService.reserveQuantity(productId, 7).getReservationId();
+        expireNow(abandonedId);
+        double expiredBefore = meterRegistry.counter("inventory.reservations.expired").count();
+
+        reservationExpiryService.sweepExpiredReservations();
+
+        ProductInventory inventory = inventoryRepository.findByProductId(productId).orElseThrow();
+        assertEquals(INITIAL_STOCK - 5, inventory.getQuantityAvailable());
+        assertEquals(5, inventory.getQuantityReserved());
+        assertFalse(reservationRepository.existsById(abandonedId));
+        assertEquals(expiredBefore + 1, meterRegistry.counter("inventory.reservations.expired").count());
+    }
+
+    @Test
+    void testExpiry_SkipsReservationsReleasedOrConfirmedFirst() {
+        InventoryResponse released = inventoryService.reserveQuantity(productId, 4);
+        InventoryResponse confirmed = inventoryService.reserveQuantity(productId, 6);
+        expireNow(released.getReservationId());
+        expireNow(confirmed.getReservationId());
+
+        inventoryService.releaseReservation(released.getReservationId());
+        inventoryService.confirmReservation(confirmed.getReservationId());
+
+        assertEquals(0, reservationExpiryService.expire(List.of(released.getReservationId(), confirmed.getReservationId())));
+        assertThrows(RuntimeException.class, () -> inventoryService.releaseReservation(released.getReservationId()));
+        ProductInventory inventory = inventoryRepository.findByProductId(productId).orElseThrow();
+        assertEquals(INITIAL_STOCK - 6, inventory.getQuantityAvailable());
+        assertEquals(0, inventory.getQuantityReserved());
+    }
+
+    @Test
+    void testExpiry_RacingOwnersNeverReturnStockTwice() throws Exception {
+        List<Long> reservationIds = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            reservationIds.add(inventoryService.reserveQuantity(productId, 2).getReservationId());
+        }
+        reservationIds.forEach(this::expireNow);
+
+        // Half the threads release their own hold while the other half run the expiry job
+        AtomicInteger next = new AtomicInteger();
+        hammer("expiry race", THREADS, () -> {
+            int index = next.getAndIncrement();
+            if (index % 2 == 0) {
+                reservationExpiryService.sweepExpiredReservations();
+            } else {
+                try {
+                    inventoryService.releaseReservation(reservationIds.get(index));
+                } catch (RuntimeException e) {
+                    // Already expired
+                }
+            }
+            return null;
+        });
+        reservationExpiryService.sweepExpiredReservations();
+
+        ProductInventory inventory = inventoryRepository.findByProductId(productId).orElseThrow();
+        assertEquals(INITIAL_STOCK, inventory.getQuantityAvailable());
+        assertEquals(0, inventory.getQuantityReserved());
+        assertTrue(reservationIds.stream().noneMatch(reservationRepository::existsById));
+    }
+
+    private void expireNow(Long reservationId) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            InventoryReservation reservation = entityManager.find(InventoryReservation.class, reservationId);
+            reservation.setExpiresAt(LocalDateTime.now().minusSeconds(1));
+        });
+    }
+
+    private Long createProduct(String name, int stock) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            Category category = new Category();
+            category.setName("Electronics");
+            entityManager.persist(category);
+
+            Product product = new Product();
+            product.setSku("SKU-" + System.nanoTime());
+            product.setName(name);
+            product.setPrice(new BigDecimal("9.99"));
+            product.setCategory(category);
+            product.setInventory(new ProductInventory(product, stock));
+            return entityManager.persistAndGetId(product, Long.class);
+        });
+    }
+
+    /**
+     * Run the task on every thread at once and log the throughput of the
+     * given number of operations
+     */
+    private void hammer(String name, int operations, Callable<Void> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<Void> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        long nanos = System.nanoTime() - begin;
+        executor.shutdown();
+        logger.info("{}: {} operations on {} threads in {} ms, {} ops/s", name, operations, THREADS,
+                TimeUnit.NANOSECONDS.toMillis(nanos), operations * 1_000_000_000L / Math.max(1, nanos));
+    }
+}
@@ -1,24 +1,34 @@
 package com.ecommerce.product.service;
 
+import com.ecommerce.common.service.CacheInvalidationService;
 import com.ecommerce.product.dto.InventoryResponse;
 import com.ecommerce.product.entity.Category;
+import com.ecommerce.product.entity.InventoryReservation;
 import com.ecommerce.product.entity.Product;
 import com.ecommerce.product.entity.ProductInventory;
+import com.ecommerce.product.repository.InventoryReservationRepository;
 import com.ecommerce.product.repository.ProductInventoryRepository;
 import com.ecommerce.product.repository.ProductRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,6 +40,18 @@ class InventoryServiceTest {
     @Mock
     private ProductRepository productRepository;
     
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Mock
+    private CacheInvalidationService cacheInvalidationService;
+    
+    @Mock
+    private InventoryReservationRepository reservationRepository;
+    
+    @Mock
+    private ReservationExpiryService reservationExpiryService;
+    
     @InjectMocks
     private InventoryService inventoryService;
     
@@ -91,16 +113,31 @@ class InventoryServiceTest {
     @Test
     void testUpdateInventoryQuantity_Success() {
         // Given
+        when(inventoryRepository.setAvailableQuantity(1L, 75)).thenAnswer(invocation -> {
+            testInventory.setQuantityAvailable(75);
+            return 1;
+        });
         when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(testInventory));
-        when(inventoryRepository.save(any(ProductInventory.class))).thenReturn(testInventory);
         
         // When
         InventoryResponse result = inventoryService.updateInventoryQuantity(1L, 75);
         
         // Then
-        assertNotNull(result);
-        assertEquals(75, testInventory.getQuantityAvailable());
-        verify(inventoryRepository).save(testInventory);
+        assertEquals(75, result.getQuantityAvailable());
+        verify(inventoryRepository).setAvailableQuantity(1L, 75);
+        verify(inventoryRepository, never()).save(any(ProductInventory.class));
+        verify(cacheInvalidationService).invalidateProductCache(1L);
+    }
+    
+    @Test
+    void testUpdateInventoryQuantity_NotFound() {
+        // Given
+        when(inventoryRepository.setAvailableQuantity(1L, 75)).thenReturn(0);
+        
+        // When & Then
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> inventoryService.updateInventoryQuantity(1L, 75));
+        assertEquals("Inventory not found for product id: 1", exception.getMessage());
     }
     
     @Test
@@ -114,16 +151,20 @@ class InventoryServiceTest {
     @Test
     void testAddStock_Success() {
         // Given
+        when(inventoryRepository.addStock(1L, 25)).thenAnswer(invocation -> {
+            testInventory.setQuantityAvailable(75);
+            return 1;
+        });
         when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(testInventory));
-        when(inventoryRepository.save(any(ProductInventory.class))).thenReturn(testInventory);
         
         // When
         InventoryResponse result = inventoryService.addStock(1L, 25);
         
         // Then
-        assertNotNull(result);
-        assertEquals(75, testInventory.getQuantityAvailable());
-        verify(inventoryRepository).save(testInventory);
+        assertEquals(75, result.getQuantityAvailable());
+        verify(inventoryRepository).addStock(1L, 25);
+        verify(inventoryRepository, never()).save(any(ProductInventory.class));
+        verify(cacheInvalidationService).invalidateProductCache(1L);
     }
     
     @Test
@@ -137,43 +178,113 @@ class InventoryServiceTest {
     @Test
     void testRemoveStock_Success() {
         // Given
+        when(inventoryRepository.removeStock(1L, 20)).thenAnswer(invocation -> {
+            testInventory.setQuantityAvailable(30);
+            return 1;
+        });
         when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(testInventory));
-        when(inventoryRepository.save(any(ProductInventory.class))).thenReturn(testInventory);
         
         // When
         InventoryResponse result = inventoryService.removeStock(1L, 20);
         
         // Then
-        assertNotNull(result);
-        assertEquals(30, testInventory.getQuantityAvailable());
-        verify(inventoryRepository).save(testInventory);
+        assertEquals(30, result.getQuantityAvailable());
+        verify(inventoryRepository).removeStock(1L, 20);
+        verify(inventoryRepository, never()).save(any(ProductInventory.class));
+    }
+    
+    @Test
+    void testRemoveStock_MoreThanAvailable() {
+        // Given
+        when(inventoryRepository.removeStock(1L, 60)).thenReturn(0);
+        when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(testInventory));
+        
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> inventoryService.removeStock(1L, 60));
+        assertEquals("Cannot remove more quantity than available", exception.getMessage());
     }
     
     @Test
     void testReserveQuantity_Success() {
         // Given
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(15);
+        when(inventoryRepository.reserveQuantity(1L, 15)).thenAnswer(invocation -> {
+            testInventory.setQuantityAvailable(35);
+            testInventory.setQuantityReserved(15);
+            return 1;
+        });
         when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(testInventory));
-        when(inventoryRepository.save(any(ProductInventory.class))).thenReturn(testInventory);
+        when(reservationExpiryService.nextExpiry()).thenReturn(expiresAt);
+        when(reservationRepository.save(any(InventoryReservation.class))).thenAnswer(invocation -> {
+            InventoryReservation reservation = invocation.getArgument(0);
+            reservation.setId(7L);
+            return reservation;
+        });
         
         // When
         InventoryResponse result = inventoryService.reserveQuantity(1L, 15);
         
         // Then
-        assertNotNull(result);
-        assertEquals(35, testInventory.getQuantityAvailable());
-        assertEquals(15, testInventory.getQuantityReserved());
-        verify(inventoryRepository).save(testInventory);
+        assertEquals(35, result.getQuantityAvailable());
+        assertEquals(15, result.getQuantityReserved());
+        assertEquals(7L, result.getReservationId());
+        assertEquals(expiresAt, result.getReservationExpiresAt());
+        verify(inventoryRepository).reserveQuantity(1L, 15);
+        verify(inventoryRepository, never()).save(any(ProductInventory.class));
+        verify(reservationExpiryService).track(anyList());
     }
     
     @Test
     void testReserveQuantity_InsufficientStock() {
         // Given
+        when(inventoryRepository.reserveQuantity(1L, 60)).thenReturn(0);
         when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(testInventory));
         
         // When & Then
         RuntimeException exception = assertThrows(RuntimeException.class,
             () -> inventoryService.reserveQuantity(1L, 60));
         assertTrue(exception.getMessage().contains("Insufficient quantity available for reservation"));
+        verify(reservationRepository, never()).save(any(InventoryReservation.class));
+    }
+    
+    @Test
+    void testReleaseReservedQuantity_LocksInventoryBeforeHolds() {
+        // Given
+        InventoryReservation hold = new InventoryReservation(1L, 5, LocalDateTime.now().plusMinutes(15));
+        when(inventoryRepository.releaseReservedQuantity(1L, 5)).thenReturn(1);
+        when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(testInventory));
+        when(reservationRepository.lockOldestByProductId(eq(1L), any(Pageable.class))).thenReturn(List.of(hold));
+        
+        // When
+        inventoryService.releaseReservedQuantity(1L, 5);
+        
+        // Then
+        InOrder inOrder = inOrder(inventoryRepository, reservationRepository);
+        inOrder.verify(inventoryRepository).releaseReservedQuantity(1L, 5);
+        inOrder.verify(reservationRepository).lockOldestByProductId(eq(1L), any(Pageable.class));
+        verify(reservationRepository).delete(hold);
+        verify(reservationExpiryService).untrack(1);
+    }
+    
+    @Test
+    void testReleaseReservation_LocksInventoryBeforeHold() {
+        // Given
+        InventoryReservation hold = new InventoryReservation(1L, 5, LocalDateTime.now().plusMinutes(15));
+        hold.setId(7L);
+        when(reservationRepository.findProductIdById(7L)).thenReturn(Optional.of(1L));
+        when(reservationRepository.lockById(7L)).thenReturn(Optional.of(hold));
+        when(inventoryRepository.releaseReservedQuantity(1L, 5)).thenReturn(1);
+        when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(testInventory));
+        
+        // When
+        inventoryService.releaseReservation(7L);
+        
+        // Then
+        InOrder inOrder = inOrder(inventoryRepository, reservationRepository);
+        inOrder.verify(inventoryRepository).lockByProductIdsInOrder(List.of(1L));
+        inOrder.verify(reservationRepository).lockById(7L);
+        inOrder.verify(inventoryRepository).releaseReservedQuantity(1L, 5);
     }
     
     @Test
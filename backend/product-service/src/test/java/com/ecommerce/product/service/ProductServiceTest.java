@@ -1,16 +1,21 @@
 package com.ecommerce.product.service;
 
+import com.ecommerce.common.cache.CacheTags;
+import com.ecommerce.common.service.CacheInvalidationService;
 import com.ecommerce.product.dto.ProductDto;
 import com.ecommerce.product.dto.ProductSearchRequest;
 import com.ecommerce.product.entity.Category;
 import com.ecommerce.product.entity.Product;
 import com.ecommerce.product.repository.ProductRepository;
+import com.ecommerce.product.search.ProductSearchIndex;
+import com.ecommerce.product.search.ProductSuggestionIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -20,6 +25,7 @@ import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -32,6 +38,18 @@ class ProductServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private ProductSearchIndex searchIndex;
+
+    @Mock
+    private ProductSuggestionIndex suggestionIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private CacheInvalidationService cacheInvalidationService;
+
     @InjectMocks
     private ProductService productService;
 
@@ -204,6 +222,50 @@ class ProductServiceTest {
         // Then
         assertFalse(testProduct.getIsActive());
         verify(productRepository).save(testProduct);
+        verify(cacheInvalidationService).invalidateProductListings(List.of(1L),
+            Set.of(CacheTags.status(true), CacheTags.status(false), CacheTags.category(1L)), true);
+    }
+
+    @Test
+    void testBulkUpdateProductStatus_InvalidatesProductsAndListings() {
+        // Given
+        when(productRepository.findAllById(List.of(1L))).thenReturn(List.of(testProduct));
+
+        // When
+        int updated = productService.bulkUpdateProductStatus(List.of(1L), false);
+
+        // Then
+        assertEquals(1, updated);
+        assertFalse(testProduct.getIsActive());
+        verify(cacheInvalidationService).invalidateProductListings(List.of(1L),
+            Set.of(CacheTags.status(true), CacheTags.status(false), CacheTags.category(1L)), true);
+        verify(cacheInvalidationService).invalidateProductCacheBySku("PROD-001");
+    }
+
+    @Test
+    void testBulkUpdateProductStatus_Unchanged_KeepsListings() {
+        // Given
+        when(productRepository.findAllById(List.of(1L))).thenReturn(List.of(testProduct));
+
+        // When
+        productService.bulkUpdateProductStatus(List.of(1L), true);
+
+        // Then
+        verify(cacheInvalidationService).invalidateProductListings(List.of(1L), Set.of(), false);
+    }
+
+    @Test
+    void testBulkDeleteProducts_InvalidatesProductsAndListings() {
+        // Given
+        when(productRepository.findAllById(List.of(1L))).thenReturn(List.of(testProduct));
+
+        // When
+        productService.bulkDeleteProducts(List.of(1L));
+
+        // Then
+        verify(cacheInvalidationService).invalidateProductListings(List.of(1L),
+            Set.of(CacheTags.status(true), CacheTags.status(false), CacheTags.category(1L)), true);
+        verify(cacheInvalidationService).invalidateProductCacheBySku("PROD-001");
     }
 
     @Test
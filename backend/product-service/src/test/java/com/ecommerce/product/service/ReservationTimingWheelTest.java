@@ -0,0 +1,88 @@
+package com.ecommerce.product.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationTimingWheelTest {
+
+    private static final long TICK = 1000;
+
+    @Test
+    void testAdvance_EmitsIdsOnlyOnceTheirDeadlinePasses() {
+        long start = 1_000_000 * TICK + 123;
+        ReservationTimingWheel wheel = new ReservationTimingWheel(TICK, start);
+        wheel.schedule(1, start + 5 * TICK);
+        wheel.schedule(2, start + 90 * TICK);     // second level
+        wheel.schedule(3, start + 10_000 * TICK); // third level
+
+        assertEquals(List.of(), advance(wheel, start + 4 * TICK));
+        assertEquals(List.of(1L), advance(wheel, start + 6 * TICK));
+        assertEquals(List.of(), advance(wheel, start + 89 * TICK));
+        assertEquals(List.of(2L), advance(wheel, start + 91 * TICK));
+        assertEquals(List.of(3L), advance(wheel, start + 10_001 * TICK));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testSchedule_PastDeadlineIsDueOnNextAdvance() {
+        long start = 5_000 * TICK;
+        ReservationTimingWheel wheel = new ReservationTimingWheel(TICK, start);
+        wheel.schedule(7, start - TICK);
+
+        assertEquals(1, wheel.size());
+        assertEquals(List.of(7L), advance(wheel, start));
+    }
+
+    @Test
+    void testAdvance_HandlesDeadlinesBeyondTheTopLevel() {
+        long start = 0;
+        ReservationTimingWheel wheel = new ReservationTimingWheel(TICK, start);
+        long beyond = (1L << 24) + 5; // past four levels of 64 ticks
+        wheel.schedule(9, start + beyond * TICK);
+
+        assertEquals(List.of(), advance(wheel, start + (beyond - 1) * TICK));
+        assertEquals(List.of(9L), advance(wheel, start + beyond * TICK));
+    }
+
+    @Test
+    void testAdvance_NeverEmitsEarlyOrLateForRandomDeadlines() {
+        Random random = new Random(42);
+        long start = 777_777 * TICK;
+        ReservationTimingWheel wheel = new ReservationTimingWheel(TICK, start);
+        Map<Long, Long> deadlineTicks = new HashMap<>();
+        for (long id = 0; id < 20_000; id++) {
+            long ticks = 1 + random.nextInt(300_000);
+            deadlineTicks.put(id, start / TICK + ticks);
+            wheel.schedule(id, start + ticks * TICK);
+        }
+
+        // Advance in uneven steps, as a scheduler running late would
+        long now = start;
+        while (!deadlineTicks.isEmpty()) {
+            now += (1 + random.nextInt(900)) * TICK;
+            long nowTick = now / TICK;
+            for (long id : advance(wheel, now)) {
+                Long deadline = deadlineTicks.remove(id);
+                assertNotNull(deadline, "emitted twice: " + id);
+                assertTrue(deadline <= nowTick, "emitted early: " + id);
+            }
+            for (long deadline : deadlineTicks.values()) {
+                assertTrue(deadline > nowTick, "missed a deadline");
+            }
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    private List<Long> advance(ReservationTimingWheel wheel, long nowMillis) {
+        List<Long> expired = new ArrayList<>();
+        wheel.advance(nowMillis, expired::add);
+        return expired;
+    }
+}
@@ -0,0 +1,134 @@
+package com.ecommerce.user.security;
+
+import com.ecommerce.user.entity.UserRole;
+import com.ecommerce.user.service.CustomUserDetailsService.CustomUserPrincipal;
+import com.ecommerce.user.util.JwtUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authenticates bearer tokens. A token is parsed and its signature verified
+ * once; the principal built from its claims is then cached under the
+ * token's SHA-256 hash until the token expires, so repeat requests neither
+ * re-verify the token nor read the user. Revocations are checked on every
+ * request, cached or not.
+ */
+@Component
+public class JwtClaimsCache {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final JwtUtil jwtUtil;
+    private final TokenRevocationService revocationService;
+    private final Cache<ByteBuffer, AuthenticatedToken> tokens;
+
+    @Autowired
+    public JwtClaimsCache(JwtUtil jwtUtil, TokenRevocationService revocationService,
+                          @Value("${jwt.claims-cache.maximum-size:10000}") long maximumSize) {
+        this.jwtUtil = jwtUtil;
+        this.revocationService = revocationService;
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new UntilTokenExpiry())
+                .build();
+    }
+
+    /**
+     * The principal a token authenticates, or null when it has been revoked
+     *
+     * @throws JwtException if the token is malformed, forged or expired
+     */
+    public CustomUserPrincipal authenticate(String token) {
+        ByteBuffer key = ByteBuffer.wrap(SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8)));
+        AuthenticatedToken authenticated = tokens.getIfPresent(key);
+        if (authenticated == null || authenticated.expiresAtMillis <= System.currentTimeMillis()) {
+            authenticated = parse(token);
+            tokens.put(key, authenticated);
+        }
+
+        if (revocationService.isRevoked(authenticated.principal.getUserId(), authenticated.issuedAtMillis)) {
+            return null;
+        }
+        return authenticated.principal;
+    }
+
+    /**
+     * Drop every cached token
+     */
+    public void clear() {
+        tokens.invalidateAll();
+    }
+
+    private AuthenticatedToken parse(String token) {
+        Claims claims = jwtUtil.extractAllClaims(token);
+        Long userId = claims.get("userId", Long.class);
+        String role = claims.get("role", String.class);
+        Date issuedAt = claims.getIssuedAt();
+        if (userId == null || role == null || claims.getSubject() == null || issuedAt == null) {
+            throw new MalformedJwtException("Token lacks the user claims");
+        }
+        UserRole userRole;
+        try {
+            userRole = UserRole.valueOf(role);
+        } catch (IllegalArgumentException e) {
+            throw new MalformedJwtException("Unknown role " + role);
+        }
+        return new AuthenticatedToken(new CustomUserPrincipal(userId, claims.getSubject(), userRole),
+                issuedAt.getTime(), claims.getExpiration().getTime());
+    }
+
+    private static final class AuthenticatedToken {
+        private final CustomUserPrincipal principal;
+        private final long issuedAtMillis;
+        private final long expiresAtMillis;
+
+        AuthenticatedToken(CustomUserPrincipal principal, long issuedAtMillis, long expiresAtMillis) {
+            this.principal = principal;
+            this.issuedAtMillis = issuedAtMillis;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    /**
+     * Keep each entry exactly as long as its token is valid
+     */
+    private static final class UntilTokenExpiry implements Expiry<ByteBuffer, AuthenticatedToken> {
+
+        @Override
+        public long expireAfterCreate(ByteBuffer key, AuthenticatedToken value, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, value.expiresAtMillis - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, AuthenticatedToken value, long currentTime,
+                                      long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, AuthenticatedToken value, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
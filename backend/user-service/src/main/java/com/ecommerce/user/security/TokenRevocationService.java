@@ -0,0 +1,150 @@
+package com.ecommerce.user.security;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tokens carry the user's id and role, so requests are authenticated without
+ * reading the user. When a user is deactivated or their role changes, every
+ * token issued to them up to that moment is revoked here instead.
+ *
+ * Revocations are checked against an in-memory map. They are also kept in
+ * Redis for as long as a refresh token can live, so nodes that start later
+ * load them, and they are broadcast over {@link #REVOCATION_CHANNEL} so
+ * running nodes apply them at once.
+ */
+@Service
+public class TokenRevocationService implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    public static final String REVOCATION_CHANNEL = "auth:user-revocation";
+    private static final String KEY_PREFIX = "auth:revoked-user:";
+    private static final int LOAD_BATCH = 500;
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final Duration retention;
+    // User id -> time (epoch millis) up to which their tokens are revoked
+    private final Map<Long, Long> revokedUntil = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TokenRevocationService(ObjectProvider<StringRedisTemplate> redisTemplate,
+                                  ObjectProvider<RedisMessageListenerContainer> listenerContainer,
+                                  @Value("${jwt.refresh.expiration:604800000}") long refreshExpirationMillis) {
+        this.redisTemplate = redisTemplate.getIfAvailable();
+        this.listenerContainer = listenerContainer.getIfAvailable();
+        this.retention = Duration.ofMillis(refreshExpirationMillis);
+    }
+
+    @PostConstruct
+    void init() {
+        if (listenerContainer != null) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(REVOCATION_CHANNEL));
+        }
+        if (redisTemplate == null) {
+            return;
+        }
+        try {
+            // SCAN rather than KEYS, so loading does not block Redis for other clients
+            ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(LOAD_BATCH).build();
+            try (Cursor<String> cursor = redisTemplate.scan(options)) {
+                List<String> batch = new ArrayList<>(LOAD_BATCH);
+                while (cursor.hasNext()) {
+                    batch.add(cursor.next());
+                    if (batch.size() == LOAD_BATCH) {
+                        load(batch);
+                        batch.clear();
+                    }
+                }
+                load(batch);
+            }
+            logger.info("Loaded {} token revocations", revokedUntil.size());
+        } catch (RuntimeException e) {
+            logger.warn("Failed to load token revocations; only revocations broadcast from now on apply", e);
+        }
+    }
+
+    private void load(List<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<String> values = redisTemplate.opsForValue().multiGet(keys);
+        for (int i = 0; i < keys.size() && values != null; i++) {
+            if (values.get(i) != null) {
+                record(Long.parseLong(keys.get(i).substring(KEY_PREFIX.length())), Long.parseLong(values.get(i)));
+            }
+        }
+    }
+
+    /**
+     * Revoke every token issued to the user until now
+     */
+    public void revokeUser(Long userId) {
+        long now = System.currentTimeMillis();
+        record(userId, now);
+        if (redisTemplate == null) {
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(KEY_PREFIX + userId, Long.toString(now), retention);
+            redisTemplate.convertAndSend(REVOCATION_CHANNEL, userId + "\n" + now);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to share revocation of user {}; other nodes accept their tokens until expiry", userId, e);
+        }
+    }
+
+    /**
+     * Whether a token issued to the user at the given time has been revoked.
+     * Token issue times have whole-second precision, so a token issued in
+     * the same second as a revocation counts as revoked.
+     */
+    public boolean isRevoked(Long userId, long issuedAtMillis) {
+        Long until = revokedUntil.get(userId);
+        if (until == null) {
+            return false;
+        }
+        if (until + retention.toMillis() < System.currentTimeMillis()) {
+            // Every token issued before the revocation has expired by now
+            revokedUntil.remove(userId, until);
+            return false;
+        }
+        return issuedAtMillis <= until;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\n", 2);
+        if (parts.length < 2) {
+            return;
+        }
+        try {
+            record(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring malformed token revocation message");
+        }
+    }
+
+    private void record(Long userId, long until) {
+        revokedUntil.merge(userId, until, Math::max);
+    }
+}
@@ -7,6 +7,7 @@ import com.ecommerce.user.dto.UpdateUserRequest;
 import com.ecommerce.user.entity.User;
 import com.ecommerce.user.entity.UserRole;
 import com.ecommerce.user.repository.UserRepository;
+import com.ecommerce.user.security.TokenRevocationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -31,6 +32,9 @@ public class AdminUserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
     
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+    
     private static final String TEMP_PASSWORD_CHARS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
     private static final int TEMP_PASSWORD_LENGTH = 12;
     
@@ -118,15 +122,23 @@ public class AdminUserService {
         if (request.getLastName() != null) {
             user.setLastName(request.getLastName());
         }
+        // Tokens carry the role and are only honoured for active users
+        boolean revokeTokens = false;
         if (request.getRole() != null) {
-            user.setRole(UserRole.valueOf(request.getRole()));
+            UserRole role = UserRole.valueOf(request.getRole());
+            revokeTokens = role != user.getRole();
+            user.setRole(role);
         }
         if (request.getIsActive() != null) {
+            revokeTokens |= Boolean.TRUE.equals(user.getIsActive()) && !request.getIsActive();
             user.setActive(request.getIsActive());
         }
         
         user.setUpdatedAt(LocalDateTime.now());
         User savedUser = userRepository.save(user);
+        if (revokeTokens) {
+            tokenRevocationService.revokeUser(userId);
+        }
         return convertToUserManagementDto(savedUser);
     }
     
@@ -138,6 +150,7 @@ public class AdminUserService {
         user.setActive(false);
         user.setUpdatedAt(LocalDateTime.now());
         userRepository.save(user);
+        tokenRevocationService.revokeUser(userId);
     }
     
     public UserManagementDto toggleUserStatus(Long userId) {
@@ -147,6 +160,9 @@ public class AdminUserService {
         user.setActive(!user.isActive());
         user.setUpdatedAt(LocalDateTime.now());
         User savedUser = userRepository.save(user);
+        if (!Boolean.TRUE.equals(savedUser.getIsActive())) {
+            tokenRevocationService.revokeUser(userId);
+        }
         return convertToUserManagementDto(savedUser);
     }
     
@@ -1,6 +1,7 @@
 package com.ecommerce.user.service;
 
 import com.ecommerce.user.entity.User;
+import com.ecommerce.user.entity.UserRole;
 import com.ecommerce.user.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.GrantedAuthority;
@@ -31,28 +32,52 @@ public class CustomUserDetailsService implements UserDetailsService {
         return new CustomUserPrincipal(user);
     }
     
+    /**
+     * Authenticated user. Built either from the user row (password login) or
+     * from the claims of a validated token, in which case no User is loaded
+     * and getUser() returns null.
+     */
     public static class CustomUserPrincipal implements UserDetails {
         private final User user;
+        private final Long userId;
+        private final String email;
+        private final UserRole role;
+        private final String passwordHash;
+        private final boolean active;
         
         public CustomUserPrincipal(User user) {
             this.user = user;
+            this.userId = user.getId();
+            this.email = user.getEmail();
+            this.role = user.getRole();
+            this.passwordHash = user.getPasswordHash();
+            this.active = Boolean.TRUE.equals(user.getIsActive());
+        }
+        
+        public CustomUserPrincipal(Long userId, String email, UserRole role) {
+            this.user = null;
+            this.userId = userId;
+            this.email = email;
+            this.role = role;
+            this.passwordHash = null;
+            this.active = true;
         }
         
         @Override
         public Collection<? extends GrantedAuthority> getAuthorities() {
             return Collections.singletonList(
-                new SimpleGrantedAuthority("ROLE_" + user.getRole().name())
+                new SimpleGrantedAuthority("ROLE_" + role.name())
             );
         }
         
         @Override
         public String getPassword() {
-            return user.getPasswordHash();
+            return passwordHash;
         }
         
         @Override
         public String getUsername() {
-            return user.getEmail();
+            return email;
         }
         
         @Override
@@ -62,7 +87,7 @@ public class CustomUserDetailsService implements UserDetailsService {
         
         @Override
         public boolean isAccountNonLocked() {
-            return user.getIsActive();
+            return active;
         }
         
         @Override
@@ -72,7 +97,7 @@ public class CustomUserDetailsService implements UserDetailsService {
         
         @Override
         public boolean isEnabled() {
-            return user.getIsActive();
+            return active;
         }
         
         public User getUser() {
@@ -80,11 +105,11 @@ public class CustomUserDetailsService implements UserDetailsService {
         }
         
         public Long getUserId() {
-            return user.getId();
+            return userId;
         }
         
         public String getRole() {
-            return user.getRole().name();
+            return role.name();
         }
     }
 }
\ No newline at end of file
@@ -6,7 +6,9 @@ import com.ecommerce.user.dto.RegisterRequest;
 import com.ecommerce.user.entity.User;
 import com.ecommerce.user.entity.UserRole;
 import com.ecommerce.user.repository.UserRepository;
+import com.ecommerce.user.security.TokenRevocationService;
 import com.ecommerce.user.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -17,6 +19,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,16 +31,19 @@ public class UserService {
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
     private final AuthenticationManager authenticationManager;
+    private final TokenRevocationService tokenRevocationService;
     
     @Autowired
     public UserService(UserRepository userRepository, 
                       PasswordEncoder passwordEncoder,
                       JwtUtil jwtUtil,
-                      AuthenticationManager authenticationManager) {
+                      AuthenticationManager authenticationManager,
+                      TokenRevocationService tokenRevocationService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtUtil = jwtUtil;
         this.authenticationManager = authenticationManager;
+        this.tokenRevocationService = tokenRevocationService;
     }
     
     public AuthResponse register(RegisterRequest request) {
@@ -125,16 +131,23 @@ public class UserService {
             throw new RuntimeException("Invalid refresh token");
         }
         
-        String email = jwtUtil.extractUsername(refreshToken);
-        Long userId = jwtUtil.extractUserId(refreshToken);
-        String role = jwtUtil.extractRole(refreshToken);
+        Claims claims = jwtUtil.extractAllClaims(refreshToken);
+        Long userId = claims.get("userId", Long.class);
+        Date issuedAt = claims.getIssuedAt();
+        // Refresh tokens issued before a deactivation or role change are revoked like access tokens
+        if (userId == null || issuedAt == null || tokenRevocationService.isRevoked(userId, issuedAt.getTime())) {
+            throw new RuntimeException("Invalid refresh token");
+        }
         
-        User user = userRepository.findByEmailAndIsActiveTrue(email)
+        User user = userRepository.findByEmailAndIsActiveTrue(claims.getSubject())
             .orElseThrow(() -> new RuntimeException("User not found or inactive"));
+        if (!user.getId().equals(userId)) {
+            throw new RuntimeException("Invalid refresh token");
+        }
         
-        // Generate new access token
-        String newAccessToken = jwtUtil.generateToken(email, userId, role);
-        String newRefreshToken = jwtUtil.generateRefreshToken(email, userId, role);
+        // Generate new tokens from the user as they are now, not from the old token's claims
+        String newAccessToken = jwtUtil.generateToken(user.getEmail(), user.getId(), user.getRole().name());
+        String newRefreshToken = jwtUtil.generateRefreshToken(user.getEmail(), user.getId(), user.getRole().name());
         
         return new AuthResponse(
             newAccessToken,
@@ -171,6 +184,7 @@ public class UserService {
             .orElseThrow(() -> new RuntimeException("User not found"));
         user.setIsActive(false);
         userRepository.save(user);
+        tokenRevocationService.revokeUser(userId);
     }
     
     public void activateUser(Long userId) {
@@ -0,0 +1,83 @@
+package com.ecommerce.user.security;
+
+import com.ecommerce.user.service.CustomUserDetailsService.CustomUserPrincipal;
+import com.ecommerce.user.util.JwtUtil;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JwtClaimsCacheTest {
+
+    private static final String SECRET = "myVerySecretKeyThatIsAtLeast256BitsLongForHS256Algorithm";
+
+    private JwtUtil jwtUtil;
+    private TokenRevocationService revocationService;
+    private JwtClaimsCache claimsCache;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = spy(new JwtUtil(SECRET, 60_000L, 600_000L));
+        // No Redis: revocations stay local to this node
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        revocationService = new TokenRevocationService(beans.getBeanProvider(StringRedisTemplate.class),
+                beans.getBeanProvider(RedisMessageListenerContainer.class), 600_000L);
+        claimsCache = new JwtClaimsCache(jwtUtil, revocationService, 100);
+    }
+
+    @Test
+    void testAuthenticate_BuildsPrincipalFromClaims() {
+        String token = jwtUtil.generateToken("jane@example.com", 42L, "ADMIN");
+
+        CustomUserPrincipal principal = claimsCache.authenticate(token);
+
+        assertEquals(42L, principal.getUserId());
+        assertEquals("jane@example.com", principal.getUsername());
+        assertEquals("ADMIN", principal.getRole());
+        assertEquals("ROLE_ADMIN", principal.getAuthorities().iterator().next().getAuthority());
+        assertNull(principal.getUser());
+    }
+
+    @Test
+    void testAuthenticate_ParsesEachTokenOnce() {
+        String token = jwtUtil.generateToken("jane@example.com", 42L, "CUSTOMER");
+
+        for (int i = 0; i < 5; i++) {
+            assertNotNull(claimsCache.authenticate(token));
+        }
+
+        verify(jwtUtil, times(1)).extractAllClaims(token);
+    }
+
+    @Test
+    void testAuthenticate_RejectsForgedAndExpiredTokens() {
+        String token = jwtUtil.generateToken("jane@example.com", 42L, "CUSTOMER");
+        String forged = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        JwtUtil expiredIssuer = new JwtUtil(SECRET, -1_000L, -1_000L);
+
+        assertThrows(JwtException.class, () -> claimsCache.authenticate(forged));
+        assertThrows(JwtException.class,
+                () -> claimsCache.authenticate(expiredIssuer.generateToken("jane@example.com", 42L, "CUSTOMER")));
+    }
+
+    @Test
+    void testRevokedUser_IsRejectedEvenWhenCached() throws Exception {
+        String token = jwtUtil.generateToken("jane@example.com", 42L, "CUSTOMER");
+        String otherUsersToken = jwtUtil.generateToken("john@example.com", 7L, "CUSTOMER");
+        assertNotNull(claimsCache.authenticate(token));
+
+        revocationService.revokeUser(42L);
+
+        assertNull(claimsCache.authenticate(token));
+        assertNotNull(claimsCache.authenticate(otherUsersToken));
+
+        // Token issue times have whole-second precision, so log in again in the next second
+        Thread.sleep(1_000 - System.currentTimeMillis() % 1_000 + 10);
+        assertNotNull(claimsCache.authenticate(jwtUtil.generateToken("jane@example.com", 42L, "CUSTOMER")));
+    }
+}
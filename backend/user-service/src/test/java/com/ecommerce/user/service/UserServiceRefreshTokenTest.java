@@ -0,0 +1,87 @@
+package com.ecommerce.user.service;
+
+import com.ecommerce.user.dto.AuthResponse;
+import com.ecommerce.user.entity.User;
+import com.ecommerce.user.entity.UserRole;
+import com.ecommerce.user.repository.UserRepository;
+import com.ecommerce.user.security.TokenRevocationService;
+import com.ecommerce.user.util.JwtUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Refreshed tokens must carry the user's current role, and refresh tokens
+ * issued before a revocation must not yield new tokens
+ */
+class UserServiceRefreshTokenTest {
+
+    private static final String SECRET = "myVerySecretKeyThatIsAtLeast256BitsLongForHS256Algorithm";
+
+    private JwtUtil jwtUtil;
+    private TokenRevocationService revocationService;
+    private UserRepository userRepository;
+    private UserService userService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil(SECRET, 60_000L, 600_000L);
+        // No Redis: revocations stay local to this node
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        revocationService = new TokenRevocationService(beans.getBeanProvider(StringRedisTemplate.class),
+                beans.getBeanProvider(RedisMessageListenerContainer.class), 600_000L);
+        userRepository = mock(UserRepository.class);
+        userService = new UserService(userRepository, mock(PasswordEncoder.class), jwtUtil,
+                mock(AuthenticationManager.class), revocationService);
+
+        user = new User();
+        user.setId(42L);
+        user.setEmail("jane@example.com");
+        user.setFirstName("Jane");
+        user.setLastName("Doe");
+        user.setRole(UserRole.ADMIN);
+        when(userRepository.findByEmailAndIsActiveTrue("jane@example.com")).thenReturn(Optional.of(user));
+    }
+
+    @Test
+    void testRefreshAfterDemotion_RejectsRefreshTokenIssuedBefore() {
+        String refreshToken = jwtUtil.generateRefreshToken("jane@example.com", 42L, "ADMIN");
+
+        // Demoted by an admin, which revokes every token issued so far
+        user.setRole(UserRole.CUSTOMER);
+        revocationService.revokeUser(42L);
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> userService.refreshToken(refreshToken));
+        assertEquals("Invalid refresh token", exception.getMessage());
+    }
+
+    @Test
+    void testRefresh_IssuesTokensWithCurrentRole() {
+        String refreshToken = jwtUtil.generateRefreshToken("jane@example.com", 42L, "ADMIN");
+        user.setRole(UserRole.CUSTOMER);
+
+        AuthResponse response = userService.refreshToken(refreshToken);
+
+        assertEquals("CUSTOMER", jwtUtil.extractRole(response.getAccessToken()));
+        assertEquals("CUSTOMER", jwtUtil.extractRole(response.getRefreshToken()));
+        assertEquals(42L, jwtUtil.extractUserId(response.getAccessToken()));
+    }
+
+    @Test
+    void testRefresh_RejectsTokenOfAnotherUserId() {
+        String refreshToken = jwtUtil.generateRefreshToken("jane@example.com", 7L, "CUSTOMER");
+
+        assertThrows(RuntimeException.class, () -> userService.refreshToken(refreshToken));
+    }
+}
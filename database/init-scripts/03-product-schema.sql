@@ -51,6 +51,19 @@ CREATE TABLE product_inventory (
     INDEX idx_available (quantity_available)
 );
 
+-- Outstanding inventory reservations; a row is deleted when its hold is
+-- released, confirmed or expires
+CREATE TABLE inventory_reservations (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    product_id BIGINT NOT NULL,
+    quantity INT NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE CASCADE,
+    INDEX idx_reservation_expires (expires_at),
+    INDEX idx_reservation_product (product_id, expires_at)
+);
+
 -- Product images table
 CREATE TABLE product_images (
     id BIGINT PRIMARY KEY AUTO_INCREMENT,
@@ -71,4 +71,17 @@ CREATE TABLE order_status_history (
     INDEX idx_order (order_id),
     INDEX idx_status (new_status),
     INDEX idx_created_at (created_at)
-);
\ No newline at end of file
+);
+
+-- Order statistics rollups: orders and revenue by creation hour/day and current status,
+-- spread over shards so concurrent orders do not all update one row
+CREATE TABLE order_stats_rollup (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    granularity VARCHAR(8) NOT NULL,
+    period_start DATETIME NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    shard INT NOT NULL DEFAULT 0,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    total_amount DECIMAL(16,2) NOT NULL DEFAULT 0,
+    UNIQUE KEY uk_order_stats_rollup (granularity, period_start, status, shard)
+);
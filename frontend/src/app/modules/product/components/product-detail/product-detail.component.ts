@@ -5,6 +5,7 @@ import { FormsModule } from '@angular/forms';
 import { Subject, takeUntil } from 'rxjs';
 import { Product, ProductImage } from '../../models/product.models';
 import { ProductService } from '../../services/product.service';
+import { WebSocketService } from '../../../../shared/services/websocket.service';
 
 @Component({
   selector: 'app-product-detail',
@@ -227,18 +228,34 @@ export class ProductDetailComponent implements OnInit, OnDestroy {
   addingToWishlist = false;
 
   private destroy$ = new Subject<void>();
+  // Product whose stock changes this view receives while it is open
+  private watchedProductId: number | null = null;
+  private watchSubscriptionId = '';
 
   constructor(
     private productService: ProductService,
     private route: ActivatedRoute,
-    private router: Router
+    private router: Router,
+    private webSocketService: WebSocketService
   ) {}
 
   ngOnInit(): void {
     this.initializeComponent();
+
+    // Subscriptions do not survive a reconnect: watch again once connected
+    this.webSocketService.getConnectionStatus().pipe(
+      takeUntil(this.destroy$)
+    ).subscribe(status => {
+      if (!status.connected) {
+        this.watchSubscriptionId = '';
+      } else if (!this.watchSubscriptionId && this.watchedProductId !== null) {
+        this.watchSubscriptionId = this.webSocketService.watchProduct(this.watchedProductId);
+      }
+    });
   }
 
   ngOnDestroy(): void {
+    this.unwatchProduct();
     this.destroy$.next();
     this.destroy$.complete();
   }
@@ -259,9 +276,28 @@ export class ProductDetailComponent implements OnInit, OnDestroy {
     }
   }
 
+  private watchProduct(id: number): void {
+    if (this.watchedProductId === id && this.watchSubscriptionId) return;
+
+    this.unwatchProduct();
+    this.watchedProductId = id;
+    if (this.webSocketService.isConnected()) {
+      this.watchSubscriptionId = this.webSocketService.watchProduct(id);
+    }
+  }
+
+  private unwatchProduct(): void {
+    if (this.watchSubscriptionId) {
+      this.webSocketService.unwatchProduct(this.watchSubscriptionId);
+      this.watchSubscriptionId = '';
+    }
+    this.watchedProductId = null;
+  }
+
   private loadProduct(id: number): void {
     this.loading = true;
     this.error = null;
+    this.watchProduct(id);
 
     this.productService.getProductById(id).pipe(
       takeUntil(this.destroy$)
@@ -223,6 +223,18 @@ export class WebSocketService {
     this.send('/app/cart/clear', {});
   }
 
+  /**
+   * Product view methods: while subscribed, inventory changes to the product
+   * arrive on /user/queue/inventory-updates
+   */
+  watchProduct(productId: number): string {
+    return this.subscribe(`/user/queue/products/${productId}`, () => {});
+  }
+
+  unwatchProduct(subscriptionId: string): void {
+    this.unsubscribe(subscriptionId);
+  }
+
   /**
    * Admin dashboard methods
    */